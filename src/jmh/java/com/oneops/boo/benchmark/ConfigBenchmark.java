@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.benchmark;
+
+import com.oneops.boo.ClientConfigInterpolator;
+import com.oneops.boo.ClientConfigReader;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.boo.yaml.Yaml;
+import com.oneops.boo.yaml.helper.PlatformBeanHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a boo YAML: interpolating the template, reading it into a {@link Yaml} and building its
+ * platforms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigBenchmark {
+
+  @Param({"10", "100", "500"})
+  public int platforms;
+
+  private final ClientConfigInterpolator interpolator = new ClientConfigInterpolator();
+  private final ClientConfigReader reader = new ClientConfigReader();
+  private final Map<String, String> values = Fixtures.values();
+  private String template;
+  private String yaml;
+  private Map<String, Object> platformsMap;
+
+  @Setup
+  public void setUp() throws IOException {
+    template = Fixtures.yaml(platforms);
+    yaml = interpolator.interpolate(template, values);
+    platformsMap = reader.read(yaml).getPlatforms();
+  }
+
+  @Benchmark
+  public String interpolate() throws IOException {
+    return interpolator.interpolate(template, values);
+  }
+
+  @Benchmark
+  public Yaml read() throws IOException {
+    return reader.read(yaml);
+  }
+
+  @Benchmark
+  public List<PlatformBean> getPlatforms() {
+    return PlatformBeanHelper.getPlatforms(platformsMap);
+  }
+}
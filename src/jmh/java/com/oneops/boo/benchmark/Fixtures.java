@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic inputs, sized like the largest assemblies and environments boo manages.
+ */
+final class Fixtures {
+
+  private Fixtures() {}
+
+  /**
+   * Gets a boo YAML template, with the placeholders {@link #values()} fills in.
+   *
+   * @param platforms the number of platforms
+   * @return the template
+   */
+  static String yaml(int platforms) {
+    StringBuilder yaml = new StringBuilder();
+    yaml.append("boo:\n")
+        .append("  oneops_host: '{{host}}'\n")
+        .append("  organization: '{{organization}}'\n")
+        .append("  api_key: '{{api_key}}'\n")
+        .append("  email: '{{email}}'\n")
+        .append("  environment_name: 'dev'\n")
+        .append("assembly:\n")
+        .append("  name: 'benchmark'\n")
+        .append("  auto_gen: false\n")
+        .append("variables:\n")
+        .append("  domain: '{{organization}}.example.com'\n")
+        .append("platforms:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("  app").append(i).append(":\n")
+          .append("    deploy_order: ").append(i % 4 + 1).append('\n')
+          .append("    pack: oneops/tomcat\n")
+          .append("    pack_version: '1'\n")
+          .append("    variables:\n");
+      for (int v = 0; v < 10; v++) {
+        yaml.append("      var").append(v).append(": 'value-").append(v).append("'\n");
+      }
+      yaml.append("    encrypted_variables:\n")
+          .append("      secret: '{{api_key}}'\n")
+          .append("    components:\n")
+          .append("      artifact:\n")
+          .append("        artifact-app:\n")
+          .append("          repository: releases\n")
+          .append("          location: com.example:app").append(i).append(":war\n")
+          .append("          version: '1.0.").append(i).append("'\n")
+          .append("      tomcat:\n")
+          .append("        version: '7.0'\n")
+          .append("        mirrors: '[\"http://mirror.example.com/apache/\"]'\n")
+          .append("      compute:\n")
+          .append("        size: M\n")
+          .append("      os:\n")
+          .append("        ostype: 'centos-7.2'\n")
+          .append("      user:\n")
+          .append("        user-app:\n")
+          .append("          username: 'app'\n")
+          .append("          authorized_keys: '[\"ssh-rsa AAAAB3NzaC1yc2E ").append(i)
+          .append("\"]'\n");
+    }
+    yaml.append("scale:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("  app").append(i).append(":\n")
+          .append("    scaling:\n")
+          .append("      compute:\n")
+          .append("        current: '2'\n")
+          .append("        min: '2'\n")
+          .append("        max: '10'\n");
+    }
+    yaml.append("environment:\n")
+        .append("  global_dns: 'true'\n")
+        .append("  availability: 'redundant'\n")
+        .append("  profile: 'DEV'\n")
+        .append("  platforms:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("    app").append(i).append(":\n")
+          .append("      components:\n")
+          .append("        lb:\n")
+          .append("          ecv_map: '{\"8080\":\"GET /\"}'\n");
+    }
+    yaml.append("  clouds:\n");
+    for (int c = 0; c < 3; c++) {
+      yaml.append("    {{cloud}}").append(c).append(":\n")
+          .append("      priority: '").append(c == 0 ? 1 : 2).append("'\n")
+          .append("      dpmt_order: '").append(c + 1).append("'\n")
+          .append("      pct_scale: '100'\n");
+    }
+    return yaml.toString();
+  }
+
+  /**
+   * Gets the values of the placeholders of {@link #yaml(int)}.
+   *
+   * @return the values
+   */
+  static Map<String, String> values() {
+    Map<String, String> values = new HashMap<String, String>();
+    values.put("host", "https://oneops.example.com/");
+    values.put("organization", "benchmark");
+    values.put("api_key", "0123456789abcdef");
+    values.put("email", "boo@example.com");
+    values.put("cloud", "dc1-cloud");
+    return values;
+  }
+
+  /**
+   * Gets the instances of a component, as the operations API lists them.
+   *
+   * @param count the number of instances
+   * @return the IPs of the instances
+   */
+  static List<Map<String, String>> ips(int count) {
+    List<Map<String, String>> ips = new ArrayList<Map<String, String>>(count);
+    for (int i = 0; i < count; i++) {
+      Map<String, String> ip = new LinkedHashMap<String, String>();
+      ip.put("private_ip", "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255));
+      ip.put("public_ip", "192.0." + (i >> 8 & 255) + "." + (i & 255));
+      ip.put("hostname", "compute-" + i + ".dev.benchmark.example.com");
+      ips.add(ip);
+    }
+    return ips;
+  }
+
+  /**
+   * Gets the attributes of a component.
+   *
+   * @param count the number of attributes
+   * @return the attributes
+   */
+  static Map<String, String> attributes(int count) {
+    Map<String, String> attributes = new HashMap<String, String>();
+    for (int i = 0; i < count; i++) {
+      attributes.put("attribute" + i, "[\"value-" + i + "\", \"" + i * 31 + "\"]");
+    }
+    return attributes;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.benchmark;
+
+import com.oneops.boo.utils.BooUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting the IPs of --get-ips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IpsBenchmark {
+
+  @Param({"10000"})
+  public int instances;
+
+  private final BooUtils utils = new BooUtils();
+  private List<Map<String, String>> ips;
+
+  @Setup
+  public void setUp() {
+    ips = Fixtures.ips(instances);
+  }
+
+  @Benchmark
+  public String parseIpsDefaultSplit() {
+    return utils.parseIps(null, "[private_ip]{" + instances + "}", ips);
+  }
+
+  @Benchmark
+  public String parseIpsCustom() {
+    return utils.parseIps("\n", "[hostname]:8080{" + instances + "}", ips);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.benchmark;
+
+import com.oneops.client.api.ResourceObject;
+import com.oneops.client.api.util.JsonUtil;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the request body of a component update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonUtilBenchmark {
+
+  @Param({"10", "200"})
+  public int attributes;
+
+  private final ResourceObject ro = new ResourceObject();
+
+  @Setup
+  public void setUp() {
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put("ciId", "1234567");
+    properties.put("ciName", "tomcat");
+    ro.setProperties(properties);
+    ro.setAttributes(Fixtures.attributes(attributes));
+    Map<String, String> owner = new HashMap<String, String>();
+    for (String key : ro.getAttributes().keySet()) {
+      owner.put(key, "design");
+    }
+    ro.setOwnerProps(owner);
+  }
+
+  @Benchmark
+  public String createJsonObject() {
+    JSONObject json = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    // Requests send the body as a string.
+    return json.toString();
+  }
+}
@@ -19,9 +19,17 @@ import com.google.inject.Injector;
 import com.jayway.restassured.RestAssured;
 import com.oneops.boo.exception.BooException;
 import com.oneops.boo.workflow.BuildAllPlatforms;
+import com.oneops.boo.workflow.RollingProcedure;
+import com.oneops.boo.workflow.RunContext;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.metrics.Tracer.Span;
+import com.oneops.client.api.transport.TransportPool;
+import com.oneops.client.api.util.MetadataCache;
+import com.oneops.client.api.util.Poller;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -33,14 +41,19 @@ import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Class BooCli.
@@ -50,14 +63,11 @@ public class BooCli {
   /** The Constant LOG. */
   private static final Logger LOG = LoggerFactory.getLogger(BooCli.class);
 
-  /** The is quiet. */
-  private static boolean isQuiet = false;
+  /** The options of the workflows of this command. */
+  private RunContext context = RunContext.DEFAULT;
 
-  /** The is forced. */
-  private static boolean isForced = false;
-
-  /** The is no deploy. */
-  private static boolean isNoDeploy = false;
+  /** The logs of this command. */
+  private LogUtils log = LogUtils.VERBOSE;
 
   /** The Constant YES_NO. */
   private static final String YES_NO =
@@ -86,10 +96,50 @@ public class BooCli {
 
   private String profile = ClientConfig.ONEOPS_DEFAULT_PROFILE;
 
+  /** Transports kept warm across commands, or null to use one per workflow. */
+  private final TransportPool transports;
+
+  /** The metadata cache, opened by the first workflow. */
+  private MetadataCache metadataCache;
+
+  /** Whether to drop the cached metadata before using it. */
+  private boolean refreshCache;
+
+  /** Accounting of the API calls of this command. */
+  private ApiMetrics apiMetrics = ApiMetrics.NONE;
+
+  /** Whether to print the API call summary at exit. */
+  private boolean isMetricsPrinted;
+
+  /** Where to write the API calls as JSON at exit, or null. */
+  private File metricsOut;
+
+  /** Spans of the workflow steps and API calls of this command. */
+  private Tracer tracer = Tracer.NONE;
+
+  /** Where to write the spans as a Chrome trace at exit, or null. */
+  private File traceOut;
+
+  /** The values of the YAML placeholders, or null to read them from the profile. */
+  private Map<String, String> variables;
+
+  /** How many auto-generated assemblies to update or remove at a time. */
+  private int parallelism = 1;
+
   /**
    * Instantiates a new boo cli.
    */
   public BooCli() {
+    this(null);
+  }
+
+  /**
+   * Instantiates a new boo cli whose workflows share warm transports.
+   *
+   * @param transports the transports, or null to use one per workflow
+   */
+  public BooCli(TransportPool transports) {
+    this.transports = transports;
     Option help = new Option("h", "help", false, "show help.");
     Option create = Option.builder("c").longOpt("create")
         .desc(
@@ -97,8 +147,16 @@ public class BooCli {
         .build();
     Option update = Option.builder("u").longOpt("update")
         .desc("Update configurations specified by -f.").build();
+    Option plan = Option.builder().longOpt("plan")
+        .desc("Show the changes -u would make to the configurations specified by -f, and stop.")
+        .build();
     Option status = Option.builder("s").longOpt("status")
         .desc("Get status of deployments specified by -f").build();
+    Option all = Option.builder().longOpt("all")
+        .desc("With -s, get status of all auto-generated assemblies specified by -f.").build();
+    Option output = Option.builder().longOpt("output").argName("FORMAT").hasArg()
+        .desc("Print -s --all as table or json, default is table; print --get-ips as text,"
+            + " custom, jsonl or csv, default is text.").build();
 
     Option config = Option.builder("f").longOpt("config-file").argName("FILE").hasArg()
         .desc("Use specified Boo YAML file").build();
@@ -120,6 +178,9 @@ public class BooCli {
 
     Option retry = Option.builder().longOpt("retry")
         .desc("Retry deployments of configurations specified by -f").build();
+    Option watch = Option.builder().longOpt("watch")
+        .desc("Follow the deployment until it ends, after -c, -u or --retry or on its own.")
+        .build();
     Option quiet = Option.builder().longOpt("quiet").desc("Silence the textual output.").build();
     Option assembly = Option.builder("a").longOpt("assembly").hasArg()
         .desc("Override the assembly name.").build();
@@ -137,6 +198,19 @@ public class BooCli {
                 "Comma-separated list of component instance names. 'list' to show all available component instances.")
             .build();
 
+    Option batch = Option.builder().longOpt("procedure-batch").argName("size").hasArg()
+        .desc("Run the procedure a batch of size instances, or a percent like 10%, at a time.")
+        .build();
+    Option batchParallel = Option.builder().longOpt("procedure-parallel").argName("N").hasArg()
+        .desc("Run up to N batches of the procedure at a time, default is 1.").build();
+    Option maxFailures = Option.builder().longOpt("procedure-max-failures").argName("count")
+        .hasArg().desc("Stop the batches once more instances failed, a count or a percent, "
+            + "default is 0.")
+        .build();
+    Option batchTimeout = Option.builder().longOpt("procedure-batch-timeout").argName("minutes")
+        .hasArg().desc("Cancel a batch still running after the given minutes.").build();
+    Option follow = Option.builder().longOpt("follow")
+        .desc("Print the logs of the --procedure actions as they run.").build();
     Option stepSize = Option.builder().longOpt("procedure-step-size").argName("size").hasArg()
         .desc("Percent of nodes to perform procedure on, default is 100.").build();
     Option comment = Option.builder("m").longOpt("message").argName("description").hasArg()
@@ -145,16 +219,39 @@ public class BooCli {
         Option.builder("v").longOpt("view").desc("View interpolated Boo YAML template").build();
     Option profile = Option.builder("p").longOpt("profile").argName("PROFILE").hasArg()
         .desc("Choose specific profile from ~/.boo/config").build();
+    Option daemon = Option.builder().longOpt("daemon")
+        .desc("Keep serving boo commands from this process, so later commands skip the startup.")
+        .build();
+    Option noDaemon = Option.builder().longOpt("no-daemon")
+        .desc("Run in this process even if a boo daemon is running.").build();
+    Option refreshCache = Option.builder().longOpt("refresh-cache")
+        .desc("Ignore cached OneOps metadata and look it up again.").build();
+    Option metrics = Option.builder().longOpt("metrics")
+        .desc("Print the calls, latencies and time of each OneOps API endpoint at exit.").build();
+    Option metricsOut = Option.builder().longOpt("metrics-out").argName("FILE").hasArg()
+        .desc("Write the OneOps API call metrics as JSON to FILE at exit.").build();
+    Option traceOut = Option.builder().longOpt("trace-out").argName("FILE").hasArg()
+        .desc("Write the workflow steps and OneOps API calls as a Chrome trace to FILE at exit.")
+        .build();
+    Option parallel = Option.builder().longOpt("parallel").argName("N").hasArg()
+        .desc("Update or remove up to N auto-generated assemblies at a time, default is 1, or"
+            + " read N assemblies for -s --all, or N computes for --get-ips, at a time, default is "
+            + FleetStatus.DEFAULT_PARALLELISM + ".")
+        .build();
 
     options.addOption(help);
     options.addOption(config);
     options.addOption(create);
     options.addOption(update);
+    options.addOption(plan);
     options.addOption(status);
+    options.addOption(all);
+    options.addOption(output);
     options.addOption(list);
     options.addOption(cleanup);
     options.addOption(getIps);
     options.addOption(retry);
+    options.addOption(watch);
     options.addOption(quiet);
     options.addOption(force);
     options.addOption(nodeploy);
@@ -163,15 +260,147 @@ public class BooCli {
     options.addOption(procedureArguments);
     options.addOption(instanceList);
     options.addOption(stepSize);
+    options.addOption(follow);
+    options.addOption(batch);
+    options.addOption(batchParallel);
+    options.addOption(maxFailures);
+    options.addOption(batchTimeout);
     options.addOption(comment);
     options.addOption(view);
     options.addOption(profile);
+    options.addOption(daemon);
+    options.addOption(noDaemon);
+    options.addOption(refreshCache);
+    options.addOption(metrics);
+    options.addOption(metricsOut);
+    options.addOption(traceOut);
+    options.addOption(parallel);
   }
 
   static {
     RestAssured.useRelaxedHTTPSValidation();
   }
 
+  /**
+   * Gets a OneOps instance sharing the metadata cache, metrics and tracer of this command. The
+   * cache is opened by the first instance, before any fleet runs.
+   *
+   * @param config the config
+   * @param pool the transports to share, or null to use one for the instance
+   * @return the instance
+   */
+  private OOInstance newInstance(ClientConfig config, TransportPool pool) {
+    OOInstance oo = injector.getInstance(OOInstance.class);
+    oo.setGzipEnabled(config.getYaml().getBoo().isGzipEnabled());
+    if (pool != null) {
+      oo.setTransport(pool.get(oo));
+    }
+    if (metadataCache == null) {
+      metadataCache = MetadataCache.of(oo.getEndpoint(), oo.getOrgname());
+      if (refreshCache) {
+        metadataCache.clear();
+      }
+    }
+    oo.setMetadataCache(metadataCache);
+    oo.setApiMetrics(apiMetrics);
+    oo.setTracer(tracer);
+    return oo;
+  }
+
+  /**
+   * Gets a workflow of its own for an assembly of a fleet, with a config of its own, so workflows
+   * can run side by side.
+   *
+   * @param assembly the assembly
+   * @param pool the transports shared by the fleet
+   * @return the workflow
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private BuildAllPlatforms newFlow(String assembly, TransportPool pool)
+      throws IOException, OneOpsClientAPIException {
+    ClientConfig fleetConfig = variables != null ? new ClientConfig(configFile, variables)
+        : new ClientConfig(configFile, profile);
+    fleetConfig.getYaml().getAssembly().setName(assembly);
+    return new BuildAllPlatforms(this.newInstance(fleetConfig, pool), fleetConfig, comment,
+        context);
+  }
+
+  /**
+   * Runs a command on assemblies, {@link #parallelism} at a time, and prints the outcome of each.
+   *
+   * @param name the command, for the trace
+   * @param assemblies the assemblies
+   * @param work the command, given the workflow of an assembly
+   * @return the exit code
+   */
+  private int runFleet(String name, List<String> assemblies, FleetWork work) {
+    log.info(Constants.FLEET_STARTING, assemblies.size(),
+        Math.min(parallelism, assemblies.size()));
+    // Assemblies share connections, and the concurrency limit of the endpoint.
+    TransportPool pool = transports != null ? transports : new TransportPool();
+    try {
+      List<Fleet.Result> results = new Fleet(parallelism, tracer).run(name, assemblies,
+          assembly -> work.run(assembly, this.newFlow(assembly, pool)));
+      return Fleet.print(results, System.out) ? Constants.EXIT_NORMAL : Constants.EXIT_PARTIAL;
+    } finally {
+      if (pool != transports) {
+        pool.close();
+      }
+    }
+  }
+
+  /**
+   * Prints the latest deployment of every assembly specified by -f, reading them concurrently.
+   *
+   * @param format table or json
+   * @param statusParallelism how many assemblies to read at a time
+   * @return the exit code
+   */
+  private int fleetStatus(String format, int statusParallelism) {
+    boolean isJson = "json".equalsIgnoreCase(format);
+    if (!isJson && !"table".equalsIgnoreCase(format)) {
+      System.err.println("Wrong parameters! --output table|json");
+      return Constants.EXIT_WRONG_PRAMETER;
+    }
+    String prefix = config.getYaml().getAssembly().getName();
+    if (prefix == null || prefix.trim().length() == 0) {
+      System.err.println(Constants.ASSEMBLY_PREFIX_ERROR);
+      return Constants.EXIT_WRONG_PRAMETER;
+    }
+    List<String> assemblies = flow.getAllAutoGenAssemblies(prefix);
+    if (assemblies == null) {
+      // None in the organization.
+      assemblies = Collections.emptyList();
+    }
+    if (!isJson) {
+      log.info(Constants.STATUS_STARTING, assemblies.size(),
+          Math.min(statusParallelism, assemblies.size()));
+    }
+    // Reads share connections, and the concurrency limit of the endpoint.
+    TransportPool pool = transports != null ? transports : new TransportPool();
+    try {
+      long start = System.nanoTime();
+      List<FleetStatus.Row> rows = new FleetStatus(this.newInstance(config, pool),
+          config.getYaml().getBoo().getEnvName(), statusParallelism, tracer).fetch(assemblies);
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      boolean isRead = isJson ? FleetStatus.printJson(rows, millis, System.out)
+          : FleetStatus.printTable(rows, millis, System.out);
+      return isRead ? Constants.EXIT_NORMAL : Constants.EXIT_PARTIAL;
+    } finally {
+      if (pool != transports) {
+        pool.close();
+      }
+    }
+  }
+
+  /**
+   * A command on the workflow of one assembly of a fleet.
+   */
+  private interface FleetWork {
+    boolean run(String assembly, BuildAllPlatforms flow) throws Exception;
+  }
+
   /**
    * Inits the YAML template.
    *
@@ -185,6 +414,7 @@ public class BooCli {
     }
 
     this.configFile = template;
+    this.variables = variables;
     if (variables != null) {
       injector = Guice.createInjector(new JaywayHttpModule(this.configFile, variables));
     } else {
@@ -205,13 +435,15 @@ public class BooCli {
    * @param assembly the assembly
    */
   public void initOo(ClientConfig config, String assembly, String comment) {
-    OOInstance oo = injector.getInstance(OOInstance.class);
-    oo.setGzipEnabled(config.getYaml().getBoo().isGzipEnabled());
+    OOInstance oo = this.newInstance(config, transports);
     try {
       if (assembly != null) {
         config.getYaml().getAssembly().setName(assembly);
       }
-      flow = new BuildAllPlatforms(oo, config, comment);
+      if (flow != null) {
+        this.closeTransport();
+      }
+      flow = new BuildAllPlatforms(oo, config, comment, context);
     } catch (OneOpsClientAPIException e) {
       System.err.println("Init failed with " + e.getMessage());
     }
@@ -228,6 +460,7 @@ public class BooCli {
   public int parse(String[] arg) throws ParseException, BooException, OneOpsClientAPIException {
     CommandLineParser parser = new DefaultParser();
     int exit = 0;
+    Span command = null;
     // CommandLineParser parser = new GnuParser();
     try {
 
@@ -241,15 +474,35 @@ public class BooCli {
         return exit;
       }
 
-      if (cmd.hasOption("quiet")) {
-        BooCli.setQuiet(Boolean.TRUE);
+      this.context = new RunContext(cmd.hasOption("quiet"), cmd.hasOption("force"),
+          cmd.hasOption("no-deploy"));
+      this.log = context.getLog();
+      if (cmd.hasOption("refresh-cache")) {
+        this.refreshCache = true;
       }
-
-      if (cmd.hasOption("force")) {
-        BooCli.setForced(Boolean.TRUE);
+      if (cmd.hasOption("metrics") || cmd.hasOption("metrics-out")) {
+        this.apiMetrics = new ApiMetrics();
+        this.isMetricsPrinted = cmd.hasOption("metrics");
+        if (cmd.hasOption("metrics-out")) {
+          this.metricsOut = new File(booUtils.getAbsolutePath(cmd.getOptionValue("metrics-out")));
+        }
       }
-      if (cmd.hasOption("no-deploy")) {
-        BooCli.setNoDeploy(Boolean.TRUE);
+      if (cmd.hasOption("trace-out")) {
+        this.tracer = new Tracer();
+        this.traceOut = new File(booUtils.getAbsolutePath(cmd.getOptionValue("trace-out")));
+        command = tracer.begin("command", "boo " + String.join(" ", arg));
+      }
+
+      if (cmd.hasOption("parallel")) {
+        try {
+          this.parallelism = Integer.parseInt(cmd.getOptionValue("parallel"));
+        } catch (NumberFormatException e) {
+          this.parallelism = 0;
+        }
+        if (parallelism < 1) {
+          System.err.println("Wrong parameters! --parallel needs a positive number");
+          return Constants.EXIT_WRONG_PRAMETER;
+        }
       }
 
       if (cmd.hasOption("a")) {
@@ -312,7 +565,10 @@ public class BooCli {
       /**
        * Handle other commands.
        */
-      if (cmd.hasOption("s")) {
+      if (cmd.hasOption("s") && cmd.hasOption("all")) {
+        exit = this.fleetStatus(cmd.getOptionValue("output", "table"),
+            cmd.hasOption("parallel") ? parallelism : FleetStatus.DEFAULT_PARALLELISM);
+      } else if (cmd.hasOption("s")) {
         if (!flow.isAssemblyExist()) {
           System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
           return Constants.EXIT_ASSEMBLY_NOT_FOUND;
@@ -321,26 +577,41 @@ public class BooCli {
         }
       } else if (cmd.hasOption("c")) {
         if (config.getYaml().getAssembly().getAutoGen()) {
+          // A failed create is continued under the name it generated.
+          String prefix = config.getYaml().getAssembly().getName();
+          String name = flow.getJournaledAssembly();
           this.initOo(this.config,
-              this.autoGenAssemblyName(config.getYaml().getAssembly().getAutoGen(),
-                  config.getYaml().getAssembly().getName()),
-              comment);
-          LogUtils.info(Constants.CREATING_ASSEMBLY, config.getYaml().getAssembly().getName());
+              name != null ? name : this.autoGenAssemblyName(true, prefix), comment);
+          flow.journalUnder(prefix);
+          log.info(Constants.CREATING_ASSEMBLY, config.getYaml().getAssembly().getName());
         }
-        this.createPacks(Boolean.FALSE, isNoDeploy);
-      } else if (cmd.hasOption("u")) {
+        this.createPacks(Boolean.FALSE, context.isNoDeploy());
+        if (cmd.hasOption("watch") && !context.isNoDeploy()) {
+          exit = this.watch();
+        }
+      } else if (cmd.hasOption("u") || cmd.hasOption("plan")) {
+        boolean isPlan = cmd.hasOption("plan");
         if (!config.getYaml().getAssembly().getAutoGen()) {
           if (flow.isAssemblyExist()) {
-            this.createPacks(Boolean.TRUE, isNoDeploy);
+            this.update(isPlan);
+            if (cmd.hasOption("watch") && !isPlan && !context.isNoDeploy()) {
+              exit = this.watch();
+            }
           } else {
             System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
           }
         } else {
           List<String> assemblies = this.listFiles(this.config.getYaml().getAssembly().getName());
-          for (String asm : assemblies) {
-            this.initOo(config, asm, comment);
-            this.createPacks(Boolean.TRUE, isNoDeploy);
-          }
+          exit = this.runFleet(isPlan ? "plan" : "update", assemblies, (asm, fleetFlow) -> {
+            if (isPlan) {
+              // Printed in one piece, as plans of other assemblies print at the same time.
+              ByteArrayOutputStream out = new ByteArrayOutputStream();
+              fleetFlow.plan().print(new PrintStream(out, true, "UTF-8"));
+              System.out.print(out.toString("UTF-8"));
+              return true;
+            }
+            return fleetFlow.process(Boolean.TRUE, context.isNoDeploy());
+          });
         }
       } else if (cmd.hasOption("r")) {
         List<String> assemblies;
@@ -353,22 +624,33 @@ public class BooCli {
             assemblies.add(asb);
           }
         }
-        this.cleanup(assemblies);
+        exit = this.cleanup(assemblies);
       } else if (cmd.hasOption("get-ips")) {
+        IpCollector.Format format = IpCollector.Format.of(cmd.getOptionValue("output", "text"));
+        if (format == null) {
+          System.err.println("Wrong parameters! --output text|custom|jsonl|csv");
+          return Constants.EXIT_WRONG_PRAMETER;
+        }
+        IpCollector collector = new IpCollector(flow, booUtils,
+            cmd.hasOption("parallel") ? parallelism : IpCollector.DEFAULT_PARALLELISM, tracer);
         if (!flow.isAssemblyExist()) {
           System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
         } else if (cmd.getOptionValues("get-ips") == null) {
           // if there is no args for get-ips
-          getIps0();
+          exit = getIps0(collector, format);
         } else if (cmd.getOptionValues("get-ips").length == 1) {
           // if there is one arg for get-ips
-          getIps1(cmd.getOptionValues("get-ips")[0]);
+          exit = getIps1(cmd.getOptionValues("get-ips")[0], collector, format);
         } else if (cmd.getOptionValues("get-ips").length == 2) {
           // if there are two args for get-ips
-          getIps2(cmd.getOptionValues("get-ips")[0], cmd.getOptionValues("get-ips")[1]);
+          exit = getIps2(cmd.getOptionValues("get-ips")[0], cmd.getOptionValues("get-ips")[1],
+              collector, format);
         }
       } else if (cmd.hasOption("retry")) {
         this.retryDeployment();
+        if (cmd.hasOption("watch")) {
+          exit = this.watch();
+        }
       } else if (cmd.hasOption("procedure")) {
         if (cmd.getOptionValues("procedure").length != 3) {
           System.err
@@ -408,10 +690,29 @@ public class BooCli {
               }
             }
           } else {
-            exit = this.executeAction(args[0], args[1], args[2], arglist, instances, rollAt);
+            RollingProcedure rolling;
+            try {
+              rolling = this.rolling(cmd);
+            } catch (IllegalArgumentException e) {
+              System.err.println("Wrong parameters! " + e.getMessage());
+              return Constants.EXIT_WRONG_PRAMETER;
+            }
+            if (rolling != null) {
+              exit = this.executeRollingAction(args[0], args[1], args[2], arglist, instances,
+                  rollAt, rolling);
+            } else {
+              exit = this.executeAction(args[0], args[1], args[2], arglist, instances, rollAt,
+                  cmd.hasOption("follow"));
+            }
           }
 
         }
+      } else if (cmd.hasOption("watch")) {
+        if (!flow.isAssemblyExist()) {
+          System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
+          return Constants.EXIT_ASSEMBLY_NOT_FOUND;
+        }
+        exit = this.watch();
       } else {
         System.err.println("Wrong parameters!");
         return Constants.EXIT_WRONG_PRAMETER;
@@ -421,10 +722,55 @@ public class BooCli {
     } catch (Exception e) {
       exit = Constants.EXIT_UNKOWN;
       e.printStackTrace(new PrintStream(System.err));
+    } finally {
+      if (flow != null && LOG.isDebugEnabled()) {
+        LOG.debug("HTTP transport {}", flow.getTransportStats());
+      }
+      if (command != null) {
+        command.close();
+      }
+      this.report();
     }
     return exit;
   }
 
+  /**
+   * Prints or writes the API call metrics and trace, if asked for.
+   */
+  private void report() {
+    if (isMetricsPrinted) {
+      apiMetrics.printSummary(System.err);
+    }
+    if (metricsOut != null) {
+      try {
+        apiMetrics.writeJson(metricsOut);
+      } catch (IOException e) {
+        System.err.printf(Constants.METRICS_OUT_FAILED, metricsOut, e.getMessage());
+        System.err.println();
+      }
+    }
+    if (traceOut != null) {
+      try {
+        tracer.writeChromeTrace(traceOut);
+      } catch (IOException e) {
+        System.err.printf(Constants.TRACE_OUT_FAILED, traceOut, e.getMessage());
+        System.err.println();
+      }
+    }
+  }
+
+  /**
+   * Logs the connection usage of the current workflow and releases its pool.
+   */
+  private void closeTransport() {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("HTTP transport {}", flow.getTransportStats());
+      LOG.debug("Metadata cache: {} hits, {} misses", metadataCache.getHits(),
+          metadataCache.getMisses());
+    }
+    flow.closeTransport();
+  }
+
   /**
    * Execute action.
    *
@@ -434,9 +780,10 @@ public class BooCli {
    * @param arglist the arglist
    * @param instanceList the instance list
    * @param rollAt the roll at
+   * @param isFollowed whether to print the action logs as they run
    */
   private int executeAction(String platformName, String componentName, String actionName,
-      String arglist, List<String> instanceList, int rollAt) {
+      String arglist, List<String> instanceList, int rollAt, boolean isFollowed) {
     int returnCode = 0;
     String procedureId = null;
     try {
@@ -449,21 +796,22 @@ public class BooCli {
       returnCode = Constants.EXIT_CLIENT;
     }
     if (procedureId != null) {
+      final String id = procedureId;
       String procStatus = "active";
+      Poller poller = Poller.builder("procedure " + procedureId)
+          .maxInterval(15, TimeUnit.SECONDS).build();
       try {
-        while (procStatus != null
-            && (procStatus.equalsIgnoreCase("active") || procStatus.equalsIgnoreCase("pending"))) {
-          procStatus = flow.getProcedureStatusForAction(procedureId);
-          try {
-            Thread.sleep(3000);
-          } catch (InterruptedException e) {
-            // Ignore
-          }
+        if (isFollowed) {
+          procStatus = flow.followProcedure(id, platformName, componentName);
+        } else {
+          procStatus = poller.await(() -> flow.getProcedureStatusForAction(id),
+              status -> status == null
+                  || !(status.equalsIgnoreCase("active") || status.equalsIgnoreCase("pending")));
         }
       } catch (OneOpsClientAPIException e) {
         // Ignore
       }
-      if (procStatus.equalsIgnoreCase("complete")) {
+      if ("complete".equalsIgnoreCase(procStatus)) {
         System.out.println(Constants.SUCCEED);
       } else {
         System.err.println(Constants.PROCEDURE_NOT_COMPLETE);
@@ -473,6 +821,70 @@ public class BooCli {
     return returnCode;
   }
 
+  /**
+   * Sets up a rolling procedure from the --procedure-batch options.
+   *
+   * @param cmd the command line
+   * @return the rolling procedure, or null if none of its options is given
+   */
+  private RollingProcedure rolling(CommandLine cmd) {
+    if (!cmd.hasOption("procedure-batch") && !cmd.hasOption("procedure-parallel")
+        && !cmd.hasOption("procedure-max-failures") && !cmd.hasOption("procedure-batch-timeout")) {
+      return null;
+    }
+    RollingProcedure.Builder builder = RollingProcedure.builder();
+    try {
+      if (cmd.hasOption("procedure-batch")) {
+        builder.batchSize(cmd.getOptionValue("procedure-batch"));
+      }
+      if (cmd.hasOption("procedure-parallel")) {
+        builder.parallelism(Integer.parseInt(cmd.getOptionValue("procedure-parallel")));
+      }
+      if (cmd.hasOption("procedure-max-failures")) {
+        builder.maxFailures(cmd.getOptionValue("procedure-max-failures"));
+      }
+      if (cmd.hasOption("procedure-batch-timeout")) {
+        builder.batchTimeout(Long.parseLong(cmd.getOptionValue("procedure-batch-timeout")),
+            TimeUnit.MINUTES);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Rolls an action out in batches.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param actionName the action name
+   * @param arglist the arglist
+   * @param instanceList the instance list
+   * @param rollAt the roll at
+   * @param rolling how to split and gate the rollout
+   * @return the exit code
+   */
+  private int executeRollingAction(String platformName, String componentName, String actionName,
+      String arglist, List<String> instanceList, int rollAt, RollingProcedure rolling) {
+    RollingProcedure.Outcome outcome;
+    try {
+      outcome = flow.executeRollingAction(platformName, componentName, actionName, arglist,
+          instanceList, rollAt, rolling);
+    } catch (OneOpsClientAPIException e) {
+      System.err.println(e.getMessage());
+      return Constants.EXIT_CLIENT;
+    }
+    if (outcome.getFailed() == 0) {
+      System.out.println(Constants.SUCCEED);
+      return Constants.EXIT_NORMAL;
+    } else if (outcome.isStopped()) {
+      System.err.println(Constants.PROCEDURE_NOT_COMPLETE);
+      return Constants.EXIT_NOT_COMPLETE;
+    }
+    return Constants.EXIT_PARTIAL;
+  }
+
   /**
    * User input.
    *
@@ -490,34 +902,31 @@ public class BooCli {
   /**
    * Gets the ips 0.
    *
-   * @return the ips 0
+   * @param collector the collector
+   * @param format the output format
+   * @return the exit code
    */
-  private void getIps0() {
-    Map<String, Object> platforms = flow.getConfig().getYaml().getPlatforms();
-    List<String> computes = booUtils.getComponentOfCompute(this.flow);
-    System.out.println("Environment name: " + flow.getConfig().getYaml().getBoo().getEnvName());
-    for (String pname : platforms.keySet()) {
-      System.out.println("Platform name: " + pname);
-      for (String cname : computes) {
-        System.out.println("Compute name: " + cname);
-        System.out.printf(getIps(pname, cname));
-      }
-    }
+  private int getIps0(IpCollector collector, IpCollector.Format format) {
+    return this.getIps(collector, format,
+        new ArrayList<String>(new LinkedHashSet<String>(booUtils.getComponentOfCompute(flow))));
   }
 
   /**
    * Gets the ips 1.
    *
    * @param inputEnv the input env
-   * @return the ips 1
+   * @param collector the collector
+   * @param format the output format
+   * @return the exit code
    */
-  private void getIps1(String inputEnv) {
+  private int getIps1(String inputEnv, IpCollector collector, IpCollector.Format format) {
     String yamlEnv = flow.getConfig().getYaml().getBoo().getEnvName();
     if (yamlEnv.equals(inputEnv)) {
-      getIps0();
+      return getIps0(collector, format);
     } else {
       System.out.println(Constants.NO_ENVIRONMENT);
     }
+    return Constants.EXIT_NORMAL;
   }
 
   /**
@@ -525,45 +934,53 @@ public class BooCli {
    *
    * @param inputEnv the input env
    * @param componentName the component name
-   * @return the ips 2
+   * @param collector the collector
+   * @param format the output format
+   * @return the exit code
    */
-  private void getIps2(String inputEnv, String componentName) {
+  private int getIps2(String inputEnv, String componentName, IpCollector collector,
+      IpCollector.Format format) {
     String yamlEnv = flow.getConfig().getYaml().getBoo().getEnvName();
     if (inputEnv.equals("*") || yamlEnv.equals(inputEnv)) {
-      Map<String, Object> platforms = flow.getConfig().getYaml().getPlatforms();
-      List<String> computes = booUtils.getComponentOfCompute(this.flow);
-      for (String s : computes) {
-        if (s.equals(componentName)) {
-          System.out
-              .println("Environment name: " + flow.getConfig().getYaml().getBoo().getEnvName());
-          for (String pname : platforms.keySet()) {
-            System.out.println("Platform name: " + pname);
-            System.out.println("Compute name: " + componentName);
-            System.out.printf(getIps(pname, componentName));
-          }
-          return;
-        }
+      if (booUtils.getComponentOfCompute(flow).contains(componentName)) {
+        return this.getIps(collector, format, Collections.singletonList(componentName));
       }
       System.out.println("No such component: " + componentName);
     } else {
       System.out.println("No such environment: " + inputEnv);
     }
+    return Constants.EXIT_NORMAL;
   }
 
   /**
-   * Gets the ips.
+   * Gets the ips of computes on every platform, all at once, and writes them as they come in.
    *
-   * @param platformName the platform name
-   * @param componentName the component name
-   * @return the ips
+   * @param collector the collector
+   * @param format the output format
+   * @param computes the compute components
+   * @return the exit code
    */
-  private String getIps(String platformName, String componentName) {
-    try {
-      return flow.printIps(platformName, componentName);
-    } catch (OneOpsClientAPIException e) {
-      e.printStackTrace();
+  private int getIps(IpCollector collector, IpCollector.Format format, List<String> computes) {
+    List<String> platforms =
+        new ArrayList<String>(flow.getConfig().getYaml().getPlatforms().keySet());
+    return collector.collect(platforms, computes, format, System.out) ? Constants.EXIT_NORMAL
+        : Constants.EXIT_PARTIAL;
+  }
+
+  /**
+   * Follows the latest deployment of the environment until it ends.
+   *
+   * @return the exit code for how the deployment ended
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private int watch() throws OneOpsClientAPIException {
+    String state = flow.watchDeployment();
+    if ("complete".equalsIgnoreCase(state)) {
+      return Constants.EXIT_NORMAL;
+    } else if ("failed".equalsIgnoreCase(state) || "canceled".equalsIgnoreCase(state)) {
+      return Constants.EXIT_DEPLOYMENT_FAILED;
     }
-    return null;
+    return Constants.EXIT_NOT_COMPLETE;
   }
 
   /**
@@ -591,11 +1008,11 @@ public class BooCli {
    *
    * @param prefix the prefix
    * @return the list
+   * @throws ParseException if the prefix is empty
    */
-  private List<String> listFiles(String prefix) {
+  private List<String> listFiles(String prefix) throws ParseException {
     if (prefix == null || prefix.trim().length() == 0) {
-      System.err.println(Constants.ASSEMBLY_PREFIX_ERROR);
-      System.exit(1);
+      throw new ParseException(Constants.ASSEMBLY_PREFIX_ERROR);
     }
     List<String> assemblies = flow.getAllAutoGenAssemblies(prefix);
     for (String assembly : assemblies) {
@@ -620,6 +1037,21 @@ public class BooCli {
     flow.process(isUpdate, isAssemblyOnly);
   }
 
+  /**
+   * Updates the assembly, or only prints what the update would change.
+   *
+   * @param isPlan whether to print the plan instead of applying it
+   * @throws BooException the Boo exception
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void update(boolean isPlan) throws BooException, OneOpsClientAPIException {
+    if (isPlan) {
+      flow.plan().print(System.out);
+    } else {
+      this.createPacks(Boolean.TRUE, context.isNoDeploy());
+    }
+  }
+
   /**
    *  Creates platforms if the assembly does exist. Updates the platform/components if assembly already exists
    * @throws BooException
@@ -667,24 +1099,39 @@ public class BooCli {
    * Cleanup.
    *
    * @param assemblies the assemblies
+   * @return the exit code
    */
-  public void cleanup(List<String> assemblies) {
+  public int cleanup(List<String> assemblies) {
     if (assemblies.size() == 0) {
       System.out.println("There is no instance to remove");
-      return;
+      return Constants.EXIT_NORMAL;
     }
-    if (isForced == false) {
+    if (!context.isForced()) {
       String str =
           String.format(YES_NO, assemblies.size(), this.config.getYaml().getAssembly().getName());
       str = this.userInput(str);
       if (!"y".equalsIgnoreCase(str.trim())) {
-        return;
+        return Constants.EXIT_NORMAL;
       }
 
     }
+    if (config.getYaml().getAssembly().getAutoGen()) {
+      int exit = this.runFleet("remove", assemblies, (assembly, fleetFlow) -> {
+        if (!fleetFlow.isAssemblyExist()) {
+          return true;
+        }
+        log.info("Destroying OneOps assembly %s \n", assembly);
+        fleetFlow.removeAllEnvs();
+        return fleetFlow.removeAllPlatforms();
+      });
+      if (exit != Constants.EXIT_NORMAL) {
+        log.error(Constants.NEED_ANOTHER_CLEANUP);
+      }
+      return exit;
+    }
     boolean isSuc = true;
     for (String assembly : assemblies) {
-      LogUtils.info("Destroying OneOps assembly %s \n", assembly);
+      log.info("Destroying OneOps assembly %s \n", assembly);
       this.initOo(config, assembly, comment);
       if (flow.isAssemblyExist(assembly)) {
         boolean isDone;
@@ -700,8 +1147,9 @@ public class BooCli {
       }
     }
     if (!isSuc) {
-      LogUtils.error(Constants.NEED_ANOTHER_CLEANUP);
+      log.error(Constants.NEED_ANOTHER_CLEANUP);
     }
+    return Constants.EXIT_NORMAL;
   }
 
   /**
@@ -713,49 +1161,4 @@ public class BooCli {
   public String getStatus() throws BooException {
     return flow.getStatus();
   }
-
-  /**
-   * Checks if is quiet.
-   *
-   * @return true, if is quiet
-   */
-  public static boolean isQuiet() {
-    return isQuiet;
-  }
-
-  /**
-   * Sets the quiet.
-   *
-   * @param isQuiet the new quiet
-   */
-  public static void setQuiet(boolean isQuiet) {
-    BooCli.isQuiet = isQuiet;
-  }
-
-  /**
-   * Sets the forced.
-   *
-   * @param isForced the new forced
-   */
-  public static void setForced(boolean isForced) {
-    BooCli.isForced = isForced;
-  }
-
-  /**
-   * Sets the no deploy.
-   *
-   * @param isNoDeploy the new no deploy
-   */
-  public static void setNoDeploy(boolean isNoDeploy) {
-    BooCli.isNoDeploy = isNoDeploy;
-  }
-
-  /**
-   * Checks if is no deploy.
-   *
-   * @return true, if is no deploy
-   */
-  public static boolean isNoDeploy() {
-    return isNoDeploy;
-  }
 }
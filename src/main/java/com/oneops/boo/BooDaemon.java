@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import com.google.common.io.BaseEncoding;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.transport.TransportPool;
+import com.oneops.client.api.util.AtomicFiles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Serves boo commands from one long-running process, so they skip the JVM, Guice and RestAssured
+ * startup and reuse warm HTTP connections. {@link DaemonClient} forwards the arguments of a command
+ * and streams its output and exit code back.
+ *
+ * <p>The daemon listens on a loopback port. Its port and a random token are written to an address
+ * file only the user can read, and a command is only served with the token. Commands run one at a
+ * time, as they share the standard streams, and return their exit code: one calling System.exit
+ * would end the daemon.
+ *
+ * <p>Request: token, working directory, argument count and arguments, as {@link DataOutputStream}
+ * UTF strings and ints. Response: frames of a kind byte, {@link #STDOUT} and {@link #STDERR}
+ * followed by a length and the bytes, ending with {@link #EXIT} and the exit code.
+ */
+public class BooDaemon {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(BooDaemon.class);
+
+  /** ~/.boo/daemon */
+  public static final File ADDRESS_FILE =
+      new File(new File(new File(System.getProperty("user.home"), ".boo"), "daemon"), "address");
+
+  /** Frame kinds. */
+  static final byte STDOUT = 'O';
+  static final byte STDERR = 'E';
+  static final byte EXIT = 'X';
+
+  /** The most arguments of one command. */
+  static final int MAX_ARGS = 1024;
+
+  /** How long a client may take to send its command. */
+  static final int READ_TIMEOUT_MILLIS = 10000;
+
+  /** The address file. */
+  private final File addressFile;
+
+  /** The token a command must present. */
+  private final String token;
+
+  /** Transports kept warm across commands. */
+  private final TransportPool transports = new TransportPool();
+
+  /** The server socket, once listening. */
+  private volatile ServerSocket server;
+
+  /**
+   * Instantiates a new daemon.
+   *
+   * @param addressFile the file to publish the port and token in
+   */
+  public BooDaemon(File addressFile) {
+    this.addressFile = addressFile;
+    byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    this.token = BaseEncoding.base16().lowerCase().encode(bytes);
+  }
+
+  /**
+   * Serves commands until stopped.
+   *
+   * @return the exit code of the daemon
+   */
+  public int serve() {
+    if (DaemonClient.isRunning(addressFile)) {
+      System.err.printf(Constants.DAEMON_RUNNING, addressFile);
+      System.err.println();
+      return Constants.EXIT_BOO;
+    }
+    try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      this.server = socket;
+      this.publish(socket.getLocalPort());
+      Runtime.getRuntime().addShutdownHook(new Thread(this::release, "boo-daemon-shutdown"));
+      LogUtils.VERBOSE.info(Constants.DAEMON_LISTENING, socket.getLocalPort(), addressFile);
+      while (!socket.isClosed()) {
+        try (Socket client = socket.accept()) {
+          this.handle(client);
+        } catch (IOException e) {
+          if (!socket.isClosed() && LOG.isDebugEnabled()) {
+            LOG.debug("Dropped a command: {}", e.getMessage());
+          }
+        }
+      }
+      return Constants.EXIT_NORMAL;
+    } catch (IOException e) {
+      System.err.println(e.getMessage());
+      return Constants.EXIT_UNKOWN;
+    } finally {
+      this.release();
+    }
+  }
+
+  /**
+   * Stops serving once the running command, if any, completes.
+   */
+  public void stop() {
+    ServerSocket socket = server;
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // Closing anyway
+      }
+    }
+  }
+
+  /**
+   * Writes the address file, in one piece so a client never reads it half written.
+   *
+   * @param port the port
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void publish(int port) throws IOException {
+    AtomicFiles.writeOwnerOnly(addressFile,
+        out -> out.write((port + " " + token + "\n").getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private synchronized void release() {
+    try {
+      Files.deleteIfExists(addressFile.toPath());
+    } catch (IOException e) {
+      LOG.warn("Cannot remove {}: {}", addressFile, e.getMessage());
+    }
+    transports.close();
+  }
+
+  /**
+   * Runs one command with its output sent back to the client.
+   *
+   * @param client the client connection
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void handle(Socket client) throws IOException {
+    // A client that connects and stays silent must not hold up the commands of others.
+    client.setSoTimeout(READ_TIMEOUT_MILLIS);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+    if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+        in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+      return;
+    }
+    String workDir = in.readUTF();
+    int count = in.readInt();
+    if (count < 0 || count > MAX_ARGS) {
+      return;
+    }
+    String[] args = new String[count];
+    for (int i = 0; i < count; i++) {
+      args[i] = in.readUTF();
+    }
+    int exit = this.run(args, workDir, out);
+    synchronized (out) {
+      out.writeByte(EXIT);
+      out.writeInt(exit);
+      out.flush();
+    }
+  }
+
+  private int run(String[] args, String workDir, DataOutputStream out) throws IOException {
+    PrintStream stdout = System.out;
+    PrintStream stderr = System.err;
+    InputStream stdin = System.in;
+    String userDir = System.getProperty("user.dir");
+    try {
+      System.setOut(new PrintStream(new Frames(out, STDOUT), true, "UTF-8"));
+      System.setErr(new PrintStream(new Frames(out, STDERR), true, "UTF-8"));
+      // Nobody answers prompts, so they read the end of input.
+      System.setIn(new ByteArrayInputStream(new byte[0]));
+      System.setProperty("user.dir", workDir);
+      return Main.run(args, transports);
+    } finally {
+      System.out.flush();
+      System.err.flush();
+      System.setOut(stdout);
+      System.setErr(stderr);
+      System.setIn(stdin);
+      System.setProperty("user.dir", userDir);
+    }
+  }
+
+  /**
+   * Sends what is written as frames of one kind.
+   */
+  private static class Frames extends OutputStream {
+
+    private final DataOutputStream out;
+    private final byte kind;
+
+    Frames(DataOutputStream out, byte kind) {
+      this.out = out;
+      this.kind = kind;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      this.write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      synchronized (out) {
+        out.writeByte(kind);
+        out.writeInt(len);
+        out.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      synchronized (out) {
+        out.flush();
+      }
+    }
+  }
+}
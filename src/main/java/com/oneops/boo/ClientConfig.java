@@ -13,12 +13,14 @@
  */
 package com.oneops.boo;
 
+import com.google.common.hash.Hashing;
 import com.google.inject.Singleton;
 import com.oneops.boo.yaml.Yaml;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Map;
 
@@ -29,6 +31,7 @@ public class ClientConfig {
       new File(new File(System.getProperty("user.home"), ".boo"), "config");
   public static final String ONEOPS_DEFAULT_PROFILE = "default";
   private Yaml yaml;
+  private String digest;
 
   // For add user component in design
   public static final String SSH_KEY = "authorized_keys";
@@ -51,7 +54,7 @@ public class ClientConfig {
   public ClientConfig(File booYamlFile, String profile) throws IOException {
     ClientConfigReader reader = new ClientConfigReader();
     ClientConfigInterpolator interpolator = new ClientConfigInterpolator();
-    this.yaml = reader.read(interpolator.interpolate(booYamlFile, ONEOPS_CONFIG, profile));
+    this.read(reader, interpolator.interpolate(booYamlFile, ONEOPS_CONFIG, profile));
   }
 
   /**
@@ -63,7 +66,8 @@ public class ClientConfig {
   public ClientConfig(File booYamlFile, Map<String, String> config) throws IOException {
     ClientConfigReader reader = new ClientConfigReader();
     ClientConfigInterpolator interpolator = new ClientConfigInterpolator();
-    this.yaml = reader.read(interpolator.interpolate(new String(Files.readAllBytes(booYamlFile.toPath())), config));
+    this.read(reader,
+        interpolator.interpolate(new String(Files.readAllBytes(booYamlFile.toPath())), config));
   }
 
   /**
@@ -76,10 +80,24 @@ public class ClientConfig {
   public ClientConfig(InputStream input, String profile) throws IOException {
     ClientConfigReader reader = new ClientConfigReader();
     ClientConfigInterpolator interpolator = new ClientConfigInterpolator();
-    this.yaml = reader.read(interpolator.interpolate(input, ONEOPS_CONFIG, profile));
+    this.read(reader, interpolator.interpolate(input, ONEOPS_CONFIG, profile));
+  }
+
+  private void read(ClientConfigReader reader, String interpolated) throws IOException {
+    this.yaml = reader.read(interpolated);
+    this.digest = Hashing.sha256().hashString(interpolated, StandardCharsets.UTF_8).toString();
   }
 
   public Yaml getYaml() {
     return yaml;
   }
+
+  /**
+   * Gets the SHA-256 digest of the interpolated Boo YAML.
+   *
+   * @return the digest
+   */
+  public String getDigest() {
+    return digest;
+  }
 }
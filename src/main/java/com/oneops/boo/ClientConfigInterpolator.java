@@ -37,7 +37,6 @@ import java.util.Map;
 public class ClientConfigInterpolator {
 
   private static final String HOME = System.getProperty("user.home");
-  private static final String WORK = System.getProperty("user.dir");
   private final ClientConfigIniReader iniReader;
 
   public ClientConfigInterpolator() {
@@ -151,7 +150,9 @@ public class ClientConfigInterpolator {
     } else if (path.startsWith("@")) {
       path = path.substring(1);
     } else if (path.startsWith("./")) {
-      path = path.replace("./", String.format("%s%s", WORK, File.separator));
+      // Read now, a daemon serves commands from several working directories.
+      String work = System.getProperty("user.dir");
+      path = path.replace("./", String.format("%s%s", work, File.separator));
     }
     try {
       return FileUtils.readFileToString(new File(path), StandardCharsets.UTF_8);
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import com.oneops.boo.yaml.Constants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forwards a command to a running {@link BooDaemon}. It only needs JDK classes, so forwarding
+ * does not pay for loading the rest of boo.
+ */
+class DaemonClient {
+
+  /** How long to wait for a daemon to accept. */
+  private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+  private DaemonClient() {}
+
+  /**
+   * Runs a command in the daemon, if one is running and the command can run there. Commands that
+   * prompt, --remove without --force, run in this process.
+   *
+   * @param addressFile the address file of the daemon
+   * @param args the arguments of the command
+   * @param stdout receives the standard output of the command
+   * @param stderr receives the error output of the command
+   * @return the exit code, or null if the command was not forwarded
+   */
+  static Integer forward(File addressFile, String[] args, PrintStream stdout,
+      PrintStream stderr) {
+    List<String> list = Arrays.asList(args);
+    if (list.contains("--daemon") || list.contains("--no-daemon")
+        || (list.contains("-r") || list.contains("--remove")) && !list.contains("--force")) {
+      return null;
+    }
+    String[] address = read(addressFile);
+    if (address == null) {
+      return null;
+    }
+    try (Socket socket = connect(addressFile, address)) {
+      if (socket == null) {
+        return null;
+      }
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      out.writeUTF(address[1]);
+      out.writeUTF(System.getProperty("user.dir"));
+      out.writeInt(args.length);
+      for (String arg : args) {
+        out.writeUTF(arg);
+      }
+      out.flush();
+      return receive(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+          stdout, stderr);
+    } catch (IOException e) {
+      stderr.println(Constants.DAEMON_LOST + " " + e.getMessage());
+      return Constants.EXIT_UNKOWN;
+    }
+  }
+
+  /**
+   * Checks whether a daemon accepts connections.
+   *
+   * @param addressFile the address file of the daemon
+   * @return true, if a daemon is running
+   */
+  static boolean isRunning(File addressFile) {
+    String[] address = read(addressFile);
+    if (address == null) {
+      return false;
+    }
+    try (Socket socket = connect(addressFile, address)) {
+      return socket != null;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static int receive(DataInputStream in, PrintStream stdout, PrintStream stderr)
+      throws IOException {
+    byte[] buffer = new byte[8192];
+    try {
+      while (true) {
+        byte kind = in.readByte();
+        if (kind == BooDaemon.EXIT) {
+          return in.readInt();
+        }
+        PrintStream target = kind == BooDaemon.STDERR ? stderr : stdout;
+        int len = in.readInt();
+        if (len > buffer.length) {
+          buffer = new byte[len];
+        }
+        in.readFully(buffer, 0, len);
+        target.write(buffer, 0, len);
+        target.flush();
+      }
+    } catch (EOFException e) {
+      stderr.println(Constants.DAEMON_LOST);
+      return Constants.EXIT_UNKOWN;
+    }
+  }
+
+  /**
+   * Reads the port and token of a daemon.
+   *
+   * @param addressFile the address file
+   * @return the port and token, or null
+   */
+  private static String[] read(File addressFile) {
+    if (!addressFile.isFile()) {
+      return null;
+    }
+    try {
+      String[] address = new String(Files.readAllBytes(addressFile.toPath()),
+          StandardCharsets.UTF_8).trim().split(" ");
+      return address.length == 2 ? address : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Connects to a daemon. The address of a daemon that is gone is removed.
+   *
+   * @param addressFile the address file
+   * @param address the port and token
+   * @return the connection, or null if no daemon listens
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static Socket connect(File addressFile, String[] address) throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          Integer.parseInt(address[0])), CONNECT_TIMEOUT_MILLIS);
+      return socket;
+    } catch (ConnectException | NumberFormatException e) {
+      socket.close();
+      Files.deleteIfExists(addressFile.toPath());
+      return null;
+    }
+  }
+}
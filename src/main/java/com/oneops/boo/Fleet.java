@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import com.oneops.boo.utils.WorkerPool;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.metrics.Tracer;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a command on each of the auto-generated assemblies of a YAML, up to a number of them at a
+ * time. Each assembly has its own workflow; one that fails does not stop the others, and the
+ * outcome of each is reported at the end.
+ */
+class Fleet {
+
+  /** Runs the command on one assembly. */
+  interface Work {
+
+    /**
+     * Runs the command.
+     *
+     * @param assembly the assembly
+     * @return false, if the command did not complete, e.g. a running deployment blocked it
+     * @throws Exception why the command failed
+     */
+    boolean run(String assembly) throws Exception;
+  }
+
+  /** The outcome of the command on one assembly. */
+  static class Result {
+
+    private final String assembly;
+    private final boolean isDone;
+    private final String error;
+    private final long millis;
+
+    Result(String assembly, boolean isDone, String error, long millis) {
+      this.assembly = assembly;
+      this.isDone = isDone;
+      this.error = error;
+      this.millis = millis;
+    }
+
+    public String getAssembly() {
+      return assembly;
+    }
+
+    public boolean isDone() {
+      return isDone;
+    }
+
+    public String getError() {
+      return error;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
+  private final int parallelism;
+  private final Tracer tracer;
+
+  /**
+   * Instantiates a new fleet.
+   *
+   * @param parallelism how many assemblies to work on at a time
+   * @param tracer the tracer
+   */
+  Fleet(int parallelism, Tracer tracer) {
+    this.parallelism = Math.max(1, parallelism);
+    this.tracer = tracer;
+  }
+
+  /**
+   * Runs a command on every assembly.
+   *
+   * @param name the command, for the trace
+   * @param assemblies the assemblies
+   * @param work the command
+   * @return the outcomes, in the order of the assemblies
+   */
+  List<Result> run(String name, List<String> assemblies, Work work) {
+    if (assemblies.isEmpty()) {
+      return new ArrayList<Result>();
+    }
+    List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+    for (String assembly : assemblies) {
+      tasks.add(() -> this.runOne(name, assembly, work));
+    }
+    try (WorkerPool pool =
+        new WorkerPool("boo-fleet-%d", Math.min(parallelism, assemblies.size()), tracer)) {
+      return pool.invokeAll(tasks, (i, cause) -> new Result(assemblies.get(i), false,
+          cause instanceof InterruptedException ? "Interrupted" : String.valueOf(cause), 0));
+    }
+  }
+
+  private Result runOne(String name, String assembly, Work work) {
+    long start = System.nanoTime();
+    boolean isDone = false;
+    String error = null;
+    try {
+      isDone = tracer.call(name + " " + assembly, () -> work.run(assembly));
+      if (!isDone) {
+        error = Constants.FLEET_NOT_DONE;
+      }
+    } catch (Exception e) {
+      error = e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+    return new Result(assembly, isDone, error,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Prints the outcome of each assembly.
+   *
+   * @param results the outcomes
+   * @param out the stream
+   * @return true, if the command completed on every assembly
+   */
+  static boolean print(List<Result> results, PrintStream out) {
+    int failed = 0;
+    out.println();
+    for (Result result : results) {
+      out.printf(Constants.FLEET_RESULT, result.isDone() ? "OK" : "FAILED",
+          result.getMillis() / 1000.0, result.getAssembly(),
+          result.getError() == null ? "" : "  " + result.getError());
+      out.println();
+      if (!result.isDone()) {
+        failed++;
+      }
+    }
+    out.printf(Constants.FLEET_SUMMARY, results.size() - failed, failed);
+    out.println();
+    return failed == 0;
+  }
+}
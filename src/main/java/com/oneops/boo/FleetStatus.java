@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.resource.AsyncTransition;
+import com.oneops.client.api.util.JsonUtil;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reads the state of the latest deployment of many assemblies at once. Each assembly costs one
+ * call, as the latest deployment carries its state, plus one to tell an environment without
+ * deployments from a missing one. The calls run on the transport executor of one instance, so the
+ * time is bound by the slowest calls rather than by their sum.
+ */
+class FleetStatus {
+
+  /** How many assemblies are read at a time, unless --parallel is given. */
+  static final int DEFAULT_PARALLELISM = 16;
+
+  /** The state of an environment without deployments. */
+  static final String NONE = "none";
+
+  /** The deployment of one assembly. */
+  static class Row {
+
+    private final String assembly;
+    private final Long deploymentId;
+    private final String state;
+    private final String error;
+    private final long millis;
+
+    Row(String assembly, Long deploymentId, String state, String error, long millis) {
+      this.assembly = assembly;
+      this.deploymentId = deploymentId;
+      this.state = state;
+      this.error = error;
+      this.millis = millis;
+    }
+
+    public String getAssembly() {
+      return assembly;
+    }
+
+    public Long getDeploymentId() {
+      return deploymentId;
+    }
+
+    public String getState() {
+      return state;
+    }
+
+    public String getError() {
+      return error;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
+  private final OOInstance instance;
+  private final String envName;
+  private final int parallelism;
+  private final Tracer tracer;
+
+  /**
+   * Instantiates a new fleet status.
+   *
+   * @param instance the instance the assemblies are read with
+   * @param envName the environment name
+   * @param parallelism how many assemblies to read at a time
+   * @param tracer the tracer
+   */
+  FleetStatus(OOInstance instance, String envName, int parallelism, Tracer tracer) {
+    this.instance = instance;
+    this.envName = envName;
+    this.parallelism = Math.max(1, parallelism);
+    this.tracer = tracer;
+  }
+
+  /**
+   * Reads the latest deployment of every assembly, up to the parallelism at a time.
+   *
+   * @param assemblies the assemblies
+   * @return the deployments, in the order of the assemblies
+   */
+  List<Row> fetch(List<String> assemblies) {
+    return tracer.call("status", () -> {
+      Semaphore permits = new Semaphore(parallelism);
+      List<CompletableFuture<Row>> futures = new ArrayList<CompletableFuture<Row>>();
+      for (String assembly : assemblies) {
+        permits.acquireUninterruptibly();
+        CompletableFuture<Row> row = this.fetchOne(assembly);
+        row.whenComplete((done, e) -> permits.release());
+        futures.add(row);
+      }
+      List<Row> rows = new ArrayList<Row>();
+      for (CompletableFuture<Row> row : futures) {
+        rows.add(row.join());
+      }
+      return rows;
+    });
+  }
+
+  /**
+   * Reads the latest deployment of one assembly. A 404 means no deployment only if the environment
+   * exists; a missing environment, e.g. a wrong name, is an error.
+   *
+   * @param assembly the assembly
+   * @return the deployment, never failing
+   */
+  private CompletableFuture<Row> fetchOne(String assembly) {
+    long start = System.nanoTime();
+    AsyncTransition transition;
+    try {
+      transition = new AsyncTransition(instance, assembly);
+    } catch (OneOpsClientAPIException e) {
+      return CompletableFuture.completedFuture(
+          new Row(assembly, null, null, AsyncAPIClient.message(e), millis(start)));
+    }
+    return transition.fetchLatestDeployment(envName).handle((deployment, e) -> {
+      if (e == null) {
+        return CompletableFuture.completedFuture(new Row(assembly,
+            deployment.getDeploymentId(), deployment.getDeploymentState(), null, millis(start)));
+      }
+      String error = AsyncAPIClient.message(e);
+      if (!error.contains(Constants.NO_DEPLOYMENT)) {
+        return CompletableFuture.completedFuture(
+            new Row(assembly, null, null, error, millis(start)));
+      }
+      return transition.getEnvironment(envName).handle((env, missing) -> missing == null
+          ? new Row(assembly, null, NONE, null, millis(start))
+          : new Row(assembly, null, null, AsyncAPIClient.message(missing), millis(start)));
+    }).thenCompose(Function.identity());
+  }
+
+  private static long millis(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * Prints the deployments as a table, followed by how many are in each state.
+   *
+   * @param rows the deployments
+   * @param millis how long reading them took
+   * @param out the stream
+   * @return true, if every deployment was read
+   */
+  static boolean printTable(List<Row> rows, long millis, PrintStream out) {
+    int width = "ASSEMBLY".length();
+    for (Row row : rows) {
+      width = Math.max(width, row.getAssembly().length());
+    }
+    String format = "%-" + width + "s  " + Constants.STATUS_ROW;
+    out.printf(format, "ASSEMBLY", "DEPLOYMENT", "STATE", "TIME");
+    out.println();
+    Map<String, Integer> counts = new TreeMap<String, Integer>();
+    int failed = 0;
+    for (Row row : rows) {
+      String state = row.getError() == null ? row.getState() : "error";
+      out.printf(format, row.getAssembly(),
+          row.getDeploymentId() == null ? "-" : row.getDeploymentId(), state,
+          String.format("%.1fs", row.getMillis() / 1000.0));
+      if (row.getError() != null) {
+        out.print("  " + row.getError());
+        failed++;
+      }
+      out.println();
+      counts.merge(String.valueOf(state), 1, Integer::sum);
+    }
+    StringBuilder summary = new StringBuilder();
+    for (Map.Entry<String, Integer> count : counts.entrySet()) {
+      summary.append(", ").append(count.getValue()).append(' ').append(count.getKey());
+    }
+    out.printf(Constants.STATUS_SUMMARY, rows.size(), millis / 1000.0, summary);
+    out.println();
+    return failed == 0;
+  }
+
+  /**
+   * Prints the deployments as one JSON document.
+   *
+   * @param rows the deployments
+   * @param millis how long reading them took
+   * @param out the stream
+   * @return true, if every deployment was read
+   */
+  static boolean printJson(List<Row> rows, long millis, PrintStream out) {
+    Map<String, Object> document = new LinkedHashMap<String, Object>();
+    document.put("millis", millis);
+    document.put("assemblies", rows);
+    out.println(JsonUtil.toJson(document));
+    return rows.stream().allMatch(row -> row.getError() == null);
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import com.oneops.boo.utils.BooUtils;
+import com.oneops.boo.workflow.AbstractWorkflow;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.util.JsonUtil;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Lists the IPs of the computes of every platform of an environment. The platform and compute
+ * pairs are listed at once on the transport executor, up to the parallelism at a time, and each
+ * is written as soon as it is in: JSON lines and CSV in the order they come in, as each line names
+ * its platform and compute, and the text and custom formats in the order of the YAML, as soon as
+ * the pairs before it are written.
+ */
+class IpCollector {
+
+  /** How many pairs are listed at a time, unless --parallel is given. */
+  static final int DEFAULT_PARALLELISM = 16;
+
+  /** The output formats. */
+  enum Format {
+
+    /** Platform and compute headers, then a private IP per line. */
+    TEXT,
+
+    /** The custom split and format of the extract config of each platform. */
+    CUSTOM,
+
+    /** A JSON object per instance. */
+    JSONL,
+
+    /** A header, then a line per instance. */
+    CSV;
+
+    /**
+     * Gets a format by name.
+     *
+     * @param name the name, in any case
+     * @return the format, or null if there is no such format
+     */
+    static Format of(String name) {
+      for (Format format : values()) {
+        if (format.name().equalsIgnoreCase(name)) {
+          return format;
+        }
+      }
+      return null;
+    }
+
+    boolean isOrdered() {
+      return this == TEXT || this == CUSTOM;
+    }
+  }
+
+  /** The columns of CSV, and the keys of JSON lines. */
+  private static final String[] ATTRIBUTES =
+      {Constants.HOSTNAME, Constants.PRIVATE_IP, Constants.PUBLIC_IP};
+
+  /** The instances of one platform and compute. */
+  private static class Pair {
+
+    final int index;
+    final String platform;
+    final String component;
+    List<Map<String, String>> ips;
+    String error;
+
+    Pair(int index, String platform, String component) {
+      this.index = index;
+      this.platform = platform;
+      this.component = component;
+    }
+  }
+
+  private final AbstractWorkflow flow;
+  private final BooUtils utils;
+  private final int parallelism;
+  private final Tracer tracer;
+
+  /**
+   * Instantiates a new collector.
+   *
+   * @param flow the workflow of the assembly
+   * @param utils the utils, for the custom format
+   * @param parallelism how many pairs to list at a time
+   * @param tracer the tracer
+   */
+  IpCollector(AbstractWorkflow flow, BooUtils utils, int parallelism, Tracer tracer) {
+    this.flow = flow;
+    this.utils = utils;
+    this.parallelism = Math.max(1, parallelism);
+    this.tracer = tracer;
+  }
+
+  /**
+   * Lists and writes the IPs of each compute of each platform.
+   *
+   * @param platforms the platforms
+   * @param components the compute components
+   * @param format the format
+   * @param out the stream
+   * @return true, if every pair was listed
+   */
+  boolean collect(List<String> platforms, List<String> components, Format format,
+      PrintStream out) {
+    List<Pair> pairs = new ArrayList<Pair>();
+    for (String platform : platforms) {
+      for (String component : components) {
+        pairs.add(new Pair(pairs.size(), platform, component));
+      }
+    }
+    String envName = flow.getConfig().getYaml().getBoo().getEnvName();
+    if (format == Format.TEXT) {
+      out.println("Environment name: " + envName);
+    } else if (format == Format.CSV) {
+      out.println("environment,platform,component," + String.join(",", ATTRIBUTES));
+    }
+    if (pairs.isEmpty()) {
+      return true;
+    }
+    return tracer.call("ips " + envName, () -> this.collect(pairs, envName, format, out));
+  }
+
+  private boolean collect(List<Pair> pairs, String envName, Format format, PrintStream out) {
+    BlockingQueue<Pair> done = new LinkedBlockingQueue<Pair>();
+    int started = 0;
+    for (; started < Math.min(parallelism, pairs.size()); started++) {
+      this.list(pairs.get(started), done);
+    }
+    boolean isListed = true;
+    Pair[] ready = new Pair[pairs.size()];
+    int next = 0;
+    String platform = null;
+    for (int i = 0; i < pairs.size(); i++) {
+      Pair pair;
+      try {
+        pair = done.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      // One in, one more out.
+      if (started < pairs.size()) {
+        this.list(pairs.get(started++), done);
+      }
+      isListed &= pair.error == null;
+      if (!format.isOrdered()) {
+        this.write(pair, envName, format, out);
+        continue;
+      }
+      ready[pair.index] = pair;
+      for (; next < ready.length && ready[next] != null; next++) {
+        if (format == Format.TEXT && !ready[next].platform.equals(platform)) {
+          platform = ready[next].platform;
+          out.println("Platform name: " + platform);
+        }
+        this.write(ready[next], envName, format, out);
+        // Written, so its instances can go.
+        ready[next].ips = null;
+      }
+    }
+    return isListed;
+  }
+
+  private void list(Pair pair, BlockingQueue<Pair> done) {
+    flow.getIpsAsync(pair.platform, pair.component).whenComplete((ips, e) -> {
+      pair.ips = ips;
+      pair.error = e == null ? null : AsyncAPIClient.message(e);
+      done.add(pair);
+    });
+  }
+
+  private void write(Pair pair, String envName, Format format, PrintStream out) {
+    if (format == Format.TEXT) {
+      out.println("Compute name: " + pair.component);
+    }
+    if (pair.error != null) {
+      System.err.printf(Constants.IPS_FAILED, pair.platform, pair.component, pair.error);
+      System.err.println();
+      return;
+    }
+    switch (format) {
+      case TEXT:
+        for (Map<String, String> ip : pair.ips) {
+          out.println(ip.get(Constants.PRIVATE_IP));
+        }
+        break;
+      case CUSTOM:
+        String ips = utils.formatIps(flow.getConfig().getYaml(), pair.platform, pair.ips);
+        if (!ips.isEmpty()) {
+          out.println(ips);
+        }
+        break;
+      case JSONL:
+        for (Map<String, String> ip : pair.ips) {
+          Map<String, String> line = new LinkedHashMap<String, String>();
+          line.put("environment", envName);
+          line.put("platform", pair.platform);
+          line.put("component", pair.component);
+          for (String attribute : ATTRIBUTES) {
+            line.put(attribute, ip.get(attribute));
+          }
+          out.println(JsonUtil.toJson(line));
+        }
+        break;
+      default:
+        for (Map<String, String> ip : pair.ips) {
+          StringBuilder line = new StringBuilder();
+          line.append(csv(envName)).append(',').append(csv(pair.platform)).append(',')
+              .append(csv(pair.component));
+          for (String attribute : ATTRIBUTES) {
+            line.append(',').append(csv(ip.get(attribute)));
+          }
+          out.println(line);
+        }
+        break;
+    }
+    out.flush();
+  }
+
+  /**
+   * Quotes a CSV field when it needs to be.
+   */
+  private static String csv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -36,8 +36,8 @@ public class JaywayHttpModule extends AbstractModule {
   /** The log. */
   private static Logger LOG = LoggerFactory.getLogger(JaywayHttpModule.class);
 
-  /** The client. */
-  private static ClientConfig CLIENT = null;
+  /** The client, read once per injector. */
+  private ClientConfig client = null;
 
   /** The yaml. */
   private File yaml;
@@ -100,15 +100,15 @@ public class JaywayHttpModule extends AbstractModule {
   ClientConfig getClientConfig()
       throws JsonParseException, JsonMappingException, FileNotFoundException, IOException {
     // test
-    if (CLIENT == null) {
+    if (client == null) {
       if (variables != null) {
-        CLIENT = new ClientConfig(this.yaml, variables);
+        client = new ClientConfig(this.yaml, variables);
       } else {
-        CLIENT = new ClientConfig(this.yaml, this.profile);
+        client = new ClientConfig(this.yaml, this.profile);
       }
     }
 
-    return CLIENT;
+    return client;
   }
 
   /**
@@ -129,6 +129,7 @@ public class JaywayHttpModule extends AbstractModule {
     instance.setOrgname(client.getYaml().getBoo().getOrg());
     instance.setEndpoint(client.getYaml().getBoo().getHost());
     instance.setGzipEnabled(client.getYaml().getBoo().isGzipEnabled());
+    instance.setMaxConnectionsPerRoute(client.getYaml().getBoo().getMaxConnectionsPerRoute());
     return instance;
   }
 
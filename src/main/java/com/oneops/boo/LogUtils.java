@@ -15,18 +15,46 @@ package com.oneops.boo;
 
 
 /**
- * Control the logs.
+ * Control the logs. Each command logs through its own instance, so commands sharing a process can
+ * differ in being quiet.
  */
 public class LogUtils {
 
+  /** Prints everything. */
+  public static final LogUtils VERBOSE = new LogUtils(false);
+
+  /** Prints nothing. */
+  public static final LogUtils QUIET = new LogUtils(true);
+
+  /** Whether to silence the textual output. */
+  private final boolean isQuiet;
+
+  private LogUtils(boolean isQuiet) {
+    this.isQuiet = isQuiet;
+  }
+
+  /**
+   * Gets the logs of a command.
+   *
+   * @param isQuiet whether to silence the textual output
+   * @return the logs
+   */
+  public static LogUtils of(boolean isQuiet) {
+    return isQuiet ? QUIET : VERBOSE;
+  }
+
+  public boolean isQuiet() {
+    return isQuiet;
+  }
+
   /**
    * Info.
    *
    * @param msg the msg
    * @param arg the arg
    */
-  public static void info(String msg, Object... arg) {
-    if (!BooCli.isQuiet()) {
+  public void info(String msg, Object... arg) {
+    if (!isQuiet) {
       System.out.printf(msg, arg);
       System.out.println();
     }
@@ -38,8 +66,8 @@ public class LogUtils {
    * @param msg the msg
    * @param arg the arg
    */
-  public static void error(String msg, Object... arg) {
-    if (!BooCli.isQuiet()) {
+  public void error(String msg, Object... arg) {
+    if (!isQuiet) {
       System.err.printf(msg, arg);
       System.err.println();
     }
@@ -16,18 +16,41 @@ package com.oneops.boo;
 import com.oneops.boo.exception.BooException;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.transport.TransportPool;
 
 import org.apache.commons.cli.ParseException;
 
+import java.util.Arrays;
+
 public class Main {
 
   /**
-   * The main method.
+   * The main method. With --daemon, keeps serving commands; otherwise forwards the command to a
+   * running daemon, or runs it in this process.
    *
    * @param args the arguments
    */
   public static void main(String[] args) {
-    BooCli cli = new BooCli();
+    int exit;
+    if (Arrays.asList(args).contains("--daemon")) {
+      exit = new BooDaemon(BooDaemon.ADDRESS_FILE).serve();
+    } else {
+      Integer forwarded =
+          DaemonClient.forward(BooDaemon.ADDRESS_FILE, args, System.out, System.err);
+      exit = forwarded != null ? forwarded : run(args, null);
+    }
+    System.exit(exit);
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param args the arguments
+   * @param transports transports kept warm across commands, or null
+   * @return the exit code
+   */
+  static int run(String[] args, TransportPool transports) {
+    BooCli cli = new BooCli(transports);
     int exit = 0;
     try {
       exit = cli.parse(args);
@@ -43,9 +66,7 @@ public class Main {
     } catch (Exception e) {
       System.err.println(e.getMessage());
       exit = Constants.EXIT_UNKOWN;
-    } finally {
-      System.exit(exit);
     }
-
+    return exit;
   }
 }
@@ -23,6 +23,7 @@ import com.oneops.boo.yaml.PlatformBean;
 import com.oneops.boo.yaml.PlatformConfigBean;
 import com.oneops.boo.yaml.Yaml;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.util.Poller;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -65,11 +66,22 @@ public class BooUtils {
 
   public String getIps(String platformName, String componentName, AbstractWorkflow workFlow)
       throws OneOpsClientAPIException {
+    return this.formatIps(workFlow.getConfig().getYaml(), platformName,
+        workFlow.getIpsInternal(platformName, componentName));
+  }
+
+  /**
+   * Formats the ips of a platform with the custom split and format of its extract config.
+   *
+   * @param yaml the yaml
+   * @param platformName the platform name
+   * @param ips the attributes of the instances
+   * @return the ips, empty if the platform has no extract config
+   */
+  public String formatIps(Yaml yaml, String platformName, List<Map<String, String>> ips) {
     String result = null;
     StringBuilder str = new StringBuilder();
-    Yaml yaml = workFlow.getConfig().getYaml();
     Map<String, PlatformConfigBean> platformConfigs = yaml.getExtractBean();
-    List<Map<String, String>> ips = workFlow.getIpsInternal(platformName, componentName);
     // for (PlatformConfigBean pfConfig : platformConfigs) {
     for (Map.Entry<String, PlatformConfigBean> pfConfig : platformConfigs.entrySet()) {
       PlatformConfigBean config = pfConfig.getValue();
@@ -255,13 +267,11 @@ public class BooUtils {
    *
    * @param workFlow the work flow
    */
-  private void checkPlatformQ(AbstractWorkflow workFlow) {
-    while (true) {
-      if (!Constants.ACTIVE.equalsIgnoreCase(workFlow.getStatus())) {
-        break;
-      }
-      waitTimeout(30);
-    }
+  private void checkPlatformQ(AbstractWorkflow workFlow) throws OneOpsClientAPIException {
+    Poller poller = Poller.builder("deploy order")
+        .initialInterval(5, TimeUnit.SECONDS).maxInterval(30, TimeUnit.SECONDS).build();
+    poller.await(() -> workFlow.getStatus(),
+        status -> !Constants.ACTIVE.equalsIgnoreCase(status));
   }
 
   /**
@@ -16,12 +16,16 @@ package com.oneops.boo.utils;
 import com.oneops.boo.LogUtils;
 
 public class ProgressBar {
+  private final LogUtils log;
   private StringBuilder progress;
 
   /**
    * Initialize progress bar properties.
+   *
+   * @param log the logs of the run
    */
-  public ProgressBar() {
+  public ProgressBar(LogUtils log) {
+    this.log = log;
     init();
   }
 
@@ -40,7 +44,7 @@ public class ProgressBar {
       progress.append('*');
     }
 
-    LogUtils.info(format, percent, progress);
+    log.info(format, percent, progress);
 
     if (done == total) {
       System.out.flush();
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.oneops.client.api.metrics.Tracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * A pool of threads for the work of one run that may block for long, e.g. a workflow per assembly
+ * or a procedure per batch, unlike the API calls that share the executor of the transport. The
+ * threads are daemons and are stopped on close.
+ */
+public class WorkerPool implements AutoCloseable {
+
+  private final ExecutorService executor;
+  private final Tracer tracer;
+
+  /**
+   * Starts a pool.
+   *
+   * @param nameFormat the thread names, e.g. boo-fleet-%d
+   * @param threads the threads, at least one
+   * @param tracer the tracer the tasks run under
+   */
+  public WorkerPool(String nameFormat, int threads, Tracer tracer) {
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+        new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+    this.tracer = tracer;
+  }
+
+  /**
+   * Runs tasks, as many at a time as the pool has threads, and waits for all of them. A task that
+   * fails does not stop the others. If the wait is interrupted, the tasks not done yet are
+   * cancelled and fail with the interrupt, which stays set on this thread.
+   *
+   * @param <T> the result type
+   * @param tasks the tasks
+   * @param failure the result of a failed task, from its index and why it failed
+   * @return the results, in the order of the tasks
+   */
+  public <T> List<T> invokeAll(List<? extends Callable<T>> tasks,
+      BiFunction<Integer, Throwable, T> failure) {
+    List<Future<T>> futures = new ArrayList<Future<T>>();
+    for (Callable<T> task : tasks) {
+      futures.add(executor.submit(tracer.wrap(task)));
+    }
+    List<T> results = new ArrayList<T>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        results.add(failure.apply(i, e.getCause()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        for (int j = i; j < futures.size(); j++) {
+          futures.get(j).cancel(true);
+          results.add(failure.apply(j, e));
+        }
+        break;
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Stops the threads, interrupting the tasks still running.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
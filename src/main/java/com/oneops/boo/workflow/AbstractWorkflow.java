@@ -23,13 +23,17 @@ import com.oneops.boo.yaml.helper.EnvironmentBeanHelper;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
 import com.oneops.boo.utils.ProgressBar;
+import com.oneops.client.api.AsyncAPIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
 import com.oneops.client.api.resource.Assembly;
+import com.oneops.client.api.resource.AsyncOperation;
 import com.oneops.client.api.resource.Cloud;
 import com.oneops.client.api.resource.Design;
 import com.oneops.client.api.resource.Operation;
 import com.oneops.client.api.resource.Transition;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.transport.TransportStats;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -37,8 +41,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,43 +59,58 @@ import java.util.regex.Pattern;
 public abstract class AbstractWorkflow {
 
   /** The log. */
-  private static Logger LOG = LoggerFactory.getLogger(AbstractWorkflow.class);
+  private static final Logger LOG = LoggerFactory.getLogger(AbstractWorkflow.class);
 
   /** The pattern. */
-  private static Pattern pattern = Pattern.compile("^-[0-9a-zA-Z]{2,9}$");
+  private static final Pattern pattern = Pattern.compile("^-[0-9a-zA-Z]{2,9}$");
 
   /** The assembly name. */
-  String assemblyName;
+  final String assemblyName;
 
   /** The env name. */
-  String envName;
+  final String envName;
 
   /** The assembly. */
-  Assembly assembly;
+  final Assembly assembly;
 
   /** The design. */
-  Design design;
+  final Design design;
 
   /** The transition. */
-  Transition transition;
+  final Transition transition;
 
   /** The op. */
-  Operation op;
+  final Operation op;
+
+  /** The op, on the transport executor. */
+  final AsyncOperation asyncOp;
 
   /** The config. */
-  ClientConfig config;
+  final ClientConfig config;
 
   /** The instance. */
-  OOInstance instance;
+  final OOInstance instance;
 
   /** The cloud. */
-  Cloud cloud;
+  final Cloud cloud;
+
+  /** The options of this run. */
+  final RunContext context;
+
+  /** The logs of this run. */
+  final LogUtils log;
 
   /** The bar. */
-  ProgressBar bar;
+  final ProgressBar bar;
 
   /** The comments. */
-  String comments = null;
+  final String comments;
+
+  /** Whether the environment was removed by {@link #cleanup()}. */
+  private volatile boolean isEnvRemoved;
+
+  /** Whether the assembly was removed. */
+  private volatile boolean isAssemblyRemoved;
 
   /**
    * Instantiates a new abstract workflow.
@@ -96,9 +121,25 @@ public abstract class AbstractWorkflow {
    */
   public AbstractWorkflow(OOInstance instance, ClientConfig config, String comment)
       throws OneOpsClientAPIException {
+    this(instance, config, comment, RunContext.DEFAULT);
+  }
 
+  /**
+   * Instantiates a new abstract workflow for one run. The assembly and environment names are read
+   * from the config once, and the workflow has resource clients of its own.
+   *
+   * @param instance the instance
+   * @param config the config
+   * @param comment the comment of the deployments, or null
+   * @param context the options of the run
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public AbstractWorkflow(OOInstance instance, ClientConfig config, String comment,
+      RunContext context) throws OneOpsClientAPIException {
     this.instance = instance;
     this.config = config;
+    this.context = context;
+    this.log = context.getLog();
     this.assemblyName = config.getYaml().getAssembly().getName();
     this.envName = config.getYaml().getBoo().getEnvName();
     this.cloud = new Cloud(instance);
@@ -107,12 +148,40 @@ public abstract class AbstractWorkflow {
     design = new Design(instance, assemblyName);
     transition = new Transition(instance, assemblyName);
     op = new Operation(instance, assemblyName, envName);
-    this.config = config;
+    asyncOp = new AsyncOperation(instance, assemblyName, envName);
+
+    this.bar = new ProgressBar(log);
+    this.comments = StringUtils.isBlank(comment) ? null : comment;
+  }
 
-    this.bar = new ProgressBar();
-    if (!StringUtils.isBlank(comment)) {
-      this.comments = comment;
+  /**
+   * Gets the connection usage of the shared transport.
+   *
+   * @return the transport stats
+   */
+  public TransportStats getTransportStats() {
+    return instance.getTransport().getStats();
+  }
+
+  /**
+   * Releases the pooled connections of this workflow.
+   */
+  public void closeTransport() {
+    instance.getTransport().close();
+  }
+
+  /**
+   * Names of the given CIs, in order.
+   *
+   * @param cis the CIs
+   * @return the names
+   */
+  static List<String> names(List<? extends CiResource> cis) {
+    List<String> names = new ArrayList<String>(cis.size());
+    for (CiResource ci : cis) {
+      names.add(ci.getCiName());
     }
+    return names;
   }
 
   /**
@@ -135,7 +204,7 @@ public abstract class AbstractWorkflow {
   public boolean cleanup() throws OneOpsClientAPIException {
     for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
       if (this.platformExist(platform.getName())) {
-        LogUtils.info(Constants.DESTROY_PLATFORM, platform.getName());
+        log.info(Constants.DESTROY_PLATFORM, platform.getName());
         this.cleanupInt(platform.getName());
       }
     }
@@ -150,7 +219,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean removeAllEnvs() throws OneOpsClientAPIException {
-    if (design == null) {
+    if (isAssemblyRemoved) {
       return true;
     }
     for (String env : this.listEnvs()) {
@@ -172,7 +241,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean removeAllPlatforms() throws OneOpsClientAPIException {
-    if (design == null) {
+    if (isAssemblyRemoved) {
       return true;
     }
     boolean isSuc = true;
@@ -219,21 +288,23 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   private boolean cleanupInt(String envName, String platformName) throws OneOpsClientAPIException {
-    if (design == null) {
+    if (isAssemblyRemoved) {
       return true;
     }
-    this.cancelDeployment();
-    this.disableAllPlatforms();
-    try {
-      transition.deleteEnvironment(envName);
-    } catch (Exception e) {
-      // Do nothing
+    // The environment goes with the first platform.
+    if (!isEnvRemoved) {
+      this.cancelDeployment();
+      this.disableAllPlatforms();
+      try {
+        transition.deleteEnvironment(envName);
+      } catch (Exception e) {
+        // Do nothing
+      }
+      isEnvRemoved = true;
     }
     if (this.isPlatformsExist()) {
       design.deletePlatform(platformName);
     }
-    op = null;
-    design = null;
     return true;
   }
 
@@ -244,8 +315,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> listEnvs() throws OneOpsClientAPIException {
-    JsonPath response = transition.listEnvironments();
-    return response.getList(Constants.CINAME);
+    return names(transition.fetchEnvironments());
   }
 
   /**
@@ -255,8 +325,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> listPlatforms() throws OneOpsClientAPIException {
-    JsonPath response = design.listPlatforms();
-    return response.getList(Constants.CINAME);
+    return names(design.fetchPlatforms());
   }
 
   /**
@@ -279,8 +348,11 @@ public abstract class AbstractWorkflow {
   private boolean deleteAssembly(String assemblyName) throws OneOpsClientAPIException {
     // Don't add the following part to one try block as transition.
     assembly.deleteAssembly(assemblyName);
-    LogUtils.info(Constants.DESTROY_ASSEMBLY, assemblyName);
-    assembly = null;
+    Journal.discardAll(instance.getOrgname(), assemblyName);
+    log.info(Constants.DESTROY_ASSEMBLY, assemblyName);
+    if (assemblyName.equals(this.assemblyName)) {
+      isAssemblyRemoved = true;
+    }
     return true;
   }
 
@@ -291,8 +363,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> getAssemblies() throws OneOpsClientAPIException {
-    JsonPath response = assembly.listAssemblies();
-    return response.getList(Constants.CINAME);
+    return names(assembly.fetchAssemblies());
   }
 
   /**
@@ -305,8 +376,7 @@ public abstract class AbstractWorkflow {
    */
   public List<String> listAttachments(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = design.listPlatformComponentAttachments(platformName, componentName);
-    return response.getList(Constants.CINAME);
+    return names(design.fetchPlatformComponentAttachments(platformName, componentName));
   }
 
   /**
@@ -365,16 +435,9 @@ public abstract class AbstractWorkflow {
    * Checks whether the component is user related.
    *
    */
-  @SuppressWarnings("unchecked")
   public boolean isUserCustomizedComponent(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath componentDetails = design.getPlatformComponent(platformName, componentName);
-    Map<String, Object> ciAttrProps = componentDetails.getMap(Constants.CIATTRPROPS);
-    if (ciAttrProps == null || !ciAttrProps.containsKey(Constants.OWNER)) {
-      return false;
-    }
-    Map<String, String> ciAttrPropsMap = (Map<String, String>) ciAttrProps.get(Constants.OWNER);
-    return !ciAttrPropsMap.isEmpty();
+    return design.fetchPlatformComponent(platformName, componentName).hasOwnedAttributes();
   }
 
 
@@ -396,22 +459,22 @@ public abstract class AbstractWorkflow {
   boolean cancelDeployment(String envName) {
     boolean isSuc = false;
     try {
-      JsonPath response = transition.getLatestDeployment(envName);
-      String deploymentId = response.getString("deploymentId");
-      response = transition.getLatestRelease(envName);
-      String releaseId = response.getString("releaseId");
+      String deploymentId =
+          idOf(transition.fetchLatestDeployment(envName).getDeploymentId(), "deployment", envName);
+      String releaseId =
+          idOf(transition.fetchLatestRelease(envName).getReleaseId(), "release", envName);
       if (LOG.isDebugEnabled()) {
         LOG.debug("deploymentId:" + deploymentId + "; releaseId: " + releaseId);
       }
-      response = transition.getDeploymentStatus(envName, deploymentId);
+      transition.fetchDeploymentStatus(envName, deploymentId);
       Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
-      response = transition.cancelDeployment(envName, deploymentId, releaseId);
+      JsonPath response = transition.cancelDeployment(envName, deploymentId, releaseId);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Cancel deployment: " + (response == null ? "" : response.prettyPrint()));
       }
       isSuc = true;
     } catch (Exception e) {
-      // Ignore
+      LOG.debug("Cannot cancel deployment of {}: {}", envName, e.getMessage());
     }
 
     return isSuc;
@@ -426,28 +489,45 @@ public abstract class AbstractWorkflow {
   public boolean retryDeployment() {
     boolean isSuc = false;
     try {
-      JsonPath response = transition.getLatestDeployment(envName);
-      String deploymentId = response.getString("deploymentId");
-      response = transition.getLatestRelease(envName);
-      String releaseId = response.getString("releaseId");
+      String deploymentId =
+          idOf(transition.fetchLatestDeployment(envName).getDeploymentId(), "deployment", envName);
+      String releaseId =
+          idOf(transition.fetchLatestRelease(envName).getReleaseId(), "release", envName);
       if (LOG.isDebugEnabled()) {
         LOG.debug("deploymentId:" + deploymentId + "; releaseId: " + releaseId);
       }
-      response = transition.getDeploymentStatus(envName, deploymentId);
+      transition.fetchDeploymentStatus(envName, deploymentId);
       Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
-      response = transition.retryDeployment(envName, deploymentId, releaseId);
+      JsonPath response = transition.retryDeployment(envName, deploymentId, releaseId);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Retry deployment: " + (response == null ? "" : response.prettyPrint()));
       }
       isSuc = true;
     } catch (Exception e) {
-      // Ignore
+      LOG.warn("Cannot retry deployment of {}: {}", envName, e.getMessage());
     }
 
     return isSuc;
 
   }
 
+  /**
+   * Converts a deployment or release id for a request, failing when it is missing.
+   *
+   * @param id the id
+   * @param kind what the id identifies
+   * @param envName the env name
+   * @return the id as a string
+   * @throws OneOpsClientAPIException if the id is null
+   */
+  private static String idOf(Long id, String kind, String envName)
+      throws OneOpsClientAPIException {
+    if (id == null) {
+      throw new OneOpsClientAPIException(String.format(Constants.NO_ID, kind, envName));
+    }
+    return String.valueOf(id);
+  }
+
   /**
    * Disable all platforms.
    */
@@ -547,13 +627,9 @@ public abstract class AbstractWorkflow {
    */
   public Map<String, Integer> listInstancesMap(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    List<String> names = response.getList("ciName");
-    List<Integer> ids = response.getList("ciId");
     Map<String, Integer> map = new HashMap<String, Integer>();
-    int count = 0;
-    for (String name : names) {
-      map.put(name, ids.get(count++));
+    for (CiResource ci : op.fetchInstances(platformName, componentName)) {
+      map.put(ci.getCiName(), ci.getCiId().intValue());
     }
     return map;
   }
@@ -568,8 +644,7 @@ public abstract class AbstractWorkflow {
    */
   public List<String> listInstances(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciName");
+    return names(op.fetchInstances(platformName, componentName));
   }
 
   /**
@@ -594,8 +669,11 @@ public abstract class AbstractWorkflow {
    */
   private List<String> listInstanceIds(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciId");
+    List<String> ids = new ArrayList<String>();
+    for (CiResource ci : op.fetchInstances(platformName, componentName)) {
+      ids.add(String.valueOf(ci.getCiId()));
+    }
+    return ids;
   }
 
   /**
@@ -612,6 +690,34 @@ public abstract class AbstractWorkflow {
    */
   public String executeAction(String platformName, String componentName, String actionName,
       String arglist, List<String> instanceList, int rollAt) throws OneOpsClientAPIException {
+    List<String> list = this.instanceIds(platformName, componentName, instanceList);
+    JsonPath response =
+        op.executeAction(platformName, componentName, actionName, list, arglist, rollAt);
+    return response == null ? null : response.getString("procedureId");
+  }
+
+  /**
+   * Rolls an action out over instances, a batch at a time, as set up by the rolling procedure.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param actionName the action name
+   * @param arglist the arglist
+   * @param instanceList the instance names, or null for all
+   * @param rollAt the percent of a batch to run at a time
+   * @param rolling how to split and gate the rollout
+   * @return the outcome
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public RollingProcedure.Outcome executeRollingAction(String platformName, String componentName,
+      String actionName, String arglist, List<String> instanceList, int rollAt,
+      RollingProcedure rolling) throws OneOpsClientAPIException {
+    return rolling.run(op, log, platformName, componentName, actionName, arglist,
+        this.instanceIds(platformName, componentName, instanceList), rollAt);
+  }
+
+  private List<String> instanceIds(String platformName, String componentName,
+      List<String> instanceList) throws OneOpsClientAPIException {
     List<String> list = new ArrayList<String>();
     if (instanceList == null || instanceList.size() == 0) {
 
@@ -622,9 +728,7 @@ public abstract class AbstractWorkflow {
         list.add(String.valueOf(map.get(name)));
       }
     }
-    JsonPath response =
-        op.executeAction(platformName, componentName, actionName, list, arglist, rollAt);
-    return response == null ? null : response.getString("procedureId");
+    return list;
   }
 
   /**
@@ -635,7 +739,26 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public String getProcedureStatusForAction(String procedureId) throws OneOpsClientAPIException {
-    return op.getProcedureStatus(procedureId).getString("procedureState");
+    return op.fetchProcedureStatus(procedureId).getProcedureState();
+  }
+
+  /**
+   * Follows a procedure on the instances of a component until it ends, printing the action logs.
+   *
+   * @param procedureId the procedure id
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the final state of the procedure
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public String followProcedure(String procedureId, String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    Map<Long, String> names = new HashMap<Long, String>();
+    for (Map.Entry<String, Integer> entry : this.listInstancesMap(platformName, componentName)
+        .entrySet()) {
+      names.put(entry.getValue().longValue(), entry.getKey());
+    }
+    return new ProcedureFollower(op, log, names).follow(procedureId);
   }
 
   /**
@@ -688,12 +811,12 @@ public abstract class AbstractWorkflow {
 
   /**
    * Check assembly name.
+   *
+   * @throws OneOpsClientAPIException if the name is too long
    */
-  void checkAssemblyName() {
+  void checkAssemblyName() throws OneOpsClientAPIException {
     if (this.assemblyName.length() > 32) {
-      System.err.println();
-      System.err.println(Constants.ASSEMBLY_NAME_TOO_LONG);
-      System.exit(3);
+      throw new OneOpsClientAPIException(Constants.ASSEMBLY_NAME_TOO_LONG);
     }
   }
 
@@ -777,7 +900,7 @@ public abstract class AbstractWorkflow {
     JsonPath response = null;
     if (!isExist) {
 
-      LogUtils.info(Constants.CREATE_ENV, envName);
+      log.info(Constants.CREATE_ENV, envName);
 
       Map<String, Map<String, String>> cloudMaps = new HashMap<String, Map<String, String>>();
 
@@ -809,7 +932,7 @@ public abstract class AbstractWorkflow {
       }
 
     } else {
-      LogUtils.info(Constants.ENV_EXISTING, envName);
+      log.info(Constants.ENV_EXISTING, envName);
     }
     return response == null ? false : true;
   }
@@ -827,18 +950,78 @@ public abstract class AbstractWorkflow {
     if (platforms == null) {
       return false;
     }
+    Map<String, Map<String, Map<String, String>>> updates =
+        new LinkedHashMap<String, Map<String, Map<String, String>>>();
     for (PlatformBean platform : platforms) {
       Map<String, Object> map = platform.getComponents();
       if (map != null) {
         for (Map.Entry<String, Object> entry : map.entrySet()) {
-          transition.updatePlatformComponent(envName, platform.getName(), entry.getKey(),
-              (Map<String, String>) entry.getValue());
+          updates.computeIfAbsent(platform.getName(),
+              name -> new LinkedHashMap<String, Map<String, String>>())
+              .put(entry.getKey(), (Map<String, String>) entry.getValue());
         }
       }
     }
+    this.updateEnvComponents(updates);
     return true;
   }
 
+  /**
+   * Updates components of environment platforms. The components of each platform are listed
+   * once, and all updates then run at the same time on the executor of the transport, each
+   * starting from its listed copy instead of a GET of its own. Nothing is committed; the caller
+   * commits the environment once, after all updates.
+   *
+   * @param updates the attributes, by component name, by platform name
+   * @throws OneOpsClientAPIException listing every component that failed
+   */
+  void updateEnvComponents(Map<String, Map<String, Map<String, String>>> updates)
+      throws OneOpsClientAPIException {
+    Executor executor = instance.getTracer().wrap(instance.getTransport().getExecutor());
+    List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+    List<String> names = new ArrayList<String>();
+    for (Map.Entry<String, Map<String, Map<String, String>>> platform : updates.entrySet()) {
+      String platformName = platform.getKey();
+      CompletableFuture<Map<String, CiResource>> snapshot = CompletableFuture.supplyAsync(() -> {
+        Map<String, CiResource> components = new HashMap<String, CiResource>();
+        try {
+          for (CiResource component : transition.fetchPlatformComponents(envName, platformName)) {
+            components.put(component.getCiName(), component);
+          }
+        } catch (OneOpsClientAPIException e) {
+          // Each component is then fetched on its own.
+          LOG.debug("Cannot list components of {}: {}", platformName, e.getMessage());
+        }
+        return components;
+      }, executor);
+      for (Map.Entry<String, Map<String, String>> entry : platform.getValue().entrySet()) {
+        names.add(entry.getKey() + " of " + platformName);
+        futures.add(snapshot.thenAcceptAsync(components -> AsyncAPIClient.unchecked(() -> {
+          CiResource component = components.get(entry.getKey());
+          if (component != null && component.getCiAttrProps() != null) {
+            return transition.updatePlatformComponent(envName, platformName, component,
+                entry.getValue());
+          }
+          // Not listed, or listed without its owners, which the update must keep.
+          return transition.updatePlatformComponent(envName, platformName, entry.getKey(),
+              entry.getValue());
+        }), executor));
+      }
+    }
+    List<String> errors = new ArrayList<String>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).join();
+      } catch (CompletionException e) {
+        errors.add(names.get(i) + ": " + e.getCause().getMessage());
+      }
+    }
+    if (!errors.isEmpty()) {
+      throw new OneOpsClientAPIException(String.format(Constants.UPDATING_ENV_COMPONENTS_FAILED,
+          errors.size(), envName, StringUtils.join(errors, "; ")));
+    }
+  }
+
   /**
    * Update platform cloud scale.
    *
@@ -846,26 +1029,37 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean updatePlatformCloudScale() throws OneOpsClientAPIException {
+    // The environment clouds and the cloud ids are the same for every platform.
+    Map<String, Map<String, Object>> envClouds = null;
+    Map<String, CloudBean> clouds = null;
     for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
       if (this.platformExist(platform.getName())) {
-        Map<String, Object> sysClouds = transition.getEnvironment(envName).getMap(Constants.CLOUDS);
-        List<CloudBean> clouds = config.getYaml().getEnvironmentBean().getClouds();
-        for (CloudBean cloud : clouds) {
-          if (sysClouds.containsKey(this.getCloudId(cloud.getCloudName()))) {
+        if (clouds == null) {
+          envClouds = transition.fetchEnvironment(envName).getClouds();
+          clouds = new LinkedHashMap<String, CloudBean>();
+          for (CloudBean cloud : config.getYaml().getEnvironmentBean().getClouds()) {
+            clouds.put(this.getCloudId(cloud.getCloudName()), cloud);
+          }
+        }
+        Set<String> sysClouds = envClouds == null ? new HashSet<String>()
+            : new HashSet<String>(envClouds.keySet());
+        for (Map.Entry<String, CloudBean> entry : clouds.entrySet()) {
+          if (sysClouds.contains(entry.getKey())) {
+            CloudBean cloud = entry.getValue();
             Map<String, String> cloudMap = new HashMap<String, String>();
             cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.ACTIVE);
             cloudMap.put(EnvironmentBeanHelper.PRIORITY, cloud.getPriority());
             cloudMap.put(EnvironmentBeanHelper.DPMT_ORDER, cloud.getDpmtOrder());
             cloudMap.put(EnvironmentBeanHelper.PCT_SCALE, cloud.getPctScale());
-            transition.updatePlatformCloudScale(envName, platform.getName(),
-                this.getCloudId(cloud.getCloudName()), cloudMap);
-            // If cloud exists in yaml, remove the cloud name from the system clouds map after
+            transition.updatePlatformCloudScale(envName, platform.getName(), entry.getKey(),
+                cloudMap);
+            // If cloud exists in yaml, remove the cloud name from the system clouds after
             // updating cloud.
-            sysClouds.remove(this.getCloudId(cloud.getCloudName()));
+            sysClouds.remove(entry.getKey());
           }
         }
         // For rest clouds not in yaml, set them as shutdown.
-        for (String cloud : sysClouds.keySet()) {
+        for (String cloud : sysClouds) {
           Map<String, String> cloudMap = new HashMap<String, String>();
           cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.OFFLINE);
           transition.updatePlatformCloudScale(envName, platform.getName(), cloud, cloudMap);
@@ -931,8 +1125,27 @@ public abstract class AbstractWorkflow {
    */
   public List<Map<String, String>> getIpsInternal(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciAttributes");
+    return ips(op.fetchInstances(platformName, componentName));
+  }
+
+  /**
+   * Gets the ips of a compute without blocking.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the future ips, failing as {@link AsyncOperation} does
+   */
+  public CompletableFuture<List<Map<String, String>>> getIpsAsync(String platformName,
+      String componentName) {
+    return asyncOp.fetchInstances(platformName, componentName).thenApply(AbstractWorkflow::ips);
+  }
+
+  private static List<Map<String, String>> ips(List<CiResource> instances) {
+    List<Map<String, String>> ips = new ArrayList<Map<String, String>>();
+    for (CiResource ci : instances) {
+      ips.add(ci.getCiAttributes());
+    }
+    return ips;
   }
 
   /**
@@ -943,8 +1156,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public String getCloudId(String cloudName) throws OneOpsClientAPIException {
-    JsonPath response = cloud.getCloud(cloudName);
-    return response.getString("ciId");
+    return cloud.getCloudId(cloudName);
   }
 
   /**
@@ -955,14 +1167,29 @@ public abstract class AbstractWorkflow {
   String getDeploymentId() {
     String id = null;
     try {
-      JsonPath latestDeployment = transition.getLatestDeployment(envName);
-      id = latestDeployment.getString(Constants.DEPLOYMENT_ID);
+      Long deploymentId = transition.fetchLatestDeployment(envName).getDeploymentId();
+      id = deploymentId == null ? null : String.valueOf(deploymentId);
     } catch (OneOpsClientAPIException e) {
       // Ignore
     }
     return id;
   }
 
+  /**
+   * Follows the latest deployment of the environment until it ends.
+   *
+   * @return the final state of the deployment, or null if there is none
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public String watchDeployment() throws OneOpsClientAPIException {
+    String deploymentId = this.getDeploymentId();
+    if (deploymentId == null) {
+      log.info(Constants.NO_DEPLOYMENT_TO_WATCH, envName);
+      return null;
+    }
+    return new DeploymentWatcher(transition, envName, log).watch(deploymentId);
+  }
+
   /**
    * Gets the status.
    *
@@ -971,8 +1198,8 @@ public abstract class AbstractWorkflow {
   public String getStatus() {
     String status = null;
     try {
-      JsonPath response = transition.getDeploymentStatus(envName, this.getDeploymentId());
-      status = response.getString(Constants.DEPLOYMENT_STATE);
+      status =
+          transition.fetchDeploymentStatus(envName, this.getDeploymentId()).getDeploymentState();
     } catch (OneOpsClientAPIException e) {
       // Ignore
     }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.oneops.client.api.util.AtomicFiles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Digests of the settings Boo wrote but cannot read back from OneOps: scaling, platform cloud
+ * configuration and secure variable values. The {@link Planner} compares against these to leave
+ * unchanged settings alone. A setting without a digest is always planned.
+ *
+ * <p>The digests are HMACs keyed with a secret kept next to the state, so that a digest of a
+ * secure value cannot be checked against guesses without the key. Both files are readable by
+ * their owner only. Without a key nothing is recorded.
+ */
+class AppliedState {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(AppliedState.class);
+
+  /** ~/.boo/state */
+  static final File STATE_DIR =
+      new File(new File(System.getProperty("user.home"), ".boo"), "state");
+
+  /** The name of the key file in the state directory. */
+  static final String KEY_FILE = ".key";
+
+  /** The file. */
+  private final File file;
+
+  /** The digest key, or null if it cannot be kept. */
+  private final byte[] key;
+
+  /** Digests by change key. */
+  private final Properties digests = new Properties();
+
+  /**
+   * Loads the state kept in a file, if there is one.
+   *
+   * @param file the file
+   */
+  AppliedState(File file) {
+    this.file = file;
+    this.key = loadKey(new File(file.getParentFile(), KEY_FILE));
+    if (file.isFile()) {
+      try (InputStream in = Files.newInputStream(file.toPath())) {
+        digests.load(in);
+      } catch (IOException e) {
+        LOG.warn("Ignoring unreadable state {}: {}", file, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Gets the state of an environment.
+   *
+   * @param org the organization
+   * @param assembly the assembly
+   * @param env the environment
+   * @return the state
+   */
+  static AppliedState of(String org, String assembly, String env) {
+    return new AppliedState(new File(STATE_DIR, org + "-" + assembly + "-" + env + ".properties"));
+  }
+
+  /**
+   * Checks whether the values were applied as they are.
+   *
+   * @param key the change key
+   * @param values the values
+   * @return true, if the same values were applied before
+   */
+  synchronized boolean isApplied(String key, Map<String, String> values) {
+    return this.key != null && digest(this.key, values).equals(digests.getProperty(key));
+  }
+
+  /**
+   * Records applied values.
+   *
+   * @param key the change key
+   * @param values the values
+   */
+  synchronized void applied(String key, Map<String, String> values) {
+    if (this.key != null) {
+      digests.setProperty(key, digest(this.key, values));
+    }
+  }
+
+  /**
+   * Forgets a removed setting.
+   *
+   * @param key the change key
+   */
+  synchronized void forget(String key) {
+    digests.remove(key);
+  }
+
+  /**
+   * Writes the state back. A failure only costs a redundant write on the next run.
+   */
+  synchronized void save() {
+    if (key == null) {
+      return;
+    }
+    try {
+      AtomicFiles.writeOwnerOnly(file, out -> digests.store(out, "Boo applied state"));
+    } catch (IOException e) {
+      LOG.warn("Cannot write state {}: {}", file, e.getMessage());
+    }
+  }
+
+  static String digest(byte[] key, Map<String, String> values) {
+    Hasher hasher = Hashing.hmacSha256(key).newHasher();
+    for (Map.Entry<String, String> entry : new TreeMap<String, String>(values).entrySet()) {
+      hasher.putString(entry.getKey(), StandardCharsets.UTF_8).putByte((byte) 0);
+      hasher.putString(String.valueOf(entry.getValue()), StandardCharsets.UTF_8)
+          .putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Reads the digest key, creating it on first use.
+   *
+   * @param keyFile the key file
+   * @return the key, or null if it can be neither read nor created
+   */
+  private static byte[] loadKey(File keyFile) {
+    try {
+      if (!keyFile.isFile()) {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        AtomicFiles.writeOwnerOnly(keyFile, out -> out.write(
+            BaseEncoding.base16().lowerCase().encode(bytes).getBytes(StandardCharsets.UTF_8)));
+      }
+      // Read back, so that concurrent runs settle on the key that was moved last.
+      String hex = new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8);
+      return BaseEncoding.base16().lowerCase().decode(hex.trim());
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.warn("Not keeping applied state without a key {}: {}", keyFile, e.getMessage());
+      return null;
+    }
+  }
+}
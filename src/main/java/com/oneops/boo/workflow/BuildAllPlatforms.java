@@ -13,33 +13,42 @@
  */
 package com.oneops.boo.workflow;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
-import com.oneops.boo.BooCli;
 import com.oneops.boo.ClientConfig;
-import com.oneops.boo.LogUtils;
 import com.oneops.boo.utils.BooUtils;
+import com.oneops.boo.utils.WorkerPool;
+import com.oneops.boo.workflow.Plan.Action;
+import com.oneops.boo.workflow.Plan.Change;
+import com.oneops.boo.workflow.Plan.Target;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.boo.yaml.PlatformBean;
 import com.oneops.boo.yaml.ScaleBean;
+import com.oneops.client.api.AsyncAPIClient.Call;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
 import com.oneops.client.api.exception.OneOpsComponentExistException;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.resource.model.CiResource;
 import com.oneops.client.api.resource.model.RedundancyConfig;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 
 public class BuildAllPlatforms extends AbstractWorkflow {
@@ -60,11 +69,44 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   /** The utils. */
   private final BooUtils utils = new BooUtils();
 
-  /** The retries. */
-  private int retries = 6;
+  /** The shared executor of API fan-out, bounded by the connections of the transport. */
+  private final Executor executor;
 
-  //
-  private int numOfThreads = 32;
+  /** Spans of the steps of this run. */
+  private final Tracer tracer;
+
+  /** Platforms of one deploy order built at the same time. */
+  private static final int PLATFORM_THREADS = 8;
+
+  /** Design components of this run. */
+  final ComponentSnapshot components;
+
+  /** Platform variable synchronization. */
+  private final PlatformVariables variables;
+
+  /** Digests of what the last update applied. */
+  private AppliedState state;
+
+  /** The steps completed by this and previous runs of the same YAML. */
+  private Journal journal;
+
+  /** Journal steps of a create. */
+  static final String STEP_ASSEMBLY = "assembly";
+  static final String STEP_PLATFORM = "platform/";
+  static final String STEP_VARIABLES = "variables";
+  static final String STEP_ENV = "environment";
+  static final String STEP_ENV_COMPONENTS = "environment-components";
+  static final String STEP_SCALING = "scaling";
+  static final String STEP_RELAY = "relay";
+
+  /** The name of the assembly created, recorded with the assembly step. */
+  static final String ID_ASSEMBLY = "assembly";
+
+  /** Journal steps of an update. */
+  static final String STEP_UPDATE_STARTED = "update/started";
+  static final String STEP_UPDATE_DESIGN = "update/design";
+  static final String STEP_UPDATE_PULLED = "update/pulled";
+  static final String STEP_UPDATE_COMMITTED = "update/committed";
 
   /**
    * Instantiates a new builds the all platforms.
@@ -76,7 +118,26 @@ public class BuildAllPlatforms extends AbstractWorkflow {
 
   public BuildAllPlatforms(OOInstance instance, ClientConfig config, String comment)
       throws OneOpsClientAPIException {
-    super(instance, config, comment);
+    this(instance, config, comment, RunContext.DEFAULT);
+  }
+
+  /**
+   * Instantiates a new builds the all platforms for one run.
+   *
+   * @param instance the instance
+   * @param config the config
+   * @param comment the comment of the deployments, or null
+   * @param context the options of the run
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public BuildAllPlatforms(OOInstance instance, ClientConfig config, String comment,
+      RunContext context) throws OneOpsClientAPIException {
+    super(instance, config, comment, context);
+    this.components = new ComponentSnapshot(design);
+    this.tracer = instance.getTracer();
+    this.executor = tracer.wrap(instance.getTransport().getExecutor());
+    this.variables = new PlatformVariables(design, executor);
+    this.journal = Journal.of(instance.getOrgname(), assemblyName, envName, config.getDigest());
   }
 
 
@@ -90,78 +151,240 @@ public class BuildAllPlatforms extends AbstractWorkflow {
     if (isUpdate && !isAssemblyExist) {
       throw new OneOpsClientAPIException(this.assemblyName + " not exists!");
     }
+    String journaled = this.getJournaledAssembly();
+    if (!journal.isEmpty()
+        && (!isAssemblyExist || journaled != null && !journaled.equals(assemblyName))) {
+      // Removed since, or another assembly, so nothing of the previous run is left.
+      journal.discard();
+    } else if (!journal.isEmpty()) {
+      log.info(Constants.RESUMING, assemblyName, envName, journal.size());
+    }
     if (!config.getYaml().getAssembly().getAutoGen()) {
-      if (!isUpdate && isAssemblyExist) {
+      if (!isUpdate && isAssemblyExist && journal.isEmpty()) {
         throw new OneOpsClientAPIException(this.assemblyName + " already exists!");
       }
     }
+    if (isUpdate) {
+      return this.update();
+    }
+    this.components.clear();
     this.bar.update(1, 100);
-    this.createAssemblyIfNotExist();
+    this.step(STEP_ASSEMBLY, Collections.singletonMap(ID_ASSEMBLY, assemblyName),
+        this::createAssemblyIfNotExist);
     this.bar.update(5, 100);
-    this.createPlatforms(isUpdate);
+    tracer.call("platforms", () -> this.createPlatforms(isUpdate));
     this.bar.update(15, 100);
-    if (isUpdate) {
-      this.updatePlatformComponents();
-    }
-    this.updatePlatformVariables(isUpdate);
+    this.step(STEP_VARIABLES, () -> this.updatePlatformVariables(isUpdate));
     this.bar.update(20, 100);
-    this.createEnv();
+    this.step(STEP_ENV, this::createEnv);
     this.bar.update(30, 100);
-    if (isUpdate) {
-      this.updatePlatformCloudScale();
-    }
-    this.updateEnv();
+    this.step(STEP_ENV_COMPONENTS, this::updateEnv);
     this.bar.update(40, 100);
     utils.waitTimeout(1);
-    if (isUpdate) {
+    this.bar.update(50, 100);
+    if (this.isDeploymentBlocked()) {
+      return false;
+    }
+    this.step(STEP_SCALING, this::updateScaling);
+    this.bar.update(70, 100);
+    this.step(STEP_RELAY,
+        () -> this.relayEnableDelivery(config.getYaml().getBoo().isEnable()));
+    return this.startDeployment(isUpdate);
+  }
+
+  /**
+   * Runs a step of the workflow, unless a previous run completed it, and records it.
+   *
+   * @param name the step
+   * @param step the step
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void step(String name, Call<Boolean> step) throws OneOpsClientAPIException {
+    this.step(name, Collections.<String, String>emptyMap(), step);
+  }
+
+  /**
+   * Runs a step of the workflow, unless a previous run completed it, and records it with what it
+   * created.
+   *
+   * @param name the step
+   * @param ids what the step created, by name
+   * @param step the step
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void step(String name, Map<String, String> ids, Call<Boolean> step)
+      throws OneOpsClientAPIException {
+    if (journal.isDone(name)) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Skipping step {}, done by a previous run", name);
+      }
+      return;
+    }
+    tracer.call(name, step::call);
+    journal.done(name, ids);
+  }
+
+  /**
+   * Gets the name of the assembly whose create the journal of this workflow records.
+   *
+   * @return the assembly name, or null if no create was journaled
+   */
+  public String getJournaledAssembly() {
+    return journal.getIds(STEP_ASSEMBLY).get(ID_ASSEMBLY);
+  }
+
+  /**
+   * Keeps the journal under another name than the assembly's. An auto-generated assembly gets a
+   * new name on every create, so its create is journaled under the name in the YAML, where the
+   * next create finds it with {@link #getJournaledAssembly()}.
+   *
+   * @param name the name to keep the journal under
+   */
+  public void journalUnder(String name) {
+    this.journal = Journal.of(instance.getOrgname(), name, envName, config.getDigest());
+  }
+
+  /**
+   * Compares the YAML with the assembly and its environment. Nothing is written.
+   *
+   * @return the changes an update would make
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public Plan plan() throws OneOpsClientAPIException {
+    log.info(Constants.PLANNING, assemblyName);
+    this.components.clear();
+    this.state = AppliedState.of(instance.getOrgname(), assemblyName, envName);
+    return tracer.call("plan",
+        () -> new Planner(this, components, state).plan(this.isAssemblyExist()));
+  }
+
+  /**
+   * Updates the assembly by making only the changes of its plan. An unchanged assembly is neither
+   * written nor deployed, unless a previous run left changes that were not deployed yet.
+   *
+   * @return true, if successful
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private boolean update() throws OneOpsClientAPIException {
+    Plan plan = this.plan();
+    this.bar.update(10, 100);
+    // A previous run may have made changes without deploying them, which no plan shows.
+    boolean isResumed = !journal.isEmpty();
+    if (plan.isEmpty() && !isResumed) {
+      this.bar.update(100, 100);
+      log.info(Constants.PLAN_UP_TO_DATE, assemblyName, envName);
+      return true;
+    }
+    log.info(Constants.PLAN_HEADER, assemblyName, envName, plan.size());
+    if (plan.needsDeployment()) {
+      journal.done(STEP_UPDATE_STARTED);
+    }
+    if (plan.hasDesignChanges()) {
+      journal.done(STEP_UPDATE_DESIGN);
+    }
+    tracer.run("design", () -> this.applyDesign(plan));
+    this.bar.update(30, 100);
+    if (!plan.getChanges(Target.ENVIRONMENT).isEmpty()) {
+      this.createEnv();
+    }
+    for (Change change : plan.getChanges(Target.CLOUD)) {
+      transition.updatePlatformCloudScale(envName, change.getPlatform(), change.getComponent(),
+          change.getAttributes());
+      state.applied(change.getKey(), change.getAttributes());
+    }
+    Map<String, Map<String, Map<String, String>>> envComponents =
+        new LinkedHashMap<String, Map<String, Map<String, String>>>();
+    for (Change change : plan.getChanges(Target.ENV_COMPONENT)) {
+      envComponents.computeIfAbsent(change.getPlatform(),
+          name -> new LinkedHashMap<String, Map<String, String>>())
+          .put(change.getName(), change.getAttributes());
+    }
+    this.updateEnvComponents(envComponents);
+    this.bar.update(40, 100);
+    if (plan.hasDesignChanges()
+        || journal.isDone(STEP_UPDATE_DESIGN) && !journal.isDone(STEP_UPDATE_PULLED)) {
+      utils.waitTimeout(1);
       try {
         this.pullDesign();
+        journal.done(STEP_UPDATE_PULLED);
       } catch (Exception e) {
         // Ignore
-        // e.printStackTrace();
       }
     }
     this.bar.update(50, 100);
-    String status = this.getStatus();
-    if (ACTIVE.equalsIgnoreCase(status)) {
-      LogUtils.info(Constants.ACTIVE_DEPLOYMENT_EXISTING);
+    if (this.isDeploymentBlocked()) {
+      state.save();
       return false;
     }
-
-    if (FAILED.equalsIgnoreCase(status)) {
-      LogUtils.info(Constants.FAIL_DEPLOYMENT_EXISTING);
-      return false;
+    for (Change change : plan.getChanges(Target.SCALE)) {
+      log.info(Constants.COMPUTE_SIZE, envName, change.getPlatform());
+      transition.updatePlatformRedundancyConfig(envName, change.getPlatform(), change.getName(),
+          redundancy(change.getAttributes()));
+      state.applied(change.getKey(), change.getAttributes());
     }
-    this.updateScaling();
     this.bar.update(70, 100);
-    // Added retries
-    boolean retry = true;
-    String deployError = null;
-    this.relayEnableDelivery(config.getYaml().getBoo().isEnable());
-    if (isUpdate) {
+    state.save();
+    if (!plan.getChanges(Target.RELAY).isEmpty()) {
+      this.relayEnableDelivery(config.getYaml().getBoo().isEnable());
+    }
+    if (!plan.needsDeployment() && !isResumed) {
+      this.bar.update(100, 100);
+      journal.discard();
+      return true;
+    }
+    if (plan.needsDeployment() || !journal.isDone(STEP_UPDATE_COMMITTED)) {
       this.commitEnv();
+      journal.done(STEP_UPDATE_COMMITTED);
+    }
+    return this.startDeployment(true);
+  }
+
+  /**
+   * Checks for a running or failed deployment, which a new one must not interfere with.
+   *
+   * @return true, if such a deployment exists
+   */
+  private boolean isDeploymentBlocked() {
+    String status = this.getStatus();
+    if (ACTIVE.equalsIgnoreCase(status)) {
+      log.info(Constants.ACTIVE_DEPLOYMENT_EXISTING);
+      return true;
+    }
+    if (FAILED.equalsIgnoreCase(status)) {
+      log.info(Constants.FAIL_DEPLOYMENT_EXISTING);
+      return true;
     }
-    if (BooCli.isNoDeploy()) {
+    return false;
+  }
+
+  /**
+   * Starts the deployment, unless disabled. Transient failures are retried by the transport. The
+   * journal is kept for the next run only if the deployment could not be started.
+   *
+   * @param isUpdate the is update
+   * @return true
+   */
+  private boolean startDeployment(boolean isUpdate) {
+    if (context.isNoDeploy()) {
       this.bar.update(100, 100);
-      LogUtils.info(Constants.CREATE_WITHOUT_DEPLOYMENT);
+      journal.discard();
+      log.info(Constants.CREATE_WITHOUT_DEPLOYMENT);
       return true;
     }
-    LogUtils.info(Constants.START_DEPLOYMENT);
-    while (retry && retries > 0) {
-      utils.waitTimeout(2);
-      try {
-        this.deploy(isUpdate);
-        retry = false;
-      } catch (Exception e) {
-        deployError = e.getMessage();
-        retries--;
-      }
+    log.info(Constants.START_DEPLOYMENT);
+    String deployError = null;
+    try {
+      tracer.call("deploy", () -> this.deploy(isUpdate));
+    } catch (Exception e) {
+      deployError = String.valueOf(e.getMessage());
     }
     this.bar.update(100, 100);
-    if (!retry) { // If no error for deployment.
-      LogUtils.info(Constants.DEPLOYMENT_RUNNING);
+    if (deployError == null) {
+      journal.discard();
+      log.info(Constants.DEPLOYMENT_RUNNING);
     } else {
       if (deployError.contains(Constants.NO_DEPLOYMENT)) {
+        journal.discard();
         System.out.printf(Constants.NO_NEED_DEPLOY);
       } else {
         System.err.printf(Constants.DEPLOYMENT_FAILED, deployError);
@@ -217,26 +440,98 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings("unchecked")
   public boolean createPlatforms(boolean isUpdate) throws OneOpsClientAPIException {
-    List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
-    Collections.sort(platforms);
-    for (PlatformBean platform : platforms) {
-      LogUtils.info(Constants.CREATING_PLATFORM, platform.getName());
-      this.createPlatform(platform);
-      if (platform.getComponents() == null) {
-        continue;
+    List<PlatformBean> platforms = new ArrayList<PlatformBean>();
+    for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
+      if (!journal.isDone(STEP_PLATFORM + platform.getName())) {
+        platforms.add(platform);
       }
-      for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
-        String componentName = entry.getKey();
-        Object value = entry.getValue();
-        if (value instanceof Map) {
-          Map<String, Object> components = (Map<String, Object>) value;
-          this.handleAttachments(components, platform.getName(), componentName);
-          this.updateComponentVariables(platform.getName(), componentName, components);
+    }
+    if (platforms.isEmpty()) {
+      return true;
+    }
+    try (WorkerPool pool = new WorkerPool("boo-platform-%d",
+        Math.min(PLATFORM_THREADS, platforms.size()), tracer)) {
+      for (Map.Entry<Integer, List<PlatformBean>> tier : tiers(platforms).entrySet()) {
+        log.info(Constants.CREATING_PLATFORM_TIER, tier.getValue().size(), tier.getKey());
+        tracer.run("tier " + tier.getKey(), () -> this.createPlatformTier(tier.getKey(),
+            tier.getValue(), pool, platform -> () -> this.buildPlatform(platform), true));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Makes the design changes of a plan: the platforms with changes tier by tier, then the
+   * variables with one commit.
+   *
+   * @param plan the plan
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void applyDesign(Plan plan) throws OneOpsClientAPIException {
+    Map<String, List<Change>> changes = plan.getPlatformChanges();
+    List<PlatformBean> platforms = new ArrayList<PlatformBean>();
+    for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
+      if (changes.containsKey(platform.getName())) {
+        platforms.add(platform);
+      }
+    }
+    if (!platforms.isEmpty()) {
+      try (WorkerPool pool = new WorkerPool("boo-platform-%d",
+          Math.min(PLATFORM_THREADS, platforms.size()), tracer)) {
+        for (Map.Entry<Integer, List<PlatformBean>> tier : tiers(platforms).entrySet()) {
+          log.info(Constants.UPDATING_PLATFORM_TIER, tier.getValue().size(), tier.getKey());
+          tracer.run("tier " + tier.getKey(), () -> this.createPlatformTier(tier.getKey(),
+              tier.getValue(), pool,
+              platform -> () -> this.applyPlatform(platform, changes.get(platform.getName())),
+              false));
+        }
+      }
+    }
+    List<Change> variableChanges = plan.getChanges(Target.VARIABLE);
+    if (!variableChanges.isEmpty()) {
+      variables.apply(variableChanges, state);
+      design.commitDesign();
+    }
+  }
+
+  /**
+   * Makes the planned changes of one platform. The design is not committed.
+   *
+   * @param platform the platform
+   * @param changes the changes of the platform
+   * @return true, as the design changed
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private boolean applyPlatform(PlatformBean platform, List<Change> changes)
+      throws OneOpsClientAPIException {
+    String platformName = platform.getName();
+    for (Change change : changes) {
+      if (change.getTarget() == Target.PLATFORM) {
+        log.info(Constants.CREATING_PLATFORM, platformName);
+        this.createPlatform(platform, false);
+      } else if (change.getTarget() == Target.COMPONENT) {
+        if (change.getAction() == Action.DELETE) {
+          design.deletePlatformComponent(platformName, change.getName());
+          components.removed(platformName, change.getName());
         } else {
-          if (LOG.isInfoEnabled()) {
-            LOG.info("Unknow type {}.", value.getClass());
+          log.info(Constants.UPDATE_COMPONENTS, change.getName(), platformName);
+          this.addOrUpdateComponent(platformName, change.getComponent(), change.getName(),
+              change.getAttributes());
+        }
+      } else if (change.getTarget() == Target.ATTACHMENT) {
+        // We tolerate that if update attachment failed, won't stop the whole process.
+        try {
+          if (change.getAction() == Action.ADD) {
+            this.addAttachment(platformName, change.getComponent(), change.getName(),
+                change.getAttributes());
+          } else {
+            this.updateAttachment(platformName, change.getComponent(), change.getName(),
+                change.getAttributes());
+          }
+        } catch (OneOpsClientAPIException e) {
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Ignoring failed attachment {}: {}", change.getKey(), e.getMessage());
           }
         }
       }
@@ -244,6 +539,120 @@ public class BuildAllPlatforms extends AbstractWorkflow {
     return true;
   }
 
+  /**
+   * Gets the redundancy config of a planned scaling change.
+   *
+   * @param attributes the attributes of the change
+   * @return the redundancy config
+   */
+  private static RedundancyConfig redundancy(Map<String, String> attributes) {
+    RedundancyConfig config = new RedundancyConfig();
+    config.setCurrent(Integer.parseInt(attributes.get("current")));
+    config.setMin(Integer.parseInt(attributes.get("min")));
+    config.setMax(Integer.parseInt(attributes.get("max")));
+    config.setPercentDeploy(Integer.parseInt(attributes.get("percentDeploy")));
+    return config;
+  }
+
+  /**
+   * Groups the platforms by deploy order. A tier only depends on the tiers before it, so the
+   * platforms inside one tier can be built at the same time.
+   *
+   * @param platforms the platforms
+   * @return the tiers, in deploy order
+   */
+  static SortedMap<Integer, List<PlatformBean>> tiers(List<PlatformBean> platforms) {
+    SortedMap<Integer, List<PlatformBean>> tiers = new TreeMap<Integer, List<PlatformBean>>();
+    for (PlatformBean platform : platforms) {
+      List<PlatformBean> tier = tiers.get(platform.getDeployOrder());
+      if (tier == null) {
+        tier = new ArrayList<PlatformBean>();
+        tiers.put(platform.getDeployOrder(), tier);
+      }
+      tier.add(platform);
+    }
+    return tiers;
+  }
+
+  /**
+   * Builds all platforms of one tier concurrently and commits the design once for the tier. Every
+   * platform of the tier is attempted; the failures are reported together.
+   *
+   * @param deployOrder the deploy order of the tier
+   * @param platforms the platforms of the tier
+   * @param pool the threads of the platforms
+   * @param task builds one platform, returning whether the design changed
+   * @param isJournaled whether to record the platforms built once the design is committed
+   * @throws OneOpsClientAPIException if any platform of the tier failed
+   */
+  private void createPlatformTier(int deployOrder, List<PlatformBean> platforms, WorkerPool pool,
+      Function<PlatformBean, Call<Boolean>> task, boolean isJournaled)
+      throws OneOpsClientAPIException {
+    List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+    for (final PlatformBean platform : platforms) {
+      tasks.add(() -> tracer.call("platform " + platform.getName(), task.apply(platform)::call));
+    }
+    List<String> errors = new ArrayList<String>();
+    List<Boolean> results = pool.invokeAll(tasks, (i, cause) -> {
+      errors.add(platforms.get(i).getName() + ": " + cause.getMessage());
+      return null;
+    });
+    if (Thread.currentThread().isInterrupted()) {
+      throw new OneOpsClientAPIException("Interrupted while creating platforms");
+    }
+    List<PlatformBean> built = new ArrayList<PlatformBean>();
+    boolean isCreated = false;
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i) != null) {
+        isCreated |= results.get(i);
+        built.add(platforms.get(i));
+      }
+    }
+    if (isCreated || !errors.isEmpty()) {
+      design.commitDesign();
+    }
+    if (isJournaled) {
+      for (PlatformBean platform : built) {
+        journal.done(STEP_PLATFORM + platform.getName());
+      }
+    }
+    if (!errors.isEmpty()) {
+      throw new OneOpsClientAPIException(String.format(Constants.CREATING_PLATFORM_TIER_FAILED,
+          deployOrder, StringUtils.join(errors, "; ")));
+    }
+  }
+
+  /**
+   * Creates a platform if needed, then applies its attachments and component variables. The
+   * design is not committed.
+   *
+   * @param platform the platform
+   * @return true, if the platform was created
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  private boolean buildPlatform(PlatformBean platform) throws OneOpsClientAPIException {
+    log.info(Constants.CREATING_PLATFORM, platform.getName());
+    boolean isCreated = this.createPlatform(platform, false);
+    if (platform.getComponents() == null) {
+      return isCreated;
+    }
+    for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+      String componentName = entry.getKey();
+      Object value = entry.getValue();
+      if (value instanceof Map) {
+        Map<String, Object> components = (Map<String, Object>) value;
+        this.handleAttachments(components, platform.getName(), componentName);
+        this.updateComponentVariables(platform.getName(), componentName, components);
+      } else {
+        if (LOG.isInfoEnabled()) {
+          LOG.info("Unknow type {}.", value.getClass());
+        }
+      }
+    }
+    return isCreated;
+  }
+
   /**
    * We tolerate that if update attachment failed, won't stop the whole process.
    * 
@@ -298,6 +707,20 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean createPlatform(PlatformBean platform) throws OneOpsClientAPIException {
+    this.createPlatform(platform, true);
+    return true;
+  }
+
+  /**
+   * Creates the platform unless it exists.
+   *
+   * @param platform the platform
+   * @param isCommit whether to commit the design right after creating it
+   * @return true, if the platform was created
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private boolean createPlatform(PlatformBean platform, boolean isCommit)
+      throws OneOpsClientAPIException {
     boolean isExist = false;
     try {
       isExist = this.isPlatformExist(platform.getName());
@@ -308,14 +731,14 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       JsonPath response =
           design.createPlatform(platform.getName(), platform.getPack(), platform.getPackVersion(),
               platform.getPackSource(), Constants.DESCRIPTION, Constants.DESCRIPTION);
-      if (response != null) {
+      if (response != null && isCommit) {
         design.commitDesign();
       }
-      LogUtils.info(Constants.CREATING_PLATFORM_SUCCEED, platform.getName());
+      log.info(Constants.CREATING_PLATFORM_SUCCEED, platform.getName());
     } else {
-      LogUtils.info(Constants.PLATFORM_EXISTING, platform.getName());
+      log.info(Constants.PLATFORM_EXISTING, platform.getName());
     }
-    return true;
+    return !isExist;
 
   }
 
@@ -330,107 +753,34 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    */
   public boolean isComponentExist(String platformName, String componentName)
       throws OneOpsClientAPIException, OneOpsComponentExistException {
-    boolean isExist = false;
-    try {
-      design.getPlatformComponent(platformName, componentName);
-      isExist = true;
-    } catch (OneOpsClientAPIException e) {
-      // e.printStackTrace();
-      throw new OneOpsComponentExistException(e.getMessage());
+    if (!components.exists(platformName, componentName)) {
+      String msg = String.format("The component %s is not exist!", componentName);
+      throw new OneOpsComponentExistException(msg);
     }
-    return isExist;
+    return true;
   }
 
 
   /**
-   * Update platform variables.
+   * Update platform variables. The variables of each platform are listed once and only the
+   * differences are written, concurrently, with one commit at the end.
    *
    * @param isUpdate the is update
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean updatePlatformVariables(boolean isUpdate) throws OneOpsClientAPIException {
-    List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
-    for (PlatformBean platform : platforms) {
-      Map<String, String> secureVariables = platform.getSecureVariables();
-      Set<String> yamlVarSet = new HashSet<String>();
-      if (secureVariables != null && secureVariables.size() > 0) {
-        this.updateOrAddPlatformVariables(platform.getName(), secureVariables, true, isUpdate);
-        // collect all variables (secvar or var) in yaml
-        for (Map.Entry<String, String> entry : secureVariables.entrySet()) {
-          yamlVarSet.add(entry.getKey());
-        }
-      }
-      Map<String, String> variables = platform.getVariables();
-      if (variables != null && variables.size() > 0) {
-        this.updateOrAddPlatformVariables(platform.getName(), variables, false, isUpdate);
-        // collect all variables (secvar or var) in yaml
-        for (Map.Entry<String, String> entry : variables.entrySet()) {
-          yamlVarSet.add(entry.getKey());
-        }
-      }
-
-      JsonPath response = design.listPlatformVariables(platform.getName());
-      List<String> servVarList = response.getList(Constants.CINAME);
-      for (String servVar : servVarList) {
-        if (!yamlVarSet.contains(servVar)) {
-          design.deletePlatformVariable(platform.getName(), servVar);
-        }
-      }
+    List<Change> changes = new ArrayList<Change>();
+    for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
+      changes.addAll(variables.diff(platform, null));
     }
-    if (platforms.size() > 0) {
+    if (!changes.isEmpty()) {
+      variables.apply(changes, null);
       design.commitDesign();
     }
     return true;
   }
 
-
-  /**
-   * Update or add platform variables.
-   *
-   * @param platformName the platform name
-   * @param variables the variables
-   * @param isSecure the is secure
-   * @param isUpdate the is update
-   * @throws OneOpsClientAPIException the one ops client API exception
-   */
-  @SuppressWarnings("serial")
-  private void updateOrAddPlatformVariables(String platformName, Map<String, String> variables,
-      boolean isSecure, boolean isUpdate) throws OneOpsClientAPIException {
-    if (variables == null || variables.size() == 0) {
-      return;
-    }
-    for (final Map.Entry<String, String> entry : variables.entrySet()) {
-      this.updateOrAddPlatformVariablesIntl(platformName, new HashMap<String, String>() {
-        {
-          put(entry.getKey(), entry.getValue());
-        }
-      }, isSecure, isUpdate);
-    }
-  }
-
-  /**
-   * Have to add isExist method later.
-   *
-   * @param platformName Platform name.
-   * @param variables A map of variables.
-   * @param isSecure Is secure variable.
-   * @param isUpdate the is update
-   * @throws OneOpsClientAPIException when update failed.
-   */
-  private void updateOrAddPlatformVariablesIntl(String platformName, Map<String, String> variables,
-      boolean isSecure, boolean isUpdate) throws OneOpsClientAPIException {
-    if (!isUpdate) {
-      design.addPlatformVariable(platformName, variables, isSecure);
-    } else {
-      try {
-        design.updatePlatformVariable(platformName, variables, isSecure);
-      } catch (OneOpsClientAPIException e) {
-        design.addPlatformVariable(platformName, variables, isSecure);
-      }
-    }
-  }
-
   /**
    * Right now support components with two layers config.
    *
@@ -442,9 +792,8 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   @SuppressWarnings({"unchecked", "rawtypes"})
   private void updateComponentVariables(String platformName, String componentName,
       Map<String, Object> attributes) throws OneOpsClientAPIException {
-    // Create thread pool to add users parallel
-    ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
-
+    // Components with keys are added in parallel on the shared executor.
+    List<CompletableFuture<Void>> updates = new ArrayList<CompletableFuture<Void>>();
     for (Map.Entry<String, Object> entry : attributes.entrySet()) {
       String key = entry.getKey();
       Object value = entry.getValue();
@@ -452,28 +801,37 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       if (value instanceof Map) {
         Map<String, String> attris = (Map<String, String>) value;
         if (attris.containsKey(Constants.AUTHO_KEYS)) {
-          Runnable worker = new UpdateComponentTask(this, platformName, componentName, key, attris);
-          executor.execute(worker);
+          updates.add(CompletableFuture.runAsync(
+              new UpdateComponentTask(this, platformName, componentName, key, attris), executor));
         } else {
           this.updateComponentVariablesInternal(platformName, componentName, key, attris);
         }
       } else if (value instanceof String) {
         Map<String, String> att = (Map) attributes;
         if (att.containsKey(Constants.AUTHO_KEYS)) {
-          Runnable worker = new UpdateComponentTask(this, platformName, componentName, key, att);
-          executor.execute(worker);
+          updates.add(CompletableFuture.runAsync(
+              new UpdateComponentTask(this, platformName, componentName, key, att), executor));
         } else {
           this.updateComponentVariablesInternal(platformName, componentName, componentName, att);
         }
         break;
       }
     }
-    executor.shutdown();
-    while (!executor.isTerminated()) {
-      Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+    List<String> errors = new ArrayList<String>();
+    for (CompletableFuture<Void> update : updates) {
+      try {
+        update.join();
+      } catch (CompletionException e) {
+        errors.add(e.getCause().getMessage());
+      }
+    }
+    if (!errors.isEmpty()) {
+      throw new OneOpsClientAPIException(String.format(Constants.UPDATING_COMPONENTS_FAILED,
+          componentName, platformName, StringUtils.join(errors, "; ")));
     }
   }
 
+
   /**
    * Update component variables internal.
    *
@@ -486,21 +844,36 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    */
   private boolean updateComponentVariablesInternal(String platformName, String componentName,
       String uniqueName, Map<String, String> attributes) throws OneOpsClientAPIException {
-    LogUtils.info(Constants.UPDATE_COMPONENTS, componentName, platformName);
-    boolean isExist = Boolean.FALSE;
-    try {
-      isExist = this.isComponentExist(platformName, uniqueName);
-    } catch (OneOpsComponentExistException e1) {
-      // Ignore
-      isExist = Boolean.FALSE;
-    }
-    if (isExist) {
+    log.info(Constants.UPDATE_COMPONENTS, componentName, platformName);
+    this.addOrUpdateComponent(platformName, componentName, uniqueName, attributes);
+    // design.commitDesign();
+    return true;
+  }
+
+  /**
+   * Updates the component from its snapshot copy, or adds it when it does not exist yet. A copy
+   * listed without its attribute props is fetched again before the update.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param uniqueName the unique name
+   * @param attributes the attributes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  void addOrUpdateComponent(String platformName, String componentName, String uniqueName,
+      Map<String, String> attributes) throws OneOpsClientAPIException {
+    CiResource current = components.get(platformName, uniqueName);
+    if (current != null && current.getCiAttrProps() != null) {
+      design.updatePlatformComponent(platformName, current, attributes);
+      components.updated(platformName, uniqueName, attributes);
+    } else if (current != null) {
+      // Listed without its owners, which the update must keep.
       design.updatePlatformComponent(platformName, uniqueName, attributes);
+      components.invalidate(platformName, uniqueName);
     } else {
       design.addPlatformComponent(platformName, componentName, uniqueName, attributes);
+      components.invalidate(platformName, uniqueName);
     }
-    // design.commitDesign();
-    return true;
   }
 
   /**
@@ -552,7 +925,7 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       config.setMin(scale.getMin());
       config.setMax(scale.getMax());
       config.setPercentDeploy(scale.getPercentDeploy());
-      LogUtils.info(Constants.COMPUTE_SIZE, envName, scale.getPlatform());
+      log.info(Constants.COMPUTE_SIZE, envName, scale.getPlatform());
       transition.updatePlatformRedundancyConfig(envName, scale.getPlatform(), scale.getComponent(),
           config);
     }
@@ -587,16 +960,14 @@ public class BuildAllPlatforms extends AbstractWorkflow {
           yamlCompSet.addAll(target.keySet());
         }
       }
-      JsonPath response = design.listPlatformComponents(platform.getName());
-      List<String> servCompList = response.getList(Constants.CINAME);
-      for (String servComp : servCompList) {
-        if (this.isUserCustomizedComponent(platform.getName(), servComp)
-            && !yamlCompSet.contains(servComp)) {
+      for (String servComp : components.names(platform.getName())) {
+        if (!yamlCompSet.contains(servComp)
+            && components.isUserCustomized(platform.getName(), servComp)) {
           design.deletePlatformComponent(platform.getName(), servComp);
+          components.removed(platform.getName(), servComp);
         }
       }
     }
     return true;
   }
-
 }
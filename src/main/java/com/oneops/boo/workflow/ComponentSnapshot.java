@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.model.CiResource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-run snapshot of the design components of each platform.
+ *
+ * <p>The components of a platform are listed once, on first lookup, and existence, id, attribute
+ * and owner lookups are then answered from memory. Updates are merged into the snapshot, while
+ * additions only mark the name stale so that the next lookup fetches that single component.
+ */
+class ComponentSnapshot {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(ComponentSnapshot.class);
+
+  /** The design. */
+  private final Design design;
+
+  /** Components by name, by platform. */
+  private final ConcurrentMap<String, ConcurrentMap<String, CiResource>> platforms =
+      new ConcurrentHashMap<String, ConcurrentMap<String, CiResource>>();
+
+  /** Listing locks, by platform. */
+  private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+  /** Names written since the listing, as platform/component. */
+  private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+  /** The API calls made to fill the snapshot. */
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  /** The lookups answered from memory. */
+  private final AtomicInteger hits = new AtomicInteger();
+
+  /**
+   * Instantiates a new component snapshot.
+   *
+   * @param design the design
+   */
+  ComponentSnapshot(Design design) {
+    this.design = design;
+  }
+
+  /**
+   * Gets a component.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the component, or null if it does not exist
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  CiResource get(String platformName, String componentName) throws OneOpsClientAPIException {
+    ConcurrentMap<String, CiResource> components = this.load(platformName);
+    if (stale.remove(key(platformName, componentName))) {
+      this.refresh(platformName, componentName, components);
+    } else {
+      hits.incrementAndGet();
+    }
+    return components.get(componentName);
+  }
+
+  /**
+   * Checks if a component exists.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return true, if the component exists
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  boolean exists(String platformName, String componentName) throws OneOpsClientAPIException {
+    return this.get(platformName, componentName) != null;
+  }
+
+  /**
+   * Lists the component names of a platform.
+   *
+   * @param platformName the platform name
+   * @return the names
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  List<String> names(String platformName) throws OneOpsClientAPIException {
+    return new ArrayList<String>(this.load(platformName).keySet());
+  }
+
+  /**
+   * Checks whether the component has user owned attributes. When the listing did not carry the
+   * owner props, the component is fetched once and kept.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return true, if the component is user customized
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  boolean isUserCustomized(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    CiResource component = this.get(platformName, componentName);
+    if (component == null) {
+      return false;
+    }
+    if (component.getCiAttrProps() == null) {
+      component = this.refresh(platformName, componentName, this.load(platformName));
+    }
+    return component != null && component.hasOwnedAttributes();
+  }
+
+  /**
+   * Merges the attributes just written into the snapshot copy.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param attributes the attributes
+   */
+  void updated(String platformName, String componentName, Map<String, String> attributes) {
+    ConcurrentMap<String, CiResource> components = platforms.get(platformName);
+    CiResource component = components == null ? null : components.get(componentName);
+    if (component == null) {
+      this.invalidate(platformName, componentName);
+      return;
+    }
+    synchronized (component) {
+      Map<String, String> attr = new HashMap<String, String>();
+      if (component.getCiAttributes() != null) {
+        attr.putAll(component.getCiAttributes());
+      }
+      attr.putAll(attributes);
+      component.setCiAttributes(attr);
+      if (component.getCiAttrProps() != null) {
+        Map<String, Map<String, String>> props =
+            new HashMap<String, Map<String, String>>(component.getCiAttrProps());
+        Map<String, String> owner = new HashMap<String, String>();
+        if (props.get("owner") != null) {
+          owner.putAll(props.get("owner"));
+        }
+        for (String name : attributes.keySet()) {
+          owner.put(name, "design");
+        }
+        props.put("owner", owner);
+        component.setCiAttrProps(props);
+      }
+    }
+  }
+
+  /**
+   * Marks a component stale, so the next lookup fetches it.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   */
+  void invalidate(String platformName, String componentName) {
+    stale.add(key(platformName, componentName));
+  }
+
+  /**
+   * Drops a deleted component from the snapshot.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   */
+  void removed(String platformName, String componentName) {
+    stale.remove(key(platformName, componentName));
+    ConcurrentMap<String, CiResource> components = platforms.get(platformName);
+    if (components != null) {
+      components.remove(componentName);
+    }
+  }
+
+  /**
+   * Forgets every platform, e.g. at the start of a new run.
+   */
+  void clear() {
+    if (LOG.isDebugEnabled() && fetches.get() > 0) {
+      LOG.debug("Component snapshot: {} fetches, {} hits", fetches.get(), hits.get());
+    }
+    platforms.clear();
+    stale.clear();
+    fetches.set(0);
+    hits.set(0);
+  }
+
+  /**
+   * Gets the API calls made to fill the snapshot.
+   *
+   * @return the fetches
+   */
+  int getFetches() {
+    return fetches.get();
+  }
+
+  /**
+   * Gets the lookups answered from memory.
+   *
+   * @return the hits
+   */
+  int getHits() {
+    return hits.get();
+  }
+
+  private ConcurrentMap<String, CiResource> load(String platformName)
+      throws OneOpsClientAPIException {
+    ConcurrentMap<String, CiResource> components = platforms.get(platformName);
+    if (components != null) {
+      return components;
+    }
+    // one lock per platform, so platforms built in parallel list their components in parallel
+    synchronized (locks.computeIfAbsent(platformName, name -> new Object())) {
+      components = platforms.get(platformName);
+      if (components == null) {
+        components = new ConcurrentHashMap<String, CiResource>();
+        fetches.incrementAndGet();
+        for (CiResource component : design.fetchPlatformComponents(platformName)) {
+          components.put(component.getCiName(), component);
+        }
+        platforms.put(platformName, components);
+      }
+    }
+    return components;
+  }
+
+  private CiResource refresh(String platformName, String componentName,
+      ConcurrentMap<String, CiResource> components) {
+    fetches.incrementAndGet();
+    try {
+      CiResource component = design.fetchPlatformComponent(platformName, componentName);
+      components.put(componentName, component);
+      return component;
+    } catch (OneOpsClientAPIException e) {
+      // Not there (anymore)
+      components.remove(componentName);
+      return null;
+    }
+  }
+
+  private static String key(String platformName, String componentName) {
+    return platformName + "/" + componentName;
+  }
+}
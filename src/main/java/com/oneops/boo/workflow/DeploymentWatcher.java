@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.google.common.collect.ImmutableSet;
+import com.oneops.boo.LogUtils;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Transition;
+import com.oneops.client.api.resource.model.DeploymentRecord;
+import com.oneops.client.api.resource.model.DeploymentStatus;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.util.Poller;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Follows one deployment until it ends. It prints each step as it starts, each RFC as its state
+ * changes, and the new log lines of running and failed RFCs. The status is polled with back off
+ * that starts over whenever the deployment moves, so busy steps are followed closely and long
+ * ones cost few calls.
+ */
+public class DeploymentWatcher extends StateFollower<DeploymentStatus> {
+
+  /** The deployment states a watch ends on. */
+  static final Set<String> FINAL_STATES =
+      ImmutableSet.of("complete", "failed", "canceled", "paused", "pending");
+
+  private final Transition transition;
+  private final String envName;
+  private final LogUtils log;
+
+  /** The steps that started. */
+  private final Set<Integer> started = new HashSet<Integer>();
+
+  private String deploymentState;
+
+  /**
+   * Instantiates a watcher, polling every 2 seconds while the deployment moves and backing off to
+   * every 30 seconds while it does not.
+   *
+   * @param transition the transition of the assembly
+   * @param envName the environment name
+   * @param log the logs of the command
+   */
+  public DeploymentWatcher(Transition transition, String envName, LogUtils log) {
+    this(transition, envName, log, backoff("deployment of " + envName, 30));
+  }
+
+  DeploymentWatcher(Transition transition, String envName, LogUtils log, Poller poller) {
+    super(poller);
+    this.transition = transition;
+    this.envName = envName;
+    this.log = log;
+  }
+
+  /**
+   * Follows a deployment until it ends.
+   *
+   * @param deploymentId the deployment id
+   * @return the final state of the deployment
+   * @throws OneOpsClientAPIException if the status cannot be read
+   */
+  public String watch(String deploymentId) throws OneOpsClientAPIException {
+    long start = System.nanoTime();
+    log.info(Constants.WATCHING, deploymentId, envName);
+    DeploymentStatus status = this.await(() -> this.probe(deploymentId),
+        dpmt -> dpmt.getDeploymentState() == null
+            || FINAL_STATES.contains(dpmt.getDeploymentState().toLowerCase()));
+    List<DeploymentRecord> records = status.getRecords();
+    log.info(Constants.WATCH_SUMMARY, deploymentId, status.getDeploymentState(),
+        (System.nanoTime() - start) / 1e9,
+        count(records, DeploymentRecord::getDpmtRecordState, "complete"), records.size(),
+        count(records, DeploymentRecord::getDpmtRecordState, "failed"));
+    return status.getDeploymentState();
+  }
+
+  /**
+   * Reads the status once and prints what changed since the last read.
+   *
+   * @param deploymentId the deployment id
+   * @return the status
+   * @throws OneOpsClientAPIException if the status cannot be read
+   */
+  private DeploymentStatus probe(String deploymentId) throws OneOpsClientAPIException {
+    DeploymentStatus status = transition.fetchDeploymentStatus(envName, deploymentId);
+    if (!Objects.equals(deploymentState, status.getDeploymentState())) {
+      this.moved();
+      deploymentState = status.getDeploymentState();
+      log.info(Constants.WATCH_STATE, deploymentId, deploymentState);
+    }
+    List<DeploymentRecord> records = new ArrayList<DeploymentRecord>(status.getRecords());
+    records.sort((a, b) -> Integer.compare(order(a), order(b)));
+    Set<Integer> orders = new TreeSet<Integer>();
+    for (DeploymentRecord record : records) {
+      orders.add(order(record));
+    }
+    List<Integer> steps = new ArrayList<Integer>(orders);
+    for (DeploymentRecord record : records) {
+      String state = record.getDpmtRecordState();
+      if (record.getRfcId() == null || state == null) {
+        continue;
+      }
+      if (!this.changed(record.getRfcId(), state)) {
+        if ("inprogress".equalsIgnoreCase(state)) {
+          this.tail(deploymentId, record);
+        }
+        continue;
+      }
+      int step = steps.indexOf(order(record)) + 1;
+      if (started.add(step)) {
+        long size = records.stream().filter(other -> order(other) == order(record)).count();
+        log.info(Constants.WATCH_STEP, step, steps.size(), size);
+      }
+      log.info(Constants.WATCH_RFC, state, record.getRfcAction(), record.getCiName(),
+          shortName(record.getCiClassName()));
+      if ("inprogress".equalsIgnoreCase(state) || "failed".equalsIgnoreCase(state)) {
+        this.tail(deploymentId, record);
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Prints the log lines of an RFC not printed yet.
+   *
+   * @param deploymentId the deployment id
+   * @param record the RFC
+   */
+  private void tail(String deploymentId, DeploymentRecord record) {
+    String rfcId = String.valueOf(record.getRfcId());
+    List<LogData.Entry> entries = new ArrayList<LogData.Entry>();
+    for (LogData rfcLog : this.readLogs(
+        () -> transition.fetchDeploymentRfcLog(envName, deploymentId, rfcId), "rfc " + rfcId)) {
+      entries.addAll(rfcLog.getLogData());
+    }
+    this.printNew(record.getRfcId(), entries, line -> log.info(Constants.WATCH_LOG, line));
+  }
+
+  private static int order(DeploymentRecord record) {
+    return record.getExecutionOrder() == null ? 0 : record.getExecutionOrder();
+  }
+
+  /**
+   * Shortens a class name like bom.oneops.1.Compute to Compute.
+   */
+  private static String shortName(String className) {
+    return className == null ? "" : className.substring(className.lastIndexOf('.') + 1);
+  }
+}
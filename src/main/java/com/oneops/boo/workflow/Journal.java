@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The steps a create or update has completed, so a run that failed halfway can be resumed instead
+ * of starting over. Each completed step is appended as one line, with the ids it recorded:
+ *
+ * <pre>
+ * step&lt;TAB&gt;name=id&lt;TAB&gt;...&lt;TAB&gt;
+ * </pre>
+ *
+ * <p>The closing tab tells a complete line from one cut short by a crash.
+ *
+ * <p>A journal belongs to one assembly, environment and version of the Boo YAML. Editing the YAML
+ * starts a new journal, and a journal is discarded once its workflow completes.
+ */
+class Journal {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+  /** ~/.boo/journal, with a directory per organization and assembly. */
+  static final File JOURNAL_DIR =
+      new File(new File(System.getProperty("user.home"), ".boo"), "journal");
+
+  /** The suffix of journal files. */
+  private static final String SUFFIX = ".log";
+
+  /** The digest characters in file names. */
+  private static final int DIGEST_LENGTH = 16;
+
+  /** The separator of the fields of a line. */
+  private static final char TAB = '\t';
+
+  /** The file. */
+  private final File file;
+
+  /** The completed steps and their ids, in order. */
+  private final Map<String, Map<String, String>> steps =
+      new LinkedHashMap<String, Map<String, String>>();
+
+  /**
+   * Loads the steps recorded in a file, if there is one. A line cut short by a crash is ignored.
+   *
+   * @param file the file
+   */
+  Journal(File file) {
+    this.file = file;
+    if (!file.isFile()) {
+      return;
+    }
+    try {
+      for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+        if (line.length() < 2 || line.charAt(line.length() - 1) != TAB) {
+          continue;
+        }
+        String[] fields = line.substring(0, line.length() - 1).split(String.valueOf(TAB));
+        Map<String, String> ids = new LinkedHashMap<String, String>();
+        for (int i = 1; i < fields.length; i++) {
+          int sep = fields[i].indexOf('=');
+          if (sep > 0) {
+            ids.put(fields[i].substring(0, sep), fields[i].substring(sep + 1));
+          }
+        }
+        steps.put(fields[0], ids);
+      }
+    } catch (IOException e) {
+      LOG.warn("Ignoring unreadable journal {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Gets the journal of a version of the Boo YAML. The journals of other versions are stale and
+   * removed.
+   *
+   * @param org the organization
+   * @param assembly the assembly
+   * @param env the environment
+   * @param digest the digest of the Boo YAML
+   * @return the journal
+   */
+  static Journal of(String org, String assembly, String env, String digest) {
+    return of(JOURNAL_DIR, org, assembly, env, digest);
+  }
+
+  /**
+   * Gets the journal of a version of the Boo YAML kept under a directory.
+   *
+   * @param root the directory
+   * @param org the organization
+   * @param assembly the assembly
+   * @param env the environment
+   * @param digest the digest of the Boo YAML
+   * @return the journal
+   */
+  static Journal of(File root, String org, String assembly, String env, String digest) {
+    File dir = new File(new File(root, org), assembly);
+    String name = env + "-" + digest.substring(0, DIGEST_LENGTH) + SUFFIX;
+    File[] stale = dir.listFiles((parent, other) -> !other.equals(name)
+        && other.length() == name.length() && other.startsWith(env + "-"));
+    if (stale != null) {
+      for (File file : stale) {
+        delete(file);
+      }
+    }
+    return new Journal(new File(dir, name));
+  }
+
+  /**
+   * Removes the journals of all environments of an assembly, e.g. when it is deleted.
+   *
+   * @param org the organization
+   * @param assembly the assembly
+   */
+  static void discardAll(String org, String assembly) {
+    discardAll(JOURNAL_DIR, org, assembly);
+  }
+
+  /**
+   * Removes the journals of all environments of an assembly kept under a directory.
+   *
+   * @param root the directory
+   * @param org the organization
+   * @param assembly the assembly
+   */
+  static void discardAll(File root, String org, String assembly) {
+    File[] files = new File(new File(root, org), assembly).listFiles();
+    if (files != null) {
+      for (File file : files) {
+        delete(file);
+      }
+    }
+  }
+
+  /**
+   * Checks whether a step was completed.
+   *
+   * @param step the step
+   * @return true, if the step was completed
+   */
+  synchronized boolean isDone(String step) {
+    return steps.containsKey(step);
+  }
+
+  /**
+   * Gets the ids a completed step recorded, e.g. the name of the assembly it created.
+   *
+   * @param step the step
+   * @return the ids by name, empty if the step was not completed
+   */
+  synchronized Map<String, String> getIds(String step) {
+    Map<String, String> ids = steps.get(step);
+    return ids == null ? Collections.<String, String>emptyMap()
+        : Collections.unmodifiableMap(ids);
+  }
+
+  synchronized boolean isEmpty() {
+    return steps.isEmpty();
+  }
+
+  synchronized int size() {
+    return steps.size();
+  }
+
+  /**
+   * Records a completed step.
+   *
+   * @param step the step
+   */
+  void done(String step) {
+    this.done(step, Collections.<String, String>emptyMap());
+  }
+
+  /**
+   * Records a completed step and appends it to the file right away. A failed write only costs
+   * repeating the step on the next run.
+   *
+   * @param step the step
+   * @param ids the ids the step recorded, by name
+   */
+  synchronized void done(String step, Map<String, String> ids) {
+    steps.put(step, new LinkedHashMap<String, String>(ids));
+    StringBuilder line = new StringBuilder(step);
+    for (Map.Entry<String, String> entry : ids.entrySet()) {
+      line.append(TAB).append(entry.getKey()).append('=').append(entry.getValue());
+    }
+    line.append(TAB).append(System.lineSeparator());
+    try {
+      Files.createDirectories(file.getParentFile().toPath());
+      Files.write(file.toPath(), line.toString().getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      LOG.warn("Cannot write journal {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Forgets all steps, once the workflow completed or its assembly is gone.
+   */
+  synchronized void discard() {
+    steps.clear();
+    delete(file);
+  }
+
+  private static void delete(File file) {
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      LOG.warn("Cannot remove journal {}: {}", file, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.resource.model.CiResource;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The changes needed to bring an assembly and its environment in line with the Boo YAML. Only
+ * what differs from the current state is listed, and an unchanged assembly has an empty plan.
+ */
+public class Plan {
+
+  /** Shown instead of secure values. */
+  static final String MASKED = "(secure)";
+
+  /**
+   * What a change does.
+   */
+  public enum Action {
+    ADD("+"), UPDATE("~"), DELETE("-");
+
+    private final String symbol;
+
+    Action(String symbol) {
+      this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+  }
+
+  /**
+   * What a change is made to.
+   */
+  public enum Target {
+    PLATFORM("platform", true), COMPONENT("component", true), ATTACHMENT("attachment", true),
+    VARIABLE("variable", true), ENVIRONMENT("environment", false),
+    CLOUD("cloud", false), ENV_COMPONENT("environment component", false),
+    SCALE("scaling", false), RELAY("relay", false);
+
+    private final String label;
+    private final boolean isDesign;
+
+    Target(String label, boolean isDesign) {
+      this.label = label;
+      this.isDesign = isDesign;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    /**
+     * Checks whether changes of this target are made in the design, rather than the transition.
+     *
+     * @return true, if this is a design target
+     */
+    public boolean isDesign() {
+      return isDesign;
+    }
+  }
+
+  /**
+   * One change.
+   */
+  public static class Change {
+
+    private final Action action;
+    private final Target target;
+    private final String platform;
+    private final String component;
+    private final String name;
+    private final Map<String, String> attributes;
+    private final Map<String, String> current;
+    private final boolean isSecure;
+    private final CiResource resource;
+
+    /**
+     * Instantiates a new change.
+     *
+     * @param action the action
+     * @param target the target
+     * @param platform the platform, if any
+     * @param component the template of a component, the owner of an attachment or a cloud id
+     * @param name the name of the changed element
+     * @param attributes the attributes to write, only the changed ones for an update
+     * @param current the current values of the changed attributes
+     * @param isSecure whether the values must not be shown
+     */
+    Change(Action action, Target target, String platform, String component, String name,
+        Map<String, String> attributes, Map<String, String> current, boolean isSecure) {
+      this(action, target, platform, component, name, attributes, current, isSecure, null);
+    }
+
+    /**
+     * Instantiates a new change of an element that was read while planning, so it can be written
+     * without reading it again.
+     *
+     * @param action the action
+     * @param target the target
+     * @param platform the platform, if any
+     * @param component the template of a component, the owner of an attachment or a cloud id
+     * @param name the name of the changed element
+     * @param attributes the attributes to write, only the changed ones for an update
+     * @param current the current values of the changed attributes
+     * @param isSecure whether the values must not be shown
+     * @param resource the element as read
+     */
+    Change(Action action, Target target, String platform, String component, String name,
+        Map<String, String> attributes, Map<String, String> current, boolean isSecure,
+        CiResource resource) {
+      this.action = action;
+      this.target = target;
+      this.platform = platform;
+      this.component = component;
+      this.name = name;
+      this.attributes = attributes == null ? Collections.<String, String>emptyMap() : attributes;
+      this.current = current == null ? Collections.<String, String>emptyMap() : current;
+      this.isSecure = isSecure;
+      this.resource = resource;
+    }
+
+    public Action getAction() {
+      return action;
+    }
+
+    public Target getTarget() {
+      return target;
+    }
+
+    public String getPlatform() {
+      return platform;
+    }
+
+    public String getComponent() {
+      return component;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Map<String, String> getAttributes() {
+      return attributes;
+    }
+
+    public Map<String, String> getCurrent() {
+      return current;
+    }
+
+    public boolean isSecure() {
+      return isSecure;
+    }
+
+    /**
+     * Gets the element as read while planning.
+     *
+     * @return the element, or null
+     */
+    CiResource getResource() {
+      return resource;
+    }
+
+    /**
+     * Gets the key of the changed element, e.g. variable/web/JAVA_HOME.
+     *
+     * @return the key
+     */
+    public String getKey() {
+      StringBuilder key = new StringBuilder(target.name().toLowerCase());
+      if (platform != null) {
+        key.append('/').append(platform);
+      }
+      if (target == Target.ATTACHMENT && component != null) {
+        key.append('/').append(component);
+      }
+      return key.append('/').append(name).toString();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder str = new StringBuilder();
+      str.append(action.getSymbol()).append(' ').append(target.getLabel()).append(' ');
+      if (platform != null) {
+        str.append(platform).append('/');
+      }
+      if (target == Target.ATTACHMENT && component != null) {
+        str.append(component).append('/');
+      }
+      str.append(name);
+      if (action == Action.DELETE) {
+        return str.toString();
+      }
+      for (Map.Entry<String, String> entry : attributes.entrySet()) {
+        str.append(System.lineSeparator()).append("    ").append(entry.getKey()).append(": ");
+        if (current.containsKey(entry.getKey())) {
+          str.append(this.show(current.get(entry.getKey()))).append(" -> ");
+        }
+        str.append(this.show(entry.getValue()));
+      }
+      return str.toString();
+    }
+
+    private String show(Object value) {
+      return isSecure ? MASKED : String.valueOf(value);
+    }
+  }
+
+  private final String assemblyName;
+  private final String envName;
+  private final List<Change> changes = new ArrayList<Change>();
+
+  /**
+   * Instantiates a new, empty plan.
+   *
+   * @param assemblyName the assembly name
+   * @param envName the environment name
+   */
+  public Plan(String assemblyName, String envName) {
+    this.assemblyName = assemblyName;
+    this.envName = envName;
+  }
+
+  public String getAssemblyName() {
+    return assemblyName;
+  }
+
+  public String getEnvName() {
+    return envName;
+  }
+
+  /**
+   * Adds changes, in the order they are to be made.
+   *
+   * @param changes the changes
+   */
+  synchronized void addAll(List<Change> changes) {
+    this.changes.addAll(changes);
+  }
+
+  /**
+   * Gets all changes, in the order they are made.
+   *
+   * @return the changes
+   */
+  public synchronized List<Change> getChanges() {
+    return new ArrayList<Change>(changes);
+  }
+
+  /**
+   * Gets the changes made to a target.
+   *
+   * @param target the target
+   * @return the changes
+   */
+  public synchronized List<Change> getChanges(Target target) {
+    List<Change> matches = new ArrayList<Change>();
+    for (Change change : changes) {
+      if (change.getTarget() == target) {
+        matches.add(change);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Gets the design changes of a platform, grouped by platform in plan order.
+   *
+   * @return the platform changes, by platform name
+   */
+  public synchronized Map<String, List<Change>> getPlatformChanges() {
+    Map<String, List<Change>> platforms = new LinkedHashMap<String, List<Change>>();
+    for (Change change : changes) {
+      if (change.getTarget().isDesign() && change.getTarget() != Target.VARIABLE) {
+        List<Change> platform = platforms.get(change.getPlatform());
+        if (platform == null) {
+          platform = new ArrayList<Change>();
+          platforms.put(change.getPlatform(), platform);
+        }
+        platform.add(change);
+      }
+    }
+    return platforms;
+  }
+
+  public synchronized boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  public synchronized int size() {
+    return changes.size();
+  }
+
+  /**
+   * Checks whether the design changes, so it has to be pulled into the environment.
+   *
+   * @return true, if any change is made in the design
+   */
+  public synchronized boolean hasDesignChanges() {
+    for (Change change : changes) {
+      if (change.getTarget().isDesign()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether the environment has to be committed and deployed. Toggling the relay alone
+   * does neither.
+   *
+   * @return true, if a change needs a deployment
+   */
+  public synchronized boolean needsDeployment() {
+    for (Change change : changes) {
+      if (change.getTarget() != Target.RELAY) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Prints the plan, secure values masked.
+   *
+   * @param out the stream
+   */
+  public synchronized void print(PrintStream out) {
+    if (changes.isEmpty()) {
+      out.printf(Constants.PLAN_UP_TO_DATE, assemblyName, envName);
+      out.println();
+      return;
+    }
+    out.printf(Constants.PLAN_HEADER, assemblyName, envName, changes.size());
+    out.println();
+    for (Change change : changes) {
+      out.println("  " + change);
+    }
+  }
+}
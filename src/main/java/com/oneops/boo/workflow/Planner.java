@@ -0,0 +1,519 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.boo.workflow.Plan.Action;
+import com.oneops.boo.workflow.Plan.Change;
+import com.oneops.boo.workflow.Plan.Target;
+import com.oneops.boo.yaml.CloudBean;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.boo.yaml.ScaleBean;
+import com.oneops.boo.yaml.helper.EnvironmentBeanHelper;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.AsyncAPIClient.Call;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.Environment;
+import com.oneops.client.api.util.JsonUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds the {@link Plan} of an update. The current design and transition state is read
+ * concurrently, one listing per platform, and compared with the Boo YAML; only what differs ends
+ * up in the plan. Settings that cannot be read back are compared with the {@link AppliedState}.
+ */
+class Planner {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(Planner.class);
+
+  /** The relay toggled by the boo section. */
+  static final String RELAY = "default";
+
+  /** The workflow. */
+  private final AbstractWorkflow flow;
+
+  /** The design components. */
+  private final ComponentSnapshot components;
+
+  /** The applied state. */
+  private final AppliedState state;
+
+  /** The executor of the reads. */
+  private final Executor executor;
+
+  /**
+   * Instantiates a new planner.
+   *
+   * @param flow the workflow
+   * @param components the design components
+   * @param state the applied state
+   */
+  Planner(AbstractWorkflow flow, ComponentSnapshot components, AppliedState state) {
+    this.flow = flow;
+    this.components = components;
+    this.state = state;
+    this.executor = flow.instance.getTracer().wrap(flow.instance.getTransport().getExecutor());
+  }
+
+  /**
+   * Reads the current state and compares it with the YAML.
+   *
+   * @param isAssemblyExist whether the assembly exists; nothing is read when it does not
+   * @return the plan
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  Plan plan(boolean isAssemblyExist) throws OneOpsClientAPIException {
+    long start = System.currentTimeMillis();
+    Plan plan = new Plan(flow.assemblyName, flow.envName);
+    List<PlatformBean> platforms = flow.config.getYaml().getPlatformsList();
+
+    CompletableFuture<Environment> environment = isAssemblyExist
+        ? this.async(this::fetchEnvironment) : CompletableFuture.completedFuture(null);
+    CompletableFuture<String> relay = isAssemblyExist
+        ? this.async(this::fetchRelayEnabled) : CompletableFuture.completedFuture(null);
+    Map<String, CompletableFuture<String>> cloudIds =
+        new LinkedHashMap<String, CompletableFuture<String>>();
+    for (CloudBean cloud : flow.config.getYaml().getEnvironmentBean().getClouds()) {
+      cloudIds.put(cloud.getCloudName(), this.async(() -> flow.getCloudId(cloud.getCloudName())));
+    }
+    Set<String> existing = isAssemblyExist
+        ? new HashSet<String>(AbstractWorkflow.names(flow.design.fetchPlatforms()))
+        : Collections.<String>emptySet();
+
+    List<CompletableFuture<List<Change>>> design = new ArrayList<CompletableFuture<List<Change>>>();
+    for (PlatformBean platform : platforms) {
+      boolean isExist = existing.contains(platform.getName());
+      design.add(this.async(() -> this.platformChanges(platform, isExist)));
+    }
+    Environment env = AsyncAPIClient.join(environment);
+    List<CompletableFuture<List<Change>>> envComponents =
+        new ArrayList<CompletableFuture<List<Change>>>();
+    List<PlatformBean> envPlatforms = flow.config.getYaml().getEnvironmentBean().getPlatformsList();
+    if (envPlatforms != null) {
+      for (PlatformBean platform : envPlatforms) {
+        envComponents.add(this.async(() -> this.envComponentChanges(platform, env != null)));
+      }
+    }
+
+    for (CompletableFuture<List<Change>> changes : design) {
+      plan.addAll(AsyncAPIClient.join(changes));
+    }
+    if (env == null) {
+      plan.addAll(Collections.singletonList(new Change(Action.ADD, Target.ENVIRONMENT, null, null,
+          flow.envName, null, null, false)));
+    }
+    Set<String> fresh = new HashSet<String>();
+    for (PlatformBean platform : platforms) {
+      if (env == null || !existing.contains(platform.getName())) {
+        fresh.add(platform.getName());
+      }
+    }
+    plan.addAll(this.cloudChanges(platforms, env, cloudIds, fresh));
+    for (CompletableFuture<List<Change>> changes : envComponents) {
+      plan.addAll(AsyncAPIClient.join(changes));
+    }
+    plan.addAll(this.scaleChanges(fresh));
+    plan.addAll(this.relayChanges(AsyncAPIClient.join(relay)));
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Planned {} change(s) in {} ms", plan.size(), System.currentTimeMillis() - start);
+    }
+    return plan;
+  }
+
+  /**
+   * Compares a design platform, its components, attachments and variables.
+   *
+   * @param platform the platform
+   * @param isExist whether the platform exists
+   * @return the changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  private List<Change> platformChanges(PlatformBean platform, boolean isExist)
+      throws OneOpsClientAPIException {
+    List<Change> changes = new ArrayList<Change>();
+    String platformName = platform.getName();
+    if (!isExist) {
+      Map<String, String> pack = new LinkedHashMap<String, String>();
+      pack.put("pack", platform.getPackSource() + "/" + platform.getPack());
+      pack.put("version", platform.getPackVersion());
+      changes.add(new Change(Action.ADD, Target.PLATFORM, platformName, null, platformName, pack,
+          null, false));
+    }
+    Map<String, Object> yamlComponents = platform.getComponents();
+    if (yamlComponents != null) {
+      Set<String> yamlNames = new HashSet<String>();
+      for (Map.Entry<String, Object> entry : yamlComponents.entrySet()) {
+        String componentName = entry.getKey();
+        yamlNames.add(componentName);
+        if (!(entry.getValue() instanceof Map)) {
+          continue;
+        }
+        Map<String, Object> component = (Map<String, Object>) entry.getValue();
+        for (Map.Entry<String, Map<String, Object>> instance : instances(componentName, component)
+            .entrySet()) {
+          String uniqueName = instance.getKey();
+          yamlNames.add(uniqueName);
+          CiResource current = isExist ? components.get(platformName, uniqueName) : null;
+          addIfChanged(changes, diff(Target.COMPONENT, platformName, componentName, uniqueName,
+              instance.getValue(), current == null ? null : attributes(current)));
+        }
+        Object attachments = component.get(Constants.ATTACHMENTS);
+        if (attachments instanceof Map) {
+          changes.addAll(this.attachmentChanges(platformName, componentName,
+              (Map<String, Object>) attachments,
+              isExist && components.exists(platformName, componentName)));
+        }
+      }
+      if (isExist) {
+        for (String servComp : components.names(platformName)) {
+          if (!yamlNames.contains(servComp)
+              && components.isUserCustomized(platformName, servComp)) {
+            changes.add(new Change(Action.DELETE, Target.COMPONENT, platformName, null, servComp,
+                null, null, false));
+          }
+        }
+      }
+    }
+    changes.addAll(this.variableChanges(platform, isExist));
+    return changes;
+  }
+
+  /**
+   * Compares the attachments of a component.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param attachments the attachments in the YAML
+   * @param isExist whether the component exists
+   * @return the changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  private List<Change> attachmentChanges(String platformName, String componentName,
+      Map<String, Object> attachments, boolean isExist) throws OneOpsClientAPIException {
+    Map<String, CiResource> current = isExist
+        ? byName(flow.design.fetchPlatformComponentAttachments(platformName, componentName))
+        : Collections.<String, CiResource>emptyMap();
+    List<Change> changes = new ArrayList<Change>();
+    for (Map.Entry<String, Object> entry : attachments.entrySet()) {
+      if (entry.getValue() instanceof Map) {
+        CiResource attachment = current.get(entry.getKey());
+        addIfChanged(changes, diff(Target.ATTACHMENT, platformName, componentName, entry.getKey(),
+            (Map<String, Object>) entry.getValue(),
+            attachment == null ? null : attributes(attachment)));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Compares the variables of a platform.
+   *
+   * @param platform the platform
+   * @param isExist whether the platform exists
+   * @return the changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private List<Change> variableChanges(PlatformBean platform, boolean isExist)
+      throws OneOpsClientAPIException {
+    Map<String, CiResource> current = isExist
+        ? byName(flow.design.fetchPlatformVariables(platform.getName()))
+        : Collections.<String, CiResource>emptyMap();
+    return PlatformVariables.diff(platform, current, state);
+  }
+
+  /**
+   * Compares the components of an environment platform. A component that cannot be read yet,
+   * e.g. because the design is not pulled, gets all its attributes written.
+   *
+   * @param platform the environment platform
+   * @param isEnvExist whether the environment exists
+   * @return the changes
+   */
+  @SuppressWarnings("unchecked")
+  private List<Change> envComponentChanges(PlatformBean platform, boolean isEnvExist) {
+    List<Change> changes = new ArrayList<Change>();
+    if (platform.getComponents() == null) {
+      return changes;
+    }
+    Map<String, CiResource> current = Collections.emptyMap();
+    if (isEnvExist) {
+      try {
+        current = byName(flow.transition.fetchPlatformComponents(flow.envName, platform.getName()));
+      } catch (OneOpsClientAPIException e) {
+        // Not in the environment yet
+      }
+    }
+    for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+      if (entry.getValue() instanceof Map) {
+        CiResource component = current.get(entry.getKey());
+        Change change = diff(Target.ENV_COMPONENT, platform.getName(), null, entry.getKey(),
+            (Map<String, Object>) entry.getValue(),
+            component == null ? Collections.<String, String>emptyMap() : attributes(component));
+        addIfChanged(changes, change);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Compares the cloud configuration of each platform. Clouds of the environment missing from
+   * the YAML are taken offline.
+   *
+   * @param platforms the platforms
+   * @param env the environment, or null when it is created by this plan
+   * @param cloudIds the cloud ids, by cloud name
+   * @param fresh the platforms without any applied state
+   * @return the changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private List<Change> cloudChanges(List<PlatformBean> platforms, Environment env,
+      Map<String, CompletableFuture<String>> cloudIds, Set<String> fresh)
+      throws OneOpsClientAPIException {
+    Map<String, String> names = new LinkedHashMap<String, String>();
+    Map<String, Map<String, String>> configs = new LinkedHashMap<String, Map<String, String>>();
+    for (CloudBean cloud : flow.config.getYaml().getEnvironmentBean().getClouds()) {
+      String cloudId = AsyncAPIClient.join(cloudIds.get(cloud.getCloudName()));
+      Map<String, String> cloudMap = new LinkedHashMap<String, String>();
+      cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.ACTIVE);
+      cloudMap.put(EnvironmentBeanHelper.PRIORITY, cloud.getPriority());
+      cloudMap.put(EnvironmentBeanHelper.DPMT_ORDER, cloud.getDpmtOrder());
+      cloudMap.put(EnvironmentBeanHelper.PCT_SCALE, cloud.getPctScale());
+      names.put(cloudId, cloud.getCloudName());
+      configs.put(cloudId, cloudMap);
+    }
+    Set<String> envClouds = new LinkedHashSet<String>(configs.keySet());
+    if (env != null) {
+      envClouds = env.getClouds() == null ? Collections.<String>emptySet()
+          : new LinkedHashSet<String>(env.getClouds().keySet());
+    }
+    List<Change> changes = new ArrayList<Change>();
+    for (PlatformBean platform : platforms) {
+      for (String cloudId : envClouds) {
+        Map<String, String> cloudMap = configs.get(cloudId);
+        if (cloudMap == null) {
+          cloudMap = Collections.singletonMap(EnvironmentBeanHelper.ADMINSTATUS, Constants.OFFLINE);
+        }
+        String name = names.containsKey(cloudId) ? names.get(cloudId) : cloudId;
+        Change change = new Change(Action.UPDATE, Target.CLOUD, platform.getName(), cloudId, name,
+            cloudMap, null, false);
+        if (fresh.contains(platform.getName()) || !state.isApplied(change.getKey(), cloudMap)) {
+          changes.add(change);
+        }
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Compares the scaling of each platform.
+   *
+   * @param fresh the platforms without any applied state
+   * @return the changes
+   */
+  private List<Change> scaleChanges(Set<String> fresh) {
+    List<Change> changes = new ArrayList<Change>();
+    List<ScaleBean> scales = flow.config.getYaml().getScales();
+    if (scales == null) {
+      return changes;
+    }
+    for (ScaleBean scale : scales) {
+      Map<String, String> config = new LinkedHashMap<String, String>();
+      config.put("current", String.valueOf(scale.getCurrent()));
+      config.put("min", String.valueOf(scale.getMin()));
+      config.put("max", String.valueOf(scale.getMax()));
+      config.put("percentDeploy", String.valueOf(scale.getPercentDeploy()));
+      Change change = new Change(Action.UPDATE, Target.SCALE, scale.getPlatform(), null,
+          scale.getComponent(), config, null, false);
+      if (fresh.contains(scale.getPlatform()) || !state.isApplied(change.getKey(), config)) {
+        changes.add(change);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Compares the delivery relay.
+   *
+   * @param enabled the current value, or null if it cannot be read
+   * @return the changes
+   */
+  private List<Change> relayChanges(String enabled) {
+    String enable = String.valueOf(flow.config.getYaml().getBoo().isEnable());
+    if (enable.equalsIgnoreCase(enabled)) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(new Change(Action.UPDATE, Target.RELAY, null, null, RELAY,
+        Collections.singletonMap("enabled", enable),
+        enabled == null ? null : Collections.singletonMap("enabled", enabled), false));
+  }
+
+  private Environment fetchEnvironment() {
+    try {
+      return flow.transition.fetchEnvironment(flow.envName);
+    } catch (OneOpsClientAPIException e) {
+      return null;
+    }
+  }
+
+  private String fetchRelayEnabled() {
+    try {
+      return flow.transition.getRelay(flow.envName, RELAY).getString("ciAttributes.enabled");
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Splits a YAML component into its instances the way the design update does: nested maps are
+   * instances by unique name, plain values make the component a single instance.
+   *
+   * @param componentName the component name
+   * @param component the component in the YAML
+   * @return the attributes, by unique name
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Map<String, Object>> instances(String componentName,
+      Map<String, Object> component) {
+    Map<String, Map<String, Object>> instances = new LinkedHashMap<String, Map<String, Object>>();
+    for (Map.Entry<String, Object> entry : component.entrySet()) {
+      if (Constants.ATTACHMENTS.equals(entry.getKey()) || entry.getValue() == null) {
+        continue;
+      }
+      if (entry.getValue() instanceof Map) {
+        instances.put(entry.getKey(), (Map<String, Object>) entry.getValue());
+      } else {
+        Map<String, Object> attributes = new LinkedHashMap<String, Object>(component);
+        attributes.remove(Constants.ATTACHMENTS);
+        instances.put(componentName, attributes);
+        break;
+      }
+    }
+    return instances;
+  }
+
+  /**
+   * Compares the desired attributes of an element with its current ones.
+   *
+   * @param target the target
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param name the element name
+   * @param desired the attributes in the YAML
+   * @param current the current attributes, or null if the element does not exist
+   * @return the change, or null if nothing differs
+   */
+  static Change diff(Target target, String platformName, String componentName, String name,
+      Map<String, Object> desired, Map<String, String> current) {
+    if (current == null) {
+      return new Change(Action.ADD, target, platformName, componentName, name, changed(desired,
+          Collections.<String, String>emptyMap()), null, false);
+    }
+    Map<String, String> changed = changed(desired, current);
+    if (changed.isEmpty()) {
+      return null;
+    }
+    Map<String, String> before = new LinkedHashMap<String, String>();
+    for (String key : changed.keySet()) {
+      if (current.containsKey(key)) {
+        before.put(key, current.get(key));
+      }
+    }
+    return new Change(Action.UPDATE, target, platformName, componentName, name, changed, before,
+        false);
+  }
+
+  /**
+   * Gets the attributes whose value differs, as the strings to write.
+   *
+   * @param desired the attributes in the YAML
+   * @param current the current attributes
+   * @return the changed attributes
+   */
+  static Map<String, String> changed(Map<String, Object> desired, Map<String, String> current) {
+    Map<String, String> changed = new LinkedHashMap<String, String>();
+    for (Map.Entry<String, Object> entry : desired.entrySet()) {
+      if (entry.getValue() == null || Constants.ATTACHMENTS.equals(entry.getKey())) {
+        continue;
+      }
+      String value = value(entry.getValue());
+      if (!isSame(value, current.get(entry.getKey()))) {
+        changed.put(entry.getKey(), value);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Checks whether a desired value equals the current one, comparing JSON values by content.
+   *
+   * @param desired the desired value
+   * @param current the current value
+   * @return true, if they are the same
+   */
+  static boolean isSame(String desired, String current) {
+    if (desired == null) {
+      return current == null || current.isEmpty();
+    }
+    return desired.equals(current) || JsonUtil.isSameJson(desired, current);
+  }
+
+  static String value(Object value) {
+    if (value instanceof Map || value instanceof Collection) {
+      return JsonUtil.toJson(value);
+    }
+    return String.valueOf(value);
+  }
+
+  private static Map<String, String> attributes(CiResource ci) {
+    return ci.getCiAttributes() == null ? Collections.<String, String>emptyMap()
+        : ci.getCiAttributes();
+  }
+
+  private static Map<String, CiResource> byName(List<CiResource> cis) {
+    Map<String, CiResource> map = new HashMap<String, CiResource>();
+    for (CiResource ci : cis) {
+      map.put(ci.getCiName(), ci);
+    }
+    return map;
+  }
+
+  private static void addIfChanged(List<Change> changes, Change change) {
+    if (change != null) {
+      changes.add(change);
+    }
+  }
+
+  private <T> CompletableFuture<T> async(Call<T> read) {
+    return AsyncAPIClient.supply(read, executor);
+  }
+}
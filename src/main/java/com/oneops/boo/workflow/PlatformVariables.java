@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.boo.workflow.Plan.Action;
+import com.oneops.boo.workflow.Plan.Change;
+import com.oneops.boo.workflow.Plan.Target;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.AsyncAPIClient.Call;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.model.CiResource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Synchronizes platform variables in batches. The variables of a platform are listed once and
+ * compared with the YAML, the new variable template is fetched once per platform, and the adds,
+ * updates and deletes then run concurrently without reading each variable again. Committing the
+ * design is left to the caller.
+ */
+class PlatformVariables {
+
+  /** The log. */
+  private static Logger LOG = LoggerFactory.getLogger(PlatformVariables.class);
+
+  /** The design. */
+  private final Design design;
+
+  /** The executor of the writes. */
+  private final Executor executor;
+
+  /**
+   * Instantiates a new platform variables.
+   *
+   * @param design the design
+   * @param executor the executor of the writes
+   */
+  PlatformVariables(Design design, Executor executor) {
+    this.design = design;
+    this.executor = executor;
+  }
+
+  /**
+   * Compares the variables of a platform with the listed ones. Secure values are encrypted by
+   * OneOps, so an existing secure variable is compared with the digest of the value last applied,
+   * or always rewritten without a state.
+   *
+   * @param platform the platform
+   * @param current the listed variables, by name
+   * @param state the applied state, or null
+   * @return the changes, each carrying the listed variable it updates or deletes
+   */
+  static List<Change> diff(PlatformBean platform, Map<String, CiResource> current,
+      AppliedState state) {
+    String platformName = platform.getName();
+    List<Change> changes = new ArrayList<Change>();
+    Set<String> yamlVars = new HashSet<String>();
+    if (platform.getVariables() != null) {
+      for (Map.Entry<String, String> entry : platform.getVariables().entrySet()) {
+        yamlVars.add(entry.getKey());
+        CiResource variable = current.get(entry.getKey());
+        Map<String, String> value = Collections.singletonMap(entry.getKey(), entry.getValue());
+        if (variable == null) {
+          changes.add(new Change(Action.ADD, Target.VARIABLE, platformName, null, entry.getKey(),
+              value, null, false));
+        } else if (isSecure(variable)) {
+          changes.add(new Change(Action.UPDATE, Target.VARIABLE, platformName, null,
+              entry.getKey(), value, null, false, variable));
+        } else if (!Planner.isSame(entry.getValue(), variable.getAttribute("value"))) {
+          changes.add(new Change(Action.UPDATE, Target.VARIABLE, platformName, null,
+              entry.getKey(), value,
+              Collections.singletonMap(entry.getKey(), variable.getAttribute("value")), false,
+              variable));
+        }
+      }
+    }
+    if (platform.getSecureVariables() != null) {
+      for (Map.Entry<String, String> entry : platform.getSecureVariables().entrySet()) {
+        yamlVars.add(entry.getKey());
+        CiResource variable = current.get(entry.getKey());
+        Map<String, String> value = Collections.singletonMap(entry.getKey(), entry.getValue());
+        if (variable == null) {
+          changes.add(new Change(Action.ADD, Target.VARIABLE, platformName, null, entry.getKey(),
+              value, null, true));
+        } else {
+          Change change = new Change(Action.UPDATE, Target.VARIABLE, platformName, null,
+              entry.getKey(), value, null, true, variable);
+          if (!isSecure(variable) || state == null || !state.isApplied(change.getKey(), value)) {
+            changes.add(change);
+          }
+        }
+      }
+    }
+    for (Map.Entry<String, CiResource> servVar : current.entrySet()) {
+      if (!yamlVars.contains(servVar.getKey())) {
+        changes.add(new Change(Action.DELETE, Target.VARIABLE, platformName, null,
+            servVar.getKey(), null, null, isSecure(servVar.getValue()), servVar.getValue()));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Lists the variables of a platform once and compares them with the YAML.
+   *
+   * @param platform the platform
+   * @param state the applied state, or null
+   * @return the changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  List<Change> diff(PlatformBean platform, AppliedState state) throws OneOpsClientAPIException {
+    Map<String, CiResource> current = new HashMap<String, CiResource>();
+    for (CiResource variable : design.fetchPlatformVariables(platform.getName())) {
+      current.put(variable.getCiName(), variable);
+    }
+    return diff(platform, current, state);
+  }
+
+  /**
+   * Makes variable changes concurrently. Every change is attempted; the failures are reported
+   * together.
+   *
+   * @param changes the variable changes, of any platforms
+   * @param state the applied state to record secure values in, or null
+   * @throws OneOpsClientAPIException if any change failed, after all were attempted
+   */
+  void apply(List<Change> changes, AppliedState state) throws OneOpsClientAPIException {
+    Map<String, CompletableFuture<CiResource>> templates =
+        new LinkedHashMap<String, CompletableFuture<CiResource>>();
+    for (Change change : changes) {
+      if (change.getAction() == Action.ADD && !templates.containsKey(change.getPlatform())) {
+        String platformName = change.getPlatform();
+        templates.put(platformName,
+            this.async(() -> design.fetchNewPlatformVariable(platformName)));
+      }
+    }
+    List<CompletableFuture<Change>> futures = new ArrayList<CompletableFuture<Change>>();
+    for (Change change : changes) {
+      if (change.getAction() == Action.ADD) {
+        futures.add(templates.get(change.getPlatform()).thenApplyAsync(
+            template -> AsyncAPIClient.unchecked(() -> this.add(change, template)), executor));
+      } else {
+        futures.add(this.async(() -> this.write(change)));
+      }
+    }
+    int applied = 0;
+    List<String> errors = new ArrayList<String>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        Change change = futures.get(i).join();
+        applied++;
+        if (state != null && change.getAction() == Action.DELETE) {
+          state.forget(change.getKey());
+        } else if (state != null && change.isSecure()) {
+          state.applied(change.getKey(), change.getAttributes());
+        }
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        errors.add(changes.get(i).getPlatform() + "/" + changes.get(i).getName() + ": "
+            + cause.getMessage());
+      }
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Applied {} of {} variable change(s), {} template(s) fetched", applied,
+          changes.size(), templates.size());
+    }
+    if (!errors.isEmpty()) {
+      throw new OneOpsClientAPIException(
+          String.format(Constants.UPDATING_VARIABLES_FAILED, StringUtils.join(errors, "; ")));
+    }
+  }
+
+  private Change add(Change change, CiResource template) throws OneOpsClientAPIException {
+    design.addPlatformVariable(change.getPlatform(), template, change.getName(),
+        change.getAttributes().get(change.getName()), change.isSecure());
+    return change;
+  }
+
+  private Change write(Change change) throws OneOpsClientAPIException {
+    if (change.getAction() == Action.DELETE) {
+      design.deletePlatformVariable(change.getPlatform(), change.getResource());
+    } else {
+      design.updatePlatformVariable(change.getPlatform(), change.getResource(),
+          change.getAttributes().get(change.getName()), change.isSecure());
+    }
+    return change;
+  }
+
+  private static boolean isSecure(CiResource variable) {
+    return "true".equals(variable.getAttribute("secure"));
+  }
+
+  private <T> CompletableFuture<T> async(Call<T> write) {
+    return AsyncAPIClient.supply(write, executor);
+  }
+}
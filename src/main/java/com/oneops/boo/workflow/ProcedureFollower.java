@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.google.common.collect.ImmutableSet;
+import com.oneops.boo.LogUtils;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Operation;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.resource.model.ProcedureAction;
+import com.oneops.client.api.util.Poller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Follows a procedure until it ends. It prints each action as its state changes and the new lines
+ * of the action logs. Each action has a cursor, the number of its lines already printed, and its
+ * log is read from when it starts until the poll after it ends. The logs of all actions read in a
+ * poll are fetched together, up to a batch of actions per request.
+ */
+public class ProcedureFollower extends StateFollower<Procedure> {
+
+  /** The most actions whose logs are fetched in one request. */
+  static final int BATCH_SIZE = 50;
+
+  /** The procedure states a follow goes on in. */
+  static final Set<String> RUNNING_STATES = ImmutableSet.of("active", "pending");
+
+  /** The action states whose log may still grow. */
+  static final Set<String> RUNNING_ACTION_STATES = ImmutableSet.of("pending", "inprogress");
+
+  private final Operation op;
+  private final LogUtils log;
+  private final Map<Long, String> names;
+  private final int batchSize;
+
+  /** The actions whose logs were read after they ended. */
+  private final Set<Long> drained = new HashSet<Long>();
+
+  /**
+   * Instantiates a follower, polling every 2 seconds while the procedure moves and backing off to
+   * every 15 seconds while it does not.
+   *
+   * @param op the operations of the environment
+   * @param log the logs of the command
+   * @param names the instance names by ciId, to label actions with
+   */
+  public ProcedureFollower(Operation op, LogUtils log, Map<Long, String> names) {
+    this(op, log, names, backoff("procedure logs", 15), BATCH_SIZE);
+  }
+
+  ProcedureFollower(Operation op, LogUtils log, Map<Long, String> names, Poller poller,
+      int batchSize) {
+    super(poller);
+    this.op = op;
+    this.log = log;
+    this.names = names;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Follows a procedure until it ends.
+   *
+   * @param procedureId the procedure id
+   * @return the final state of the procedure
+   * @throws OneOpsClientAPIException if the procedure cannot be read
+   */
+  public String follow(String procedureId) throws OneOpsClientAPIException {
+    long start = System.nanoTime();
+    Procedure procedure = this.await(() -> this.probe(procedureId),
+        proc -> proc.getProcedureState() == null
+            || !RUNNING_STATES.contains(proc.getProcedureState().toLowerCase()));
+    List<ProcedureAction> actions = actions(procedure);
+    log.info(Constants.FOLLOW_SUMMARY, procedureId, procedure.getProcedureState(),
+        (System.nanoTime() - start) / 1e9,
+        count(actions, ProcedureAction::getActionState, "complete"), actions.size(),
+        count(actions, ProcedureAction::getActionState, "failed"));
+    return procedure.getProcedureState();
+  }
+
+  /**
+   * Reads the procedure once and prints what changed since the last read.
+   *
+   * @param procedureId the procedure id
+   * @return the procedure
+   * @throws OneOpsClientAPIException if the procedure cannot be read
+   */
+  private Procedure probe(String procedureId) throws OneOpsClientAPIException {
+    Procedure procedure = op.fetchProcedureStatus(procedureId);
+    Map<Long, ProcedureAction> tailed = new HashMap<Long, ProcedureAction>();
+    for (ProcedureAction action : actions(procedure)) {
+      Long id = action.getActionId();
+      String state = action.getActionState() == null ? null
+          : action.getActionState().toLowerCase();
+      if (id == null || state == null) {
+        continue;
+      }
+      if (this.changed(id, state)) {
+        log.info(Constants.FOLLOW_ACTION, state, this.name(action), action.getActionName());
+      }
+      if (!"pending".equals(state) && !drained.contains(id)) {
+        tailed.put(id, action);
+        if (!RUNNING_ACTION_STATES.contains(state)) {
+          drained.add(id);
+        }
+      }
+    }
+    List<Long> ids = new ArrayList<Long>(tailed.keySet());
+    Collections.sort(ids);
+    for (int i = 0; i < ids.size(); i += batchSize) {
+      this.tail(procedureId, ids.subList(i, Math.min(i + batchSize, ids.size())), tailed);
+    }
+    return procedure;
+  }
+
+  /**
+   * Prints the log lines of actions not printed yet.
+   *
+   * @param procedureId the procedure id
+   * @param ids the action ids
+   * @param actions the actions by id
+   */
+  private void tail(String procedureId, List<Long> ids, Map<Long, ProcedureAction> actions) {
+    List<String> actionIds = new ArrayList<String>();
+    for (Long id : ids) {
+      actionIds.add(String.valueOf(id));
+    }
+    for (LogData actionLog : this.readLogs(() -> op.fetchLogData(procedureId, actionIds),
+        "procedure " + procedureId)) {
+      ProcedureAction action = actions.get(actionLog.getId());
+      if (action != null) {
+        this.printNew(actionLog.getId(), actionLog.getLogData(),
+            line -> log.info(Constants.FOLLOW_LOG, this.name(action), line));
+      }
+    }
+  }
+
+  private String name(ProcedureAction action) {
+    String name = names.get(action.getCiId());
+    return name == null ? String.valueOf(action.getCiId()) : name;
+  }
+
+  private static List<ProcedureAction> actions(Procedure procedure) {
+    return procedure.getActions() == null ? Collections.<ProcedureAction>emptyList()
+        : procedure.getActions();
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.google.common.collect.ImmutableSet;
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.boo.LogUtils;
+import com.oneops.boo.utils.WorkerPool;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.resource.Operation;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.resource.model.ProcedureAction;
+import com.oneops.client.api.util.PollStats;
+import com.oneops.client.api.util.Poller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls an action out over the instances of a component from the client. The instances are split
+ * into batches of a count or a percent of them, and each batch runs as its own procedure. Batches
+ * run in waves of up to a number of them at a time; the next wave starts only once the whole wave
+ * ended and no more instances than allowed failed so far.
+ */
+public class RollingProcedure {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RollingProcedure.class);
+
+  /** The procedure states a batch waits in. */
+  static final Set<String> RUNNING_STATES = ImmutableSet.of("active", "pending");
+
+  private final String batchSize;
+  private final int parallelism;
+  private final String maxFailures;
+  private final long batchTimeoutMillis;
+  private final long pollMillis;
+
+  private RollingProcedure(Builder builder) {
+    this.batchSize = builder.batchSize;
+    this.parallelism = builder.parallelism;
+    this.maxFailures = builder.maxFailures;
+    this.batchTimeoutMillis = builder.batchTimeoutMillis;
+    this.pollMillis = builder.pollMillis;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Runs an action on instances, batch by batch.
+   *
+   * @param op the operations of the environment
+   * @param log the logs of the command
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param actionName the action name
+   * @param arglist the action arguments
+   * @param instanceIds the ciIds of the instances
+   * @param rollAt the percent of a batch the server runs at a time
+   * @return the outcome
+   */
+  public Outcome run(Operation op, LogUtils log, String platformName, String componentName,
+      String actionName, String arglist, List<String> instanceIds, int rollAt) {
+    long start = System.nanoTime();
+    int size = Math.max(1, count(batchSize, instanceIds.size(), true));
+    int allowed = count(maxFailures, instanceIds.size(), false);
+    List<List<String>> batches = new ArrayList<List<String>>();
+    for (int i = 0; i < instanceIds.size(); i += size) {
+      batches.add(instanceIds.subList(i, Math.min(i + size, instanceIds.size())));
+    }
+    log.info(Constants.ROLLING_START, actionName, instanceIds.size(), batches.size(),
+        parallelism);
+    Outcome outcome = new Outcome(instanceIds.size(), allowed);
+    try (WorkerPool pool = new WorkerPool("boo-rolling-%d", parallelism, Tracer.NONE)) {
+      for (int first = 0; first < batches.size(); first += parallelism) {
+        int wave = first / parallelism + 1;
+        int offset = first;
+        List<Callable<Batch>> tasks = new ArrayList<Callable<Batch>>();
+        for (int i = first; i < Math.min(first + parallelism, batches.size()); i++) {
+          int index = i + 1;
+          List<String> ids = batches.get(i);
+          tasks.add(() -> this.runBatch(op, index, wave, platformName, componentName, actionName,
+              arglist, ids, rollAt));
+        }
+        for (Batch batch : pool.invokeAll(tasks, (i, cause) -> {
+          int total = batches.get(offset + i).size();
+          return new Batch(offset + i + 1, wave, total, "error", total,
+              cause instanceof InterruptedException ? "Interrupted" : String.valueOf(cause), 0);
+        })) {
+          outcome.batches.add(batch);
+          outcome.failed += batch.getFailed();
+          log.info(Constants.ROLLING_BATCH, batch.getIndex(), batches.size(), batch.getWave(),
+              batch.getState(), batch.getMillis() / 1000.0, batch.getSize(), batch.getFailed(),
+              batch.getError() == null ? "" : "  " + batch.getError());
+        }
+        if (outcome.failed > allowed && first + parallelism < batches.size()) {
+          outcome.skipped = batches.size() - first - parallelism;
+          log.info(Constants.ROLLING_STOPPED, outcome.failed, allowed, outcome.skipped);
+          break;
+        }
+      }
+    }
+    outcome.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    log.info(Constants.ROLLING_SUMMARY, outcome.getDone(), outcome.getTotal(), outcome.failed,
+        outcome.millis / 1000.0);
+    return outcome;
+  }
+
+  /**
+   * Runs one batch as a procedure and waits for it to end. A batch that runs out of time is
+   * cancelled, and all of its instances count as failed.
+   */
+  private Batch runBatch(Operation op, int index, int wave, String platformName,
+      String componentName, String actionName, String arglist, List<String> ids, int rollAt) {
+    long start = System.nanoTime();
+    String procedureId = null;
+    Poller poller = Poller.builder("batch " + index).firstDelay(pollMillis, TimeUnit.MILLISECONDS)
+        .initialInterval(pollMillis, TimeUnit.MILLISECONDS).maxInterval(15, TimeUnit.SECONDS)
+        .timeout(batchTimeoutMillis, TimeUnit.MILLISECONDS).build();
+    try {
+      JsonPath response =
+          op.executeAction(platformName, componentName, actionName, ids, arglist, rollAt);
+      procedureId = response == null ? null : response.getString("procedureId");
+      if (procedureId == null) {
+        return new Batch(index, wave, ids.size(), "error", ids.size(), null, millis(start));
+      }
+      String id = procedureId;
+      Procedure procedure = poller.await(() -> op.fetchProcedureStatus(id),
+          proc -> proc.getProcedureState() == null
+              || !RUNNING_STATES.contains(proc.getProcedureState().toLowerCase()));
+      int failed = 0;
+      if (procedure.getActions() != null) {
+        for (ProcedureAction action : procedure.getActions()) {
+          if (!"complete".equalsIgnoreCase(action.getActionState())) {
+            failed++;
+          }
+        }
+      }
+      String state = String.valueOf(procedure.getProcedureState());
+      if (!"complete".equalsIgnoreCase(state) && failed == 0) {
+        failed = ids.size();
+      }
+      return new Batch(index, wave, ids.size(), state, failed, null, millis(start));
+    } catch (OneOpsClientAPIException e) {
+      PollStats stats = poller.getLastStats();
+      boolean isTimeout = stats != null && stats.getOutcome() == PollStats.Outcome.TIMEOUT;
+      if (isTimeout) {
+        try {
+          op.cancelProcedure(procedureId);
+        } catch (OneOpsClientAPIException cancel) {
+          LOG.debug("Cannot cancel procedure {}: {}", procedureId, cancel.getMessage());
+        }
+      }
+      return new Batch(index, wave, ids.size(), isTimeout ? "timeout" : "error", ids.size(),
+          e.getMessage(), millis(start));
+    }
+  }
+
+  private static long millis(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * Reads a count of instances, e.g. 5, or a percent of them, e.g. 10%.
+   *
+   * @param spec the count or percent
+   * @param total how many instances there are
+   * @param isRoundedUp whether a percent rounds up, else down
+   * @return the count
+   */
+  static int count(String spec, int total, boolean isRoundedUp) {
+    String value = spec.trim();
+    if (value.endsWith("%")) {
+      double percent = Double.parseDouble(value.substring(0, value.length() - 1).trim());
+      double count = total * percent / 100;
+      return (int) (isRoundedUp ? Math.ceil(count) : Math.floor(count));
+    }
+    return Integer.parseInt(value);
+  }
+
+  /**
+   * The outcome of a rollout.
+   */
+  public static class Outcome {
+
+    private final int total;
+    private final int allowed;
+    private final List<Batch> batches = new ArrayList<Batch>();
+    private int failed;
+    private int skipped;
+    private long millis;
+
+    Outcome(int total, int allowed) {
+      this.total = total;
+      this.allowed = allowed;
+    }
+
+    public int getTotal() {
+      return total;
+    }
+
+    /**
+     * Gets how many instances the action completed on.
+     *
+     * @return the count
+     */
+    public int getDone() {
+      int done = 0;
+      for (Batch batch : batches) {
+        done += batch.getSize() - batch.getFailed();
+      }
+      return done;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    public List<Batch> getBatches() {
+      return batches;
+    }
+
+    /**
+     * Tells whether more instances failed than allowed, which stops the rollout before its next
+     * wave.
+     *
+     * @return true, if too many failed
+     */
+    public boolean isStopped() {
+      return skipped > 0 || failed > allowed;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
+  /**
+   * The outcome of one batch.
+   */
+  public static class Batch {
+
+    private final int index;
+    private final int wave;
+    private final int size;
+    private final String state;
+    private final int failed;
+    private final String error;
+    private final long millis;
+
+    Batch(int index, int wave, int size, String state, int failed, String error, long millis) {
+      this.index = index;
+      this.wave = wave;
+      this.size = size;
+      this.state = state;
+      this.failed = failed;
+      this.error = error;
+      this.millis = millis;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public int getWave() {
+      return wave;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public String getState() {
+      return state;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    public String getError() {
+      return error;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
+  public static class Builder {
+    private String batchSize = "100%";
+    private int parallelism = 1;
+    private String maxFailures = "0";
+    private long batchTimeoutMillis;
+    private long pollMillis = 2000;
+
+    private Builder() {}
+
+    /**
+     * Sets the size of a batch.
+     *
+     * @param batchSize a count of instances, e.g. 5, or a percent of them, e.g. 10%
+     * @return the builder
+     * @throws IllegalArgumentException if the size is not a positive count or percent
+     */
+    public Builder batchSize(String batchSize) {
+      if (!isCount(batchSize) || count(batchSize, 100, true) <= 0) {
+        throw new IllegalArgumentException("Not a batch size: " + batchSize);
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    public Builder parallelism(int parallelism) {
+      if (parallelism < 1) {
+        throw new IllegalArgumentException("Not a number of batches: " + parallelism);
+      }
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets how many instances may fail before the rollout stops.
+     *
+     * @param maxFailures a count of instances or a percent of them
+     * @return the builder
+     * @throws IllegalArgumentException if the value is not a count or percent
+     */
+    public Builder maxFailures(String maxFailures) {
+      if (!isCount(maxFailures)) {
+        throw new IllegalArgumentException("Not a number of failures: " + maxFailures);
+      }
+      this.maxFailures = maxFailures;
+      return this;
+    }
+
+    /**
+     * Bounds the run of each batch. Zero, the default, waits forever.
+     *
+     * @param time the timeout
+     * @param unit the unit
+     * @return the builder
+     */
+    public Builder batchTimeout(long time, TimeUnit unit) {
+      this.batchTimeoutMillis = unit.toMillis(time);
+      return this;
+    }
+
+    /**
+     * Sets how soon a batch is first checked on, and the first interval of the checks after.
+     *
+     * @param time the interval
+     * @param unit the unit
+     * @return the builder
+     */
+    public Builder pollInterval(long time, TimeUnit unit) {
+      this.pollMillis = unit.toMillis(time);
+      return this;
+    }
+
+    public RollingProcedure build() {
+      return new RollingProcedure(this);
+    }
+
+    private static boolean isCount(String spec) {
+      return spec != null && spec.trim().matches("\\d+(\\.\\d+)?%|\\d+");
+    }
+  }
+}
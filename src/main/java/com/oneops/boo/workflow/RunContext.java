@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.boo.LogUtils;
+
+/**
+ * The options of one run of a workflow. A run carries its own, so runs in one process, like the
+ * commands of a daemon or the assemblies of a fleet, do not see each other's options.
+ */
+public final class RunContext {
+
+  /** Prints progress and deploys. */
+  public static final RunContext DEFAULT = new RunContext(false, false, false);
+
+  private final boolean isQuiet;
+  private final boolean isForced;
+  private final boolean isNoDeploy;
+  private final LogUtils log;
+
+  /**
+   * Instantiates a new run context.
+   *
+   * @param isQuiet whether to silence the textual output
+   * @param isForced whether to skip the prompts
+   * @param isNoDeploy whether to create or update without deploying
+   */
+  public RunContext(boolean isQuiet, boolean isForced, boolean isNoDeploy) {
+    this.isQuiet = isQuiet;
+    this.isForced = isForced;
+    this.isNoDeploy = isNoDeploy;
+    this.log = LogUtils.of(isQuiet);
+  }
+
+  public boolean isQuiet() {
+    return isQuiet;
+  }
+
+  public boolean isForced() {
+    return isForced;
+  }
+
+  public boolean isNoDeploy() {
+    return isNoDeploy;
+  }
+
+  public LogUtils getLog() {
+    return log;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.AsyncAPIClient.Call;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.util.Poller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Follows something that runs as items with states and logs, like the RFCs of a deployment or the
+ * actions of a procedure, printing what changed on each poll. It keeps the last state of each item
+ * and a cursor per log, the number of its lines already printed. A poll that printed anything
+ * counts as progress and starts the back off of the poller over.
+ *
+ * @param <S> the status read on each poll
+ */
+abstract class StateFollower<S> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StateFollower.class);
+
+  private final Poller poller;
+
+  /** The last seen state of each item. */
+  private final Map<Long, String> states = new HashMap<Long, String>();
+
+  /** How many log lines of each item were printed. */
+  private final Map<Long, Integer> cursors = new HashMap<Long, Integer>();
+
+  private boolean isMoved;
+
+  StateFollower(Poller poller) {
+    this.poller = poller;
+  }
+
+  /**
+   * Gets a poller that polls every 2 seconds while the status moves and backs off while it does
+   * not.
+   *
+   * @param name the name of what is polled
+   * @param maxSeconds the longest interval
+   * @return the poller
+   */
+  static Poller backoff(String name, long maxSeconds) {
+    return Poller.builder(name).firstDelay(0, TimeUnit.SECONDS)
+        .initialInterval(2, TimeUnit.SECONDS).maxInterval(maxSeconds, TimeUnit.SECONDS)
+        .multiplier(1.5).build();
+  }
+
+  /**
+   * Reads the status and prints its changes until it is done.
+   *
+   * @param probe reads the status once and prints what changed
+   * @param done whether the status is final
+   * @return the final status
+   * @throws OneOpsClientAPIException if the status cannot be read
+   */
+  S await(Call<S> probe, Predicate<S> done) throws OneOpsClientAPIException {
+    return poller.await(() -> {
+      isMoved = false;
+      return probe.call();
+    }, done, status -> isMoved);
+  }
+
+  /**
+   * Records the state of an item and tells whether it changed, other than an item first seen
+   * pending. A change counts as progress.
+   *
+   * @param id the item id
+   * @param state the state
+   * @return true, if the change should be printed
+   */
+  boolean changed(Long id, String state) {
+    String previous = states.put(id, state);
+    if (state.equals(previous) || (previous == null && "pending".equalsIgnoreCase(state))) {
+      return false;
+    }
+    isMoved = true;
+    return true;
+  }
+
+  /**
+   * Counts the change as progress.
+   */
+  void moved() {
+    isMoved = true;
+  }
+
+  /**
+   * Reads logs. The logs are best effort: on failure the follow goes on without them.
+   *
+   * @param read reads the logs
+   * @param what what the logs are of, for the debug log
+   * @return the logs, or none if they cannot be read
+   */
+  List<LogData> readLogs(Call<List<LogData>> read, String what) {
+    try {
+      return read.call();
+    } catch (OneOpsClientAPIException e) {
+      LOG.debug("Cannot read the logs of {}: {}", what, e.getMessage());
+      return Collections.emptyList();
+    }
+  }
+
+  /**
+   * Prints the lines of the log of an item past its cursor, and moves the cursor after them.
+   *
+   * @param id the item id
+   * @param entries the whole log of the item
+   * @param print prints one line
+   */
+  void printNew(Long id, List<LogData.Entry> entries, Consumer<String> print) {
+    Integer cursor = cursors.get(id);
+    for (int i = cursor == null ? 0 : cursor; i < entries.size(); i++) {
+      isMoved = true;
+      print.accept(entries.get(i).getMessage());
+    }
+    if (cursor == null || cursor < entries.size()) {
+      cursors.put(id, entries.size());
+    }
+  }
+
+  /**
+   * Counts the items in a state.
+   *
+   * @param <T> the item type
+   * @param items the items
+   * @param state the state of an item
+   * @param wanted the state counted, in any case
+   * @return the count
+   */
+  static <T> int count(List<T> items, Function<T, String> state, String wanted) {
+    int count = 0;
+    for (T item : items) {
+      if (wanted.equalsIgnoreCase(state.apply(item))) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -13,12 +13,11 @@
  */
 package com.oneops.boo.workflow;
 
-import com.oneops.boo.LogUtils;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
-import com.oneops.client.api.exception.OneOpsComponentExistException;
 
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 public class UpdateComponentTask implements Runnable {
   private BuildAllPlatforms flow;
@@ -42,26 +41,12 @@ public class UpdateComponentTask implements Runnable {
 
   @Override
   public void run() {
-    LogUtils.info(Constants.UPDATE_COMPONENTS2, componentName, uniqueName, platformName);
+    flow.log.info(Constants.UPDATE_COMPONENTS2, componentName, uniqueName, platformName);
     Map<String, String> attributes = (Map<String, String>) att;
-
-    boolean isExist = Boolean.FALSE;
-    try {
-      isExist = flow.isComponentExist(platformName, uniqueName);
-    } catch (OneOpsComponentExistException e1) {
-      // Ignore
-      isExist = Boolean.FALSE;
-    } catch (OneOpsClientAPIException e) {
-      e.printStackTrace();
-    }
     try {
-      if (isExist) {
-        flow.design.updatePlatformComponent(platformName, uniqueName, attributes);
-      } else {
-        flow.design.addPlatformComponent(platformName, componentName, uniqueName, attributes);
-      }
+      flow.addOrUpdateComponent(platformName, componentName, uniqueName, attributes);
     } catch (OneOpsClientAPIException e) {
-      e.printStackTrace();
+      throw new CompletionException(e);
     }
   }
 }
@@ -15,6 +15,7 @@ package com.oneops.boo.yaml;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.oneops.client.api.transport.PooledHttpTransport;
 
 import java.util.Map;
 
@@ -42,6 +43,9 @@ public class BooBean {
   @JsonProperty(value = "gzip_enabled", defaultValue = "true")
   private boolean gzipEnabled = true;
 
+  @JsonProperty("max_connections_per_route")
+  private int maxConnectionsPerRoute = PooledHttpTransport.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
   public boolean isEnable() {
     return enable;
   }
@@ -134,4 +138,12 @@ public class BooBean {
   public void setGzipEnabled(boolean enableGzip) {
     this.gzipEnabled = enableGzip;
   }
+
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+  }
 }
@@ -36,6 +36,8 @@ public class Constants {
   public static final String ENV_NAME = "environment_name";
   public static final String TRUE = "true";
   public static final String PRIVATE_IP = "private_ip";
+  public static final String PUBLIC_IP = "public_ip";
+  public static final String HOSTNAME = "hostname";
   public static final String ACTIVE = "active";
   public static final String SIZE = "size";
   public static final String CINAME = "ciName";
@@ -58,8 +60,10 @@ public class Constants {
   public static final int EXIT_BOO = 5; // BOO internal error
   public static final int EXIT_CLIENT = 6; // Exception from OneOps client APIs
   public static final int EXIT_UNKOWN = 7; // Unknown error
-  public static final int EXIT_NOT_COMPLETE = 8; // Procedure was not completed
+  public static final int EXIT_NOT_COMPLETE = 8; // Procedure or deployment was not completed
   public static final int EXIT_INVALID_PROFILE = 9; // Invalid profile selected
+  public static final int EXIT_PARTIAL = 10; // The command failed on some assemblies or instances
+  public static final int EXIT_DEPLOYMENT_FAILED = 11; // The watched deployment failed
 
   /**
    * Customize config.
@@ -100,14 +104,54 @@ public class Constants {
   public static final String CREATE_COMPONENTS = "Creating component %s for %s ...";
   public static final String UPDATE_COMPONENTS = "Updating component %s for %s ...";
   public static final String UPDATE_COMPONENTS2 = "Updating component %s %s for %s ...";
+  public static final String METRICS_OUT_FAILED = "Cannot write API metrics to %s: %s";
+  public static final String TRACE_OUT_FAILED = "Cannot write trace to %s: %s";
+
+  // Fleets of auto-generated assemblies
+  public static final String FLEET_STARTING = "Running on %d assemblies, %d at a time ...";
+  public static final String FLEET_NOT_DONE = "An active or failed deployment blocks it";
+  public static final String FLEET_RESULT = "%-6s %8.1fs  %s%s";
+  public static final String FLEET_SUMMARY = "%d succeeded, %d failed.";
+  public static final String STATUS_STARTING = "Reading %d assemblies, %d at a time ...";
+  public static final String STATUS_ROW = "%-10s  %-9s  %6s";
+  public static final String STATUS_SUMMARY = "%d assemblies in %.1fs%s.";
+  public static final String IPS_FAILED = "Cannot get IPs of %s %s: %s";
+  public static final String UPDATING_COMPONENTS_FAILED = "Failed to update %s components of %s: %s";
+  public static final String UPDATING_ENV_COMPONENTS_FAILED =
+      "Failed to update %d component(s) of environment %s: %s";
 
   public static final String CREATING_PLATFORM_SUCCEED = "Created platform %s.";
+  public static final String CREATING_PLATFORM_TIER =
+      "Creating %d platform(s) with deploy order %d ...";
+  public static final String CREATING_PLATFORM_TIER_FAILED =
+      "Failed to create platform(s) with deploy order %d: %s";
+  public static final String UPDATING_PLATFORM_TIER =
+      "Updating %d platform(s) with deploy order %d ...";
+  public static final String UPDATING_VARIABLES_FAILED = "Failed to update variable(s): %s";
+  public static final String DAEMON_LISTENING =
+      "Serving boo commands on port %d, address in %s.";
+  public static final String DAEMON_RUNNING = "A boo daemon is already running, see %s.";
+  public static final String DAEMON_LOST = "Lost the connection to the boo daemon.";
+  public static final String RESUMING =
+      "Resuming assembly %s, environment %s: %d step(s) done by a previous run.";
+  public static final String PLANNING = "Comparing the configuration with assembly %s ...";
+  public static final String PLAN_HEADER = "Plan for assembly %s, environment %s: %d change(s)";
+  public static final String PLAN_UP_TO_DATE =
+      "Assembly %s, environment %s is up to date, nothing to do.";
   public static final String START_DEPLOYMENT = "Starting the deployment now.";
   public static final String CREATE_WITHOUT_DEPLOYMENT =
       "Created/updated assembly without deployments.";
   public static final String DEPLOYMENT_RUNNING = "Deployment is running ...";
   public static final String DEPLOYMENT_FAILED = "Deploy failed! %s";
   public static final String NO_NEED_DEPLOY = "No deployment needed!";
+  public static final String NO_DEPLOYMENT_TO_WATCH = "There is no deployment in environment %s.";
+  public static final String WATCHING = "Watching deployment %s of environment %s ...";
+  public static final String WATCH_STATE = "Deployment %s is %s.";
+  public static final String WATCH_STEP = "Step %d of %d: %d change(s)";
+  public static final String WATCH_RFC = "  %-10s %s %s (%s)";
+  public static final String WATCH_LOG = "      %s";
+  public static final String WATCH_SUMMARY =
+      "Deployment %s %s after %.1fs: %d of %d change(s) complete, %d failed.";
   public static final String ACTIVE_DEPLOYMENT_EXISTING =
       "An active deployment has been running in the same environment, quit!";
   public static final String FAIL_DEPLOYMENT_EXISTING =
@@ -121,9 +165,21 @@ public class Constants {
   public static final String NOTFOUND_ERROR = "Cannot find assembly %s! %n";
   public static final String NO_DEPLOYMENT = "404 Not Found";
   public static final String NO_ENVIRONMENT = "No such environment";
+  public static final String NO_ID = "No %s id found in environment %s!";
   public static final String SUCCEED = "Succeed!";
   public static final String PROCEDURE_NOT_COMPLETE = "Procedure did not complete";
   public static final String PROCEDURE_RUNNING = "Procedure is running ...";
+  public static final String ROLLING_START =
+      "Running %s on %d instance(s) in %d batch(es), %d at a time ...";
+  public static final String ROLLING_BATCH =
+      "Batch %d/%d wave %d %-9s %8.1fs  %d instance(s), %d failed%s";
+  public static final String ROLLING_STOPPED =
+      "Stopping: %d instance(s) failed, more than the %d allowed. %d batch(es) not run.";
+  public static final String ROLLING_SUMMARY = "%d of %d instance(s) done, %d failed, in %.1fs.";
+  public static final String FOLLOW_ACTION = "  %-10s %s (%s)";
+  public static final String FOLLOW_LOG = "      %s: %s";
+  public static final String FOLLOW_SUMMARY =
+      "Procedure %s %s after %.1fs: %d of %d action(s) complete, %d failed.";
 
   // Debug
   public static final String ENV_NOT_EXISTING = "The environment %s is not exist! %s";
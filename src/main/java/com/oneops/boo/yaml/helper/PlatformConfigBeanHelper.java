@@ -21,13 +21,13 @@ import com.oneops.boo.yaml.PlatformConfigBean;
 public final class PlatformConfigBeanHelper {
 
   /** The custom format. */
-  private static String CUSTOM_FORMAT = "custom_format";
+  private static final String CUSTOM_FORMAT = "custom_format";
 
   /** The custom split. */
-  private static String CUSTOM_SPLIT = "custom_split";
+  private static final String CUSTOM_SPLIT = "custom_split";
 
   /** The custom component. */
-  private static String CUSTOM_COMPONENT = "custom_component";
+  private static final String CUSTOM_COMPONENT = "custom_component";
 
   /**
    * Gets the extract beans.
@@ -38,11 +38,13 @@ public final class PlatformConfigBeanHelper {
   @SuppressWarnings("unchecked")
   public static Map<String, PlatformConfigBean> getExtractBeans(Map<String, Object> extra) {
     Map<String, PlatformConfigBean> platformConfigs = new HashMap<String, PlatformConfigBean>();
+    if (extra == null) {
+      return platformConfigs;
+    }
     for (Map.Entry<String, Object> entry : extra.entrySet()) {
       String key = entry.getKey();
       Object value = entry.getValue();
 
-      System.out.println(value.getClass());
       if (value instanceof Map) {
         Map<String, String> configMap = (Map<String, String>) value;
         PlatformConfigBean config = new PlatformConfigBean(key, configMap.get(CUSTOM_FORMAT),
@@ -13,12 +13,16 @@
  */
 package com.oneops.client.api;
 
-import org.apache.commons.codec.binary.Base64;
+import java.io.IOException;
+import java.util.List;
 
-import com.jayway.restassured.RestAssured;
-import com.jayway.restassured.config.DecoderConfig;
+import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.MetadataCache;
 
 public abstract class APIClient {
 
@@ -40,25 +44,38 @@ public abstract class APIClient {
   }
 
   protected RequestSpecification createRequest() {
-    RequestSpecification rs = RestAssured.given();
-    if (!instance.isGzipEnabled()) {
-      rs.config(
-          RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()));
+    RequestSpecification request = instance.getTransport().newRequest();
+    if (instance.getApiMetrics() != ApiMetrics.NONE) {
+      request.filter(instance.getApiMetrics().getFilter());
     }
-    String basicAuth =
-        "Basic " + new String(Base64.encodeBase64(instance.getAuthtoken().getBytes()));
-    rs.header("Authorization", basicAuth);
-    rs.header("User-Agent", "OneOpsAPIClient");
-    rs.header("Accept", "application/json");
-    rs.header("Content-Type", "application/json");
-    String baseUri = instance.getEndpoint();
-    if (instance.getOrgname() != null) {
-      baseUri += instance.getOrgname();
+    if (instance.getTracer() != Tracer.NONE) {
+      request.filter(instance.getTracer().getFilter());
     }
-    rs.baseUri(baseUri);
+    return request;
+  }
 
-    return rs;
+  protected MetadataCache cache() {
+    return instance.getMetadataCache();
   }
 
+  protected <T> T readValue(Response response, Class<T> type) throws OneOpsClientAPIException {
+    try {
+      return JsonUtil.readValue(response.getBody().asInputStream(), type);
+    } catch (IOException e) {
+      String msg = String.format("Failed to parse %s due to %s", type.getSimpleName(),
+          e.getMessage());
+      throw new OneOpsClientAPIException(msg, e);
+    }
+  }
 
+  protected <T> List<T> readList(Response response, Class<T> type)
+      throws OneOpsClientAPIException {
+    try {
+      return JsonUtil.readList(response.getBody().asInputStream(), type);
+    } catch (IOException e) {
+      String msg = String.format("Failed to parse %s list due to %s", type.getSimpleName(),
+          e.getMessage());
+      throw new OneOpsClientAPIException(msg, e);
+    }
+  }
 }
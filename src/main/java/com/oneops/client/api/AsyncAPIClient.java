@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * Base of the asynchronous resource clients. Calls run on the transport executor of the instance,
+ * so the number of requests in flight never exceeds the connection pool. A failed call completes
+ * its future exceptionally with a {@link CompletionException} wrapping the
+ * {@link OneOpsClientAPIException}.
+ */
+public abstract class AsyncAPIClient {
+
+  private final Executor executor;
+
+  public AsyncAPIClient(OOInstance instance) throws OneOpsClientAPIException {
+    if (instance == null) {
+      throw new OneOpsClientAPIException(
+          "Missing OneOps instance information to perform API invocation");
+    }
+    this.executor = instance.getTracer().wrap(instance.getTransport().getExecutor());
+  }
+
+  protected <T> CompletableFuture<T> supply(Call<T> call) {
+    return supply(call, executor);
+  }
+
+  /**
+   * Runs a blocking call asynchronously.
+   *
+   * @param call the call
+   * @param executor the executor to run it on
+   * @return the future result, failing with a {@link CompletionException} wrapping the
+   *         {@link OneOpsClientAPIException} of the call
+   */
+  public static <T> CompletableFuture<T> supply(Call<T> call, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> unchecked(call), executor);
+  }
+
+  /**
+   * Runs a blocking call where no checked exception may be thrown, e.g. in a stage of a
+   * {@link CompletableFuture}.
+   *
+   * @param call the call
+   * @return the result
+   * @throws CompletionException wrapping the {@link OneOpsClientAPIException} of the call
+   */
+  public static <T> T unchecked(Call<T> call) {
+    try {
+      return call.call();
+    } catch (OneOpsClientAPIException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Waits for a future result, failing with the exception of the call.
+   *
+   * @param future the future
+   * @return the result
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public static <T> T join(CompletableFuture<T> future) throws OneOpsClientAPIException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof OneOpsClientAPIException) {
+        throw (OneOpsClientAPIException) cause;
+      }
+      throw new OneOpsClientAPIException(String.valueOf(cause), cause);
+    }
+  }
+
+  /**
+   * Gets the message of a failed call.
+   *
+   * @param e the failure, as a future completes with it
+   * @return the message of the exception of the call
+   */
+  public static String message(Throwable e) {
+    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return cause.getMessage() == null ? cause.toString() : cause.getMessage();
+  }
+
+  /**
+   * A blocking API call.
+   *
+   * @param <T> the result type
+   */
+  @FunctionalInterface
+  public interface Call<T> {
+    T call() throws OneOpsClientAPIException;
+  }
+}
@@ -15,8 +15,15 @@ package com.oneops.client.api;
 
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.transport.PooledHttpTransport;
+import com.oneops.client.api.transport.RetryPolicy;
+import com.oneops.client.api.transport.Transport;
+import com.oneops.client.api.util.MetadataCache;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OOInstance {
@@ -35,6 +42,17 @@ public class OOInstance {
   private Map<String, String> localVars;
   private String comment;
   private boolean gzipEnabled = true;
+  private int maxConnectionsPerRoute = PooledHttpTransport.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  @JsonIgnore
+  private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+  @JsonIgnore
+  private Transport transport;
+  @JsonIgnore
+  private MetadataCache metadataCache = MetadataCache.NONE;
+  @JsonIgnore
+  private ApiMetrics apiMetrics = ApiMetrics.NONE;
+  @JsonIgnore
+  private Tracer tracer = Tracer.NONE;
 
   public String getName() {
     return name;
@@ -131,4 +149,93 @@ public class OOInstance {
   public void setGzipEnabled(boolean gzipEnabled) {
     this.gzipEnabled = gzipEnabled;
   }
+
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+  }
+
+  @JsonIgnore
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets how the transport retries failed requests. It applies to transports created afterwards.
+   *
+   * @param retryPolicy the policy, or null to send each request once
+   */
+  @JsonIgnore
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy == null ? RetryPolicy.NONE : retryPolicy;
+  }
+
+  /**
+   * Shared transport of all the resource clients built from this instance, created on first use.
+   *
+   * @return the transport
+   */
+  @JsonIgnore
+  public synchronized Transport getTransport() {
+    if (transport == null) {
+      transport = new PooledHttpTransport(this);
+    }
+    return transport;
+  }
+
+  @JsonIgnore
+  public synchronized void setTransport(Transport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Name to ciId lookups shared by the resource clients of this instance. Nothing is cached
+   * unless a cache is set.
+   *
+   * @return the cache
+   */
+  @JsonIgnore
+  public MetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
+  @JsonIgnore
+  public void setMetadataCache(MetadataCache metadataCache) {
+    this.metadataCache = metadataCache == null ? MetadataCache.NONE : metadataCache;
+  }
+
+  /**
+   * Accounting of the API calls made through this instance. Nothing is recorded unless metrics
+   * are set.
+   *
+   * @return the metrics
+   */
+  @JsonIgnore
+  public ApiMetrics getApiMetrics() {
+    return apiMetrics;
+  }
+
+  @JsonIgnore
+  public void setApiMetrics(ApiMetrics apiMetrics) {
+    this.apiMetrics = apiMetrics == null ? ApiMetrics.NONE : apiMetrics;
+  }
+
+  /**
+   * Spans of the work done through this instance. Nothing is traced unless a tracer is set.
+   *
+   * @return the tracer
+   */
+  @JsonIgnore
+  public Tracer getTracer() {
+    return tracer;
+  }
+
+  @JsonIgnore
+  public void setTracer(Tracer tracer) {
+    this.tracer = tracer == null ? Tracer.NONE : tracer;
+  }
+
 }
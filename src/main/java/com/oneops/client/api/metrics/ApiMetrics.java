@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import com.jayway.restassured.filter.Filter;
+import com.oneops.client.api.util.JsonUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accounting of the OneOps API calls of a run, per method and templated endpoint: call count,
+ * errors, response bytes and a latency histogram.
+ */
+public class ApiMetrics {
+
+  /** Records nothing. */
+  public static final ApiMetrics NONE = new ApiMetrics();
+
+  /** Path segments naming a collection, followed by the name or id of a member. */
+  private static final Set<String> COLLECTIONS = new HashSet<String>(Arrays.asList("assemblies",
+      "environments", "platforms", "components", "attachments", "variables", "deployments",
+      "releases", "clouds", "relays", "procedures", "instances", "actions", "organization"));
+
+  /** Path segments that follow a collection but are not members. */
+  private static final Set<String> LITERALS = new HashSet<String>(
+      Arrays.asList("new", "new.json", "latest", "bom", "state", "log_data", "environments"));
+
+  private final ConcurrentMap<String, EndpointMetrics> endpoints =
+      new ConcurrentHashMap<String, EndpointMetrics>();
+  private final Filter filter = new MetricsFilter(this);
+
+  /**
+   * Gets the filter recording the requests it sees.
+   *
+   * @return the filter
+   */
+  public Filter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Records one call.
+   *
+   * @param method the HTTP method
+   * @param path the request path, with or without query
+   * @param status the status, or 0 if the call failed without a response
+   * @param bytes the response bytes
+   * @param nanos the latency
+   */
+  public void record(String method, String path, int status, long bytes, long nanos) {
+    if (this == NONE) {
+      return;
+    }
+    String endpoint = template(path);
+    endpoints.computeIfAbsent(method + " " + endpoint, key -> new EndpointMetrics(method, endpoint))
+        .record(status, bytes, nanos);
+  }
+
+  /**
+   * Gets the endpoints called, the most time spent first.
+   *
+   * @return the endpoints
+   */
+  public List<EndpointMetrics> getEndpoints() {
+    List<EndpointMetrics> list = new ArrayList<EndpointMetrics>(endpoints.values());
+    list.sort(Comparator.comparingLong((EndpointMetrics e) -> e.getLatency().getTotalMicros())
+        .reversed());
+    return list;
+  }
+
+  /**
+   * Prints a table of the endpoints, the most time spent first.
+   *
+   * @param out the stream
+   */
+  public void printSummary(PrintStream out) {
+    List<EndpointMetrics> list = this.getEndpoints();
+    long calls = 0;
+    long micros = 0;
+    for (EndpointMetrics endpoint : list) {
+      calls += endpoint.getCalls();
+      micros += endpoint.getLatency().getTotalMicros();
+    }
+    out.printf("OneOps API: %d calls, %.1fs%n", calls, micros / 1e6);
+    out.printf("%7s %6s %8s %8s %9s  %s%n", "calls", "errors", "p50 ms", "p99 ms", "total s",
+        "endpoint");
+    for (EndpointMetrics endpoint : list) {
+      LatencyHistogram latency = endpoint.getLatency();
+      out.printf("%7d %6d %8.1f %8.1f %9.2f  %s %s%n", endpoint.getCalls(), endpoint.getErrors(),
+          latency.getPercentileMicros(50) / 1e3, latency.getPercentileMicros(99) / 1e3,
+          latency.getTotalMicros() / 1e6, endpoint.getMethod(), endpoint.getEndpoint());
+    }
+  }
+
+  /**
+   * Writes the endpoints as JSON, the most time spent first.
+   *
+   * @param file the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeJson(File file) throws IOException {
+    List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+    for (EndpointMetrics endpoint : this.getEndpoints()) {
+      LatencyHistogram latency = endpoint.getLatency();
+      Map<String, Object> entry = new LinkedHashMap<String, Object>();
+      entry.put("method", endpoint.getMethod());
+      entry.put("endpoint", endpoint.getEndpoint());
+      entry.put("calls", endpoint.getCalls());
+      entry.put("errors", endpoint.getErrors());
+      entry.put("bytes", endpoint.getBytes());
+      entry.put("totalMillis", latency.getTotalMicros() / 1e3);
+      entry.put("p50Millis", latency.getPercentileMicros(50) / 1e3);
+      entry.put("p90Millis", latency.getPercentileMicros(90) / 1e3);
+      entry.put("p99Millis", latency.getPercentileMicros(99) / 1e3);
+      entry.put("maxMillis", latency.getMaxMicros() / 1e3);
+      list.add(entry);
+    }
+    Map<String, Object> root = new LinkedHashMap<String, Object>();
+    root.put("endpoints", list);
+    JsonUtil.writeValue(file, root);
+  }
+
+  /**
+   * Replaces the names and ids in a path, so calls on different CIs add up.
+   *
+   * @param path the path
+   * @return the templated path
+   */
+  public static String template(String path) {
+    if (path == null) {
+      return "/";
+    }
+    int query = path.indexOf('?');
+    String[] segments = (query < 0 ? path : path.substring(0, query)).split("/");
+    StringBuilder out = new StringBuilder();
+    String previous = "";
+    for (String segment : segments) {
+      if (segment.isEmpty()) {
+        continue;
+      }
+      out.append('/');
+      if (COLLECTIONS.contains(previous) && !LITERALS.contains(segment)) {
+        String suffix = segment.endsWith(".json") ? ".json" : "";
+        String id = segment.substring(0, segment.length() - suffix.length());
+        out.append(id.matches("\\d+") ? "{id}" : "{name}").append(suffix);
+      } else {
+        out.append(segment);
+      }
+      previous = segment;
+    }
+    return out.length() == 0 ? "/" : out.toString();
+  }
+}
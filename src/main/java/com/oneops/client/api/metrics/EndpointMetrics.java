@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calls of one method on one templated endpoint.
+ */
+public class EndpointMetrics {
+
+  private final String method;
+  private final String endpoint;
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  EndpointMetrics(String method, String endpoint) {
+    this.method = method;
+    this.endpoint = endpoint;
+  }
+
+  void record(int status, long bytes, long nanos) {
+    if (status >= 400 || status < 100) {
+      errors.incrementAndGet();
+    }
+    this.bytes.addAndGet(Math.max(0, bytes));
+    latency.record(nanos);
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * The path with names and ids replaced by {name} and {id}, e.g.
+   * /assemblies/{name}/design/platforms/{name}.
+   *
+   * @return the endpoint
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public long getCalls() {
+    return latency.getCount();
+  }
+
+  /**
+   * Calls answered with a 4xx or 5xx status, or failed without a response.
+   *
+   * @return the errors
+   */
+  public long getErrors() {
+    return errors.get();
+  }
+
+  /**
+   * Response bytes, after decompression.
+   *
+   * @return the bytes
+   */
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies in log-linear buckets, as HdrHistogram keeps them: exact below 32 microseconds, then
+ * 16 buckets per power of two, so a percentile is off by at most about 6%. Recording is lock free
+ * and the size is fixed, whatever the number of samples.
+ */
+public class LatencyHistogram {
+
+  private static final int LINEAR = 32;
+  private static final int SUB_BUCKETS = LINEAR / 2;
+  private static final int BUCKETS = LINEAR + 58 * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /**
+   * Records one latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    counts.incrementAndGet(index(micros));
+    count.incrementAndGet();
+    totalMicros.addAndGet(micros);
+    maxMicros.accumulateAndGet(micros, Math::max);
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getTotalMicros() {
+    return totalMicros.get();
+  }
+
+  public long getMaxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * Gets a percentile, as the highest latency of the bucket holding it.
+   *
+   * @param percentile the percentile, 0 to 100
+   * @return the latency in microseconds, or 0 without samples
+   */
+  public long getPercentileMicros(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highest(i), maxMicros.get());
+      }
+    }
+    return maxMicros.get();
+  }
+
+  static int index(long micros) {
+    if (micros < LINEAR) {
+      return (int) micros;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(micros) - 4;
+    return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+  }
+
+  static long highest(int index) {
+    if (index < LINEAR) {
+      return index;
+    }
+    int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+    long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import java.net.URI;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Records each request sent, retries included, into {@link ApiMetrics}.
+ */
+class MetricsFilter implements Filter {
+
+  private final ApiMetrics metrics;
+
+  MetricsFilter(ApiMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    long start = System.nanoTime();
+    int status = 0;
+    long bytes = 0;
+    try {
+      Response response = ctx.next(requestSpec, responseSpec);
+      status = response.getStatusCode();
+      bytes = response.asByteArray().length;
+      return response;
+    } finally {
+      metrics.record(String.valueOf(requestSpec.getMethod()), path(requestSpec), status, bytes,
+          System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Gets the path below the organization. A retried request is sent again with the path of the
+   * base URI joined to its own.
+   */
+  static String path(FilterableRequestSpecification requestSpec) {
+    String path = requestSpec.getUserDefinedPath();
+    String base = URI.create(requestSpec.getBaseUri()).getPath();
+    return base != null && base.length() > 1 && path.startsWith(base + "/")
+        ? path.substring(base.length()) : path;
+  }
+}
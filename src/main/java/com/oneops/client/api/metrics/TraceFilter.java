@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+import com.oneops.client.api.metrics.Tracer.Span;
+
+/**
+ * Traces each request sent, retries included, as a span of the {@link Tracer}.
+ */
+class TraceFilter implements Filter {
+
+  private final Tracer tracer;
+
+  TraceFilter(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    try (Span span = tracer.begin("api", requestSpec.getMethod() + " "
+        + ApiMetrics.template(MetricsFilter.path(requestSpec)))) {
+      Response response = ctx.next(requestSpec, responseSpec);
+      span.arg("status", response.getStatusCode());
+      return response;
+    }
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import com.jayway.restassured.filter.Filter;
+import com.oneops.client.api.util.JsonUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spans of the workflow steps of a run and of the API calls made under them, written as a Chrome
+ * trace (chrome://tracing, Perfetto). A span started on a thread nests under the span open on that
+ * thread; work handed to another thread through {@link #wrap(Executor)} or {@link #wrap(Callable)}
+ * nests under the span open where it was handed over, which the trace shows as a flow arrow.
+ */
+public class Tracer {
+
+  /** Traces nothing. */
+  public static final Tracer NONE = new Tracer();
+
+  private static final Span NOOP = new Span(null, null, null, null, 0);
+
+  private final long origin = System.nanoTime();
+  private final AtomicLong ids = new AtomicLong();
+  private final ThreadLocal<Span> current = new ThreadLocal<Span>();
+  private final Queue<Span> spans = new ConcurrentLinkedQueue<Span>();
+  private final Filter filter = new TraceFilter(this);
+
+  /**
+   * Starts a workflow span on this thread.
+   *
+   * @param name the name
+   * @return the span, to close once done
+   */
+  public Span begin(String name) {
+    return this.begin("workflow", name);
+  }
+
+  /**
+   * Starts a span on this thread.
+   *
+   * @param category the category, e.g. workflow or api
+   * @param name the name
+   * @return the span, to close once done
+   */
+  public Span begin(String category, String name) {
+    if (this == NONE) {
+      return NOOP;
+    }
+    Span span = new Span(this, category, name, current.get(), System.nanoTime());
+    current.set(span);
+    return span;
+  }
+
+  /**
+   * Computes a value inside a workflow span on this thread.
+   *
+   * @param <T> the result type
+   * @param <E> the exception type
+   * @param name the name
+   * @param body the work
+   * @return the value
+   * @throws E why the work failed
+   */
+  public <T, E extends Exception> T call(String name, Body<T, E> body) throws E {
+    Span span = this.begin(name);
+    try {
+      return body.call();
+    } finally {
+      span.close();
+    }
+  }
+
+  /**
+   * Runs work inside a workflow span on this thread.
+   *
+   * @param <E> the exception type
+   * @param name the name
+   * @param task the work
+   * @throws E why the work failed
+   */
+  public <E extends Exception> void run(String name, Task<E> task) throws E {
+    Span span = this.begin(name);
+    try {
+      task.run();
+    } finally {
+      span.close();
+    }
+  }
+
+  /**
+   * Gets the filter tracing the requests it sees.
+   *
+   * @return the filter
+   */
+  public Filter getFilter() {
+    return filter;
+  }
+
+  /**
+   * Runs tasks under the span open where they are submitted.
+   *
+   * @param executor the executor
+   * @return the tracing executor
+   */
+  public Executor wrap(Executor executor) {
+    if (this == NONE) {
+      return executor;
+    }
+    return task -> executor.execute(this.wrap(task));
+  }
+
+  /**
+   * Runs a task under the span open now.
+   *
+   * @param task the task
+   * @return the task
+   */
+  public Runnable wrap(Runnable task) {
+    if (this == NONE) {
+      return task;
+    }
+    Span parent = current.get();
+    return () -> {
+      Span previous = current.get();
+      current.set(parent);
+      try {
+        task.run();
+      } finally {
+        current.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Runs a task under the span open now.
+   *
+   * @param <T> the result type
+   * @param task the task
+   * @return the task
+   */
+  public <T> Callable<T> wrap(Callable<T> task) {
+    if (this == NONE) {
+      return task;
+    }
+    Span parent = current.get();
+    return () -> {
+      Span previous = current.get();
+      current.set(parent);
+      try {
+        return task.call();
+      } finally {
+        current.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Gets the spans closed so far, in start order.
+   *
+   * @return the spans
+   */
+  public List<Span> getSpans() {
+    List<Span> list = new ArrayList<Span>(spans);
+    list.sort(Comparator.comparingLong(Span::getStartMicros));
+    return list;
+  }
+
+  /**
+   * Writes the closed spans as Chrome trace events: a complete event per span on the thread that
+   * ran it, and a flow event where a span nests under a span of another thread.
+   *
+   * @param file the file
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeChromeTrace(File file) throws IOException {
+    List<Map<String, Object>> events = new ArrayList<Map<String, Object>>();
+    Map<String, Integer> threads = new LinkedHashMap<String, Integer>();
+    for (Span span : this.getSpans()) {
+      int tid = tid(threads, span.thread);
+      Map<String, Object> event = event(span.name, span.category, "X", span.getStartMicros(), tid);
+      event.put("dur", span.getDurationMicros());
+      Map<String, Object> args = new LinkedHashMap<String, Object>(span.args);
+      if (span.parent != null) {
+        args.put("parent", span.parent.name);
+      }
+      if (!args.isEmpty()) {
+        event.put("args", args);
+      }
+      events.add(event);
+      if (span.parent != null && !span.parent.thread.equals(span.thread)) {
+        Map<String, Object> start = event(span.name, "flow", "s", span.getStartMicros(),
+            tid(threads, span.parent.thread));
+        start.put("id", span.id);
+        Map<String, Object> finish = event(span.name, "flow", "f", span.getStartMicros(), tid);
+        finish.put("id", span.id);
+        finish.put("bp", "e");
+        events.add(start);
+        events.add(finish);
+      }
+    }
+    for (Map.Entry<String, Integer> thread : threads.entrySet()) {
+      Map<String, Object> event = event("thread_name", null, "M", 0, thread.getValue());
+      event.put("args", Collections.singletonMap("name", thread.getKey()));
+      events.add(event);
+    }
+    Map<String, Object> root = new LinkedHashMap<String, Object>();
+    root.put("traceEvents", events);
+    root.put("displayTimeUnit", "ms");
+    JsonUtil.writeValue(file, root);
+  }
+
+  private static int tid(Map<String, Integer> threads, String thread) {
+    return threads.computeIfAbsent(thread, name -> threads.size() + 1);
+  }
+
+  private static Map<String, Object> event(String name, String category, String phase, long ts,
+      int tid) {
+    Map<String, Object> event = new LinkedHashMap<String, Object>();
+    event.put("name", name);
+    if (category != null) {
+      event.put("cat", category);
+    }
+    event.put("ph", phase);
+    event.put("ts", ts);
+    event.put("pid", 1);
+    event.put("tid", tid);
+    return event;
+  }
+
+  /**
+   * Work that computes a value inside a span.
+   *
+   * @param <T> the result type
+   * @param <E> the exception type
+   */
+  public interface Body<T, E extends Exception> {
+
+    T call() throws E;
+  }
+
+  /**
+   * Work inside a span.
+   *
+   * @param <E> the exception type
+   */
+  public interface Task<E extends Exception> {
+
+    void run() throws E;
+  }
+
+  /**
+   * A timed piece of work on one thread.
+   */
+  public static class Span implements AutoCloseable {
+
+    private final Tracer tracer;
+    private final long id;
+    private final String category;
+    private final String name;
+    private final Span parent;
+    private final String thread;
+    private final long start;
+    private final Map<String, Object> args = new LinkedHashMap<String, Object>();
+    private long end;
+
+    Span(Tracer tracer, String category, String name, Span parent, long start) {
+      this.tracer = tracer;
+      this.id = tracer == null ? 0 : tracer.ids.incrementAndGet();
+      this.category = category;
+      this.name = name;
+      this.parent = parent;
+      this.thread = Thread.currentThread().getName();
+      this.start = start;
+    }
+
+    /**
+     * Adds an argument shown with the span.
+     *
+     * @param key the key
+     * @param value the value
+     * @return this span
+     */
+    public Span arg(String key, Object value) {
+      if (tracer != null) {
+        args.put(key, value);
+      }
+      return this;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getCategory() {
+      return category;
+    }
+
+    public Span getParent() {
+      return parent;
+    }
+
+    public String getThread() {
+      return thread;
+    }
+
+    public long getStartMicros() {
+      return (start - tracer.origin) / 1000;
+    }
+
+    public long getDurationMicros() {
+      return (end - start) / 1000;
+    }
+
+    /**
+     * Ends the span; the span open before it is open again on this thread.
+     */
+    @Override
+    public void close() {
+      if (tracer == null || end != 0) {
+        return;
+      }
+      end = System.nanoTime();
+      if (tracer.current.get() == this) {
+        tracer.current.set(parent);
+      }
+      tracer.spans.add(this);
+    }
+  }
+}
@@ -14,6 +14,7 @@
 package com.oneops.client.api.resource;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.json.JSONObject;
@@ -25,6 +26,7 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
 import com.oneops.client.api.util.JsonUtil;
 
 public class Assembly extends APIClient {
@@ -71,11 +73,24 @@ public class Assembly extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listAssemblies() throws OneOpsClientAPIException {
+    return listAssembliesResponse().getBody().jsonPath();
+  }
+
+  /**
+   * Lists all the assemblies as typed CIs.
+   *
+   * @see #listAssemblies()
+   */
+  public List<CiResource> fetchAssemblies() throws OneOpsClientAPIException {
+    return readList(listAssembliesResponse(), CiResource.class);
+  }
+
+  private Response listAssembliesResponse() throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     Response response = request.get(ASSEMBLY_URI);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get list of assemblies due to %s", response.getStatusLine());
@@ -159,6 +174,7 @@ public class Assembly extends APIClient {
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302
           || response.getStatusCode() == 404) {
+        cache().invalidateAll(Design.cacheKey(assemblyName));
         return response.getBody().jsonPath();
       } else {
         String msg = String.format("Failed to delete assembly with name %s due to %s", assemblyName,
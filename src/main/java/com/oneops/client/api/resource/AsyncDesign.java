@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+
+/**
+ * Non-blocking variant of {@link Design}. Each method returns immediately with a future of the
+ * same result the blocking call produces.
+ */
+public class AsyncDesign extends AsyncAPIClient {
+
+  private final Design design;
+
+  public AsyncDesign(OOInstance instance, String assemblyName) throws OneOpsClientAPIException {
+    super(instance);
+    this.design = new Design(instance, assemblyName);
+  }
+
+  /**
+   * Gets the blocking client this one delegates to.
+   *
+   * @return the blocking client
+   */
+  public Design blocking() {
+    return design;
+  }
+
+  /**
+   * See {@link Design#getPlatform(String)}.
+   */
+  public CompletableFuture<JsonPath> getPlatform(String platformName) {
+    return supply(() -> design.getPlatform(platformName));
+  }
+
+  /**
+   * See {@link Design#listPlatforms()}.
+   */
+  public CompletableFuture<JsonPath> listPlatforms() {
+    return supply(() -> design.listPlatforms());
+  }
+
+  /**
+   * See {@link Design#fetchPlatforms()}.
+   */
+  public CompletableFuture<List<CiResource>> fetchPlatforms() {
+    return supply(() -> design.fetchPlatforms());
+  }
+
+  /**
+   * See {@link Design#createPlatform(String, String, String, String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> createPlatform(String platformName, String packname,
+      String packversion, String packsource, String comments, String description) {
+    return supply(() -> design.createPlatform(platformName, packname, packversion, packsource,
+        comments, description));
+  }
+
+  /**
+   * See {@link Design#commitDesign()}.
+   */
+  public CompletableFuture<JsonPath> commitDesign() {
+    return supply(() -> design.commitDesign());
+  }
+
+  /**
+   * See {@link Design#deletePlatform(String)}.
+   */
+  public CompletableFuture<JsonPath> deletePlatform(String platformName) {
+    return supply(() -> design.deletePlatform(platformName));
+  }
+
+  /**
+   * See {@link Design#deletePlatformComponent(String, String)}.
+   */
+  public CompletableFuture<JsonPath> deletePlatformComponent(String platformName,
+      String componentName) {
+    return supply(() -> design.deletePlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * See {@link Design#deletePlatformVariable(String, String)}.
+   */
+  public CompletableFuture<JsonPath> deletePlatformVariable(String platformName,
+      String variableName) {
+    return supply(() -> design.deletePlatformVariable(platformName, variableName));
+  }
+
+  /**
+   * See {@link Design#listPlatformComponents(String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponents(String platformName) {
+    return supply(() -> design.listPlatformComponents(platformName));
+  }
+
+  /**
+   * See {@link Design#fetchPlatformComponents(String)}.
+   */
+  public CompletableFuture<List<CiResource>> fetchPlatformComponents(String platformName) {
+    return supply(() -> design.fetchPlatformComponents(platformName));
+  }
+
+  /**
+   * See {@link Design#listPlatformComponentAttachments(String, String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponentAttachments(String platformName,
+      String componentName) {
+    return supply(() -> design.listPlatformComponentAttachments(platformName, componentName));
+  }
+
+  /**
+   * See {@link Design#fetchPlatformComponentAttachments(String, String)}.
+   */
+  public CompletableFuture<List<CiResource>> fetchPlatformComponentAttachments(String platformName,
+      String componentName) {
+    return supply(() -> design.fetchPlatformComponentAttachments(platformName, componentName));
+  }
+
+  /**
+   * See {@link Design#addPlatformComponentAttachment(String, String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> addPlatformComponentAttachment(String platformName,
+      String componentName, String uniqueName, Map<String, String> attributes) {
+    return supply(() -> design.addPlatformComponentAttachment(platformName, componentName,
+        uniqueName, attributes));
+  }
+
+  /**
+   * See {@link Design#updatePlatformComponentAttachment(String, String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponentAttachment(String platformName,
+      String componentName, String uniqueName, Map<String, String> attributes) {
+    return supply(() -> design.updatePlatformComponentAttachment(platformName, componentName,
+        uniqueName, attributes));
+  }
+
+  /**
+   * See {@link Design#getPlatformComponent(String, String)}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponent(String platformName,
+      String componentName) {
+    return supply(() -> design.getPlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * See {@link Design#fetchPlatformComponent(String, String)}.
+   */
+  public CompletableFuture<CiResource> fetchPlatformComponent(String platformName,
+      String componentName) {
+    return supply(() -> design.fetchPlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * See {@link Design#getPlatformComponentAttachment(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponentAttachment(String platformName,
+      String componentName, String attachmentName) {
+    return supply(() -> design.getPlatformComponentAttachment(platformName, componentName,
+        attachmentName));
+  }
+
+  /**
+   * See {@link Design#addPlatformComponent(String, String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> addPlatformComponent(String platformName, String componentName,
+      String uniqueName, Map<String, String> attributes) {
+    return supply(() -> design.addPlatformComponent(platformName, componentName, uniqueName,
+        attributes));
+  }
+
+  /**
+   * See {@link Design#updatePlatformComponent(String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String platformName,
+      String componentName, Map<String, String> attributes) {
+    return supply(() -> design.updatePlatformComponent(platformName, componentName, attributes));
+  }
+
+  /**
+   * See {@link Design#updatePlatformComponent(String, CiResource, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String platformName,
+      CiResource component, Map<String, String> attributes) {
+    return supply(() -> design.updatePlatformComponent(platformName, component, attributes));
+  }
+
+  /**
+   * See {@link Design#listPlatformVariables(String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatformVariables(String platformName) {
+    return supply(() -> design.listPlatformVariables(platformName));
+  }
+
+  /**
+   * See {@link Design#fetchPlatformVariables(String)}.
+   */
+  public CompletableFuture<List<CiResource>> fetchPlatformVariables(String platformName) {
+    return supply(() -> design.fetchPlatformVariables(platformName));
+  }
+
+  /**
+   * See {@link Design#addPlatformVariable(String, Map, boolean)}.
+   */
+  public CompletableFuture<Boolean> addPlatformVariable(String platformName,
+      Map<String, String> variables, boolean isSecure) {
+    return supply(() -> design.addPlatformVariable(platformName, variables, isSecure));
+  }
+
+  /**
+   * See {@link Design#fetchNewPlatformVariable(String)}.
+   */
+  public CompletableFuture<CiResource> fetchNewPlatformVariable(String platformName) {
+    return supply(() -> design.fetchNewPlatformVariable(platformName));
+  }
+
+  /**
+   * See {@link Design#addPlatformVariable(String, CiResource, String, String, boolean)}.
+   */
+  public CompletableFuture<JsonPath> addPlatformVariable(String platformName, CiResource template,
+      String variableName, String value, boolean isSecure) {
+    return supply(() -> design.addPlatformVariable(platformName, template, variableName, value,
+        isSecure));
+  }
+
+  /**
+   * See {@link Design#updatePlatformVariable(String, CiResource, String, boolean)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformVariable(String platformName,
+      CiResource variable, String value, boolean isSecure) {
+    return supply(() -> design.updatePlatformVariable(platformName, variable, value, isSecure));
+  }
+
+  /**
+   * See {@link Design#deletePlatformVariable(String, CiResource)}.
+   */
+  public CompletableFuture<JsonPath> deletePlatformVariable(String platformName,
+      CiResource variable) {
+    return supply(() -> design.deletePlatformVariable(platformName, variable));
+  }
+
+  /**
+   * See {@link Design#updatePlatformVariable(String, Map, boolean)}.
+   */
+  public CompletableFuture<Boolean> updatePlatformVariable(String platformName,
+      Map<String, String> variables, boolean isSecure) {
+    return supply(() -> design.updatePlatformVariable(platformName, variables, isSecure));
+  }
+
+  /**
+   * See {@link Design#listGlobalVariables()}.
+   */
+  public CompletableFuture<JsonPath> listGlobalVariables() {
+    return supply(() -> design.listGlobalVariables());
+  }
+
+  /**
+   * See {@link Design#addGlobalVariable(Map, boolean)}.
+   */
+  public CompletableFuture<JsonPath> addGlobalVariable(Map<String, String> variables,
+      boolean isSecure) {
+    return supply(() -> design.addGlobalVariable(variables, isSecure));
+  }
+
+  /**
+   * See {@link Design#updateGlobalVariable(Map, boolean)}.
+   */
+  public CompletableFuture<Boolean> updateGlobalVariable(Map<String, String> variables,
+      boolean isSecure) {
+    return supply(() -> design.updateGlobalVariable(variables, isSecure));
+  }
+
+  /**
+   * See {@link Design#extractYaml()}.
+   */
+  public CompletableFuture<JsonPath> extractYaml() {
+    return supply(() -> design.extractYaml());
+  }
+
+  /**
+   * See {@link Design#loadFile(String)}.
+   */
+  public CompletableFuture<JsonPath> loadFile(String filecontent) {
+    return supply(() -> design.loadFile(filecontent));
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.resource.model.Procedure;
+
+/**
+ * Non-blocking variant of {@link Operation}. Each method returns immediately with a future of the
+ * same result the blocking call produces.
+ */
+public class AsyncOperation extends AsyncAPIClient {
+
+  private final Operation operation;
+
+  public AsyncOperation(OOInstance instance, String assemblyName,
+      String environmentName) throws OneOpsClientAPIException {
+    super(instance);
+    this.operation = new Operation(instance, assemblyName, environmentName);
+  }
+
+  /**
+   * Gets the blocking client this one delegates to.
+   *
+   * @return the blocking client
+   */
+  public Operation blocking() {
+    return operation;
+  }
+
+  /**
+   * See {@link Operation#listInstances(String, String)}.
+   */
+  public CompletableFuture<JsonPath> listInstances(String platformName, String componentName) {
+    return supply(() -> operation.listInstances(platformName, componentName));
+  }
+
+  /**
+   * See {@link Operation#fetchInstances(String, String)}.
+   */
+  public CompletableFuture<List<CiResource>> fetchInstances(String platformName,
+      String componentName) {
+    return supply(() -> operation.fetchInstances(platformName, componentName));
+  }
+
+  /**
+   * See {@link Operation#markInstancesForReplacement(String, String)}.
+   */
+  public CompletableFuture<JsonPath> markInstancesForReplacement(String platformName,
+      String componentName) {
+    return supply(() -> operation.markInstancesForReplacement(platformName, componentName));
+  }
+
+  /**
+   * See {@link Operation#markInstanceForReplacement(String, String, Integer)}.
+   */
+  public CompletableFuture<JsonPath> markInstanceForReplacement(String platformName,
+      String componentName, Integer instanceId) {
+    return supply(() -> operation.markInstanceForReplacement(platformName, componentName,
+        instanceId));
+  }
+
+  /**
+   * See {@link Operation#getLogData(String, List)}.
+   */
+  public CompletableFuture<JsonPath> getLogData(String procedureId, List<String> actionIds) {
+    return supply(() -> operation.getLogData(procedureId, actionIds));
+  }
+
+  /**
+   * See {@link Operation#fetchLogData(String, List)}.
+   */
+  public CompletableFuture<List<LogData>> fetchLogData(String procedureId, List<String> actionIds) {
+    return supply(() -> operation.fetchLogData(procedureId, actionIds));
+  }
+
+  /**
+   * See {@link Operation#listProcedures(String)}.
+   */
+  public CompletableFuture<JsonPath> listProcedures(String platformName) {
+    return supply(() -> operation.listProcedures(platformName));
+  }
+
+  /**
+   * See {@link Operation#getProcedureId(String, String)}.
+   */
+  public CompletableFuture<Integer> getProcedureId(String platformName, String procedureName) {
+    return supply(() -> operation.getProcedureId(platformName, procedureName));
+  }
+
+  /**
+   * See {@link Operation#listActions(String, String)}.
+   */
+  public CompletableFuture<JsonPath> listActions(String platformName, String componentName) {
+    return supply(() -> operation.listActions(platformName, componentName));
+  }
+
+  /**
+   * See {@link Operation#executeProcedure(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> executeProcedure(String platformName, String procedureName,
+      String arglist) {
+    return supply(() -> operation.executeProcedure(platformName, procedureName, arglist));
+  }
+
+  /**
+   * See {@link Operation#getProcedureStatus(String)}.
+   */
+  public CompletableFuture<JsonPath> getProcedureStatus(String procedureId) {
+    return supply(() -> operation.getProcedureStatus(procedureId));
+  }
+
+  /**
+   * See {@link Operation#fetchProcedureStatus(String)}.
+   */
+  public CompletableFuture<Procedure> fetchProcedureStatus(String procedureId) {
+    return supply(() -> operation.fetchProcedureStatus(procedureId));
+  }
+
+  /**
+   * See {@link Operation#cancelProcedure(String)}.
+   */
+  public CompletableFuture<JsonPath> cancelProcedure(String procedureId) {
+    return supply(() -> operation.cancelProcedure(procedureId));
+  }
+
+  /**
+   * See {@link Operation#executeAction(String, String, String, List, String, int)}.
+   */
+  public CompletableFuture<JsonPath> executeAction(String platformName, String componentName,
+      String actionName, List<String> instanceList, String arglist, int rollAt) {
+    return supply(() -> operation.executeAction(platformName, componentName, actionName,
+        instanceList, arglist, rollAt));
+  }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.AsyncAPIClient;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.DeploymentStatus;
+import com.oneops.client.api.resource.model.Environment;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.resource.model.RedundancyConfig;
+import com.oneops.client.api.resource.model.Release;
+
+/**
+ * Non-blocking variant of {@link Transition}. Each method returns immediately with a future of the
+ * same result the blocking call produces.
+ */
+public class AsyncTransition extends AsyncAPIClient {
+
+  private final Transition transition;
+
+  public AsyncTransition(OOInstance instance, String assemblyName) throws OneOpsClientAPIException {
+    super(instance);
+    this.transition = new Transition(instance, assemblyName);
+  }
+
+  /**
+   * Gets the blocking client this one delegates to.
+   *
+   * @return the blocking client
+   */
+  public Transition blocking() {
+    return transition;
+  }
+
+  /**
+   * See {@link Transition#getEnvironment(String)}.
+   */
+  public CompletableFuture<JsonPath> getEnvironment(String environmentName) {
+    return supply(() -> transition.getEnvironment(environmentName));
+  }
+
+  /**
+   * See {@link Transition#fetchEnvironment(String)}.
+   */
+  public CompletableFuture<Environment> fetchEnvironment(String environmentName) {
+    return supply(() -> transition.fetchEnvironment(environmentName));
+  }
+
+  /**
+   * See {@link Transition#listEnvironments()}.
+   */
+  public CompletableFuture<JsonPath> listEnvironments() {
+    return supply(() -> transition.listEnvironments());
+  }
+
+  /**
+   * See {@link Transition#fetchEnvironments()}.
+   */
+  public CompletableFuture<List<Environment>> fetchEnvironments() {
+    return supply(() -> transition.fetchEnvironments());
+  }
+
+  /**
+   * See {@link Transition#createEnvironment(String, String, Map, Map, Map, String)}.
+   */
+  public CompletableFuture<JsonPath> createEnvironment(String environmentName, String availability,
+      Map<String, String> attributes, Map<String, String> platformAvailability,
+      Map<String, Map<String, String>> cloudMap, String description) {
+    return supply(() -> transition.createEnvironment(environmentName, availability, attributes,
+        platformAvailability, cloudMap, description));
+  }
+
+  /**
+   * See {@link Transition#commitEnvironment(String, List, String)}.
+   */
+  public CompletableFuture<JsonPath> commitEnvironment(String environmentName,
+      List<Integer> excludePlatforms, String comment) {
+    return supply(() -> transition.commitEnvironment(environmentName, excludePlatforms, comment));
+  }
+
+  /**
+   * See {@link Transition#deploy(String, String)}.
+   */
+  public CompletableFuture<JsonPath> deploy(String environmentName, String comments) {
+    return supply(() -> transition.deploy(environmentName, comments));
+  }
+
+  /**
+   * See {@link Transition#getDeploymentStatus(String, String)}.
+   */
+  public CompletableFuture<JsonPath> getDeploymentStatus(String environmentName,
+      String deploymentId) {
+    return supply(() -> transition.getDeploymentStatus(environmentName, deploymentId));
+  }
+
+  /**
+   * See {@link Transition#fetchDeploymentStatus(String, String)}.
+   */
+  public CompletableFuture<DeploymentStatus> fetchDeploymentStatus(String environmentName,
+      String deploymentId) {
+    return supply(() -> transition.fetchDeploymentStatus(environmentName, deploymentId));
+  }
+
+  /**
+   * See {@link Transition#getLatestDeployment(String)}.
+   */
+  public CompletableFuture<JsonPath> getLatestDeployment(String environmentName) {
+    return supply(() -> transition.getLatestDeployment(environmentName));
+  }
+
+  /**
+   * See {@link Transition#fetchLatestDeployment(String)}.
+   */
+  public CompletableFuture<Deployment> fetchLatestDeployment(String environmentName) {
+    return supply(() -> transition.fetchLatestDeployment(environmentName));
+  }
+
+  /**
+   * See {@link Transition#disableAllPlatforms(String)}.
+   */
+  public CompletableFuture<JsonPath> disableAllPlatforms(String environmentName) {
+    return supply(() -> transition.disableAllPlatforms(environmentName));
+  }
+
+  /**
+   * See {@link Transition#getLatestRelease(String)}.
+   */
+  public CompletableFuture<JsonPath> getLatestRelease(String environmentName) {
+    return supply(() -> transition.getLatestRelease(environmentName));
+  }
+
+  /**
+   * See {@link Transition#fetchLatestRelease(String)}.
+   */
+  public CompletableFuture<Release> fetchLatestRelease(String environmentName) {
+    return supply(() -> transition.fetchLatestRelease(environmentName));
+  }
+
+  /**
+   * See {@link Transition#getBomRelease(String)}.
+   */
+  public CompletableFuture<JsonPath> getBomRelease(String environmentName) {
+    return supply(() -> transition.getBomRelease(environmentName));
+  }
+
+  /**
+   * See {@link Transition#cancelDeployment(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> cancelDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return supply(() -> transition.cancelDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * See {@link Transition#getDeployment(String, String)}.
+   */
+  public CompletableFuture<JsonPath> getDeployment(String environmentName, String deploymentId) {
+    return supply(() -> transition.getDeployment(environmentName, deploymentId));
+  }
+
+  /**
+   * See {@link Transition#fetchDeployment(String, String)}.
+   */
+  public CompletableFuture<Deployment> fetchDeployment(String environmentName,
+      String deploymentId) {
+    return supply(() -> transition.fetchDeployment(environmentName, deploymentId));
+  }
+
+  /**
+   * See {@link Transition#getDeploymentRfcLog(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> getDeploymentRfcLog(String environmentName,
+      String deploymentId, String rfcId) {
+    return supply(() -> transition.getDeploymentRfcLog(environmentName, deploymentId, rfcId));
+  }
+
+  /**
+   * See {@link Transition#fetchDeploymentRfcLog(String, String, String)}.
+   */
+  public CompletableFuture<List<LogData>> fetchDeploymentRfcLog(String environmentName,
+      String deploymentId, String rfcId) {
+    return supply(() -> transition.fetchDeploymentRfcLog(environmentName, deploymentId, rfcId));
+  }
+
+  /**
+   * See {@link Transition#approveDeployment(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> approveDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return supply(() -> transition.approveDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * See {@link Transition#retryDeployment(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> retryDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return supply(() -> transition.retryDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * See {@link Transition#deleteEnvironment(String)}.
+   */
+  public CompletableFuture<JsonPath> deleteEnvironment(String environmentName) {
+    return supply(() -> transition.deleteEnvironment(environmentName));
+  }
+
+  /**
+   * See {@link Transition#listPlatforms(String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatforms(String environmentName) {
+    return supply(() -> transition.listPlatforms(environmentName));
+  }
+
+  /**
+   * See {@link Transition#getPlatform(String, String)}.
+   */
+  public CompletableFuture<JsonPath> getPlatform(String environmentName, String platformName) {
+    return supply(() -> transition.getPlatform(environmentName, platformName));
+  }
+
+  /**
+   * See {@link Transition#listPlatformComponents(String, String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponents(String environmentName,
+      String platformName) {
+    return supply(() -> transition.listPlatformComponents(environmentName, platformName));
+  }
+
+  /**
+   * See {@link Transition#fetchPlatformComponents(String, String)}.
+   */
+  public CompletableFuture<List<CiResource>> fetchPlatformComponents(String environmentName,
+      String platformName) {
+    return supply(() -> transition.fetchPlatformComponents(environmentName, platformName));
+  }
+
+  /**
+   * See {@link Transition#getPlatformComponent(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponent(String environmentName,
+      String platformName, String componentName) {
+    return supply(() -> transition.getPlatformComponent(environmentName, platformName,
+        componentName));
+  }
+
+  /**
+   * See {@link Transition#fetchPlatformComponent(String, String, String)}.
+   */
+  public CompletableFuture<CiResource> fetchPlatformComponent(String environmentName,
+      String platformName, String componentName) {
+    return supply(() -> transition.fetchPlatformComponent(environmentName, platformName,
+        componentName));
+  }
+
+  /**
+   * See {@link Transition#updatePlatformComponent(String, String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String environmentName,
+      String platformName, String componentName, Map<String, String> attributes) {
+    return supply(() -> transition.updatePlatformComponent(environmentName, platformName,
+        componentName, attributes));
+  }
+
+  /**
+   * See {@link Transition#updatePlatformComponent(String, String, CiResource, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String environmentName,
+      String platformName, CiResource component, Map<String, String> attributes) {
+    return supply(() -> transition.updatePlatformComponent(environmentName, platformName, component,
+        attributes));
+  }
+
+  /**
+   * See {@link Transition#touchPlatformComponent(String, String, String)}.
+   */
+  public CompletableFuture<JsonPath> touchPlatformComponent(String environmentName,
+      String platformName, String componentName) {
+    return supply(() -> transition.touchPlatformComponent(environmentName, platformName,
+        componentName));
+  }
+
+  /**
+   * See {@link Transition#pullDesin(String)}.
+   */
+  public CompletableFuture<JsonPath> pullDesin(String environmentName) {
+    return supply(() -> transition.pullDesin(environmentName));
+  }
+
+  /**
+   * See {@link Transition#listPlatformVariables(String, String)}.
+   */
+  public CompletableFuture<JsonPath> listPlatformVariables(String environmentName,
+      String platformName) {
+    return supply(() -> transition.listPlatformVariables(environmentName, platformName));
+  }
+
+  /**
+   * See {@link Transition#updatePlatformVariable(String, String, Map, boolean)}.
+   */
+  public CompletableFuture<Boolean> updatePlatformVariable(String environmentName,
+      String platformName, Map<String, String> variables, boolean isSecure) {
+    return supply(() -> transition.updatePlatformVariable(environmentName, platformName, variables,
+        isSecure));
+  }
+
+  /**
+   * See {@link Transition#listGlobalVariables(String)}.
+   */
+  public CompletableFuture<JsonPath> listGlobalVariables(String environmentName) {
+    return supply(() -> transition.listGlobalVariables(environmentName));
+  }
+
+  /**
+   * See {@link Transition#updateGlobalVariable(String, Map, boolean)}.
+   */
+  public CompletableFuture<Boolean> updateGlobalVariable(String environmentName,
+      Map<String, String> variables, boolean isSecure) {
+    return supply(() -> transition.updateGlobalVariable(environmentName, variables, isSecure));
+  }
+
+  /**
+   * See {@link Transition#updateDisableEnvironment(String, List)}.
+   */
+  public CompletableFuture<JsonPath> updateDisableEnvironment(String environmentName,
+      List<String> platformIdList) {
+    return supply(() -> transition.updateDisableEnvironment(environmentName, platformIdList));
+  }
+
+  /**
+   * See {@link Transition#updatePlatformRedundancyConfig}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformRedundancyConfig(String environmentName,
+      String platformName, String componentName, RedundancyConfig config) {
+    return supply(() -> transition.updatePlatformRedundancyConfig(environmentName, platformName,
+        componentName, config));
+  }
+
+  /**
+   * See {@link Transition#listRelays(String)}.
+   */
+  public CompletableFuture<JsonPath> listRelays(String environmentName) {
+    return supply(() -> transition.listRelays(environmentName));
+  }
+
+  /**
+   * See {@link Transition#getRelay(String, String)}.
+   */
+  public CompletableFuture<JsonPath> getRelay(String environmentName, String relayName) {
+    return supply(() -> transition.getRelay(environmentName, relayName));
+  }
+
+  /**
+   * See {@link Transition#addRelay}.
+   */
+  public CompletableFuture<JsonPath> addRelay(String environmentName, String relayName,
+      String severity, String emails, String source, String nsPaths, String regex,
+      boolean correlation) {
+    return supply(() -> transition.addRelay(environmentName, relayName, severity, emails, source,
+        nsPaths, regex, correlation));
+  }
+
+  /**
+   * See {@link Transition#updateRelay}.
+   */
+  public CompletableFuture<JsonPath> updateRelay(String environmentName, String relayName,
+      String severity, String emails, String source, String nsPaths, String regex,
+      boolean correlation, boolean enable) {
+    return supply(() -> transition.updateRelay(environmentName, relayName, severity, emails, source,
+        nsPaths, regex, correlation, enable));
+  }
+
+  /**
+   * See {@link Transition#updatePlatformCloudScale(String, String, String, Map)}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformCloudScale(String environmentName,
+      String platformName, String cloudId, Map<String, String> cloudMap) {
+    return supply(() -> transition.updatePlatformCloudScale(environmentName, platformName, cloudId,
+        cloudMap));
+  }
+}
@@ -19,6 +19,8 @@ import com.jayway.restassured.specification.RequestSpecification;
 import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.util.MetadataCache;
 
 public class Cloud extends APIClient {
 
@@ -36,6 +38,41 @@ public class Cloud extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getCloud(String cloudName) throws OneOpsClientAPIException {
+    return getCloudResponse(cloudName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches a cloud as a typed CI.
+   *
+   * @see #getCloud(String)
+   */
+  public CiResource fetchCloud(String cloudName) throws OneOpsClientAPIException {
+    return readValue(getCloudResponse(cloudName), CiResource.class);
+  }
+
+  /**
+   * Gets the ciId of a cloud, from the metadata cache once it has been looked up.
+   *
+   * @param cloudName the cloud name
+   * @return the ciId of the cloud
+   * @throws OneOpsClientAPIException if the cloud cannot be fetched or has no ciId
+   */
+  public String getCloudId(String cloudName) throws OneOpsClientAPIException {
+    String key = "cloud/" + cloudName;
+    String ciId = cache().get(key);
+    if (ciId == null) {
+      Long id = fetchCloud(cloudName).getCiId();
+      if (id == null) {
+        String msg = String.format("Failed to get the ciId of cloud %s", cloudName);
+        throw new OneOpsClientAPIException(msg);
+      }
+      ciId = String.valueOf(id);
+      cache().put(key, ciId, MetadataCache.CLOUD_TTL);
+    }
+    return ciId;
+  }
+
+  private Response getCloudResponse(String cloudName) throws OneOpsClientAPIException {
     if (cloudName == null || cloudName.length() == 0) {
       String msg = String.format("Missing cloud name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -45,7 +82,7 @@ public class Cloud extends APIClient {
     Response response = request.get(CLOUD_URI + cloudName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get cloud with name %s due to %s", cloudName,
             response.getStatusLine());
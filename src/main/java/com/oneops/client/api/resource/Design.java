@@ -14,8 +14,10 @@
 package com.oneops.client.api.resource;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
 
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.json.JSONObject;
@@ -27,16 +29,20 @@ import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
 import com.oneops.client.api.APIClient;
+import com.oneops.client.api.AsyncAPIClient.Call;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.MetadataCache;
 
 
 public class Design extends APIClient {
   private static final Logger LOG = LoggerFactory.getLogger(Design.class);
   private String DESIGN_RELEASE_URI;
   private String DESIGN_URI;
+  private String assemblyName;
 
   public Design(OOInstance instance, String assemblyName) throws OneOpsClientAPIException {
     super(instance);
@@ -46,6 +52,7 @@ public class Design extends APIClient {
     }
     DESIGN_RELEASE_URI = Assembly.ASSEMBLY_URI + assemblyName + "/design/releases/";
     DESIGN_URI = Assembly.ASSEMBLY_URI + assemblyName + "/design/";
+    this.assemblyName = assemblyName;
   }
 
   /**
@@ -84,11 +91,24 @@ public class Design extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listPlatforms() throws OneOpsClientAPIException {
+    return listPlatformsResponse().getBody().jsonPath();
+  }
+
+  /**
+   * Lists all the platforms as typed CIs.
+   *
+   * @see #listPlatforms()
+   */
+  public List<CiResource> fetchPlatforms() throws OneOpsClientAPIException {
+    return readList(listPlatformsResponse(), CiResource.class);
+  }
+
+  private Response listPlatformsResponse() throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     Response response = request.get(DESIGN_URI + "platforms");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get list of platforms due to %s", response.getStatusLine());
@@ -234,6 +254,7 @@ public class Design extends APIClient {
     Response response = request.delete(DESIGN_URI + "platforms/" + platformName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        cache().invalidateAll(componentKey(platformName, ""));
         return response.getBody().jsonPath();
       } else {
         String msg = String.format("Failed to delete platform with name %s", platformName);
@@ -271,6 +292,7 @@ public class Design extends APIClient {
           request.delete(DESIGN_URI + "platforms/" + platformName + "/components/" + ciId);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+          cache().invalidate(componentKey(platformName, componentName));
           return response.getBody().jsonPath();
         } else {
           String msg = String.format("Failed to delete component with name %s", componentName);
@@ -331,15 +353,40 @@ public class Design extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listPlatformComponents(String platformName) throws OneOpsClientAPIException {
+    return listPlatformComponentsResponse(platformName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists the components of a platform as typed CIs.
+   *
+   * @see #listPlatformComponents(String)
+   */
+  public List<CiResource> fetchPlatformComponents(String platformName)
+      throws OneOpsClientAPIException {
+    List<CiResource> components =
+        readList(listPlatformComponentsResponse(platformName), CiResource.class);
+    for (CiResource component : components) {
+      if (component.getCiId() != null) {
+        cache().put(componentKey(platformName, component.getCiName()),
+            String.valueOf(component.getCiId()), MetadataCache.DESIGN_TTL);
+      }
+    }
+    return components;
+  }
+
+  private Response listPlatformComponentsResponse(String platformName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to list enviornment platform components");
       throw new OneOpsClientAPIException(msg);
     }
     RequestSpecification request = createRequest();
-    Response response = request.get(DESIGN_URI + "platforms/" + platformName + "/components");
+    // ask for the owner props too, so callers can tell user customized components from the list
+    Response response = request.queryParam("attr_props", "owner")
+        .get(DESIGN_URI + "platforms/" + platformName + "/components");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get list of platforms components due to %s",
             response.getStatusLine());
@@ -352,6 +399,23 @@ public class Design extends APIClient {
 
   public JsonPath listPlatformComponentAttachments(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return listPlatformComponentAttachmentsResponse(platformName, componentName).getBody()
+        .jsonPath();
+  }
+
+  /**
+   * Lists the attachments of a component as typed CIs.
+   *
+   * @see #listPlatformComponentAttachments(String, String)
+   */
+  public List<CiResource> fetchPlatformComponentAttachments(String platformName,
+      String componentName) throws OneOpsClientAPIException {
+    return readList(listPlatformComponentAttachmentsResponse(platformName, componentName),
+        CiResource.class);
+  }
+
+  private Response listPlatformComponentAttachmentsResponse(String platformName,
+      String componentName) throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to update component attributes");
       throw new OneOpsClientAPIException(msg);
@@ -361,26 +425,23 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    JsonPath componentDetails = getPlatformComponent(platformName, componentName);
-    if (componentDetails != null) {
-
-      String ciId = componentDetails.getString("ciId");
+    return withComponentId(platformName, componentName, ciId -> () -> {
       RequestSpecification request = createRequest();
       Response response = request.get(
           DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments.json");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
+          return response;
         } else {
           String msg = String.format("Failed to get update component %s due to %s", componentName,
               response.getStatusLine());
           throw new OneOpsClientAPIException(msg);
         }
       }
-    }
-    String msg =
-        String.format("Failed to get update component %s due to null response", componentName);
-    throw new OneOpsClientAPIException(msg);
+      String msg =
+          String.format("Failed to get update component %s due to null response", componentName);
+      throw new OneOpsClientAPIException(msg);
+    });
   }
 
   public JsonPath addPlatformComponentAttachment(String platformName, String componentName,
@@ -394,58 +455,55 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
-    JsonPath componentDetails = getPlatformComponent(platformName, componentName);
-    if (componentDetails == null) {
-      String msg = new String("Cannot find component");
-      throw new OneOpsClientAPIException(msg);
-    }
-    String ciId = componentDetails.getString("ciId");
-    Response newComponentResponse = request.queryParam("template_name", componentName).get(
-        DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments/new.json");
-    if (newComponentResponse != null) {
-      ResourceObject ro = new ResourceObject();
-      Map<String, String> properties = Maps.newHashMap();
-      properties.put("ciName", uniqueName);
-      properties.put("rfcAction", "add");
-
-      componentDetails = newComponentResponse.getBody().jsonPath();
-      Map<String, String> attr = componentDetails.getMap("ciAttributes");
-      if (attr == null) {
-        attr = Maps.newHashMap();
-      }
-      if (attributes != null && attributes.size() > 0) {
-        attr.putAll(attributes);
-        Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
-        if (ownerProps == null) {
-          ownerProps = Maps.newHashMap();
+    return withComponentId(platformName, componentName, ciId -> () -> {
+      RequestSpecification request = createRequest();
+      Response newComponentResponse = request.queryParam("template_name", componentName).get(
+          DESIGN_URI + "platforms/" + platformName + "/components/" + ciId
+              + "/attachments/new.json");
+      if (newComponentResponse != null) {
+        ResourceObject ro = new ResourceObject();
+        Map<String, String> properties = Maps.newHashMap();
+        properties.put("ciName", uniqueName);
+        properties.put("rfcAction", "add");
+
+        JsonPath componentDetails = newComponentResponse.getBody().jsonPath();
+        Map<String, String> attr = componentDetails.getMap("ciAttributes");
+        if (attr == null) {
+          attr = Maps.newHashMap();
         }
-        for (Entry<String, String> entry : attributes.entrySet()) {
-          ownerProps.put(entry.getKey(), "");
+        if (attributes != null && attributes.size() > 0) {
+          attr.putAll(attributes);
+          Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
+          if (ownerProps == null) {
+            ownerProps = Maps.newHashMap();
+          }
+          for (Entry<String, String> entry : attributes.entrySet()) {
+            ownerProps.put(entry.getKey(), "");
+          }
+          ro.setOwnerProps(ownerProps);
         }
-        ro.setOwnerProps(ownerProps);
-      }
-      ro.setAttributes(attr);
-      ro.setProperties(properties);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      jsonObject.put("template_name", componentName);
-      LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
-      Response response = request.body(jsonObject.toString())
-          .post(DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments");
-      if (response != null) {
-        if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
-        } else {
-          String msg = String.format("Failed to get update component %s due to %s", componentName,
-              response.getStatusLine());
-          throw new OneOpsClientAPIException(msg);
+        ro.setAttributes(attr);
+        ro.setProperties(properties);
+        JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+        jsonObject.put("template_name", componentName);
+        LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
+        Response response = request.body(jsonObject.toString()).post(
+            DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments");
+        if (response != null) {
+          if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+            return response.getBody().jsonPath();
+          } else {
+            String msg = String.format("Failed to get update component %s due to %s", componentName,
+                response.getStatusLine());
+            throw new OneOpsClientAPIException(msg);
+          }
         }
       }
-    }
 
-    String msg =
-        String.format("Failed to get update component %s due to null response", componentName);
-    throw new OneOpsClientAPIException(msg);
+      String msg =
+          String.format("Failed to get update component %s due to null response", componentName);
+      throw new OneOpsClientAPIException(msg);
+    });
   }
 
   public JsonPath updatePlatformComponentAttachment(String platformName, String componentName,
@@ -459,61 +517,57 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
-    JsonPath componentDetails = getPlatformComponent(platformName, componentName);
-    if (componentDetails == null) {
-      String msg = new String("Cannot find component");
-      throw new OneOpsClientAPIException(msg);
-    }
-    String ciId = componentDetails.getString("ciId");
-    Response newComponentResponse =
-        request.queryParam("template_name", componentName).get(DESIGN_URI + "platforms/"
-            + platformName + "/components/" + ciId + "/attachments/" + uniqueName + ".json");
-    if (newComponentResponse != null) {
-      ResourceObject ro = new ResourceObject();
-      Map<String, String> properties = Maps.newHashMap();
-      properties.put("ciName", uniqueName);
-      properties.put("rfcAction", "add");
-
-      componentDetails = newComponentResponse.getBody().jsonPath();
-      String ciId2 = componentDetails.getString("ciId");
-      Map<String, String> attr = componentDetails.getMap("ciAttributes");
-      if (attr == null) {
-        attr = Maps.newHashMap();
-      }
-      if (attributes != null && attributes.size() > 0) {
-        attr.putAll(attributes);
-
-        Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
-        if (ownerProps == null) {
-          ownerProps = Maps.newHashMap();
+    return withComponentId(platformName, componentName, ciId -> () -> {
+      RequestSpecification request = createRequest();
+      Response newComponentResponse =
+          request.queryParam("template_name", componentName).get(DESIGN_URI + "platforms/"
+              + platformName + "/components/" + ciId + "/attachments/" + uniqueName + ".json");
+      if (newComponentResponse != null) {
+        ResourceObject ro = new ResourceObject();
+        Map<String, String> properties = Maps.newHashMap();
+        properties.put("ciName", uniqueName);
+        properties.put("rfcAction", "add");
+
+        JsonPath componentDetails = newComponentResponse.getBody().jsonPath();
+        String ciId2 = componentDetails.getString("ciId");
+        Map<String, String> attr = componentDetails.getMap("ciAttributes");
+        if (attr == null) {
+          attr = Maps.newHashMap();
         }
-        for (Entry<String, String> entry : attributes.entrySet()) {
-          ownerProps.put(entry.getKey(), "");
+        if (attributes != null && attributes.size() > 0) {
+          attr.putAll(attributes);
+
+          Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
+          if (ownerProps == null) {
+            ownerProps = Maps.newHashMap();
+          }
+          for (Entry<String, String> entry : attributes.entrySet()) {
+            ownerProps.put(entry.getKey(), "");
+          }
+          ro.setOwnerProps(ownerProps);
         }
-        ro.setOwnerProps(ownerProps);
-      }
-      ro.setAttributes(attr);
-      ro.setProperties(properties);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      jsonObject.put("template_name", componentName);
-      LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
-      Response response = request.body(jsonObject.toString()).put(DESIGN_URI + "platforms/"
-          + platformName + "/components/" + ciId + "/attachments/" + ciId2);
-      if (response != null) {
-        if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
-        } else {
-          String msg = String.format("Failed to get update attachment %s due to %s", uniqueName,
-              response.getStatusLine());
-          throw new OneOpsClientAPIException(msg);
+        ro.setAttributes(attr);
+        ro.setProperties(properties);
+        JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+        jsonObject.put("template_name", componentName);
+        LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
+        Response response = request.body(jsonObject.toString()).put(DESIGN_URI + "platforms/"
+            + platformName + "/components/" + ciId + "/attachments/" + ciId2);
+        if (response != null) {
+          if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+            return response.getBody().jsonPath();
+          } else {
+            String msg = String.format("Failed to get update attachment %s due to %s", uniqueName,
+                response.getStatusLine());
+            throw new OneOpsClientAPIException(msg);
+          }
         }
       }
-    }
 
-    String msg =
-        String.format("Failed to get update component %s due to null response", uniqueName);
-    throw new OneOpsClientAPIException(msg);
+      String msg =
+          String.format("Failed to get update component %s due to null response", uniqueName);
+      throw new OneOpsClientAPIException(msg);
+    });
   }
 
   /**
@@ -526,6 +580,21 @@ public class Design extends APIClient {
    */
   public JsonPath getPlatformComponent(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return getPlatformComponentResponse(platformName, componentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches a platform component as a typed CI.
+   *
+   * @see #getPlatformComponent(String, String)
+   */
+  public CiResource fetchPlatformComponent(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return readValue(getPlatformComponentResponse(platformName, componentName), CiResource.class);
+  }
+
+  private Response getPlatformComponentResponse(String platformName, String componentName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to get platform component details");
       throw new OneOpsClientAPIException(msg);
@@ -539,7 +608,7 @@ public class Design extends APIClient {
         request.get(DESIGN_URI + "platforms/" + platformName + "/components/" + componentName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get platform component details due to %s",
             response.getStatusLine());
@@ -561,10 +630,7 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    JsonPath componentDetails = getPlatformComponent(platformName, componentName);
-    if (componentDetails != null) {
-
-      String ciId = componentDetails.getString("ciId");
+    return withComponentId(platformName, componentName, ciId -> () -> {
       RequestSpecification request = createRequest();
       Response response = request.get(DESIGN_URI + "platforms/" + platformName + "/components/"
           + ciId + "/attachments/" + attachmentName + ".json");
@@ -577,10 +643,10 @@ public class Design extends APIClient {
           throw new OneOpsClientAPIException(msg);
         }
       }
-    }
-    String msg =
-        String.format("Failed to get update component %s due to null response", componentName);
-    throw new OneOpsClientAPIException(msg);
+      String msg =
+          String.format("Failed to get update component %s due to null response", componentName);
+      throw new OneOpsClientAPIException(msg);
+    });
   }
 
   /**
@@ -640,7 +706,10 @@ public class Design extends APIClient {
           .post(DESIGN_URI + "platforms/" + platformName + "/components/");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
+          JsonPath created = response.getBody().jsonPath();
+          cache().put(componentKey(platformName, uniqueName), created.getString("ciId"),
+              MetadataCache.DESIGN_TTL);
+          return created;
         } else {
           String msg = String.format("Failed to get update component %s due to %s", componentName,
               response.getStatusLine());
@@ -678,38 +747,58 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    JsonPath componentDetails = getPlatformComponent(platformName, componentName);
-    if (componentDetails != null) {
-      ResourceObject ro = new ResourceObject();
+    return updatePlatformComponent(platformName,
+        fetchPlatformComponent(platformName, componentName), attributes);
+  }
 
-      String ciId = componentDetails.getString("ciId");
-      RequestSpecification request = createRequest();
-      Map<String, String> attr = componentDetails.getMap("ciAttributes");
-      if (attr == null) {
-        attr = Maps.newHashMap();
-      }
-      attr.putAll(attributes);
+  /**
+   * Update component attributes starting from an already fetched component, which saves the GET
+   * of the current state when the caller holds a recent copy.
+   *
+   * @param platformName
+   * @param component the current component
+   * @param attributes
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath updatePlatformComponent(String platformName, CiResource component,
+      Map<String, String> attributes) throws OneOpsClientAPIException {
+    if (component == null || component.getCiId() == null) {
+      String msg = String.format("Missing component to update component attributes");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (attributes == null || attributes.size() == 0) {
+      String msg = String.format("Missing attributes list to be updated");
+      throw new OneOpsClientAPIException(msg);
+    }
+    String componentName = component.getCiName();
+    ResourceObject ro = new ResourceObject();
+    RequestSpecification request = createRequest();
+    Map<String, String> attr = Maps.newHashMap();
+    if (component.getCiAttributes() != null) {
+      attr.putAll(component.getCiAttributes());
+    }
+    attr.putAll(attributes);
 
-      Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
-      if (ownerProps == null) {
-        ownerProps = Maps.newHashMap();
-      }
-      for (Entry<String, String> entry : attributes.entrySet()) {
-        ownerProps.put(entry.getKey(), "design");
-      }
-      ro.setOwnerProps(ownerProps);
-      ro.setAttributes(attr);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      Response response = request.body(jsonObject.toString())
-          .put(DESIGN_URI + "platforms/" + platformName + "/components/" + ciId);
-      if (response != null) {
-        if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
-        } else {
-          String msg = String.format("Failed to get update component %s due to %s", componentName,
-              response.getStatusLine());
-          throw new OneOpsClientAPIException(msg);
-        }
+    Map<String, String> ownerProps = Maps.newHashMap();
+    if (component.getCiAttrProps() != null && component.getCiAttrProps().get("owner") != null) {
+      ownerProps.putAll(component.getCiAttrProps().get("owner"));
+    }
+    for (Entry<String, String> entry : attributes.entrySet()) {
+      ownerProps.put(entry.getKey(), "design");
+    }
+    ro.setOwnerProps(ownerProps);
+    ro.setAttributes(attr);
+    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    Response response = request.body(jsonObject.toString())
+        .put(DESIGN_URI + "platforms/" + platformName + "/components/" + component.getCiId());
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response.getBody().jsonPath();
+      } else {
+        String msg = String.format("Failed to get update component %s due to %s", componentName,
+            response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
       }
     }
     String msg =
@@ -725,6 +814,21 @@ public class Design extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listPlatformVariables(String platformName) throws OneOpsClientAPIException {
+    return listPlatformVariablesResponse(platformName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists the variables of a platform as typed CIs.
+   *
+   * @see #listPlatformVariables(String)
+   */
+  public List<CiResource> fetchPlatformVariables(String platformName)
+      throws OneOpsClientAPIException {
+    return readList(listPlatformVariablesResponse(platformName), CiResource.class);
+  }
+
+  private Response listPlatformVariablesResponse(String platformName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to list platform variables");
       throw new OneOpsClientAPIException(msg);
@@ -733,7 +837,7 @@ public class Design extends APIClient {
     Response response = request.get(DESIGN_URI + "platforms/" + platformName + "/variables");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get list of design platforms variables due to %s",
             response.getStatusLine());
@@ -817,6 +921,176 @@ public class Design extends APIClient {
     return success;
   }
 
+  /**
+   * Fetches the template of a new platform variable, to add any number of variables from.
+   *
+   * @param platformName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public CiResource fetchNewPlatformVariable(String platformName)
+      throws OneOpsClientAPIException {
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to add variables");
+      throw new OneOpsClientAPIException(msg);
+    }
+    RequestSpecification request = createRequest();
+    Response response =
+        request.get(DESIGN_URI + "platforms/" + platformName + "/variables/new.json");
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return readValue(response, CiResource.class);
+      } else {
+        String msg = String.format("Failed to get new platform variable due to %s",
+            response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+    String msg = String.format("Failed to get new platform variable due to null response");
+    throw new OneOpsClientAPIException(msg);
+  }
+
+  /**
+   * Adds a platform variable known not to exist, from a template fetched with
+   * {@link #fetchNewPlatformVariable(String)}. Nothing is read first.
+   *
+   * @param platformName
+   * @param template
+   * @param variableName
+   * @param value
+   * @param isSecure
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath addPlatformVariable(String platformName, CiResource template,
+      String variableName, String value, boolean isSecure) throws OneOpsClientAPIException {
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to add variables");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (variableName == null || variableName.length() == 0) {
+      String msg = String.format("Missing variable name to add");
+      throw new OneOpsClientAPIException(msg);
+    }
+    Map<String, String> attr = Maps.newHashMap();
+    if (template != null && template.getCiAttributes() != null) {
+      attr.putAll(template.getCiAttributes());
+    }
+    putVariableValue(attr, value, isSecure);
+    Map<String, String> properties = Maps.newHashMap();
+    properties.put("ciName", variableName);
+    ResourceObject ro = new ResourceObject();
+    ro.setProperties(properties);
+    ro.setAttributes(attr);
+
+    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    RequestSpecification request = createRequest();
+    Response response = request.body(jsonObject.toString())
+        .post(DESIGN_URI + "platforms/" + platformName + "/variables");
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response.getBody().jsonPath();
+      } else {
+        String msg = String.format("Failed to add platform variable %s due to %s", variableName,
+            response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+    String msg = String.format("Failed to add platform variable %s due to null response",
+        variableName);
+    throw new OneOpsClientAPIException(msg);
+  }
+
+  /**
+   * Updates the value of a listed platform variable. Nothing is read first.
+   *
+   * @param platformName
+   * @param variable the variable as listed
+   * @param value
+   * @param isSecure
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath updatePlatformVariable(String platformName, CiResource variable, String value,
+      boolean isSecure) throws OneOpsClientAPIException {
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to update variables");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (variable == null || variable.getCiId() == null) {
+      String msg = String.format("Missing variable to update");
+      throw new OneOpsClientAPIException(msg);
+    }
+    Map<String, String> attr = new HashMap<String, String>();
+    if (variable.getCiAttributes() != null) {
+      attr.putAll(variable.getCiAttributes());
+    }
+    putVariableValue(attr, value, isSecure);
+    ResourceObject ro = new ResourceObject();
+    ro.setAttributes(attr);
+
+    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    RequestSpecification request = createRequest();
+    Response response = request.body(jsonObject.toString())
+        .put(DESIGN_URI + "platforms/" + platformName + "/variables/" + variable.getCiId());
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response.getBody().jsonPath();
+      } else {
+        String msg = String.format("Failed to get update variables %s due to %s",
+            variable.getCiName(), response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+    String msg = String.format("Failed to get update variables %s due to null response",
+        variable.getCiName());
+    throw new OneOpsClientAPIException(msg);
+  }
+
+  /**
+   * Deletes a listed platform variable. Nothing is read first.
+   *
+   * @param platformName
+   * @param variable the variable as listed
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath deletePlatformVariable(String platformName, CiResource variable)
+      throws OneOpsClientAPIException {
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to use");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (variable == null || variable.getCiId() == null) {
+      String msg = String.format("Missing variable to delete");
+      throw new OneOpsClientAPIException(msg);
+    }
+    RequestSpecification request = createRequest();
+    Response response = request
+        .delete(DESIGN_URI + "platforms/" + platformName + "/variables/" + variable.getCiId());
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response.getBody().jsonPath();
+      } else {
+        String msg = String.format("Failed to delete variable with name %s", variable.getCiName());
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+    String msg = String.format("Failed to delete variable with name %s due to null response",
+        variable.getCiName());
+    throw new OneOpsClientAPIException(msg);
+  }
+
+  private static void putVariableValue(Map<String, String> attr, String value, boolean isSecure) {
+    if (isSecure) {
+      attr.put("secure", "true");
+      attr.put("encrypted_value", value);
+    } else {
+      attr.put("secure", "false");
+      attr.put("value", value);
+    }
+  }
+
   /**
    * Update platform local variables for a given assembly/design/platform
    * 
@@ -1089,4 +1363,47 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Gets the prefix of the cache keys of an assembly, for dropping them with the assembly.
+   */
+  static String cacheKey(String assemblyName) {
+    return assemblyName + "/";
+  }
+
+  private String componentKey(String platformName, String componentName) {
+    return cacheKey(assemblyName) + "component/" + platformName + "/" + componentName;
+  }
+
+  /**
+   * Runs a call with the ciId of a component. The ciId is looked up once and then taken from the
+   * metadata cache; if a call with a cached ciId fails and the component turns out to have a new
+   * one, the call is run once more with that.
+   */
+  private <T> T withComponentId(String platformName, String componentName,
+      Function<String, Call<T>> call) throws OneOpsClientAPIException {
+    String key = componentKey(platformName, componentName);
+    String cached = cache().get(key);
+    if (cached != null) {
+      try {
+        return call.apply(cached).call();
+      } catch (OneOpsClientAPIException e) {
+        cache().invalidate(key);
+        String ciId = getPlatformComponent(platformName, componentName).getString("ciId");
+        if (ciId == null || ciId.equals(cached)) {
+          throw e;
+        }
+        LOG.debug("Component {} of platform {} has a new ciId {}", componentName, platformName,
+            ciId);
+        cache().put(key, ciId, MetadataCache.DESIGN_TTL);
+        return call.apply(ciId).call();
+      }
+    }
+    String ciId = getPlatformComponent(platformName, componentName).getString("ciId");
+    if (ciId == null) {
+      String msg = new String("Cannot find component");
+      throw new OneOpsClientAPIException(msg);
+    }
+    cache().put(key, ciId, MetadataCache.DESIGN_TTL);
+    return call.apply(ciId).call();
+  }
 }
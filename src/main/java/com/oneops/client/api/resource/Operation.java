@@ -28,6 +28,9 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.resource.model.Procedure;
 import com.oneops.client.api.util.JsonUtil;
 
 public class Operation extends APIClient {
@@ -66,6 +69,21 @@ public class Operation extends APIClient {
    */
   public JsonPath listInstances(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return listInstancesResponse(platformName, componentName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists the instances of a component as typed CIs.
+   *
+   * @see #listInstances(String, String)
+   */
+  public List<CiResource> fetchInstances(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return readList(listInstancesResponse(platformName, componentName), CiResource.class);
+  }
+
+  private Response listInstancesResponse(String platformName, String componentName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -82,7 +100,7 @@ public class Operation extends APIClient {
             + "/instances");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get instances due to %s", response.getStatusLine());
         throw new OneOpsClientAPIException(msg);
@@ -148,6 +166,21 @@ public class Operation extends APIClient {
 
   public JsonPath getLogData(String procedureId, List<String> actionIds)
       throws OneOpsClientAPIException {
+    return getLogDataResponse(procedureId, actionIds).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the logs of actions of a procedure in one request.
+   *
+   * @see #getLogData(String, List)
+   */
+  public List<LogData> fetchLogData(String procedureId, List<String> actionIds)
+      throws OneOpsClientAPIException {
+    return readList(getLogDataResponse(procedureId, actionIds), LogData.class);
+  }
+
+  private Response getLogDataResponse(String procedureId, List<String> actionIds)
+      throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     String uri = "/operations/procedures/log_data";
     request.queryParam("procedure_id", procedureId);
@@ -161,14 +194,15 @@ public class Operation extends APIClient {
     Response response = request.get(uri);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
-        String msg = String.format("Failed to set replace marker on instance(s) due to %s",
+        String msg = String.format("Failed to get logs of procedure %s due to %s", procedureId,
             response.getStatusLine());
         throw new OneOpsClientAPIException(msg);
       }
     }
-    String msg = String.format("Failed to set replace marker on instance(s) due to null response");
+    String msg = String.format("Failed to get logs of procedure %s due to null response",
+        procedureId);
     throw new OneOpsClientAPIException(msg);
   }
 
@@ -319,6 +353,19 @@ public class Operation extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getProcedureStatus(String procedureId) throws OneOpsClientAPIException {
+    return getProcedureStatusResponse(procedureId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches a procedure and its state.
+   *
+   * @see #getProcedureStatus(String)
+   */
+  public Procedure fetchProcedureStatus(String procedureId) throws OneOpsClientAPIException {
+    return readValue(getProcedureStatusResponse(procedureId), Procedure.class);
+  }
+
+  private Response getProcedureStatusResponse(String procedureId) throws OneOpsClientAPIException {
     if (procedureId == null || procedureId.length() == 0) {
       String msg = String.format("Missing procedure Id to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -328,7 +375,7 @@ public class Operation extends APIClient {
     Response response = request.get("/operations/procedures/" + procedureId);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get procedure status due to %s", response.getStatusLine());
@@ -445,7 +492,7 @@ public class Operation extends APIClient {
     definition.put("flow", flows);
     definition.put("name", actionName);
 
-    properties.put("definition", definition.toString());
+    properties.put("definition", new JSONObject(definition).toString());
     ro.setProperties(properties);
 
     JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_procedure");
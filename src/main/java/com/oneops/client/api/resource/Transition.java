@@ -24,7 +24,6 @@ import org.json.JSONObject;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
@@ -32,8 +31,15 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.DeploymentStatus;
+import com.oneops.client.api.resource.model.Environment;
+import com.oneops.client.api.resource.model.LogData;
 import com.oneops.client.api.resource.model.RedundancyConfig;
+import com.oneops.client.api.resource.model.Release;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.Poller;
 
 public class Transition extends APIClient {
 
@@ -62,6 +68,19 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getEnvironment(String environmentName) throws OneOpsClientAPIException {
+    return getEnvironmentResponse(environmentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches an environment as a typed CI.
+   *
+   * @see #getEnvironment(String)
+   */
+  public Environment fetchEnvironment(String environmentName) throws OneOpsClientAPIException {
+    return readValue(getEnvironmentResponse(environmentName), Environment.class);
+  }
+
+  private Response getEnvironmentResponse(String environmentName) throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -71,7 +90,7 @@ public class Transition extends APIClient {
     Response response = request.get(TRANSITION_ENV_URI + environmentName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get environment with name %s due to %s",
             environmentName, response.getStatusLine());
@@ -90,12 +109,25 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listEnvironments() throws OneOpsClientAPIException {
+    return listEnvironmentsResponse().getBody().jsonPath();
+  }
+
+  /**
+   * Lists all the environments as typed CIs.
+   *
+   * @see #listEnvironments()
+   */
+  public List<Environment> fetchEnvironments() throws OneOpsClientAPIException {
+    return readList(listEnvironmentsResponse(), Environment.class);
+  }
+
+  private Response listEnvironmentsResponse() throws OneOpsClientAPIException {
 
     RequestSpecification request = createRequest();
     Response response = request.get(TRANSITION_ENV_URI);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to list environments due to %s", response.getStatusLine());
@@ -216,21 +248,17 @@ public class Transition extends APIClient {
         request.body(jo.toString()).post(TRANSITION_ENV_URI + environmentName + "/commit");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-
-        response = request.get(TRANSITION_ENV_URI + environmentName);
-        String envState = response.getBody().jsonPath().get("ciState");
         // wait for deployment plan to generate
-        do {
-          Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
-          response = request.get(TRANSITION_ENV_URI + environmentName);
-          if (response == null) {
+        Poller poller = Poller.builder("commit of " + environmentName)
+            .maxInterval(10, TimeUnit.SECONDS).timeout(60, TimeUnit.MINUTES).build();
+        return poller.await(() -> {
+          Response env = createRequest().get(TRANSITION_ENV_URI + environmentName);
+          if (env == null) {
             String msg = String.format("Failed to commit environment due to null response");
             throw new OneOpsClientAPIException(msg);
           }
-          envState = response.getBody().jsonPath().get("ciState");
-        } while (response != null && "locked".equalsIgnoreCase(envState));
-
-        return response.getBody().jsonPath();
+          return env.getBody().jsonPath();
+        }, env -> !"locked".equalsIgnoreCase(env.getString("ciState")));
 
       } else {
         String msg =
@@ -311,6 +339,22 @@ public class Transition extends APIClient {
    */
   public JsonPath getDeploymentStatus(String environmentName, String deploymentId)
       throws OneOpsClientAPIException {
+    return getDeploymentStatusResponse(environmentName, deploymentId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the status of a deployment, with the state of each RFC.
+   *
+   * @see #getDeploymentStatus(String, String)
+   */
+  public DeploymentStatus fetchDeploymentStatus(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
+    return readValue(getDeploymentStatusResponse(environmentName, deploymentId),
+        DeploymentStatus.class);
+  }
+
+  private Response getDeploymentStatusResponse(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -325,7 +369,7 @@ public class Transition extends APIClient {
         .get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId + "/status");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format(
             "Failed to get deployment status for environment %s with deployment Id %s due to %s",
@@ -347,6 +391,20 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getLatestDeployment(String environmentName) throws OneOpsClientAPIException {
+    return getLatestDeploymentResponse(environmentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the latest deployment of an environment.
+   *
+   * @see #getLatestDeployment(String)
+   */
+  public Deployment fetchLatestDeployment(String environmentName) throws OneOpsClientAPIException {
+    return readValue(getLatestDeploymentResponse(environmentName), Deployment.class);
+  }
+
+  private Response getLatestDeploymentResponse(String environmentName)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -356,7 +414,7 @@ public class Transition extends APIClient {
     Response response = request.get(TRANSITION_ENV_URI + environmentName + "/deployments/latest");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get latest deployment for environment %s due to %s",
             environmentName, response.getStatusLine());
@@ -411,6 +469,20 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getLatestRelease(String environmentName) throws OneOpsClientAPIException {
+    return getLatestReleaseResponse(environmentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the latest release of an environment.
+   *
+   * @see #getLatestRelease(String)
+   */
+  public Release fetchLatestRelease(String environmentName) throws OneOpsClientAPIException {
+    return readValue(getLatestReleaseResponse(environmentName), Release.class);
+  }
+
+  private Response getLatestReleaseResponse(String environmentName)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -420,7 +492,7 @@ public class Transition extends APIClient {
     Response response = request.get(TRANSITION_ENV_URI + environmentName + "/releases/latest");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get latest releases for environment %s due to %s",
             environmentName, response.getStatusLine());
@@ -477,6 +549,21 @@ public class Transition extends APIClient {
 
   public JsonPath getDeployment(String environmentName, String deploymentId)
       throws OneOpsClientAPIException {
+    return getDeploymentResponse(environmentName, deploymentId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches a deployment.
+   *
+   * @see #getDeployment(String, String)
+   */
+  public Deployment fetchDeployment(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
+    return readValue(getDeploymentResponse(environmentName, deploymentId), Deployment.class);
+  }
+
+  private Response getDeploymentResponse(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -492,7 +579,7 @@ public class Transition extends APIClient {
         request.get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get deployment details for environment %s for id %s due to %s",
@@ -508,6 +595,22 @@ public class Transition extends APIClient {
 
   public JsonPath getDeploymentRfcLog(String environmentName, String deploymentId, String rfcId)
       throws OneOpsClientAPIException {
+    return getDeploymentRfcLogResponse(environmentName, deploymentId, rfcId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the log of an RFC of a deployment.
+   *
+   * @see #getDeploymentRfcLog(String, String, String)
+   */
+  public List<LogData> fetchDeploymentRfcLog(String environmentName, String deploymentId,
+      String rfcId) throws OneOpsClientAPIException {
+    return readList(getDeploymentRfcLogResponse(environmentName, deploymentId, rfcId),
+        LogData.class);
+  }
+
+  private Response getDeploymentRfcLogResponse(String environmentName, String deploymentId,
+      String rfcId) throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -528,7 +631,7 @@ public class Transition extends APIClient {
         .get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId + "/log_data");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format(
             "Failed to get deployment logs for environment %s, deployment id %s and rfcId %s due to %s",
@@ -718,6 +821,22 @@ public class Transition extends APIClient {
    */
   public JsonPath listPlatformComponents(String environmentName, String platformName)
       throws OneOpsClientAPIException {
+    return listPlatformComponentsResponse(environmentName, platformName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists the components of an environment platform as typed CIs.
+   *
+   * @see #listPlatformComponents(String, String)
+   */
+  public List<CiResource> fetchPlatformComponents(String environmentName, String platformName)
+      throws OneOpsClientAPIException {
+    return readList(listPlatformComponentsResponse(environmentName, platformName),
+        CiResource.class);
+  }
+
+  private Response listPlatformComponentsResponse(String environmentName, String platformName)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg =
           String.format("Missing environment name to list enviornment platform components");
@@ -728,11 +847,12 @@ public class Transition extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
     RequestSpecification request = createRequest();
-    Response response = request
+    // ask for the owner props too, so callers can tell user customized components from the list
+    Response response = request.queryParam("attr_props", "owner")
         .get(TRANSITION_ENV_URI + environmentName + "/platforms/" + platformName + "/components");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get list of environment platforms components due to %s",
@@ -756,6 +876,23 @@ public class Transition extends APIClient {
    */
   public JsonPath getPlatformComponent(String environmentName, String platformName,
       String componentName) throws OneOpsClientAPIException {
+    return getPlatformComponentResponse(environmentName, platformName, componentName).getBody()
+        .jsonPath();
+  }
+
+  /**
+   * Fetches an environment platform component as a typed CI.
+   *
+   * @see #getPlatformComponent(String, String, String)
+   */
+  public CiResource fetchPlatformComponent(String environmentName, String platformName,
+      String componentName) throws OneOpsClientAPIException {
+    return readValue(getPlatformComponentResponse(environmentName, platformName, componentName),
+        CiResource.class);
+  }
+
+  private Response getPlatformComponentResponse(String environmentName, String platformName,
+      String componentName) throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg =
           String.format("Missing environment name to get enviornment platform component details");
@@ -776,7 +913,7 @@ public class Transition extends APIClient {
         + platformName + "/components/" + componentName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get enviornment platform component details due to %s",
             response.getStatusLine());
@@ -817,38 +954,68 @@ public class Transition extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    JsonPath componentDetails = getPlatformComponent(environmentName, platformName, componentName);
-    if (componentDetails != null) {
-      ResourceObject ro = new ResourceObject();
+    return updatePlatformComponent(environmentName, platformName,
+        fetchPlatformComponent(environmentName, platformName, componentName), attributes);
+  }
 
-      String ciId = componentDetails.getString("ciId");
-      RequestSpecification request = createRequest();
-      Map<String, String> attr = componentDetails.getMap("ciAttributes");
-      if (attr == null) {
-        attr = new HashMap<String, String>();
-      }
-      attr.putAll(attributes);
-      ro.setAttributes(attr);
-      Map<String, String> ownerProps = componentDetails.getMap("ciAttrProps.owner");
-      if (ownerProps == null) {
-        ownerProps = Maps.newHashMap();
-      }
-      for (Entry<String, String> entry : attributes.entrySet()) {
-        ownerProps.put(entry.getKey(), "manifest");
-      }
-      ro.setOwnerProps(ownerProps);
+  /**
+   * Update component attributes starting from an already fetched component, e.g. one of a
+   * {@link #fetchPlatformComponents(String, String)} listing, which saves the GET of the current
+   * state.
+   *
+   * @param environmentName
+   * @param platformName
+   * @param component the current component
+   * @param attributes
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath updatePlatformComponent(String environmentName, String platformName,
+      CiResource component, Map<String, String> attributes) throws OneOpsClientAPIException {
+    if (environmentName == null || environmentName.length() == 0) {
+      String msg = String.format("Missing environment name to update component attributes");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to update component attributes");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (component == null || component.getCiId() == null) {
+      String msg = String.format("Missing component to update component attributes");
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (attributes == null || attributes.size() == 0) {
+      String msg = String.format("Missing attributes list to be updated");
+      throw new OneOpsClientAPIException(msg);
+    }
+    String componentName = component.getCiName();
+    ResourceObject ro = new ResourceObject();
+    RequestSpecification request = createRequest();
+    Map<String, String> attr = Maps.newHashMap();
+    if (component.getCiAttributes() != null) {
+      attr.putAll(component.getCiAttributes());
+    }
+    attr.putAll(attributes);
+    ro.setAttributes(attr);
+    Map<String, String> ownerProps = Maps.newHashMap();
+    if (component.getCiAttrProps() != null && component.getCiAttrProps().get("owner") != null) {
+      ownerProps.putAll(component.getCiAttrProps().get("owner"));
+    }
+    for (Entry<String, String> entry : attributes.entrySet()) {
+      ownerProps.put(entry.getKey(), "manifest");
+    }
+    ro.setOwnerProps(ownerProps);
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      Response response = request.body(jsonObject.toString()).put(TRANSITION_ENV_URI
-          + environmentName + "/platforms/" + platformName + "/components/" + ciId);
-      if (response != null) {
-        if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
-        } else {
-          String msg = String.format("Failed to get update component %s due to %s", componentName,
-              response.getStatusLine());
-          throw new OneOpsClientAPIException(msg);
-        }
+    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    Response response = request.body(jsonObject.toString()).put(TRANSITION_ENV_URI
+        + environmentName + "/platforms/" + platformName + "/components/" + component.getCiId());
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response.getBody().jsonPath();
+      } else {
+        String msg = String.format("Failed to get update component %s due to %s", componentName,
+            response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
       }
     }
     String msg =
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A configuration item as returned by the design, transition and operations APIs.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CiResource {
+
+  private Long ciId;
+  private String ciName;
+  private String ciClassName;
+  private String nsPath;
+  private String ciState;
+  private String comments;
+  private String createdBy;
+  private String updatedBy;
+  private Map<String, String> ciAttributes;
+  private Map<String, Map<String, String>> ciAttrProps;
+
+  public Long getCiId() {
+    return ciId;
+  }
+
+  public void setCiId(Long ciId) {
+    this.ciId = ciId;
+  }
+
+  public String getCiName() {
+    return ciName;
+  }
+
+  public void setCiName(String ciName) {
+    this.ciName = ciName;
+  }
+
+  public String getCiClassName() {
+    return ciClassName;
+  }
+
+  public void setCiClassName(String ciClassName) {
+    this.ciClassName = ciClassName;
+  }
+
+  public String getNsPath() {
+    return nsPath;
+  }
+
+  public void setNsPath(String nsPath) {
+    this.nsPath = nsPath;
+  }
+
+  public String getCiState() {
+    return ciState;
+  }
+
+  public void setCiState(String ciState) {
+    this.ciState = ciState;
+  }
+
+  public String getComments() {
+    return comments;
+  }
+
+  public void setComments(String comments) {
+    this.comments = comments;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public String getUpdatedBy() {
+    return updatedBy;
+  }
+
+  public void setUpdatedBy(String updatedBy) {
+    this.updatedBy = updatedBy;
+  }
+
+  public Map<String, String> getCiAttributes() {
+    return ciAttributes;
+  }
+
+  public void setCiAttributes(Map<String, String> ciAttributes) {
+    this.ciAttributes = ciAttributes;
+  }
+
+  public Map<String, Map<String, String>> getCiAttrProps() {
+    return ciAttrProps;
+  }
+
+  public void setCiAttrProps(Map<String, Map<String, String>> ciAttrProps) {
+    this.ciAttrProps = ciAttrProps;
+  }
+
+  /**
+   * Gets a single attribute value.
+   *
+   * @param name the attribute name
+   * @return the value, or null when not set
+   */
+  public String getAttribute(String name) {
+    return ciAttributes == null ? null : ciAttributes.get(name);
+  }
+
+  /**
+   * Checks whether any attribute of this CI carries an owner, i.e. was set by the user rather than
+   * inherited from the pack.
+   *
+   * @return true, if owned attributes exist
+   */
+  public boolean hasOwnedAttributes() {
+    if (ciAttrProps == null) {
+      return false;
+    }
+    Map<String, String> owner = ciAttrProps.get("owner");
+    return owner != null && !owner.isEmpty();
+  }
+}
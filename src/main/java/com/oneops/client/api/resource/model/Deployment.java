@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A deployment of an environment release.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Deployment {
+
+  private Long deploymentId;
+  private Long releaseId;
+  private String nsPath;
+  private String deploymentState;
+  private String comments;
+  private String description;
+  private String createdBy;
+  private String updatedBy;
+
+  public Long getDeploymentId() {
+    return deploymentId;
+  }
+
+  public void setDeploymentId(Long deploymentId) {
+    this.deploymentId = deploymentId;
+  }
+
+  public Long getReleaseId() {
+    return releaseId;
+  }
+
+  public void setReleaseId(Long releaseId) {
+    this.releaseId = releaseId;
+  }
+
+  public String getNsPath() {
+    return nsPath;
+  }
+
+  public void setNsPath(String nsPath) {
+    this.nsPath = nsPath;
+  }
+
+  public String getDeploymentState() {
+    return deploymentState;
+  }
+
+  public void setDeploymentState(String deploymentState) {
+    this.deploymentState = deploymentState;
+  }
+
+  public String getComments() {
+    return comments;
+  }
+
+  public void setComments(String comments) {
+    this.comments = comments;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public String getUpdatedBy() {
+    return updatedBy;
+  }
+
+  public void setUpdatedBy(String updatedBy) {
+    this.updatedBy = updatedBy;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The state of one RFC in a deployment. RFCs of the same execution order run together as a step.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DeploymentRecord {
+
+  private Long dpmtRecordId;
+  private Long deploymentId;
+  private Long rfcId;
+  private String dpmtRecordState;
+  private Integer executionOrder;
+  private String ciName;
+  private String ciClassName;
+  private String rfcAction;
+  private String comments;
+
+  public Long getDpmtRecordId() {
+    return dpmtRecordId;
+  }
+
+  public void setDpmtRecordId(Long dpmtRecordId) {
+    this.dpmtRecordId = dpmtRecordId;
+  }
+
+  public Long getDeploymentId() {
+    return deploymentId;
+  }
+
+  public void setDeploymentId(Long deploymentId) {
+    this.deploymentId = deploymentId;
+  }
+
+  public Long getRfcId() {
+    return rfcId;
+  }
+
+  public void setRfcId(Long rfcId) {
+    this.rfcId = rfcId;
+  }
+
+  public String getDpmtRecordState() {
+    return dpmtRecordState;
+  }
+
+  public void setDpmtRecordState(String dpmtRecordState) {
+    this.dpmtRecordState = dpmtRecordState;
+  }
+
+  public Integer getExecutionOrder() {
+    return executionOrder;
+  }
+
+  public void setExecutionOrder(Integer executionOrder) {
+    this.executionOrder = executionOrder;
+  }
+
+  public String getCiName() {
+    return ciName;
+  }
+
+  public void setCiName(String ciName) {
+    this.ciName = ciName;
+  }
+
+  public String getCiClassName() {
+    return ciClassName;
+  }
+
+  public void setCiClassName(String ciClassName) {
+    this.ciClassName = ciClassName;
+  }
+
+  public String getRfcAction() {
+    return rfcAction;
+  }
+
+  public void setRfcAction(String rfcAction) {
+    this.rfcAction = rfcAction;
+  }
+
+  public String getComments() {
+    return comments;
+  }
+
+  public void setComments(String comments) {
+    this.comments = comments;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The status of a deployment, with a record for each of its RFCs.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DeploymentStatus extends Deployment {
+
+  private List<DeploymentRecord> records = new ArrayList<DeploymentRecord>();
+
+  public List<DeploymentRecord> getRecords() {
+    return records;
+  }
+
+  public void setRecords(List<DeploymentRecord> records) {
+    this.records = records == null ? new ArrayList<DeploymentRecord>() : records;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * An environment CI with the clouds it is deployed to, keyed by cloud id.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Environment extends CiResource {
+
+  private Map<String, Map<String, Object>> clouds;
+
+  public Map<String, Map<String, Object>> getClouds() {
+    return clouds;
+  }
+
+  public void setClouds(Map<String, Map<String, Object>> clouds) {
+    this.clouds = clouds;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The log of an RFC of a deployment or of an action of a procedure, oldest entry first.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LogData {
+
+  private Long id;
+  private List<Entry> logData = new ArrayList<Entry>();
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public List<Entry> getLogData() {
+    return logData;
+  }
+
+  public void setLogData(List<Entry> logData) {
+    this.logData = logData == null ? new ArrayList<Entry>() : logData;
+  }
+
+  /**
+   * A line of the log.
+   */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class Entry {
+
+    private Long timestamp;
+    private String level;
+    private String message;
+
+    public Long getTimestamp() {
+      return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+      this.timestamp = timestamp;
+    }
+
+    public String getLevel() {
+      return level;
+    }
+
+    public void setLevel(String level) {
+      this.level = level;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public void setMessage(String message) {
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * One action of a procedure, run against a single instance.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProcedureAction {
+
+  private Long actionId;
+  private Long procedureId;
+  private Long ciId;
+  private String actionName;
+  private String actionState;
+
+  public Long getActionId() {
+    return actionId;
+  }
+
+  public void setActionId(Long actionId) {
+    this.actionId = actionId;
+  }
+
+  public Long getProcedureId() {
+    return procedureId;
+  }
+
+  public void setProcedureId(Long procedureId) {
+    this.procedureId = procedureId;
+  }
+
+  public Long getCiId() {
+    return ciId;
+  }
+
+  public void setCiId(Long ciId) {
+    this.ciId = ciId;
+  }
+
+  public String getActionName() {
+    return actionName;
+  }
+
+  public void setActionName(String actionName) {
+    this.actionName = actionName;
+  }
+
+  public String getActionState() {
+    return actionState;
+  }
+
+  public void setActionState(String actionState) {
+    this.actionState = actionState;
+  }
+}
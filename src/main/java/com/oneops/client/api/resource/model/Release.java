@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A design or manifest release.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Release {
+
+  private Long releaseId;
+  private String releaseName;
+  private String nsPath;
+  private String releaseState;
+  private String releaseType;
+  private Long parentReleaseId;
+  private String createdBy;
+  private String commitedBy;
+  private String description;
+  private Integer revision;
+
+  public Long getReleaseId() {
+    return releaseId;
+  }
+
+  public void setReleaseId(Long releaseId) {
+    this.releaseId = releaseId;
+  }
+
+  public String getReleaseName() {
+    return releaseName;
+  }
+
+  public void setReleaseName(String releaseName) {
+    this.releaseName = releaseName;
+  }
+
+  public String getNsPath() {
+    return nsPath;
+  }
+
+  public void setNsPath(String nsPath) {
+    this.nsPath = nsPath;
+  }
+
+  public String getReleaseState() {
+    return releaseState;
+  }
+
+  public void setReleaseState(String releaseState) {
+    this.releaseState = releaseState;
+  }
+
+  public String getReleaseType() {
+    return releaseType;
+  }
+
+  public void setReleaseType(String releaseType) {
+    this.releaseType = releaseType;
+  }
+
+  public Long getParentReleaseId() {
+    return parentReleaseId;
+  }
+
+  public void setParentReleaseId(Long parentReleaseId) {
+    this.parentReleaseId = parentReleaseId;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public String getCommitedBy() {
+    return commitedBy;
+  }
+
+  public void setCommitedBy(String commitedBy) {
+    this.commitedBy = commitedBy;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  public Integer getRevision() {
+    return revision;
+  }
+
+  public void setRevision(Integer revision) {
+    this.revision = revision;
+  }
+}
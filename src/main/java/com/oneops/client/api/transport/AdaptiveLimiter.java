@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the requests in flight to an endpoint, adapting the limit to how the endpoint copes
+ * (additive increase, multiplicative decrease).
+ *
+ * <p>While the requests succeed at their usual latency and use at least half of the limit, the
+ * limit grows by about one per limit's worth of requests. A 5xx or 429 response or an I/O error
+ * halves it; a response much slower than the usual latency cuts it by a tenth. The usual latency
+ * follows the fastest responses and drifts up slowly, so an endpoint that gets slower for good is
+ * not throttled for good. The limit is cut at most once per usual latency, so a burst of failures
+ * of requests sent together counts once.
+ */
+class AdaptiveLimiter implements Filter {
+
+  /** How much slower than usual a response must be to count as slow. */
+  static final double LATENCY_TOLERANCE = 2.0;
+
+  /** Responses closer than this to the usual latency never count as slow. */
+  static final long MIN_SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  static final double ERROR_BACKOFF = 0.5;
+  static final double LATENCY_BACKOFF = 0.9;
+
+  /** How fast the usual latency follows slower responses. */
+  private static final double BASELINE_DRIFT = 0.01;
+
+  private final int maxLimit;
+  private double limit;
+  private int inFlight;
+  private double baselineNanos;
+  private long lastDecrease;
+  private long throttled;
+
+  /**
+   * Creates a limiter.
+   *
+   * @param initialLimit the limit to start with
+   * @param maxLimit the highest limit, usually the connections per route
+   */
+  AdaptiveLimiter(int initialLimit, int maxLimit) {
+    this.maxLimit = Math.max(1, maxLimit);
+    this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+    this.lastDecrease = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    this.acquire();
+    long start = System.nanoTime();
+    boolean dropped = true;
+    try {
+      Response response = ctx.next(requestSpec, responseSpec);
+      int status = response.getStatusCode();
+      dropped = status >= 500 || status == 429;
+      return response;
+    } finally {
+      this.release(System.nanoTime() - start, dropped);
+    }
+  }
+
+  /**
+   * Waits until a request may be sent. An interrupted wait lets the request through, keeping the
+   * interrupt for the caller.
+   */
+  synchronized void acquire() {
+    if (inFlight >= (int) limit) {
+      throttled++;
+      while (inFlight >= (int) limit) {
+        try {
+          this.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    inFlight++;
+  }
+
+  /**
+   * Records the outcome of a request and adapts the limit.
+   *
+   * @param rttNanos the time the request took
+   * @param dropped whether the endpoint failed or rejected the request
+   */
+  synchronized void release(long rttNanos, boolean dropped) {
+    long now = System.nanoTime();
+    if (dropped) {
+      this.decrease(ERROR_BACKOFF, now);
+    } else {
+      if (baselineNanos == 0 || rttNanos < baselineNanos) {
+        baselineNanos = rttNanos;
+      } else {
+        baselineNanos += (rttNanos - baselineNanos) * BASELINE_DRIFT;
+      }
+      if (rttNanos > baselineNanos * LATENCY_TOLERANCE
+          && rttNanos - baselineNanos > MIN_SLOW_NANOS) {
+        this.decrease(LATENCY_BACKOFF, now);
+      } else if (inFlight * 2 >= limit) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+    inFlight--;
+    this.notifyAll();
+  }
+
+  private void decrease(double ratio, long now) {
+    if (now - lastDecrease >= Math.max(baselineNanos, MIN_SLOW_NANOS)) {
+      limit = Math.max(1, limit * ratio);
+      lastDecrease = now;
+    }
+  }
+
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Number of requests that had to wait for the limit.
+   *
+   * @return the throttled requests
+   */
+  synchronized long getThrottled() {
+    return throttled;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+/**
+ * Stops the calls to an endpoint after failures in a row. Once the open time has passed, one
+ * request is let through: its success closes the breaker, its failure opens it again.
+ */
+class CircuitBreaker {
+
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int threshold;
+  private final long openMillis;
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean probing;
+
+  CircuitBreaker(int threshold, long openMillis) {
+    this.threshold = threshold;
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * Checks whether a request may be sent now.
+   *
+   * @return true, unless the breaker is open or already probing
+   */
+  synchronized boolean allowRequest() {
+    if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+      state = State.HALF_OPEN;
+      probing = false;
+    }
+    if (state == State.HALF_OPEN && !probing) {
+      probing = true;
+      return true;
+    }
+    return state == State.CLOSED;
+  }
+
+  synchronized void recordSuccess() {
+    failures = 0;
+    probing = false;
+    state = State.CLOSED;
+  }
+
+  /**
+   * Records a failure.
+   *
+   * @return true, if the breaker opened because of it
+   */
+  synchronized boolean recordFailure() {
+    failures++;
+    if (threshold > 0 && (state == State.HALF_OPEN
+        || state == State.CLOSED && failures >= threshold)) {
+      state = State.OPEN;
+      openedAt = System.currentTimeMillis();
+      probing = false;
+      return true;
+    }
+    return false;
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+}
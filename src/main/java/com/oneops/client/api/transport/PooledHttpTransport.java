@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.config.DecoderConfig;
+import com.jayway.restassured.config.HttpClientConfig;
+import com.jayway.restassured.config.RestAssuredConfig;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.OOInstance;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep-alive transport backed by one pooled connection manager.
+ *
+ * <p>The auth header, base URI and RestAssured config are computed once, so creating a request
+ * only merges a prebuilt specification. All requests go through the same HTTP client, which keeps
+ * TLS sessions and sockets open between calls, and through a {@link RetryFilter} applying the
+ * {@link RetryPolicy} of the instance. Each attempt then waits for the {@link AdaptiveLimiter} of
+ * the endpoint, so a struggling endpoint gets fewer requests at a time.
+ *
+ * <p>RestAssured 2 sets parameters on its client, which clients of the HttpClientBuilder reject,
+ * so the transport keeps the deprecated client classes. They are named in full, as Java 8 warns
+ * about deprecated imports regardless of {@link SuppressWarnings}.
+ */
+@SuppressWarnings("deprecation")
+public class PooledHttpTransport implements Transport {
+
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+  private final org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager;
+  private final org.apache.http.impl.client.DefaultHttpClient client;
+  private final RequestSpecification spec;
+  private final RetryFilter retryFilter;
+  private final AdaptiveLimiter limiter;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong reused = new AtomicLong();
+  private ExecutorService executor;
+
+  /**
+   * Creates a transport for the given instance.
+   *
+   * @param instance the OneOps instance
+   */
+  public PooledHttpTransport(OOInstance instance) {
+    int maxPerRoute = instance.getMaxConnectionsPerRoute() > 0
+        ? instance.getMaxConnectionsPerRoute() : DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    connectionManager = new org.apache.http.impl.conn.PoolingClientConnectionManager();
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    connectionManager.setMaxTotal(maxPerRoute * 2);
+    client = new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+    client.addRequestInterceptor(new ReuseCounter());
+
+    RestAssuredConfig config = RestAssured.config().httpClient(HttpClientConfig.httpClientConfig()
+        .reuseHttpClientInstance().httpClientFactory(new HttpClientConfig.HttpClientFactory() {
+          @Override
+          public HttpClient createHttpClient() {
+            return client;
+          }
+        }));
+    if (!instance.isGzipEnabled()) {
+      config = config.decoderConfig(DecoderConfig.decoderConfig().noContentDecoders());
+    }
+    String basicAuth = "Basic " + new String(
+        Base64.encodeBase64(instance.getAuthtoken().getBytes(StandardCharsets.UTF_8)),
+        StandardCharsets.UTF_8);
+    String baseUri = instance.getEndpoint();
+    if (instance.getOrgname() != null) {
+      baseUri += instance.getOrgname();
+    }
+    retryFilter = new RetryFilter(instance.getEndpoint(), instance.getRetryPolicy());
+    limiter = new AdaptiveLimiter(Math.max(1, maxPerRoute / 2), maxPerRoute);
+    spec = new RequestSpecBuilder().setConfig(config).setBaseUri(baseUri)
+        .addHeader("Authorization", basicAuth).addHeader("User-Agent", "OneOpsAPIClient")
+        .addHeader("Accept", "application/json").addHeader("Content-Type", "application/json")
+        .addFilter(retryFilter).addFilter(limiter).build();
+  }
+
+  @Override
+  public RequestSpecification newRequest() {
+    return RestAssured.given().spec(spec);
+  }
+
+  @Override
+  public synchronized Executor getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(connectionManager.getDefaultMaxPerRoute(),
+          new ThreadFactoryBuilder().setNameFormat("oneops-http-%d").setDaemon(true).build());
+    }
+    return executor;
+  }
+
+  @Override
+  public TransportStats getStats() {
+    PoolStats pool = connectionManager.getTotalStats();
+    return new TransportStats(requests.get(), reused.get(), pool.getLeased(), pool.getAvailable(),
+        connectionManager.getDefaultMaxPerRoute(), retryFilter.getStats(), limiter.getLimit(),
+        limiter.getThrottled());
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+    connectionManager.shutdown();
+  }
+
+  /**
+   * A connection that already carried a request before this one is a reused keep-alive connection.
+   */
+  private class ReuseCounter implements HttpRequestInterceptor {
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException {
+      requests.incrementAndGet();
+      Object conn = context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+      if (conn instanceof HttpConnection
+          && ((HttpConnection) conn).getMetrics().getRequestCount() > 0) {
+        reused.incrementAndGet();
+      }
+    }
+  }
+}
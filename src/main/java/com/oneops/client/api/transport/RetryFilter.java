@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.builder.ResponseBuilder;
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries the requests of one endpoint that failed for a transient reason, and fails requests
+ * fast while the endpoint keeps failing.
+ *
+ * <p>Transient failures are 5xx and 429 responses and I/O errors. Requests that may not be sent
+ * twice, POST and PATCH, are only retried when the server cannot have acted on them: it was not
+ * reached, or it answered 429 or 503. While the circuit is open, requests get a 503 response
+ * without calling the endpoint, so callers report it like any other failed call.
+ */
+class RetryFilter implements Filter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RetryFilter.class);
+
+  private final String endpoint;
+  private final RetryPolicy policy;
+  private final CircuitBreaker breaker;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong budgetExhausted = new AtomicLong();
+  private final AtomicLong shortCircuited = new AtomicLong();
+  private final AtomicLong circuitOpened = new AtomicLong();
+
+  /** Set while a retry runs the filters again, so it is not retried on its own. */
+  private final ThreadLocal<Boolean> resending = new ThreadLocal<Boolean>();
+
+  RetryFilter(String endpoint, RetryPolicy policy) {
+    this.endpoint = endpoint;
+    this.policy = policy;
+    this.breaker = new CircuitBreaker(policy.getBreakerThreshold(), policy.getBreakerOpenMillis());
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    if (resending.get() != null) {
+      return ctx.next(requestSpec, responseSpec);
+    }
+    requests.incrementAndGet();
+    boolean idempotent =
+        requestSpec.getMethod() != Method.POST && requestSpec.getMethod() != Method.PATCH;
+    for (int attempt = 1;; attempt++) {
+      if (!breaker.allowRequest()) {
+        shortCircuited.incrementAndGet();
+        return circuitOpen();
+      }
+      Response response;
+      try {
+        response = attempt == 1 ? ctx.next(requestSpec, responseSpec) : resend(requestSpec, ctx);
+      } catch (Exception e) {
+        if (!isIoFailure(e)) {
+          throw e;
+        }
+        this.recordFailure();
+        if (!this.retry(requestSpec, attempt, idempotent || isNotSent(e), 0, e.toString())) {
+          throw e;
+        }
+        continue;
+      }
+      int status = response.getStatusCode();
+      if (status < 500 && status != 429) {
+        breaker.recordSuccess();
+        return response;
+      }
+      this.recordFailure();
+      boolean notProcessed = status == 429 || status == 503;
+      if (!this.retry(requestSpec, attempt, idempotent || notProcessed, retryAfter(response),
+          response.getStatusLine())) {
+        return response;
+      }
+    }
+  }
+
+  RetryStats getStats() {
+    return new RetryStats(requests.get(), retries.get(), failures.get(), budgetExhausted.get(),
+        shortCircuited.get(), circuitOpened.get(), breaker.getState().name());
+  }
+
+  private void recordFailure() {
+    if (breaker.recordFailure()) {
+      circuitOpened.incrementAndGet();
+      LOG.warn("{} keeps failing, not calling it for {}s", endpoint,
+          TimeUnit.MILLISECONDS.toSeconds(policy.getBreakerOpenMillis()));
+    }
+  }
+
+  /**
+   * Decides whether to retry a failed attempt, and waits for the backoff if so.
+   *
+   * @return true, if the request is to be sent again
+   */
+  private boolean retry(FilterableRequestSpecification requestSpec, int attempt,
+      boolean retryable, long hintMillis, String cause) {
+    if (!retryable || attempt >= policy.getMaxAttempts()) {
+      failures.incrementAndGet();
+      return false;
+    }
+    if (retries.get() >= RetryPolicy.MIN_RETRY_BUDGET
+        + (long) (policy.getBudgetRatio() * requests.get())) {
+      budgetExhausted.incrementAndGet();
+      failures.incrementAndGet();
+      return false;
+    }
+    retries.incrementAndGet();
+    long delay = Math.max(hintMillis, policy.backoff(attempt));
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Retrying {} {} in {}ms after {}", requestSpec.getMethod(), requestSpec.getURI(),
+          delay, cause);
+    }
+    Uninterruptibles.sleepUninterruptibly(delay, TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  /**
+   * Checks for an I/O error, which RestAssured throws without declaring it.
+   */
+  private static boolean isIoFailure(Throwable e) {
+    return e instanceof IOException;
+  }
+
+  /**
+   * Checks for an I/O error before the request reached the server.
+   */
+  private static boolean isNotSent(Throwable e) {
+    return e instanceof ConnectException || e instanceof ConnectTimeoutException;
+  }
+
+  private Response resend(FilterableRequestSpecification requestSpec, FilterContext ctx) {
+    resending.set(Boolean.TRUE);
+    try {
+      return ctx.send(RestAssured.given().spec(requestSpec));
+    } finally {
+      resending.remove();
+    }
+  }
+
+  /**
+   * Reads the Retry-After seconds of a response, capped at the longest backoff.
+   */
+  private long retryAfter(Response response) {
+    String value = response.getHeader("Retry-After");
+    if (value == null) {
+      return 0;
+    }
+    try {
+      return Math.min(policy.getMaxDelayMillis(),
+          TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+    } catch (NumberFormatException e) {
+      // An HTTP date; the backoff will do.
+      return 0;
+    }
+  }
+
+  private Response circuitOpen() {
+    return new ResponseBuilder().setStatusCode(503)
+        .setStatusLine("HTTP/1.1 503 Circuit open to " + endpoint)
+        .setContentType("application/json").setBody("{}").build();
+  }
+}
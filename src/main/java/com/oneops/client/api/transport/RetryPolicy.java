@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How a transport retries failed requests and when it stops calling an endpoint that keeps
+ * failing.
+ *
+ * <p>A failed request is retried after an exponential backoff with full jitter, as long as the
+ * retries stay within a budget of {@link #MIN_RETRY_BUDGET} plus a ratio of the requests sent. An
+ * endpoint that fails {@code breakerThreshold} times in a row is not called for
+ * {@code breakerOpenMillis}; then one request probes whether it recovered.
+ */
+public class RetryPolicy {
+
+  /** Retries always allowed, so a short run is not starved by the ratio. */
+  public static final int MIN_RETRY_BUDGET = 10;
+
+  public static final RetryPolicy DEFAULT = new RetryPolicy(4, 250, 8000, 0.2, 5, 30000);
+
+  /** Sends each request once and never stops calling. */
+  public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0, 0, 0);
+
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final double budgetRatio;
+  private final int breakerThreshold;
+  private final long breakerOpenMillis;
+
+  /**
+   * Creates a policy.
+   *
+   * @param maxAttempts the most times a request is sent, at least 1
+   * @param baseDelayMillis the backoff before the first retry
+   * @param maxDelayMillis the longest backoff
+   * @param budgetRatio the retries allowed per request sent, on top of the minimum budget
+   * @param breakerThreshold the failures in a row that stop the calls, or 0 to never stop
+   * @param breakerOpenMillis how long the calls stay stopped
+   */
+  public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis,
+      double budgetRatio, int breakerThreshold, long breakerOpenMillis) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.budgetRatio = budgetRatio;
+    this.breakerThreshold = breakerThreshold;
+    this.breakerOpenMillis = breakerOpenMillis;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public long getBaseDelayMillis() {
+    return baseDelayMillis;
+  }
+
+  public long getMaxDelayMillis() {
+    return maxDelayMillis;
+  }
+
+  public double getBudgetRatio() {
+    return budgetRatio;
+  }
+
+  public int getBreakerThreshold() {
+    return breakerThreshold;
+  }
+
+  public long getBreakerOpenMillis() {
+    return breakerOpenMillis;
+  }
+
+  /**
+   * Picks the backoff before a retry: a random delay up to the exponential bound, so clients that
+   * failed together do not retry together.
+   *
+   * @param retry the retry, starting at 1
+   * @return the delay in milliseconds
+   */
+  public long backoff(int retry) {
+    long bound = baseDelayMillis << Math.min(retry - 1, 20);
+    bound = Math.min(maxDelayMillis, bound);
+    return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("attempts=%d, delay=%d-%dms, budget=%.2f, breaker=%d/%dms", maxAttempts,
+        baseDelayMillis, maxDelayMillis, budgetRatio, breakerThreshold, breakerOpenMillis);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+/**
+ * Retry and circuit breaker counters of the endpoint of a transport.
+ */
+public class RetryStats {
+
+  public static final RetryStats NONE = new RetryStats(0, 0, 0, 0, 0, 0, "CLOSED");
+
+  private final long requests;
+  private final long retries;
+  private final long failures;
+  private final long budgetExhausted;
+  private final long shortCircuited;
+  private final long circuitOpened;
+  private final String circuit;
+
+  public RetryStats(long requests, long retries, long failures, long budgetExhausted,
+      long shortCircuited, long circuitOpened, String circuit) {
+    this.requests = requests;
+    this.retries = retries;
+    this.failures = failures;
+    this.budgetExhausted = budgetExhausted;
+    this.shortCircuited = shortCircuited;
+    this.circuitOpened = circuitOpened;
+    this.circuit = circuit;
+  }
+
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getRetries() {
+    return retries;
+  }
+
+  /**
+   * Number of requests that still failed after the retries they were allowed.
+   *
+   * @return the failures
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * Number of retries skipped because the retry budget was spent.
+   *
+   * @return the skipped retries
+   */
+  public long getBudgetExhausted() {
+    return budgetExhausted;
+  }
+
+  /**
+   * Number of requests failed without calling the endpoint, while the breaker was open.
+   *
+   * @return the short-circuited requests
+   */
+  public long getShortCircuited() {
+    return shortCircuited;
+  }
+
+  public long getCircuitOpened() {
+    return circuitOpened;
+  }
+
+  /**
+   * Current state of the circuit breaker: CLOSED, OPEN or HALF_OPEN.
+   *
+   * @return the state
+   */
+  public String getCircuit() {
+    return circuit;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "requests=%d, retries=%d, failures=%d, budgetExhausted=%d, shortCircuited=%d, "
+            + "circuitOpened=%d, circuit=%s",
+        requests, retries, failures, budgetExhausted, shortCircuited, circuitOpened, circuit);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import java.util.concurrent.Executor;
+
+import com.jayway.restassured.specification.RequestSpecification;
+
+/**
+ * HTTP transport used by every resource client of an OOInstance.
+ */
+public interface Transport {
+
+  /**
+   * Creates a request pre-configured with the auth header, base URI and decoder settings.
+   *
+   * @return a new request specification
+   */
+  RequestSpecification newRequest();
+
+  /**
+   * Executor running the asynchronous calls and all other API fan-out, bounded by the connection
+   * pool size. The requests it sends are further limited by the adaptive concurrency limit.
+   *
+   * @return the executor
+   */
+  Executor getExecutor();
+
+  /**
+   * Snapshot of the connection usage so far.
+   *
+   * @return the transport stats
+   */
+  TransportStats getStats();
+
+  /**
+   * Releases the pooled connections and stops the executor.
+   */
+  void close();
+}
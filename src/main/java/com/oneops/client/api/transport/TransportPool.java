@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import com.google.common.hash.Hashing;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.OOInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Transports shared by every OOInstance with the same endpoint, organization, credentials,
+ * connection settings and retry policy, so a long-running process keeps its connections, TLS
+ * sessions and circuit breakers across commands. The shared transports ignore
+ * {@link Transport#close()}; they are released by {@link #close()}.
+ */
+public class TransportPool {
+
+  private final Map<String, PooledHttpTransport> transports =
+      new HashMap<String, PooledHttpTransport>();
+
+  /**
+   * Gets the shared transport of an instance, creating it on first use.
+   *
+   * @param instance the OneOps instance
+   * @return the shared transport
+   */
+  public synchronized Transport get(OOInstance instance) {
+    String key = instance.getEndpoint() + "|" + instance.getOrgname() + "|"
+        + Hashing.sha256().hashString(String.valueOf(instance.getAuthtoken()),
+            StandardCharsets.UTF_8)
+        + "|" + instance.isGzipEnabled() + "|" + instance.getMaxConnectionsPerRoute() + "|"
+        + instance.getRetryPolicy();
+    PooledHttpTransport transport = transports.get(key);
+    if (transport == null) {
+      transport = new PooledHttpTransport(instance);
+      transports.put(key, transport);
+    }
+    return new Shared(transport);
+  }
+
+  public synchronized int size() {
+    return transports.size();
+  }
+
+  /**
+   * Releases all shared transports.
+   */
+  public synchronized void close() {
+    for (PooledHttpTransport transport : transports.values()) {
+      transport.close();
+    }
+    transports.clear();
+  }
+
+  /**
+   * A shared transport, which its users cannot close.
+   */
+  private static class Shared implements Transport {
+
+    private final Transport transport;
+
+    Shared(Transport transport) {
+      this.transport = transport;
+    }
+
+    @Override
+    public RequestSpecification newRequest() {
+      return transport.newRequest();
+    }
+
+    @Override
+    public Executor getExecutor() {
+      return transport.getExecutor();
+    }
+
+    @Override
+    public TransportStats getStats() {
+      return transport.getStats();
+    }
+
+    @Override
+    public void close() {
+      // Released with the pool.
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+/**
+ * Connection usage and retry counters of a transport.
+ */
+public class TransportStats {
+
+  private final long requests;
+  private final long reusedConnections;
+  private final int leased;
+  private final int available;
+  private final int maxPerRoute;
+  private final RetryStats retries;
+  private final int concurrencyLimit;
+  private final long throttled;
+
+  public TransportStats(long requests, long reusedConnections, int leased, int available,
+      int maxPerRoute) {
+    this(requests, reusedConnections, leased, available, maxPerRoute, RetryStats.NONE,
+        maxPerRoute, 0);
+  }
+
+  public TransportStats(long requests, long reusedConnections, int leased, int available,
+      int maxPerRoute, RetryStats retries, int concurrencyLimit, long throttled) {
+    this.requests = requests;
+    this.reusedConnections = reusedConnections;
+    this.leased = leased;
+    this.available = available;
+    this.maxPerRoute = maxPerRoute;
+    this.retries = retries;
+    this.concurrencyLimit = concurrencyLimit;
+    this.throttled = throttled;
+  }
+
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getReusedConnections() {
+    return reusedConnections;
+  }
+
+  /**
+   * Number of requests that had to open a new connection.
+   *
+   * @return the new connections
+   */
+  public long getNewConnections() {
+    return requests - reusedConnections;
+  }
+
+  public int getLeased() {
+    return leased;
+  }
+
+  public int getAvailable() {
+    return available;
+  }
+
+  public int getMaxPerRoute() {
+    return maxPerRoute;
+  }
+
+  public RetryStats getRetries() {
+    return retries;
+  }
+
+  /**
+   * Current adaptive limit of the requests in flight.
+   *
+   * @return the limit, at most the connections per route
+   */
+  public int getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  /**
+   * Number of requests that waited for the concurrency limit.
+   *
+   * @return the throttled requests
+   */
+  public long getThrottled() {
+    return throttled;
+  }
+
+  /**
+   * Percentage of requests served by an already open connection.
+   *
+   * @return the reuse ratio, 0 to 100
+   */
+  public int getReusePercent() {
+    return requests == 0 ? 0 : (int) (reusedConnections * 100 / requests);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "requests=%d, reused=%d (%d%%), new=%d, leased=%d, available=%d, maxPerRoute=%d, "
+            + "limit=%d, throttled=%d; %s",
+        requests, reusedConnections, getReusePercent(), getNewConnections(), leased, available,
+        maxPerRoute, concurrencyLimit, throttled, retries);
+  }
+}
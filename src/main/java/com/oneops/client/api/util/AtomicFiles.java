@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Writes files in one piece: the content goes to a temporary file next to the target, which is
+ * then moved over it, so a concurrent reader sees either the old file or the new one.
+ */
+public class AtomicFiles {
+
+  /** Writes the content of a file. */
+  public interface Content {
+
+    /**
+     * Writes the content.
+     *
+     * @param out the stream of the temporary file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  private AtomicFiles() {}
+
+  /**
+   * Replaces a file, or creates it and its directories, readable and writable by its owner only
+   * where the file system has POSIX permissions.
+   *
+   * @param file the file
+   * @param content the content
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static void writeOwnerOnly(File file, Content content) throws IOException {
+    Path dir = Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    Path tmp;
+    try {
+      tmp = Files.createTempFile(dir, file.getName(), ".tmp",
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } catch (UnsupportedOperationException e) {
+      tmp = Files.createTempFile(dir, file.getName(), ".tmp");
+    }
+    try {
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        content.writeTo(out);
+      }
+      Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
@@ -13,14 +13,25 @@
  */
 package com.oneops.client.api.util;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oneops.client.api.ResourceObject;
 
 public class JsonUtil {
 
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
   public static JSONObject createJsonObject(ResourceObject ro, String root) {
     JSONObject rootObject = new JSONObject();
@@ -60,4 +71,89 @@ public class JsonUtil {
     JSONObject jsonObject = new JSONObject(str);
     return jsonObject;
   }
+
+  /**
+   * Binds a JSON document to the given type.
+   *
+   * @param in the JSON document
+   * @param type the target type
+   * @return the bound value
+   * @throws IOException if the document can not be parsed
+   */
+  public static <T> T readValue(InputStream in, Class<T> type) throws IOException {
+    return MAPPER.readValue(in, type);
+  }
+
+  /**
+   * Writes a value as an indented JSON document.
+   *
+   * @param file the target file
+   * @param value the value
+   * @throws IOException if the file can not be written
+   */
+  public static void writeValue(File file, Object value) throws IOException {
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, value);
+  }
+
+  /**
+   * Binds a JSON array element by element, without building a tree of the whole document first.
+   *
+   * @param in the JSON array
+   * @param type the element type
+   * @return the bound elements, empty when the document is not an array
+   * @throws IOException if the document can not be parsed
+   */
+  public static <T> List<T> readList(InputStream in, Class<T> type) throws IOException {
+    List<T> list = new ArrayList<T>();
+    try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        return list;
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        list.add(MAPPER.readValue(parser, type));
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Compares two attribute values as JSON documents, so that formatting and key order do not
+   * matter.
+   *
+   * @param left a value
+   * @param right another value
+   * @return true, if both values are JSON objects or arrays with the same content
+   */
+  public static boolean isSameJson(String left, String right) {
+    if (!isJsonContainer(left) || !isJsonContainer(right)) {
+      return false;
+    }
+    try {
+      return MAPPER.readTree(left).equals(MAPPER.readTree(right));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes a value as JSON.
+   *
+   * @param value the value
+   * @return the JSON, or the string form of the value if it cannot be written
+   */
+  public static String toJson(Object value) {
+    try {
+      return MAPPER.writeValueAsString(value);
+    } catch (IOException e) {
+      return String.valueOf(value);
+    }
+  }
+
+  private static boolean isJsonContainer(String value) {
+    if (value == null) {
+      return false;
+    }
+    String trimmed = value.trim();
+    return trimmed.startsWith("{") || trimmed.startsWith("[");
+  }
 }
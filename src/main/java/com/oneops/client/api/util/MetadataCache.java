@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import com.google.common.hash.Hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Name to ciId lookups kept on disk between runs, for metadata that rarely changes: cloud ids and
+ * design component ids. Each entry expires after its TTL, and the resource clients invalidate the
+ * entries of what they delete. An entry is written through to the file as soon as it is learned.
+ *
+ * <p>There is one file per endpoint and organization; keys of design entries start with the
+ * assembly name.
+ */
+public class MetadataCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetadataCache.class);
+
+  /** ~/.boo/cache */
+  public static final File CACHE_DIR =
+      new File(new File(System.getProperty("user.home"), ".boo"), "cache");
+
+  /** Clouds are set up by administrators and hardly ever change. */
+  public static final long CLOUD_TTL = TimeUnit.HOURS.toMillis(24);
+
+  /** Design components are recreated only by deleting them. */
+  public static final long DESIGN_TTL = TimeUnit.HOURS.toMillis(1);
+
+  /** Caches nothing. */
+  public static final MetadataCache NONE = new MetadataCache(null);
+
+  private final File file;
+  private final Properties entries = new Properties();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Loads the entries kept in a file, if there is one.
+   *
+   * @param file the file, or null to cache nothing
+   */
+  public MetadataCache(File file) {
+    this.file = file;
+    if (file != null && file.isFile()) {
+      try (InputStream in = Files.newInputStream(file.toPath())) {
+        entries.load(in);
+      } catch (IOException | IllegalArgumentException e) {
+        LOG.warn("Ignoring unreadable cache {}: {}", file, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Gets the cache of an organization on an endpoint.
+   *
+   * @param endpoint the endpoint
+   * @param org the organization
+   * @return the cache
+   */
+  public static MetadataCache of(String endpoint, String org) {
+    String host = Hashing.sha256().hashString(String.valueOf(endpoint), StandardCharsets.UTF_8)
+        .toString().substring(0, 16);
+    return new MetadataCache(new File(CACHE_DIR, org + "@" + host + ".properties"));
+  }
+
+  /**
+   * Gets a live entry.
+   *
+   * @param key the key
+   * @return the value, or null if missing or expired
+   */
+  public synchronized String get(String key) {
+    String entry = entries.getProperty(key);
+    int sep = entry == null ? -1 : entry.indexOf('|');
+    if (sep > 0) {
+      try {
+        if (Long.parseLong(entry.substring(0, sep)) > System.currentTimeMillis()) {
+          hits.incrementAndGet();
+          return entry.substring(sep + 1);
+        }
+      } catch (NumberFormatException e) {
+        // Dropped below
+      }
+      entries.remove(key);
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Stores an entry.
+   *
+   * @param key the key
+   * @param value the value, ignored if null
+   * @param ttl how long the entry lives, in milliseconds
+   */
+  public synchronized void put(String key, String value, long ttl) {
+    if (file == null || value == null) {
+      return;
+    }
+    String entry = (System.currentTimeMillis() + ttl) + "|" + value;
+    if (!entry.equals(entries.setProperty(key, entry))) {
+      this.save();
+    }
+  }
+
+  /**
+   * Drops an entry, after its CI was deleted or found stale.
+   *
+   * @param key the key
+   */
+  public synchronized void invalidate(String key) {
+    if (entries.remove(key) != null) {
+      this.save();
+    }
+  }
+
+  /**
+   * Drops all entries under a key prefix, e.g. of a deleted platform.
+   *
+   * @param prefix the key prefix
+   */
+  public synchronized void invalidateAll(String prefix) {
+    if (entries.keySet().removeIf(key -> String.valueOf(key).startsWith(prefix))) {
+      this.save();
+    }
+  }
+
+  /**
+   * Drops all entries, so everything is looked up again.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    this.save();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Replaces the file, so concurrent readers never see half of it, readable by its owner only as
+   * it names the resources of the organization. A failure only costs lookups.
+   */
+  private void save() {
+    if (file == null) {
+      return;
+    }
+    try {
+      AtomicFiles.writeOwnerOnly(file, out -> entries.store(out, "Boo metadata cache"));
+    } catch (IOException e) {
+      LOG.warn("Cannot write cache {}: {}", file, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+/**
+ * How a single {@link Poller} wait went.
+ */
+public class PollStats {
+
+  public enum Outcome {
+    DONE, TIMEOUT, CANCELLED
+  }
+
+  private final String name;
+  private final Outcome outcome;
+  private final int polls;
+  private final long elapsedMillis;
+
+  public PollStats(String name, Outcome outcome, int polls, long elapsedMillis) {
+    this.name = name;
+    this.outcome = outcome;
+    this.polls = polls;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public int getPolls() {
+    return polls;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %s after %d polls in %d ms", name, outcome, polls, elapsedMillis);
+  }
+}
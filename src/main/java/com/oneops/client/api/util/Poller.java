@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * Waits for a remote state to settle. The first probe runs after a short delay, later probes
+ * back off exponentially with jitter up to a max interval, and the whole wait is bounded by an
+ * optional deadline. A wait can be cancelled from another thread.
+ */
+public class Poller {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Poller.class);
+
+  private final String name;
+  private final long firstDelayMillis;
+  private final long initialIntervalMillis;
+  private final long maxIntervalMillis;
+  private final double multiplier;
+  private final double jitter;
+  private final long timeoutMillis;
+  private final CountDownLatch cancelled = new CountDownLatch(1);
+  private volatile PollStats lastStats;
+
+  private Poller(Builder builder) {
+    this.name = builder.name;
+    this.firstDelayMillis = builder.firstDelayMillis;
+    this.initialIntervalMillis = builder.initialIntervalMillis;
+    this.maxIntervalMillis = builder.maxIntervalMillis;
+    this.multiplier = builder.multiplier;
+    this.jitter = builder.jitter;
+    this.timeoutMillis = builder.timeoutMillis;
+  }
+
+  public static Builder builder(String name) {
+    return new Builder(name);
+  }
+
+  /**
+   * Probes until the result is accepted.
+   *
+   * @param probe reads the current state
+   * @param done accepts the final state
+   * @return the accepted state
+   * @throws OneOpsClientAPIException if the probe fails, the deadline passes or the wait is
+   *         cancelled
+   */
+  public <T> T await(Probe<T> probe, Predicate<T> done) throws OneOpsClientAPIException {
+    return this.await(probe, done, value -> false);
+  }
+
+  /**
+   * Probes until the result is accepted. A probe that shows progress starts the back off over, so
+   * the next probe runs after the initial interval.
+   *
+   * @param probe reads the current state
+   * @param done accepts the final state
+   * @param progressed tells whether the state moved since the previous probe
+   * @return the accepted state
+   * @throws OneOpsClientAPIException if the probe fails, the deadline passes or the wait is
+   *         cancelled
+   */
+  public <T> T await(Probe<T> probe, Predicate<T> done, Predicate<T> progressed)
+      throws OneOpsClientAPIException {
+    long start = System.nanoTime();
+    long deadline = timeoutMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+    long interval = initialIntervalMillis;
+    long delay = firstDelayMillis;
+    int polls = 0;
+    while (true) {
+      if (deadline > 0) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          finish(PollStats.Outcome.TIMEOUT, polls, start);
+          throw new OneOpsClientAPIException(String.format("Timed out after %d ms waiting for %s",
+              timeoutMillis, name));
+        }
+        delay = Math.min(delay, remaining);
+      }
+      if (sleep(delay)) {
+        finish(PollStats.Outcome.CANCELLED, polls, start);
+        throw new OneOpsClientAPIException(String.format("Cancelled waiting for %s", name));
+      }
+      polls++;
+      T value = probe.probe();
+      if (done.test(value)) {
+        finish(PollStats.Outcome.DONE, polls, start);
+        return value;
+      }
+      if (progressed.test(value)) {
+        interval = initialIntervalMillis;
+      }
+      delay = jittered(interval);
+      interval = Math.min((long) (interval * multiplier), maxIntervalMillis);
+    }
+  }
+
+  /**
+   * Stops the running and any later wait of this poller.
+   */
+  public void cancel() {
+    cancelled.countDown();
+  }
+
+  public boolean isCancelled() {
+    return cancelled.getCount() == 0;
+  }
+
+  /**
+   * Gets the stats of the last finished wait.
+   *
+   * @return the stats, or null before the first wait finished
+   */
+  public PollStats getLastStats() {
+    return lastStats;
+  }
+
+  private boolean sleep(long millis) {
+    try {
+      return millis > 0 ? cancelled.await(millis, TimeUnit.MILLISECONDS) : isCancelled();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return true;
+    }
+  }
+
+  private long jittered(long millis) {
+    if (jitter <= 0) {
+      return millis;
+    }
+    double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+    return Math.max(0, (long) (millis * factor));
+  }
+
+  private void finish(PollStats.Outcome outcome, int polls, long start) {
+    lastStats = new PollStats(name, outcome, polls,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Poll {}", lastStats);
+    }
+  }
+
+  /**
+   * Reads the remote state once.
+   *
+   * @param <T> the state type
+   */
+  @FunctionalInterface
+  public interface Probe<T> {
+    T probe() throws OneOpsClientAPIException;
+  }
+
+  public static class Builder {
+    private final String name;
+    private long firstDelayMillis = 500;
+    private long initialIntervalMillis = 1000;
+    private long maxIntervalMillis = 30000;
+    private double multiplier = 2;
+    private double jitter = 0.2;
+    private long timeoutMillis;
+
+    private Builder(String name) {
+      this.name = name;
+    }
+
+    public Builder firstDelay(long time, TimeUnit unit) {
+      this.firstDelayMillis = unit.toMillis(time);
+      return this;
+    }
+
+    public Builder initialInterval(long time, TimeUnit unit) {
+      this.initialIntervalMillis = unit.toMillis(time);
+      return this;
+    }
+
+    public Builder maxInterval(long time, TimeUnit unit) {
+      this.maxIntervalMillis = unit.toMillis(time);
+      return this;
+    }
+
+    public Builder multiplier(double multiplier) {
+      this.multiplier = multiplier;
+      return this;
+    }
+
+    /**
+     * Randomizes each interval by up to the given fraction, in both directions.
+     *
+     * @param jitter the jitter, 0 to 1
+     * @return the builder
+     */
+    public Builder jitter(double jitter) {
+      this.jitter = jitter;
+      return this;
+    }
+
+    /**
+     * Bounds the whole wait. Zero, the default, waits forever.
+     *
+     * @param time the timeout
+     * @param unit the unit
+     * @return the builder
+     */
+    public Builder timeout(long time, TimeUnit unit) {
+      this.timeoutMillis = unit.toMillis(time);
+      return this;
+    }
+
+    public Poller build() {
+      return new Poller(this);
+    }
+  }
+}
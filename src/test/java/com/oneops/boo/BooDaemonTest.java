@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.boo.yaml.Constants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+public class BooDaemonTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File address;
+  private BooDaemon daemon;
+  private Thread thread;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  @Before
+  public void beforeTests() throws Exception {
+    address = new File(folder.getRoot(), "daemon/address");
+    daemon = new BooDaemon(address);
+    thread = new Thread(daemon::serve, "boo-daemon-test");
+    thread.setDaemon(true);
+    thread.start();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!address.isFile() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertTrue(address.isFile());
+  }
+
+  @After
+  public void afterTests() throws Exception {
+    daemon.stop();
+    thread.join(TimeUnit.SECONDS.toMillis(10));
+  }
+
+  @Test
+  public void streamsOutputAndExitCode() throws Exception {
+    assertEquals(Integer.valueOf(Constants.EXIT_NORMAL), this.forward("-h"));
+    assertTrue(this.out().contains("usage: boo"));
+
+    out.reset();
+    File missing = new File(folder.getRoot(), "missing.yaml");
+    assertEquals(Integer.valueOf(Constants.EXIT_YAML_NOT_FOUND),
+        this.forward("-f", missing.getAbsolutePath(), "-s"));
+    assertTrue(this.out().contains(missing.getAbsolutePath()));
+  }
+
+  @Test
+  public void promptsAndOptOutRunInProcess() {
+    assertNull(this.forward("-r", "-f", "boo.yaml"));
+    assertNull(this.forward("--no-daemon", "-h"));
+    assertEquals(0, out.size());
+  }
+
+  @Test
+  public void rejectsWrongToken() throws Exception {
+    String port = new String(Files.readAllBytes(address.toPath()), StandardCharsets.UTF_8)
+        .split(" ")[0];
+    Files.write(address.toPath(), (port + " wrong\n").getBytes(StandardCharsets.UTF_8));
+    assertEquals(Integer.valueOf(Constants.EXIT_UNKOWN), this.forward("-h"));
+    assertEquals(0, out.size());
+  }
+
+  @Test
+  public void stopRemovesAddress() throws Exception {
+    daemon.stop();
+    thread.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(address.exists());
+    assertNull(this.forward("-h"));
+  }
+
+  private Integer forward(String... args) {
+    return DaemonClient.forward(address, args, new PrintStream(out, true),
+        new PrintStream(err, true));
+  }
+
+  private String out() {
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
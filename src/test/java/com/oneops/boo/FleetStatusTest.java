@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.boo.workflow.WorkflowBenchmark;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.mock.MockOneOps;
+import com.oneops.client.api.mock.MockOneOps.Latency;
+import com.oneops.client.api.resource.Assembly;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class FleetStatusTest {
+
+  private MockOneOps server;
+  private OOInstance instance;
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    instance = server.newInstance("mock");
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void readsAssembliesConcurrently() throws Exception {
+    List<String> assemblies = new ArrayList<String>();
+    assemblies.add("status-0");
+    server.seedAssembly("status-0", WorkflowBenchmark.ENV, Arrays.asList("app0"), 1, true);
+    for (int i = 1; i < 8; i++) {
+      server.seedAssembly("status-" + i, WorkflowBenchmark.ENV, Arrays.asList("app0"), 1, false);
+      assemblies.add("status-" + i);
+    }
+    server.setLatency("*", Latency.fixed(300));
+    server.resetCalls();
+
+    long start = System.nanoTime();
+    List<FleetStatus.Row> rows =
+        new FleetStatus(instance, WorkflowBenchmark.ENV, 8, Tracer.NONE).fetch(assemblies);
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // One round trip each, and one more to find the environments without deployments.
+    int peak = server.getPeakInFlight();
+    assertTrue(String.valueOf(peak), peak > 1);
+    assertEquals(15, server.getCalls().getEndpoints().stream().mapToLong(e -> e.getCalls()).sum());
+    assertEquals("status-0", rows.get(0).getAssembly());
+    assertNotNull(rows.get(0).getDeploymentId());
+    assertFalse(FleetStatus.NONE.equals(rows.get(0).getState()));
+    for (int i = 1; i < 8; i++) {
+      assertEquals(assemblies.get(i), rows.get(i).getAssembly());
+      assertNull(rows.get(i).getDeploymentId());
+      assertEquals(FleetStatus.NONE, rows.get(i).getState());
+      assertNull(rows.get(i).getError());
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertTrue(FleetStatus.printTable(rows, millis, new PrintStream(out, true)));
+    assertTrue(out.toString(), out.toString().contains("7 none."));
+    out.reset();
+    assertTrue(FleetStatus.printJson(rows, millis, new PrintStream(out, true)));
+    assertTrue(out.toString(),
+        out.toString().contains("{\"assembly\":\"status-1\",\"deploymentId\":null,"));
+  }
+
+  @Test
+  public void missingEnvironmentsAreErrors() throws Exception {
+    new Assembly(instance).createAssembly("status-0", "boo@example.com", "", "");
+
+    List<FleetStatus.Row> rows = new FleetStatus(instance, WorkflowBenchmark.ENV, 4, Tracer.NONE)
+        .fetch(Arrays.asList("status-0"));
+
+    assertNull(rows.get(0).getState());
+    assertNotNull(rows.get(0).getError());
+    // The environment is checked only after the latest deployment is not found.
+    assertTrue(rows.get(0).getError(),
+        rows.get(0).getError().startsWith("Failed to get environment with name"));
+  }
+
+  @Test
+  public void failedReadsAreReported() throws Exception {
+    new Assembly(instance).createAssembly("status-0", "boo@example.com", "", "");
+    instance.setRetryPolicy(null);
+    server.setErrorRate("*", 1.0);
+
+    List<FleetStatus.Row> rows = new FleetStatus(instance, WorkflowBenchmark.ENV, 4, Tracer.NONE)
+        .fetch(Arrays.asList("status-0"));
+
+    assertNull(rows.get(0).getState());
+    assertNotNull(rows.get(0).getError());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertFalse(FleetStatus.printTable(rows, 0, new PrintStream(out, true)));
+    assertTrue(out.toString(), out.toString().contains("1 error."));
+  }
+}
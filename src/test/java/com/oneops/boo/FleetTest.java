@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.metrics.Tracer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FleetTest {
+
+  @Test
+  public void runsAssembliesConcurrently() {
+    List<String> assemblies = Arrays.asList("a-1", "a-2", "a-3", "a-4", "a-5", "a-6");
+    CountDownLatch started = new CountDownLatch(3);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger most = new AtomicInteger();
+    List<Fleet.Result> results = new Fleet(3, Tracer.NONE).run("update", assemblies, assembly -> {
+      most.accumulateAndGet(running.incrementAndGet(), Math::max);
+      started.countDown();
+      // Only returns once three assemblies run at the same time.
+      boolean isTogether = started.await(10, TimeUnit.SECONDS);
+      running.decrementAndGet();
+      return isTogether;
+    });
+
+    assertEquals(6, results.size());
+    assertEquals(3, most.get());
+    for (int i = 0; i < assemblies.size(); i++) {
+      assertEquals(assemblies.get(i), results.get(i).getAssembly());
+      assertTrue(results.get(i).isDone());
+      assertNull(results.get(i).getError());
+    }
+  }
+
+  @Test
+  public void failureDoesNotStopOthers() {
+    List<String> assemblies = Arrays.asList("a-1", "a-2", "a-3");
+    List<Fleet.Result> results = new Fleet(1, Tracer.NONE).run("remove", assemblies, assembly -> {
+      if ("a-1".equals(assembly)) {
+        throw new IllegalStateException("boom");
+      }
+      return !"a-2".equals(assembly);
+    });
+
+    assertFalse(results.get(0).isDone());
+    assertEquals("boom", results.get(0).getError());
+    assertFalse(results.get(1).isDone());
+    assertEquals(Constants.FLEET_NOT_DONE, results.get(1).getError());
+    assertTrue(results.get(2).isDone());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertFalse(Fleet.print(results, new PrintStream(out, true)));
+    assertTrue(out.toString().contains(String.format(Constants.FLEET_SUMMARY, 1, 2)));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.boo.utils.BooUtils;
+import com.oneops.boo.workflow.BuildAllPlatforms;
+import com.oneops.boo.workflow.RunContext;
+import com.oneops.boo.workflow.WorkflowBenchmark;
+import com.oneops.client.api.metrics.Tracer;
+import com.oneops.client.api.mock.MockOneOps;
+import com.oneops.client.api.mock.MockOneOps.Latency;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class IpCollectorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+  private BuildAllPlatforms flow;
+  private final List<String> platforms = Arrays.asList("app0", "app1", "app2", "app3");
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    flow = new WorkflowBenchmark(server, platforms.size(), folder.getRoot())
+        .seed("ips" + System.nanoTime() % 10000, 2, false, new RunContext(true, false, false));
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void listsPairsConcurrentlyInYamlOrder() throws Exception {
+    server.setLatency("*", Latency.fixed(50));
+    server.resetCalls();
+    assertTrue(this.collect(Collections.singletonList("compute"), IpCollector.Format.TEXT));
+
+    int peak = server.getPeakInFlight();
+    assertTrue(String.valueOf(peak), peak > 1);
+    String[] lines = this.out().split("\n");
+    assertEquals("Environment name: bench", lines[0]);
+    for (int i = 0; i < platforms.size(); i++) {
+      assertEquals("Platform name: " + platforms.get(i), lines[1 + i * 4]);
+      assertEquals("Compute name: compute", lines[2 + i * 4]);
+      assertTrue(lines[3 + i * 4], lines[3 + i * 4].startsWith("10.0."));
+      assertTrue(lines[4 + i * 4], lines[4 + i * 4].startsWith("10.0."));
+    }
+    assertEquals(1 + platforms.size() * 4, lines.length);
+  }
+
+  @Test
+  public void writesJsonLinesAndCsv() throws Exception {
+    assertTrue(this.collect(Collections.singletonList("compute"), IpCollector.Format.JSONL));
+    String[] lines = this.out().split("\n");
+    assertEquals(platforms.size() * 2, lines.length);
+    for (String line : lines) {
+      assertTrue(line, line.matches("\\{\"environment\":\"bench\",\"platform\":\"app\\d\","
+          + "\"component\":\"compute\",\"hostname\":\"compute-\\d\",\"private_ip\":\"10\\.0\\..*"));
+    }
+
+    out.reset();
+    assertTrue(this.collect(Collections.singletonList("compute"), IpCollector.Format.CSV));
+    lines = this.out().split("\n");
+    assertEquals("environment,platform,component,hostname,private_ip,public_ip", lines[0]);
+    assertEquals(1 + platforms.size() * 2, lines.length);
+    assertTrue(lines[1], lines[1].matches("bench,app\\d,compute,compute-\\d,10\\.0\\..*,192\\..*"));
+  }
+
+  @Test
+  public void failedPairDoesNotStopOthers() throws Exception {
+    assertFalse(this.collect(Arrays.asList("compute", "missing"), IpCollector.Format.JSONL));
+    assertEquals(platforms.size() * 2, this.out().split("\n").length);
+  }
+
+  private boolean collect(List<String> components, IpCollector.Format format) throws Exception {
+    return new IpCollector(flow, new BooUtils(), 8, Tracer.NONE).collect(platforms, components,
+        format, new PrintStream(out, true, "UTF-8"));
+  }
+
+  private String out() {
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
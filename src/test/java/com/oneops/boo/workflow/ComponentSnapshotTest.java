@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.resource.Design;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ComponentSnapshotTest {
+
+  private static final String COMPONENTS = "/org/assemblies/a1/design/platforms/p1/components";
+
+  private HttpServer server;
+  private OOInstance instance;
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String body;
+        int status = 200;
+        if (path.equals(COMPONENTS)) {
+          body = "[{\"ciId\":1,\"ciName\":\"compute\",\"ciAttrProps\":{\"owner\":{}}},"
+              + "{\"ciId\":2,\"ciName\":\"user-app\","
+              + "\"ciAttrProps\":{\"owner\":{\"a\":\"design\"}}},"
+              + "{\"ciId\":3,\"ciName\":\"os\"}]";
+        } else if (path.equals(COMPONENTS + "/os")) {
+          body = "{\"ciId\":3,\"ciName\":\"os\",\"ciAttrProps\":{\"owner\":{\"b\":\"design\"}}}";
+        } else if (path.equals(COMPONENTS + "/artifact")) {
+          body = "{\"ciId\":4,\"ciName\":\"artifact\"}";
+        } else {
+          body = "{}";
+          status = 404;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      }
+    });
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void answersLookupsFromOneListing() throws Exception {
+    ComponentSnapshot snapshot = new ComponentSnapshot(new Design(instance, "a1"));
+    assertTrue(snapshot.exists("p1", "compute"));
+    assertTrue(snapshot.exists("p1", "user-app"));
+    assertFalse(snapshot.exists("p1", "artifact"));
+    assertEquals(Long.valueOf(2), snapshot.get("p1", "user-app").getCiId());
+    assertTrue(snapshot.isUserCustomized("p1", "user-app"));
+    assertFalse(snapshot.isUserCustomized("p1", "compute"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void fetchesMissingOwnerPropsOnce() throws Exception {
+    ComponentSnapshot snapshot = new ComponentSnapshot(new Design(instance, "a1"));
+    assertTrue(snapshot.isUserCustomized("p1", "os"));
+    assertTrue(snapshot.isUserCustomized("p1", "os"));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void followsWrites() throws Exception {
+    ComponentSnapshot snapshot = new ComponentSnapshot(new Design(instance, "a1"));
+    snapshot.names("p1");
+    snapshot.updated("p1", "compute", ImmutableMap.of("size", "L"));
+    assertEquals("L", snapshot.get("p1", "compute").getAttribute("size"));
+    assertTrue(snapshot.isUserCustomized("p1", "compute"));
+
+    snapshot.invalidate("p1", "artifact");
+    assertTrue(snapshot.exists("p1", "artifact"));
+    snapshot.removed("p1", "artifact");
+    assertFalse(snapshot.exists("p1", "artifact"));
+    assertEquals(2, calls.get());
+    assertEquals(2, snapshot.getFetches());
+  }
+}
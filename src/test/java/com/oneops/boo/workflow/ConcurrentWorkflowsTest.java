@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentWorkflowsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void runsSideBySideWithOwnOptions() throws Exception {
+    WorkflowBenchmark benchmark = new WorkflowBenchmark(server, 2, folder.getRoot());
+    String suffix = String.valueOf(System.nanoTime() % 10000);
+    BuildAllPlatforms quiet =
+        benchmark.newFlow("quiet" + suffix, "1", new RunContext(true, false, true));
+    BuildAllPlatforms deployed =
+        benchmark.newFlow("deployed" + suffix, "1", RunContext.DEFAULT);
+
+    CompletableFuture.allOf(create(quiet), create(deployed)).get(60, TimeUnit.SECONDS);
+
+    assertTrue(server.hasAssembly("quiet" + suffix));
+    assertTrue(server.hasAssembly("deployed" + suffix));
+    // Only the run without --no-deploy deployed.
+    assertEquals(1, deployments());
+
+    // Removing platform by platform no longer loses the design client after the first one.
+    assertTrue(quiet.cleanup());
+    assertFalse(server.hasAssembly("quiet" + suffix));
+    assertTrue(server.hasAssembly("deployed" + suffix));
+  }
+
+  private static CompletableFuture<Void> create(BuildAllPlatforms flow) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        flow.process(false, false);
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  private long deployments() {
+    for (EndpointMetrics metrics : server.getCalls().getEndpoints()) {
+      if (metrics.getMethod().equals("POST") && metrics.getEndpoint()
+          .equals("/assemblies/{name}/transition/environments/{name}/deployments")) {
+        return metrics.getCalls();
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.boo.LogUtils;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+public class DeploymentWatcherTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+  private PrintStream stdout;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    server.setDeploymentMillis(1000);
+    stdout = System.out;
+  }
+
+  @After
+  public void afterTests() {
+    System.setOut(stdout);
+    server.close();
+  }
+
+  @Test
+  public void followsStepsUntilTheDeploymentEnds() throws Exception {
+    server.setFailingComponent("os");
+    BuildAllPlatforms flow = new WorkflowBenchmark(server, 2, folder.getRoot())
+        .seed("watched" + System.nanoTime() % 10000, 1, true, new RunContext(true, false, false));
+
+    String deploymentId = flow.getDeploymentId();
+    System.setOut(new PrintStream(out, true, "UTF-8"));
+    assertEquals("failed", this.newWatcher(flow).watch(deploymentId));
+    String failed = this.out();
+    assertTrue(failed, failed.contains("Step 1 of 7: 2 change(s)"));
+    assertTrue(failed, failed.contains("Step 2 of 7: 2 change(s)"));
+    assertTrue(failed, failed.matches("(?s).*failed +add os-app0 \\(os\\).*"));
+    assertTrue(failed, failed.contains("os-app0 is failed"));
+    assertTrue(failed, !failed.contains("Step 3 of"));
+    assertTrue(failed, failed.contains(": 2 of 14 change(s) complete, 2 failed."));
+
+    out.reset();
+    assertTrue(flow.retryDeployment());
+    assertEquals("complete", this.newWatcher(flow).watch(deploymentId));
+    String complete = this.out();
+    assertTrue(complete, complete.contains("Step 7 of 7: 2 change(s)"));
+    assertTrue(complete, complete.contains("Deployment " + deploymentId + " is active."));
+    assertTrue(complete, complete.contains(": 14 of 14 change(s) complete, 0 failed."));
+  }
+
+  private DeploymentWatcher newWatcher(AbstractWorkflow flow) {
+    return new DeploymentWatcher(flow.transition, flow.envName, LogUtils.VERBOSE,
+        StateFollowerTest.testPoller(20, 100));
+  }
+
+  private String out() throws Exception {
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
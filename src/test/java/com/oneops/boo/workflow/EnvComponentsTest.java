@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class EnvComponentsTest {
+
+  private static final String COMPONENTS =
+      "/assemblies/{name}/transition/environments/{name}/platforms/{name}/components";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+  private BuildAllPlatforms flow;
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    flow = new WorkflowBenchmark(server, 4, folder.getRoot())
+        .seed("env" + System.nanoTime() % 10000, 1, false, new RunContext(true, false, false));
+    server.resetCalls();
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void updatesFromOneListingPerPlatform() throws Exception {
+    flow.updateEnv();
+
+    assertEquals(4, this.calls("GET", COMPONENTS));
+    assertEquals(0, this.calls("GET", COMPONENTS + "/{name}"));
+    assertEquals(4, this.calls("PUT", COMPONENTS + "/{id}"));
+    assertEquals(0, this.calls("POST", "/assemblies/{name}/transition/environments/{name}/commit"));
+  }
+
+  @Test
+  public void failuresAreReportedTogether() throws Exception {
+    Map<String, Map<String, Map<String, String>>> updates =
+        new LinkedHashMap<String, Map<String, Map<String, String>>>();
+    for (String platform : new String[] {"app0", "app1"}) {
+      Map<String, Map<String, String>> components =
+          new LinkedHashMap<String, Map<String, String>>();
+      components.put("missing", Collections.singletonMap("size", "L"));
+      components.put("lb", Collections.singletonMap("ecv_map", "{}"));
+      updates.put(platform, components);
+    }
+    try {
+      flow.updateEnvComponents(updates);
+      fail();
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Failed to update 2 component(s)"));
+      assertTrue(e.getMessage(), e.getMessage().contains("missing of app0: "));
+      assertTrue(e.getMessage(), e.getMessage().contains("missing of app1: "));
+    }
+    assertEquals(2, this.calls("PUT", COMPONENTS + "/{id}"));
+  }
+
+  private long calls(String method, String endpoint) {
+    for (EndpointMetrics metrics : server.getCalls().getEndpoints()) {
+      if (metrics.getMethod().equals(method) && metrics.getEndpoint().equals(endpoint)) {
+        return metrics.getCalls();
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.oneops.boo.ClientConfig;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class JournalTest {
+
+  private static final String YAML = "0123456789abcdef0123456789abcdef";
+  private static final String EDITED = "fedcba9876543210fedcba9876543210";
+  private static final String CREATE_PLATFORM = "POST /assemblies/{name}/design/platforms";
+  private static final String CREATE_ENV = "POST /assemblies/{name}/transition/environments";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void resumesFromRecordedSteps() throws Exception {
+    Journal journal = Journal.of(folder.getRoot(), "org", "a1", "dev", YAML);
+    assertTrue(journal.isEmpty());
+    journal.done(BuildAllPlatforms.STEP_ASSEMBLY,
+        ImmutableMap.of(BuildAllPlatforms.ID_ASSEMBLY, "a1-3f2c9e1b"));
+    journal.done(BuildAllPlatforms.STEP_PLATFORM + "web");
+
+    Journal next = Journal.of(folder.getRoot(), "org", "a1", "dev", YAML);
+    assertEquals(2, next.size());
+    assertTrue(next.isDone(BuildAllPlatforms.STEP_PLATFORM + "web"));
+    assertEquals(ImmutableMap.of(BuildAllPlatforms.ID_ASSEMBLY, "a1-3f2c9e1b"),
+        next.getIds(BuildAllPlatforms.STEP_ASSEMBLY));
+    assertFalse(next.isDone(BuildAllPlatforms.STEP_VARIABLES));
+  }
+
+  @Test
+  public void ignoresLineCutShort() throws Exception {
+    File file = new File(folder.getRoot(), "journal.log");
+    Journal journal = new Journal(file);
+    journal.done(BuildAllPlatforms.STEP_ASSEMBLY);
+    Files.write(file.toPath(), "variables".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+
+    Journal next = new Journal(file);
+    assertTrue(next.isDone(BuildAllPlatforms.STEP_ASSEMBLY));
+    assertFalse(next.isDone(BuildAllPlatforms.STEP_VARIABLES));
+  }
+
+  @Test
+  public void editedYamlStartsOver() throws Exception {
+    Journal.of(folder.getRoot(), "org", "a1", "dev", YAML).done(BuildAllPlatforms.STEP_ASSEMBLY);
+    Journal.of(folder.getRoot(), "org", "a1", "prod", YAML).done(BuildAllPlatforms.STEP_ASSEMBLY);
+
+    assertTrue(Journal.of(folder.getRoot(), "org", "a1", "dev", EDITED).isEmpty());
+    assertTrue(Journal.of(folder.getRoot(), "org", "a1", "dev", YAML).isEmpty());
+    assertFalse(Journal.of(folder.getRoot(), "org", "a1", "prod", YAML).isEmpty());
+
+    Journal.discardAll(folder.getRoot(), "org", "a1");
+    assertTrue(Journal.of(folder.getRoot(), "org", "a1", "prod", YAML).isEmpty());
+  }
+
+  @Test
+  public void resumesFailedCreateUnderGeneratedName() throws Exception {
+    String prefix = "resume" + System.nanoTime() % 100000;
+    String generated = prefix + "-1a2b3c4d";
+    try (MockOneOps server = new MockOneOps()) {
+      WorkflowBenchmark bench = new WorkflowBenchmark(server, 2, folder.getRoot());
+      server.setErrorRate(CREATE_ENV, 1.0);
+      try {
+        this.newFlow(bench, prefix, generated).process(false, false);
+        fail("The environment cannot be created");
+      } catch (OneOpsClientAPIException e) {
+        // Resumed below
+      }
+      assertTrue(server.hasAssembly(generated));
+
+      // As boo -c does, the workflow of the YAML finds the name generated by the failed create.
+      assertEquals(generated,
+          bench.newFlow(prefix, "1", RunContext.DEFAULT).getJournaledAssembly());
+      server.setErrorRate(CREATE_ENV, 0);
+      server.resetCalls();
+      this.newFlow(bench, prefix, generated).process(false, false);
+      assertEquals(0, calls(server, CREATE_PLATFORM));
+      assertEquals(1, calls(server, CREATE_ENV));
+      assertNull(bench.newFlow(prefix, "1", RunContext.DEFAULT).getJournaledAssembly());
+    } finally {
+      Journal.discardAll("mock", prefix);
+    }
+  }
+
+  private BuildAllPlatforms newFlow(WorkflowBenchmark bench, String prefix, String generated)
+      throws OneOpsClientAPIException {
+    // As BooCli.initOo names an auto-generated assembly.
+    BuildAllPlatforms named = bench.newFlow(prefix, "1", RunContext.DEFAULT);
+    ClientConfig config = named.config;
+    config.getYaml().getAssembly().setName(generated);
+    BuildAllPlatforms flow =
+        new BuildAllPlatforms(named.instance, config, null, RunContext.DEFAULT);
+    flow.journalUnder(prefix);
+    return flow;
+  }
+
+  private static long calls(MockOneOps server, String endpoint) {
+    for (EndpointMetrics metrics : server.getCalls().getEndpoints()) {
+      if (endpoint.equals(metrics.getMethod() + " " + metrics.getEndpoint())) {
+        return metrics.getCalls();
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.oneops.boo.workflow.Plan.Action;
+import com.oneops.boo.workflow.Plan.Change;
+import com.oneops.boo.workflow.Plan.Target;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PlannerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void unchangedComponentIsNotPlanned() {
+    Map<String, Object> desired = new LinkedHashMap<String, Object>();
+    desired.put("size", "M");
+    desired.put("port", 8080);
+    desired.put("tags", ImmutableList.of("a", "b"));
+    Map<String, String> current = ImmutableMap.of("size", "M", "port", "8080", "tags",
+        "[ \"a\", \"b\" ]", "ostype", "centos-7.2");
+    assertNull(Planner.diff(Target.COMPONENT, "web", "compute", "compute", desired, current));
+  }
+
+  @Test
+  public void updateCarriesOnlyChangedAttributes() {
+    Map<String, Object> desired = new LinkedHashMap<String, Object>();
+    desired.put("size", "L");
+    desired.put("port", 8080);
+    Change change = Planner.diff(Target.COMPONENT, "web", "compute", "compute", desired,
+        ImmutableMap.of("size", "M", "port", "8080"));
+    assertEquals(Action.UPDATE, change.getAction());
+    assertEquals(ImmutableMap.of("size", "L"), change.getAttributes());
+    assertEquals(ImmutableMap.of("size", "M"), change.getCurrent());
+    assertEquals("component/web/compute", change.getKey());
+  }
+
+  @Test
+  public void missingComponentIsAdded() {
+    Change change = Planner.diff(Target.COMPONENT, "web", "user", "user-app",
+        Collections.<String, Object>singletonMap("username", "app"), null);
+    assertEquals(Action.ADD, change.getAction());
+    assertEquals(ImmutableMap.of("username", "app"), change.getAttributes());
+  }
+
+  @Test
+  public void splitsComponentsLikeTheDesignUpdate() {
+    Map<String, Object> users = new LinkedHashMap<String, Object>();
+    users.put("user-app", ImmutableMap.of("username", "app"));
+    users.put("user-ops", ImmutableMap.of("username", "ops"));
+    users.put("attachments", ImmutableMap.of("script", ImmutableMap.of("run_on", "before-add")));
+    assertEquals(ImmutableList.of("user-app", "user-ops"),
+        ImmutableList.copyOf(Planner.instances("user", users).keySet()));
+
+    Map<String, Object> compute = new LinkedHashMap<String, Object>();
+    compute.put("size", "M");
+    compute.put("attachments", ImmutableMap.of());
+    Map<String, Map<String, Object>> instances = Planner.instances("compute", compute);
+    assertEquals(ImmutableMap.of("size", "M"), instances.get("compute"));
+  }
+
+  @Test
+  public void appliedStateSurvivesRuns() throws Exception {
+    File file = new File(folder.getRoot(), "state/org-a1-dev.properties");
+    AppliedState state = new AppliedState(file);
+    Map<String, String> scale = ImmutableMap.of("current", "2", "max", "10");
+    assertFalse(state.isApplied("scale/web/compute", scale));
+    state.applied("scale/web/compute", scale);
+    state.save();
+
+    AppliedState next = new AppliedState(file);
+    assertTrue(next.isApplied("scale/web/compute", ImmutableMap.of("max", "10", "current", "2")));
+    assertFalse(next.isApplied("scale/web/compute", ImmutableMap.of("current", "3", "max", "10")));
+    next.forget("scale/web/compute");
+    assertFalse(next.isApplied("scale/web/compute", scale));
+
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(
+        file.toPath())));
+    File key = new File(file.getParentFile(), AppliedState.KEY_FILE);
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(
+        key.toPath())));
+    assertTrue(key.delete());
+    assertFalse("a new key invalidates the digests",
+        new AppliedState(file).isApplied("scale/web/compute", scale));
+  }
+
+  @Test
+  public void printsSecureValuesMasked() {
+    Plan plan = new Plan("a1", "dev");
+    plan.addAll(ImmutableList.of(
+        new Change(Action.UPDATE, Target.VARIABLE, "web", null, "PASSWORD",
+            ImmutableMap.of("PASSWORD", "s3cret"), null, true),
+        new Change(Action.UPDATE, Target.RELAY, null, null, "default",
+            ImmutableMap.of("enabled", "true"), ImmutableMap.of("enabled", "false"), false)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    plan.print(new PrintStream(out, true));
+    String printed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    assertTrue(printed.contains("~ variable web/PASSWORD"));
+    assertTrue(printed.contains("PASSWORD: " + Plan.MASKED));
+    assertFalse(printed.contains("s3cret"));
+    assertTrue(printed.contains("enabled: false -> true"));
+    assertTrue(plan.hasDesignChanges());
+    assertTrue(plan.needsDeployment());
+  }
+
+  @Test
+  public void relayAloneNeedsNoDeployment() {
+    Plan plan = new Plan("a1", "dev");
+    assertTrue(plan.isEmpty());
+    plan.addAll(ImmutableList.of(new Change(Action.UPDATE, Target.RELAY, null, null, "default",
+        ImmutableMap.of("enabled", "true"), null, false)));
+    assertFalse(plan.hasDesignChanges());
+    assertFalse(plan.needsDeployment());
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oneops.boo.yaml.PlatformBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+
+public class PlatformTiersTest {
+
+  @Test
+  public void groupsPlatformsByDeployOrder() {
+    SortedMap<Integer, List<PlatformBean>> tiers = BuildAllPlatforms.tiers(Arrays.asList(
+        platform("db", 1), platform("web", 2), platform("cache", 1), platform("lb", 3),
+        platform("app", 2)));
+    assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(tiers.keySet()));
+    assertEquals(Arrays.asList("db", "cache"), names(tiers.get(1)));
+    assertEquals(Arrays.asList("web", "app"), names(tiers.get(2)));
+    assertEquals(Arrays.asList("lb"), names(tiers.get(3)));
+  }
+
+  private PlatformBean platform(String name, int deployOrder) {
+    return new PlatformBean.PlatformBeanBuilder("oneops/tomcat", "1").setName(name)
+        .setDeployOrder(deployOrder).build();
+  }
+
+  private List<String> names(List<PlatformBean> platforms) {
+    List<String> names = new ArrayList<String>();
+    for (PlatformBean platform : platforms) {
+      names.add(platform.getName());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.oneops.boo.workflow.Plan.Change;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Design;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PlatformVariablesTest {
+
+  private static final String VARIABLES = "/org/assemblies/a1/design/platforms/p1/variables";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HttpServer server;
+  private OOInstance instance;
+  private final ConcurrentMap<String, AtomicInteger> calls =
+      new ConcurrentHashMap<String, AtomicInteger>();
+  private volatile String failing = "";
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String call = exchange.getRequestMethod() + " "
+            + exchange.getRequestURI().getPath().replace(VARIABLES, "");
+        calls.computeIfAbsent(call, key -> new AtomicInteger()).incrementAndGet();
+        String body = "{}";
+        int status = 200;
+        if (call.equals("GET ")) {
+          body = "[" + variable(1, "A", "false", "1") + "," + variable(2, "B", "false", "2") + ","
+              + variable(3, "C", "true", null) + "," + variable(4, "D", "false", null) + "]";
+        } else if (call.equals("GET /new.json")) {
+          body = "{\"ciAttributes\":{\"secure\":\"false\",\"value\":\"\"}}";
+        } else if (call.equals(failing)) {
+          status = 500;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(bytes);
+        }
+      }
+    });
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void writesOnlyTheDifferences() throws Exception {
+    PlatformVariables variables = new PlatformVariables(new Design(instance, "a1"),
+        instance.getTransport().getExecutor());
+    List<Change> changes = variables.diff(platform(), null);
+    assertEquals(5, changes.size());
+    variables.apply(changes, null);
+
+    assertEquals(1, count("GET "));
+    assertEquals(1, count("GET /new.json"));
+    assertEquals(2, count("POST "));
+    assertEquals(1, count("PUT /2"));
+    assertEquals(1, count("PUT /3"));
+    assertEquals(1, count("DELETE /4"));
+    assertEquals(0, count("PUT /1"));
+  }
+
+  @Test
+  public void skipsSecureValuesAlreadyApplied() throws Exception {
+    PlatformVariables variables = new PlatformVariables(new Design(instance, "a1"),
+        instance.getTransport().getExecutor());
+    AppliedState state = new AppliedState(new File(folder.getRoot(), "state.properties"));
+    variables.apply(variables.diff(platform(), state), state);
+    assertEquals(1, count("PUT /3"));
+
+    List<Change> changes = variables.diff(platform(), state);
+    for (Change change : changes) {
+      assertTrue(change.toString(), !"C".equals(change.getName()));
+    }
+  }
+
+  @Test
+  public void reportsEveryFailure() throws Exception {
+    failing = "PUT /2";
+    PlatformVariables variables = new PlatformVariables(new Design(instance, "a1"),
+        instance.getTransport().getExecutor());
+    try {
+      variables.apply(variables.diff(platform(), null), null);
+      fail("Expected a failure");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("p1/B"));
+      assertEquals(1, count("DELETE /4"));
+      assertEquals(2, count("POST "));
+    }
+  }
+
+  private int count(String call) {
+    AtomicInteger count = calls.get(call);
+    return count == null ? 0 : count.get();
+  }
+
+  private static String variable(long ciId, String name, String secure, String value) {
+    return "{\"ciId\":" + ciId + ",\"ciName\":\"" + name + "\",\"ciAttributes\":{\"secure\":\""
+        + secure + "\"" + (value == null ? "" : ",\"value\":\"" + value + "\"") + "}}";
+  }
+
+  private static PlatformBean platform() {
+    Map<String, String> plain = ImmutableMap.of("A", "1", "B", "3", "E", "5", "F", "6");
+    return new PlatformBean.PlatformBeanBuilder("tomcat", "1").setName("p1").setVariables(plain)
+        .setSecureVariables(ImmutableMap.of("C", "secret")).build();
+  }
+}
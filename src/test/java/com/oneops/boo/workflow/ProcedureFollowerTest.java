@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.boo.LogUtils;
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProcedureFollowerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+  private PrintStream stdout;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    server.setDeploymentMillis(1500);
+    stdout = System.out;
+  }
+
+  @After
+  public void afterTests() {
+    System.setOut(stdout);
+    server.close();
+  }
+
+  @Test
+  public void tailsEachLineOnceInBatches() throws Exception {
+    BuildAllPlatforms flow = new WorkflowBenchmark(server, 1, folder.getRoot())
+        .seed("followed" + System.nanoTime() % 10000, 1, false, new RunContext(true, false, true));
+    List<String> instances = new ArrayList<String>();
+    Map<Long, String> names = new HashMap<Long, String>();
+    for (long id = 1; id <= 5; id++) {
+      instances.add(String.valueOf(id));
+      names.put(id, "vm-" + id);
+    }
+    String procedureId = flow.op.executeAction("app0", "compute", "reboot", instances, "", 100)
+        .getString("procedureId");
+    server.resetCalls();
+
+    System.setOut(new PrintStream(out, true, "UTF-8"));
+    ProcedureFollower follower = new ProcedureFollower(flow.op, LogUtils.VERBOSE, names,
+        StateFollowerTest.testPoller(50, 200), 2);
+    assertEquals("complete", follower.follow(procedureId));
+
+    String printed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    for (long id = 1; id <= 5; id++) {
+      assertEquals(printed, 1, count(printed, "vm-" + id + ": Running reboot on " + id));
+      assertEquals(printed, 1, count(printed, "vm-" + id + ": Step 2 of reboot done"));
+      assertEquals(printed, 1, count(printed, "vm-" + id + ": reboot is complete"));
+      assertEquals(printed, 1, count(printed, "complete   vm-" + id + " (reboot)"));
+    }
+    assertTrue(printed, printed.contains(": 5 of 5 action(s) complete, 0 failed."));
+    // Five actions in batches of two take three log requests a poll.
+    long polls = this.calls("/operations/procedures/{id}");
+    long logs = this.calls("/operations/procedures/log_data");
+    assertTrue(polls + " polls, " + logs + " log requests", logs > 0 && logs <= 3 * polls);
+  }
+
+  private long calls(String endpoint) {
+    for (EndpointMetrics metrics : server.getCalls().getEndpoints()) {
+      if (metrics.getMethod().equals("GET") && metrics.getEndpoint().equals(endpoint)) {
+        return metrics.getCalls();
+      }
+    }
+    return 0;
+  }
+
+  private static int count(String text, String part) {
+    int count = 0;
+    for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.boo.LogUtils;
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RollingProcedureTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+    server.setDeploymentMillis(300);
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void countsInstancesOrPercents() {
+    assertEquals(5, RollingProcedure.count("5", 25, true));
+    assertEquals(3, RollingProcedure.count("10%", 25, true));
+    assertEquals(2, RollingProcedure.count("10%", 25, false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyBatches() {
+    RollingProcedure.builder().batchSize("0%");
+  }
+
+  @Test
+  public void runsWavesUntilTooManyFail() throws Exception {
+    BuildAllPlatforms flow = new WorkflowBenchmark(server, 1, folder.getRoot())
+        .seed("rolled" + System.nanoTime() % 10000, 1, false, new RunContext(true, false, true));
+    List<String> instances = new ArrayList<String>();
+    for (long id = 1; id <= 10; id++) {
+      instances.add(String.valueOf(id));
+    }
+
+    server.resetCalls();
+    RollingProcedure.Outcome outcome = this.run(flow, instances, "0");
+    assertEquals(10, outcome.getDone());
+    assertEquals(5, outcome.getBatches().size());
+    assertEquals(3, outcome.getBatches().get(4).getWave());
+    assertEquals(5, this.procedures());
+    assertEquals(2, server.getPeakProcedures());
+
+    // The second batch of the first wave fails, so no other wave starts.
+    server.setFailingInstance(3L);
+    server.resetCalls();
+    outcome = this.run(flow, instances, "0");
+    assertTrue(outcome.isStopped());
+    assertEquals(2, outcome.getBatches().size());
+    assertEquals("failed", outcome.getBatches().get(1).getState());
+    assertEquals(1, outcome.getFailed());
+    assertEquals(2, this.procedures());
+
+    // One failure in ten is within 10%.
+    server.resetCalls();
+    outcome = this.run(flow, instances, "10%");
+    assertFalse(outcome.isStopped());
+    assertEquals(9, outcome.getDone());
+    assertEquals(5, this.procedures());
+  }
+
+  private RollingProcedure.Outcome run(AbstractWorkflow flow, List<String> instances,
+      String maxFailures) {
+    RollingProcedure rolling = RollingProcedure.builder().batchSize("20%").parallelism(2)
+        .maxFailures(maxFailures).pollInterval(20, TimeUnit.MILLISECONDS)
+        .batchTimeout(30, TimeUnit.SECONDS).build();
+    return rolling.run(flow.op, LogUtils.QUIET, "app0", "compute", "reboot", "", instances, 100);
+  }
+
+  private long procedures() {
+    for (EndpointMetrics metrics : server.getCalls().getEndpoints()) {
+      if (metrics.getMethod().equals("POST")
+          && metrics.getEndpoint().equals("/operations/procedures")) {
+        return metrics.getCalls();
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.LogData;
+import com.oneops.client.api.util.Poller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StateFollowerTest {
+
+  @Test
+  public void printsChangesAndNewLinesOnce() {
+    StateFollower<String> follower = new StateFollower<String>(Poller.builder("test").build()) {};
+    assertFalse(follower.changed(1L, "pending"));
+    assertTrue(follower.changed(1L, "inprogress"));
+    assertFalse(follower.changed(1L, "inprogress"));
+    assertTrue(follower.changed(2L, "complete"));
+
+    List<String> printed = new ArrayList<String>();
+    follower.printNew(1L, entries("a", "b"), printed::add);
+    follower.printNew(1L, entries("a", "b", "c"), printed::add);
+    for (LogData unread : follower.readLogs(() -> {
+      throw new OneOpsClientAPIException("down");
+    }, "test")) {
+      follower.printNew(1L, unread.getLogData(), printed::add);
+    }
+    follower.printNew(1L, entries(), printed::add);
+    follower.printNew(1L, entries("a", "b", "c", "d"), printed::add);
+    assertEquals(Arrays.asList("a", "b", "c", "d"), printed);
+  }
+
+  @Test
+  public void changesRestartTheBackoff() throws Exception {
+    StateFollower<Integer> follower = new StateFollower<Integer>(Poller.builder("test")
+        .firstDelay(0, TimeUnit.MILLISECONDS).initialInterval(10, TimeUnit.MILLISECONDS)
+        .maxInterval(1, TimeUnit.HOURS).multiplier(1000).jitter(0).timeout(5, TimeUnit.SECONDS)
+        .build()) {};
+    AtomicInteger polls = new AtomicInteger();
+    int last = follower.await(() -> {
+      int poll = polls.incrementAndGet();
+      follower.changed(1L, "step " + poll);
+      return poll;
+    }, poll -> poll == 5);
+    assertEquals(5, last);
+  }
+
+  /**
+   * Gets a poller for the followers of a mock server, bounded so a stuck follow fails the test.
+   *
+   * @param initialMillis the first interval
+   * @param maxMillis the longest interval
+   * @return the poller
+   */
+  static Poller testPoller(long initialMillis, long maxMillis) {
+    return Poller.builder("test").firstDelay(0, TimeUnit.MILLISECONDS)
+        .initialInterval(initialMillis, TimeUnit.MILLISECONDS)
+        .maxInterval(maxMillis, TimeUnit.MILLISECONDS).timeout(30, TimeUnit.SECONDS).build();
+  }
+
+  private static List<LogData.Entry> entries(String... messages) {
+    List<LogData.Entry> entries = new ArrayList<LogData.Entry>();
+    for (String message : messages) {
+      LogData.Entry entry = new LogData.Entry();
+      entry.setMessage(message);
+      entries.add(entry);
+    }
+    return entries;
+  }
+}
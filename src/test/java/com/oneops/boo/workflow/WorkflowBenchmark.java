@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.boo.ClientConfig;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+import com.oneops.client.api.mock.MockOneOps.Latency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the create, update and remove workflows against a {@link MockOneOps} and reports the wall
+ * time and API calls of each, to load test the workflows without a OneOps server.
+ *
+ * <pre>
+ * java -cp ... com.oneops.boo.workflow.WorkflowBenchmark [platforms] [median ms] [error rate]
+ *     [lock ms]
+ * </pre>
+ */
+public class WorkflowBenchmark {
+
+  /** The phases. */
+  public static final String CREATE = "create";
+  public static final String UPDATE = "update";
+  public static final String REMOVE = "remove";
+
+  /** The environment of the assembly. */
+  public static final String ENV = "bench";
+
+  private static final String CLOUD = "mock-cloud";
+
+  private final MockOneOps server;
+  private final int platforms;
+  private final File dir;
+
+  /**
+   * Instantiates a new benchmark.
+   *
+   * @param server the server
+   * @param platforms the number of platforms of the assembly
+   * @param dir the directory to write the YAML to
+   */
+  public WorkflowBenchmark(MockOneOps server, int platforms, File dir) {
+    this.server = server;
+    this.platforms = platforms;
+    this.dir = dir;
+    server.addCloud(CLOUD);
+  }
+
+  /**
+   * Creates, updates and removes an assembly.
+   *
+   * @param assembly the assembly name
+   * @param out receives the report
+   * @return the calls of each phase
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public Map<String, ApiMetrics> run(String assembly, PrintStream out)
+      throws IOException, OneOpsClientAPIException {
+    Map<String, ApiMetrics> phases = new LinkedHashMap<String, ApiMetrics>();
+    this.phase(CREATE, phases, out, () -> this.newFlow(assembly, "1").process(false, false));
+    this.phase(UPDATE, phases, out, () -> this.newFlow(assembly, "2").process(true, false));
+    this.phase(REMOVE, phases, out, () -> {
+      // As boo --remove does.
+      BuildAllPlatforms flow = this.newFlow(assembly, "2");
+      flow.removeAllEnvs();
+      flow.removeAllPlatforms();
+    });
+    return phases;
+  }
+
+  private void phase(String name, Map<String, ApiMetrics> phases, PrintStream out, Phase phase)
+      throws OneOpsClientAPIException {
+    server.resetCalls();
+    long start = System.nanoTime();
+    phase.run();
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    ApiMetrics calls = server.getCalls();
+    phases.put(name, calls);
+    long count = calls.getEndpoints().stream().mapToLong(e -> e.getCalls()).sum();
+    out.printf("%s: %d ms, %d calls%n", name, millis, count);
+    calls.printSummary(out);
+  }
+
+  private BuildAllPlatforms newFlow(String assembly, String version)
+      throws OneOpsClientAPIException {
+    return this.newFlow(assembly, version, RunContext.DEFAULT);
+  }
+
+  /**
+   * Gets a workflow of the assembly of this benchmark.
+   *
+   * @param assembly the assembly name
+   * @param version the value of the platform variables and the compute count
+   * @param context the options of the run
+   * @return the workflow
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public BuildAllPlatforms newFlow(String assembly, String version, RunContext context)
+      throws OneOpsClientAPIException {
+    OOInstance instance = server.newInstance("mock");
+    Map<String, String> values = new HashMap<String, String>();
+    values.put("host", server.getEndpoint());
+    values.put("organization", instance.getOrgname());
+    values.put("api_key", instance.getAuthtoken());
+    values.put("email", "boo@example.com");
+    values.put("cloud", CLOUD);
+    values.put("assembly", assembly);
+    values.put("version", version);
+    try {
+      File yaml = new File(dir, assembly + ".yaml");
+      Files.write(yaml.toPath(), this.yaml().getBytes(StandardCharsets.UTF_8));
+      return new BuildAllPlatforms(instance, new ClientConfig(yaml, values), null, context);
+    } catch (IOException e) {
+      throw new OneOpsClientAPIException(e.getMessage());
+    }
+  }
+
+  /**
+   * Seeds the server with the assembly of this benchmark, as a create leaves it but without its
+   * calls, and gets a workflow of it.
+   *
+   * @param assembly the assembly name
+   * @param computes the computes of each platform
+   * @param isDeployed whether the environment has a deployment
+   * @param context the options of the run
+   * @return the workflow
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public BuildAllPlatforms seed(String assembly, int computes, boolean isDeployed,
+      RunContext context) throws OneOpsClientAPIException {
+    List<String> names = new ArrayList<String>();
+    for (int i = 0; i < platforms; i++) {
+      names.add("app" + i);
+    }
+    server.seedAssembly(assembly, ENV, names, computes, isDeployed);
+    return this.newFlow(assembly, String.valueOf(computes), context);
+  }
+
+  private String yaml() {
+    StringBuilder yaml = new StringBuilder();
+    yaml.append("boo:\n")
+        .append("  oneops_host: '{{host}}'\n")
+        .append("  organization: '{{organization}}'\n")
+        .append("  api_key: '{{api_key}}'\n")
+        .append("  email: '{{email}}'\n")
+        .append("  environment_name: '").append(ENV).append("'\n")
+        .append("assembly:\n")
+        .append("  name: '{{assembly}}'\n")
+        .append("  auto_gen: false\n")
+        .append("platforms:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("  app").append(i).append(":\n")
+          .append("    deploy_order: ").append(i % 2 + 1).append('\n')
+          .append("    pack: oneops/tomcat\n")
+          .append("    pack_version: '1'\n")
+          .append("    variables:\n")
+          .append("      version: '{{version}}'\n")
+          .append("    components:\n")
+          .append("      compute:\n")
+          .append("        size: M\n")
+          .append("      os:\n")
+          .append("        ostype: 'centos-7.2'\n")
+          .append("      user:\n")
+          .append("        user-bench:\n")
+          .append("          username: 'bench'\n")
+          .append("          authorized_keys: '[\"ssh-rsa AAAA bench\"]'\n");
+    }
+    yaml.append("scale:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("  app").append(i).append(":\n")
+          .append("    scaling:\n")
+          .append("      compute:\n")
+          .append("        current: '{{version}}'\n")
+          .append("        min: '1'\n")
+          .append("        max: '10'\n");
+    }
+    yaml.append("environment:\n")
+        .append("  global_dns: 'true'\n")
+        .append("  availability: 'redundant'\n")
+        .append("  profile: 'DEV'\n")
+        .append("  platforms:\n");
+    for (int i = 0; i < platforms; i++) {
+      yaml.append("    app").append(i).append(":\n")
+          .append("      components:\n")
+          .append("        lb:\n")
+          .append("          ecv_map: '{\"8080\":\"GET /\"}'\n");
+    }
+    yaml.append("  clouds:\n")
+        .append("    {{cloud}}:\n")
+        .append("      priority: '1'\n")
+        .append("      dpmt_order: '1'\n")
+        .append("      pct_scale: '100'\n");
+    return yaml.toString();
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args platforms, median latency in milliseconds, error rate and lock time in
+   *        milliseconds
+   * @throws Exception the exception
+   */
+  public static void main(String[] args) throws Exception {
+    int platforms = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    double median = args.length > 1 ? Double.parseDouble(args[1]) : 50;
+    double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+    long lockMillis = args.length > 3 ? Long.parseLong(args[3]) : 2000;
+    File dir = Files.createTempDirectory("boo-bench").toFile();
+    try (MockOneOps server = new MockOneOps()) {
+      server.setLatency("*", Latency.logNormal(median, 0.5));
+      server.setErrorRate("*", errorRate);
+      server.setLockMillis(lockMillis);
+      server.setDeploymentMillis(lockMillis);
+      String assembly = "bench" + System.currentTimeMillis() % 100000;
+      new WorkflowBenchmark(server, platforms, dir).run(assembly, System.out);
+    }
+  }
+
+  /**
+   * A phase of the benchmark.
+   */
+  private interface Phase {
+    void run() throws OneOpsClientAPIException;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.oneops.client.api.metrics.EndpointMetrics;
+import com.oneops.client.api.mock.MockOneOps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+public class WorkflowBenchmarkTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockOneOps server;
+
+  @Before
+  public void beforeTests() throws Exception {
+    server = new MockOneOps();
+  }
+
+  @After
+  public void afterTests() {
+    server.close();
+  }
+
+  @Test
+  public void createsUpdatesAndRemoves() throws Exception {
+    String assembly = "bench" + System.nanoTime() % 100000;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Map<String, ApiMetrics> phases = new WorkflowBenchmark(server, 2, folder.getRoot())
+        .run(assembly, new PrintStream(out, true));
+
+    assertFalse(server.hasAssembly(assembly));
+    assertTrue(called(phases.get(WorkflowBenchmark.CREATE), "POST",
+        "/assemblies/{name}/transition/environments/{name}/deployments"));
+    assertTrue(called(phases.get(WorkflowBenchmark.UPDATE), "PUT",
+        "/assemblies/{name}/design/platforms/{name}/variables/{id}"));
+    assertTrue(called(phases.get(WorkflowBenchmark.REMOVE), "DELETE", "/assemblies/{name}"));
+    assertTrue(out.toString().contains(WorkflowBenchmark.REMOVE + ": "));
+  }
+
+  private static boolean called(ApiMetrics calls, String method, String endpoint) {
+    for (EndpointMetrics metrics : calls.getEndpoints()) {
+      if (metrics.getMethod().equals(method) && metrics.getEndpoint().equals(endpoint)) {
+        return metrics.getCalls() > 0;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.transport.RetryPolicy;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+public class ApiMetricsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HttpServer server;
+  private OOInstance instance;
+  private final Queue<Integer> statuses = new ConcurrentLinkedQueue<Integer>();
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      Integer status = statuses.poll();
+      byte[] body = "{\"ciId\":1}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+    instance.setApiMetrics(new ApiMetrics());
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void templatesNamesAndIds() {
+    assertEquals("/assemblies/{name}/design/platforms/{name}/components/{id}/attachments.json",
+        ApiMetrics.template("/assemblies/a1/design/platforms/p1/components/123/attachments.json"));
+    assertEquals("/assemblies/{name}/design/platforms/new.json",
+        ApiMetrics.template("assemblies/a1/design/platforms/new.json"));
+    assertEquals("/assemblies/{name}/transition/environments/{name}/deployments/latest",
+        ApiMetrics.template("/assemblies/a1/transition/environments/qa/deployments/latest?x=1"));
+    assertEquals("/clouds/{id}.json", ApiMetrics.template("/clouds/42.json"));
+    assertEquals("/", ApiMetrics.template(null));
+  }
+
+  @Test
+  public void histogramBoundsPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(100000, histogram.getMaxMicros());
+    assertEquals(5050000, histogram.getTotalMicros());
+    assertWithin(50000, histogram.getPercentileMicros(50));
+    assertWithin(99000, histogram.getPercentileMicros(99));
+    assertEquals(100000, histogram.getPercentileMicros(100));
+
+    for (long micros : new long[] {0, 1, 31, 32, 33, 1000, 123456789L}) {
+      int index = LatencyHistogram.index(micros);
+      assertTrue(micros <= LatencyHistogram.highest(index));
+      assertTrue(index == 0 || micros > LatencyHistogram.highest(index - 1));
+    }
+  }
+
+  @Test
+  public void recordsEachAttempt() throws IOException {
+    instance.setRetryPolicy(new RetryPolicy(2, 1, 5, 0.2, 0, 0));
+    statuses.add(503);
+    instance.getTransport().newRequest().filter(instance.getApiMetrics().getFilter())
+        .get("/assemblies/a1/design/platforms/p1");
+    instance.getTransport().newRequest().filter(instance.getApiMetrics().getFilter())
+        .get("/assemblies/a2/design/platforms/p2");
+
+    List<EndpointMetrics> endpoints = instance.getApiMetrics().getEndpoints();
+    assertEquals(1, endpoints.size());
+    EndpointMetrics endpoint = endpoints.get(0);
+    assertEquals("GET", endpoint.getMethod());
+    assertEquals("/assemblies/{name}/design/platforms/{name}", endpoint.getEndpoint());
+    assertEquals(3, endpoint.getCalls());
+    assertEquals(1, endpoint.getErrors());
+    assertEquals(30, endpoint.getBytes());
+
+    File out = new File(folder.getRoot(), "metrics.json");
+    instance.getApiMetrics().writeJson(out);
+    JsonNode json = new ObjectMapper().readTree(out).path("endpoints").path(0);
+    assertEquals(3, json.path("calls").asInt());
+    assertEquals("/assemblies/{name}/design/platforms/{name}", json.path("endpoint").asText());
+  }
+
+  @Test
+  public void noneRecordsNothing() {
+    ApiMetrics.NONE.record("GET", "/clouds", 200, 1, 1);
+    assertTrue(ApiMetrics.NONE.getEndpoints().isEmpty());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual + " not near " + expected,
+        actual >= expected && actual <= expected + expected / 16);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oneops.client.api.metrics.Tracer.Span;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TracerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void nestsSpansAcrossThreads() throws Exception {
+    Tracer tracer = new Tracer();
+    ExecutorService pool = Executors.newSingleThreadExecutor(r -> new Thread(r, "worker"));
+    try (Span step = tracer.begin("step")) {
+      try (Span inner = tracer.begin("api", "GET /clouds")) {
+        inner.arg("status", 200);
+      }
+      CompletableFuture.runAsync(() -> tracer.begin("task").close(), tracer.wrap(pool)).join();
+    } finally {
+      pool.shutdownNow();
+    }
+    tracer.begin("after").close();
+
+    List<Span> spans = tracer.getSpans();
+    assertEquals(4, spans.size());
+    Span step = spans.get(0);
+    assertEquals("step", step.getName());
+    assertNull(step.getParent());
+    assertSame(step, spans.get(1).getParent());
+    assertEquals("api", spans.get(1).getCategory());
+    assertSame(step, spans.get(2).getParent());
+    assertEquals("worker", spans.get(2).getThread());
+    assertNull(spans.get(3).getParent());
+    assertTrue(step.getDurationMicros() >= spans.get(2).getDurationMicros());
+
+    File out = new File(folder.getRoot(), "trace.json");
+    tracer.writeChromeTrace(out);
+    Set<String> phases = new HashSet<String>();
+    for (JsonNode event : new ObjectMapper().readTree(out).path("traceEvents")) {
+      phases.add(event.path("ph").asText());
+      if ("GET /clouds".equals(event.path("name").asText())) {
+        assertEquals(200, event.path("args").path("status").asInt());
+        assertEquals("step", event.path("args").path("parent").asText());
+      }
+    }
+    assertEquals(new HashSet<String>(Arrays.asList("X", "s", "f", "M")), phases);
+  }
+
+  @Test
+  public void endsTheSpanOfFailedWork() {
+    Tracer tracer = new Tracer();
+    try {
+      tracer.run("step", () -> {
+        throw new IOException("down");
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("down", e.getMessage());
+    }
+    assertEquals("value", tracer.call("after", () -> "value"));
+
+    List<Span> spans = tracer.getSpans();
+    assertEquals(2, spans.size());
+    assertEquals("step", spans.get(0).getName());
+    assertNull(spans.get(1).getParent());
+  }
+
+  @Test
+  public void noneTracesNothing() {
+    Executor executor = Runnable::run;
+    assertSame(executor, Tracer.NONE.wrap(executor));
+    Tracer.NONE.begin("step").arg("key", "value").close();
+    assertTrue(Tracer.NONE.getSpans().isEmpty());
+  }
+}
@@ -0,0 +1,1071 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.metrics.ApiMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for the OneOps API of the design, transition, operations, cloud and
+ * assembly resources. It keeps assemblies, design and transition CIs, releases, deployments and
+ * procedures in memory.
+ *
+ * <p>Every endpoint, keyed like {@link ApiMetrics} as method and templated path, e.g. {@code GET
+ * /assemblies/{name}/design/platforms}, or {@code *} for all, can be given a latency distribution
+ * and a rate of 503 responses. Committing an environment locks it for {@link #setLockMillis(long)}
+ * and deployments and procedures complete after {@link #setDeploymentMillis(long)}.
+ *
+ * <p>A deployment has an RFC for each component of each platform, and the components at the same
+ * position of their platforms form a step. Steps run one after another over the deployment time,
+ * and each RFC logs a line as it starts and as it ends. An RFC of a component named with
+ * {@link #setFailingComponent(String)} fails, and with it the deployment, until it is retried.
+ * Likewise an action on the instance named with {@link #setFailingInstance(Long)} fails, and with
+ * it the procedure.
+ */
+public class MockOneOps implements AutoCloseable {
+
+  /** Components every platform pack comes with. */
+  private static final List<String> PACK_COMPONENTS =
+      Arrays.asList("compute", "os", "user", "volume", "secgroup", "lb", "fqdn");
+
+  private static final Set<String> NAMESPACES =
+      new HashSet<String>(Arrays.asList("design", "transition", "operations"));
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "mock-oneops");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicLong ids = new AtomicLong(1000);
+  private final Ci root = new Ci(0, "", "");
+  private final Map<String, Latency> latencies = new ConcurrentHashMap<String, Latency>();
+  private final Map<String, Double> errorRates = new ConcurrentHashMap<String, Double>();
+  private final Map<Long, Map<String, Object>> procedures =
+      new LinkedHashMap<Long, Map<String, Object>>();
+  private volatile ApiMetrics calls = new ApiMetrics();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile AtomicInteger peakInFlight = new AtomicInteger();
+  private volatile long lockMillis;
+  private volatile long deploymentMillis;
+  private volatile String failingComponent;
+  private volatile Long failingInstance;
+  private int peakProcedures;
+
+  /**
+   * Starts a server on a free loopback port.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public MockOneOps() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Gets an instance of an organization on this server.
+   *
+   * @param org the organization
+   * @return the instance
+   */
+  public OOInstance newInstance(String org) {
+    OOInstance instance = new OOInstance();
+    instance.setEndpoint(this.getEndpoint());
+    instance.setOrgname(org);
+    instance.setAuthtoken("mock");
+    return instance;
+  }
+
+  public String getEndpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Adds a cloud environments can be deployed to.
+   *
+   * @param name the cloud name
+   * @return the ciId
+   */
+  public synchronized long addCloud(String name) {
+    Ci cloud = new Ci(ids.incrementAndGet(), name, "account.Cloud");
+    root.members("clouds").put(name, cloud);
+    return cloud.ciId;
+  }
+
+  /**
+   * Sets the latency of an endpoint.
+   *
+   * @param endpoint the method and templated path, or * for every endpoint without its own
+   * @param latency the latency
+   */
+  public void setLatency(String endpoint, Latency latency) {
+    latencies.put(endpoint, latency);
+  }
+
+  /**
+   * Sets the rate of 503 responses of an endpoint.
+   *
+   * @param endpoint the method and templated path, or * for every endpoint without its own
+   * @param rate the rate, from 0 to 1
+   */
+  public void setErrorRate(String endpoint, double rate) {
+    errorRates.put(endpoint, rate);
+  }
+
+  public void setLockMillis(long lockMillis) {
+    this.lockMillis = lockMillis;
+  }
+
+  public void setDeploymentMillis(long deploymentMillis) {
+    this.deploymentMillis = deploymentMillis;
+  }
+
+  public void setFailingComponent(String failingComponent) {
+    this.failingComponent = failingComponent;
+  }
+
+  public void setFailingInstance(Long failingInstance) {
+    this.failingInstance = failingInstance;
+  }
+
+  /**
+   * Gets the most procedures that ran at the same time.
+   *
+   * @return the peak
+   */
+  public synchronized int getPeakProcedures() {
+    return peakProcedures;
+  }
+
+  /**
+   * Gets the calls served since the last reset, injected errors included.
+   *
+   * @return the calls
+   */
+  public ApiMetrics getCalls() {
+    return calls;
+  }
+
+  public void resetCalls() {
+    calls = new ApiMetrics();
+    peakInFlight = new AtomicInteger();
+  }
+
+  /**
+   * Gets the most requests served at the same time since the last reset.
+   *
+   * @return the peak
+   */
+  public int getPeakInFlight() {
+    return peakInFlight.get();
+  }
+
+  /**
+   * Adds an assembly with a design of pack platforms and an environment pulled from it, without
+   * going through the API, for tests that need an existing assembly rather than a create.
+   *
+   * @param assembly the assembly name
+   * @param env the environment name
+   * @param platforms the platform names
+   * @param computes the computes of each platform of the environment
+   * @param isDeployed whether the environment has a deployment of its first release
+   */
+  public synchronized void seedAssembly(String assembly, String env, List<String> platforms,
+      int computes, boolean isDeployed) {
+    Ci created = new Ci(ids.incrementAndGet(), assembly, className("assemblies"));
+    root.members("assemblies").put(assembly, created);
+    for (String name : platforms) {
+      Ci platform = new Ci(ids.incrementAndGet(), name, className("platforms"));
+      for (String component : PACK_COMPONENTS) {
+        platform.members("components").put(component,
+            new Ci(ids.incrementAndGet(), component, "catalog." + component));
+      }
+      created.namespace("design").members("platforms").put(name, platform);
+    }
+    Ci environment = new Ci(ids.incrementAndGet(), env, className("environments"));
+    created.namespace("transition").members("environments").put(env, environment);
+    this.pull(created, environment);
+    for (Ci platform : environment.members("platforms").values()) {
+      platform.extras.put("redundancy", Collections.singletonMap("current", computes));
+    }
+    if (isDeployed) {
+      environment.bom = ids.incrementAndGet();
+      this.deployment("POST", environment, Collections.<String>emptyList(), null,
+          Collections.<String, Object>emptyMap());
+    }
+  }
+
+  /**
+   * Checks whether an assembly exists.
+   *
+   * @param assembly the assembly name
+   * @return true, if it exists
+   */
+  public synchronized boolean hasAssembly(String assembly) {
+    return root.members("assemblies").containsKey(assembly);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try {
+      this.serve(exchange);
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private void serve(HttpExchange exchange) throws IOException {
+    long start = System.nanoTime();
+    String method = exchange.getRequestMethod();
+    String path = exchange.getRequestURI().getPath();
+    // The first segment is the organization.
+    int org = path.indexOf('/', 1);
+    String rest = org < 0 ? "/" : path.substring(org);
+    String endpoint = method + " " + ApiMetrics.template(rest);
+    Reply reply;
+    try {
+      this.delay(endpoint);
+      if (ThreadLocalRandom.current().nextDouble() < this.setting(errorRates, endpoint, 0.0)) {
+        reply = new Reply(503, Collections.singletonMap("errors", "Injected failure"));
+      } else {
+        Map<String, Object> body = this.readBody(exchange.getRequestBody());
+        synchronized (this) {
+          reply = this.route(method, segments(rest), exchange.getRequestURI().getQuery(), body);
+        }
+      }
+    } catch (RuntimeException e) {
+      reply = new Reply(500, Collections.singletonMap("errors", String.valueOf(e)));
+    }
+    byte[] bytes = MAPPER.writeValueAsBytes(reply.body);
+    // Recorded before the client can see the reply, so a test reads every call it made.
+    calls.record(method, rest, reply.status, bytes.length, System.nanoTime() - start);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(reply.status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private void delay(String endpoint) {
+    Latency latency = this.setting(latencies, endpoint, null);
+    if (latency != null) {
+      long millis = latency.sample(ThreadLocalRandom.current());
+      if (millis > 0) {
+        try {
+          TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private <T> T setting(Map<String, T> settings, String endpoint, T none) {
+    T value = settings.get(endpoint);
+    if (value == null) {
+      value = settings.get("*");
+    }
+    return value == null ? none : value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> readBody(InputStream in) throws IOException {
+    byte[] bytes = toBytes(in);
+    if (bytes.length == 0) {
+      return new LinkedHashMap<String, Object>();
+    }
+    try {
+      return MAPPER.readValue(bytes, Map.class);
+    } catch (IOException e) {
+      // Form parameters, e.g. of design/load.
+      return new LinkedHashMap<String, Object>();
+    }
+  }
+
+  private static byte[] toBytes(InputStream in) throws IOException {
+    java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int len;
+    while ((len = in.read(buffer)) > 0) {
+      out.write(buffer, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  private static List<String> segments(String path) {
+    List<String> segments = new ArrayList<String>();
+    for (String segment : path.split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(segment.endsWith(".json")
+            ? segment.substring(0, segment.length() - ".json".length()) : segment);
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Walks the CI tree: a namespace segment enters a namespace, any other segment names a
+   * collection followed by the name or ciId of a member.
+   */
+  private Reply route(String method, List<String> segments, String query,
+      Map<String, Object> body) {
+    if (segments.size() >= 2 && "operations".equals(segments.get(0))
+        && "procedures".equals(segments.get(1))) {
+      return this.procedure(method, segments.subList(2, segments.size()), query, body);
+    }
+    Ci node = root;
+    Ci assembly = null;
+    Ci env = null;
+    boolean isDesign = false;
+    int i = 0;
+    while (i < segments.size()) {
+      String segment = segments.get(i);
+      if (NAMESPACES.contains(segment)) {
+        isDesign = "design".equals(segment);
+        node = node.namespace("operations".equals(segment) ? "transition" : segment);
+        i++;
+        continue;
+      }
+      List<String> rest = segments.subList(i + 1, segments.size());
+      if ("releases".equals(segment)) {
+        return isDesign ? this.designRelease(method, assembly, rest) : this.envRelease(env, rest);
+      }
+      if ("deployments".equals(segment)) {
+        return this.deployment(method, env, rest, query, body);
+      }
+      if (rest.isEmpty()) {
+        return this.collection(method, node, segment, query, body, assembly, isDesign);
+      }
+      if ("new".equals(rest.get(0))) {
+        return Reply.ok(template(segment));
+      }
+      if (env != null && "components".equals(segment) && rest.size() == 2
+          && ("instances".equals(rest.get(1)) || "actions".equals(rest.get(1)))) {
+        return this.operations(node, rest.get(0), rest.get(1));
+      }
+      Ci member = node.find(segment, rest.get(0));
+      if (member == null) {
+        return Reply.notFound();
+      }
+      if ("assemblies".equals(segment)) {
+        assembly = member;
+      } else if ("environments".equals(segment)) {
+        env = member;
+      }
+      if (rest.size() == 1) {
+        return this.member(method, node, segment, member, query, body, assembly, isDesign);
+      }
+      if (rest.size() == 2 && !"releases".equals(rest.get(1))
+          && !"deployments".equals(rest.get(1)) && !member.hasCollection(rest.get(1))) {
+        return this.action(method, assembly, env, member, rest.get(1), body);
+      }
+      node = member;
+      i += 2;
+    }
+    return Reply.notFound();
+  }
+
+  private Reply collection(String method, Ci node, String collection, String query,
+      Map<String, Object> body, Ci assembly, boolean isDesign) {
+    Map<String, Ci> members = node.members(collection);
+    if ("GET".equals(method)) {
+      List<Object> list = new ArrayList<Object>();
+      for (Ci member : members.values()) {
+        list.add(member.toJson(isAttrProps(query)));
+      }
+      return Reply.ok(list);
+    }
+    if (!"POST".equals(method)) {
+      return Reply.notFound();
+    }
+    Map<String, Object> ci = ci(body);
+    String name = String.valueOf(ci.get("ciName"));
+    if (members.containsKey(name)) {
+      return new Reply(422, Collections.singletonMap("errors", name + " already exists"));
+    }
+    Object template = body.get("template_name");
+    Ci created = new Ci(ids.incrementAndGet(), name,
+        template == null ? className(collection) : "catalog." + template);
+    created.update(ci);
+    members.put(name, created);
+    if (isDesign) {
+      assembly.designDirty = true;
+      if ("platforms".equals(collection)) {
+        for (String component : PACK_COMPONENTS) {
+          created.members("components").put(component,
+              new Ci(ids.incrementAndGet(), component, "catalog." + component));
+        }
+      }
+    } else if ("environments".equals(collection)) {
+      created.extras.put("clouds", body.get("clouds"));
+      Ci relay = new Ci(ids.incrementAndGet(), "default", "manifest.relay.email.Relay");
+      relay.attributes.put("enabled", "true");
+      created.members("relays").put("default", relay);
+      this.pull(assembly, created);
+    }
+    return Reply.ok(created.toJson());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Reply member(String method, Ci node, String collection, Ci member, String query,
+      Map<String, Object> body, Ci assembly, boolean isDesign) {
+    switch (method) {
+      case "GET":
+        return Reply.ok(member.toJson(isAttrProps(query)));
+      case "PUT":
+        if (body.containsKey("depends_on")) {
+          // The redundancy of the compute of an environment platform.
+          for (Object config : ((Map<String, Object>) body.get("depends_on")).values()) {
+            Object attributes = ((Map<String, Object>) config).get("relationAttributes");
+            member.extras.put("redundancy", attributes);
+          }
+        } else {
+          member.update(ci(body));
+        }
+        break;
+      case "DELETE":
+        node.members(collection).remove(member.ciName);
+        break;
+      default:
+        return Reply.notFound();
+    }
+    if (isDesign) {
+      assembly.designDirty = true;
+    }
+    return Reply.ok(member.toJson());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Reply action(String method, Ci assembly, Ci env, Ci member, String action,
+      Map<String, Object> body) {
+    switch (action) {
+      case "commit":
+        member.lockedUntil = System.currentTimeMillis() + lockMillis;
+        member.bom = ids.incrementAndGet();
+        return Reply.ok(member.toJson());
+      case "pull":
+        this.pull(assembly, member);
+        return Reply.ok(member.toJson());
+      case "disable":
+        for (Ci platform : member.members("platforms").values()) {
+          platform.ciState = "inactive";
+        }
+        return Reply.ok(member.toJson());
+      case "cloud_configuration":
+        Map<String, Object> clouds = (Map<String, Object>) member.extras
+            .computeIfAbsent("clouds", key -> new LinkedHashMap<String, Object>());
+        clouds.put(String.valueOf(body.get("cloud_id")), body.get("attributes"));
+        return Reply.ok(member.toJson());
+      case "touch":
+      case "procedures":
+        return Reply.ok("GET".equals(method) ? new ArrayList<Object>() : member.toJson());
+      default:
+        return Reply.notFound();
+    }
+  }
+
+  /**
+   * Copies the design platforms and components an environment does not have yet.
+   */
+  private void pull(Ci assembly, Ci env) {
+    Map<String, Ci> platforms = env.members("platforms");
+    for (Ci design : assembly.namespace("design").members("platforms").values()) {
+      Ci platform = platforms.get(design.ciName);
+      if (platform == null) {
+        platform = new Ci(ids.incrementAndGet(), design.ciName, "manifest.Platform");
+        platform.attributes.putAll(design.attributes);
+        platforms.put(design.ciName, platform);
+      }
+      Map<String, Ci> components = platform.members("components");
+      for (Ci component : design.members("components").values()) {
+        if (!components.containsKey(component.ciName)) {
+          Ci copy = new Ci(ids.incrementAndGet(), component.ciName,
+              component.ciClassName.replace("catalog.", "manifest."));
+          copy.attributes.putAll(component.attributes);
+          components.put(component.ciName, copy);
+        }
+      }
+    }
+  }
+
+  private Reply designRelease(String method, Ci assembly, List<String> rest) {
+    if (rest.size() == 1 && "latest".equals(rest.get(0))) {
+      Map<String, Object> release = new LinkedHashMap<String, Object>();
+      release.put("releaseId", assembly.designRelease);
+      release.put("releaseState", assembly.designDirty ? "open" : "closed");
+      return Reply.ok(release);
+    }
+    if (rest.size() == 2 && "commit".equals(rest.get(1)) && "POST".equals(method)) {
+      assembly.designDirty = false;
+      assembly.designRelease = ids.incrementAndGet();
+      return Reply.ok(Collections.singletonMap("releaseState", "closed"));
+    }
+    return Reply.notFound();
+  }
+
+  private Reply envRelease(Ci env, List<String> rest) {
+    Long release = null;
+    if (rest.size() == 1 && "bom".equals(rest.get(0))) {
+      release = env.bom;
+    } else if (rest.size() == 1 && "latest".equals(rest.get(0))) {
+      release = env.bom != null ? env.bom : env.lastRelease;
+    }
+    if (release == null) {
+      return Reply.notFound();
+    }
+    Map<String, Object> json = new LinkedHashMap<String, Object>();
+    json.put("releaseId", release);
+    json.put("nsPath", env.ciName);
+    json.put("releaseState", release.equals(env.bom) ? "open" : "closed");
+    return Reply.ok(json);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Reply deployment(String method, Ci env, List<String> rest, String query,
+      Map<String, Object> body) {
+    Map<String, Ci> deployments = env.members("deployments");
+    if (rest.isEmpty() && "POST".equals(method)) {
+      for (Ci deployment : deployments.values()) {
+        if ("active".equals(this.state(deployment))) {
+          return new Reply(409, Collections.singletonMap("errors", "Active deployment exists"));
+        }
+      }
+      if (env.bom == null) {
+        return Reply.notFound();
+      }
+      Ci deployment = new Ci(ids.incrementAndGet(), null, "deployment");
+      deployment.ciName = String.valueOf(deployment.ciId);
+      deployment.bom = env.bom;
+      deployment.ciState = "active";
+      deployment.lockedUntil = System.currentTimeMillis() + deploymentMillis;
+      deployment.extras.put("records", this.newRecords(env, deployments.isEmpty()));
+      env.lastRelease = env.bom;
+      env.bom = null;
+      deployments.put(deployment.ciName, deployment);
+      return Reply.ok(this.deploymentJson(env, deployment));
+    }
+    if (rest.isEmpty()) {
+      return Reply.notFound();
+    }
+    Ci deployment = "latest".equals(rest.get(0)) && !deployments.isEmpty()
+        ? new ArrayList<Ci>(deployments.values()).get(deployments.size() - 1)
+        : deployments.get(rest.get(0));
+    if (deployment == null) {
+      return Reply.notFound();
+    }
+    if (rest.size() == 2 && "log_data".equals(rest.get(1))) {
+      return Reply.ok(this.rfcLog(deployment, query));
+    }
+    if ("PUT".equals(method)) {
+      Object state = ci(body).get("deploymentState");
+      deployment.ciState = String.valueOf(state);
+      if ("active".equals(state)) {
+        deployment.lockedUntil = System.currentTimeMillis() + deploymentMillis;
+        deployment.extras.put("retried", Boolean.TRUE);
+      }
+    }
+    return Reply.ok(this.deploymentJson(env, deployment));
+  }
+
+  private String state(Ci deployment) {
+    if ("active".equals(deployment.ciState)) {
+      for (Map<String, Object> record : this.records(deployment)) {
+        if ("failed".equals(record.get("dpmtRecordState"))) {
+          deployment.ciState = "failed";
+          return deployment.ciState;
+        }
+      }
+      if (System.currentTimeMillis() >= deployment.lockedUntil) {
+        deployment.ciState = "complete";
+      }
+    }
+    return deployment.ciState;
+  }
+
+  private Map<String, Object> deploymentJson(Ci env, Ci deployment) {
+    Map<String, Object> json = new LinkedHashMap<String, Object>();
+    json.put("deploymentId", deployment.ciId);
+    json.put("releaseId", deployment.bom);
+    json.put("nsPath", env.ciName);
+    json.put("deploymentState", this.state(deployment));
+    json.put("records", this.records(deployment));
+    return json;
+  }
+
+  /**
+   * Lists an RFC for each component of each platform of an environment.
+   */
+  private List<Map<String, Object>> newRecords(Ci env, boolean isFirst) {
+    List<Map<String, Object>> records = new ArrayList<Map<String, Object>>();
+    for (Ci platform : env.members("platforms").values()) {
+      int order = 0;
+      for (Ci component : platform.members("components").values()) {
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        record.put("rfcId", ids.incrementAndGet());
+        record.put("executionOrder", ++order);
+        record.put("ciName", component.ciName + "-" + platform.ciName);
+        record.put("ciClassName", component.ciClassName.replace("manifest.", "bom."));
+        record.put("rfcAction", isFirst ? "add" : "update");
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Gets the RFCs of a deployment, with the state each has by now. A step runs in its share of the
+   * deployment time, and an RFC of the failing component fails once its step would end.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> records(Ci deployment) {
+    List<Map<String, Object>> records = (List<Map<String, Object>>) deployment.extras
+        .getOrDefault("records", new ArrayList<Map<String, Object>>());
+    int steps = 0;
+    for (Map<String, Object> record : records) {
+      steps = Math.max(steps, (Integer) record.get("executionOrder"));
+    }
+    long total = Math.max(1, deploymentMillis);
+    long elapsed = System.currentTimeMillis() - (deployment.lockedUntil - deploymentMillis);
+    double done = "complete".equals(deployment.ciState) ? steps : (double) elapsed * steps / total;
+    boolean isRetried = deployment.extras.containsKey("retried");
+    int failedStep = Integer.MAX_VALUE;
+    for (Map<String, Object> record : records) {
+      int order = (Integer) record.get("executionOrder");
+      if (!isRetried && done >= order
+          && String.valueOf(record.get("ciName")).startsWith(failingComponent + "-")) {
+        failedStep = Math.min(failedStep, order);
+      }
+    }
+    boolean isActive = "active".equals(deployment.ciState);
+    for (Map<String, Object> record : records) {
+      int order = (Integer) record.get("executionOrder");
+      String state = "pending";
+      if (order == failedStep) {
+        state = String.valueOf(record.get("ciName")).startsWith(failingComponent + "-")
+            ? "failed" : "complete";
+      } else if (order < failedStep && done >= order) {
+        state = "complete";
+      } else if (order < failedStep && done >= order - 1 && isActive) {
+        state = "inprogress";
+      }
+      record.put("dpmtRecordState", state);
+    }
+    return records;
+  }
+
+  /**
+   * Serves the log of an RFC: a line once it started, another once it ended.
+   */
+  private List<Object> rfcLog(Ci deployment, String query) {
+    List<Object> logs = new ArrayList<Object>();
+    String rfcId = query == null ? "" : query.replaceAll(".*rfcId=([0-9]+).*", "$1");
+    for (Map<String, Object> record : this.records(deployment)) {
+      if (!rfcId.equals(String.valueOf(record.get("rfcId")))) {
+        continue;
+      }
+      List<Object> lines = new ArrayList<Object>();
+      String state = String.valueOf(record.get("dpmtRecordState"));
+      if (!"pending".equals(state)) {
+        lines.add(logLine("Running " + record.get("rfcAction") + " of " + record.get("ciName")));
+      }
+      if ("complete".equals(state) || "failed".equals(state)) {
+        lines.add(logLine(record.get("ciName") + " is " + state));
+      }
+      Map<String, Object> log = new LinkedHashMap<String, Object>();
+      log.put("id", record.get("rfcId"));
+      log.put("logData", lines);
+      logs.add(log);
+    }
+    return logs;
+  }
+
+  private static Map<String, Object> logLine(String message) {
+    Map<String, Object> line = new LinkedHashMap<String, Object>();
+    line.put("timestamp", System.currentTimeMillis());
+    line.put("level", "info");
+    line.put("message", message);
+    return line;
+  }
+
+  /**
+   * Serves the instances and actions of a component of an environment platform.
+   */
+  @SuppressWarnings("unchecked")
+  private Reply operations(Ci platform, String name, String what) {
+    Ci component = platform.members("components").get(name);
+    if (component == null) {
+      return Reply.notFound();
+    }
+    int count = 1;
+    Map<String, Object> redundancy = (Map<String, Object>) platform.extras.get("redundancy");
+    if (redundancy != null && redundancy.get("current") != null) {
+      count = Integer.parseInt(String.valueOf(redundancy.get("current")));
+    }
+    List<Object> list = new ArrayList<Object>();
+    if ("actions".equals(what)) {
+      for (String action : Arrays.asList("status", "reboot", "repair")) {
+        list.add(Collections.singletonMap("actionName", action));
+      }
+      return Reply.ok(list);
+    }
+    for (int i = 1; i <= count; i++) {
+      Ci instance = new Ci(component.ciId * 100 + i, component.ciName + "-" + i,
+          component.ciClassName.replace("manifest.", "bom."));
+      instance.attributes.put("private_ip", "10.0." + (component.ciId % 250) + "." + i);
+      instance.attributes.put("public_ip", "192.0.2." + i);
+      instance.attributes.put("hostname", instance.ciName);
+      list.add(instance.toJson());
+    }
+    return Reply.ok(list);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Reply procedure(String method, List<String> rest, String query,
+      Map<String, Object> body) {
+    if (rest.isEmpty() && "POST".equals(method)) {
+      Map<String, Object> request = ci(body);
+      Map<String, Object> procedure = new LinkedHashMap<String, Object>();
+      long id = ids.incrementAndGet();
+      procedure.put("procedureId", id);
+      procedure.put("ciId", request.get("ciId"));
+      procedure.put("procedureState", "active");
+      procedure.put("arglist", request.get("arglist"));
+      procedure.put("completeAt", System.currentTimeMillis() + deploymentMillis);
+      List<Object> actions = new ArrayList<Object>();
+      try {
+        Map<String, Object> definition =
+            MAPPER.readValue(String.valueOf(request.get("definition")), Map.class);
+        for (Object flow : (List<Object>) definition.get("flow")) {
+          for (Object target : (List<Object>) ((Map<String, Object>) flow).get("targetIds")) {
+            Map<String, Object> action = new LinkedHashMap<String, Object>();
+            action.put("actionId", ids.incrementAndGet());
+            action.put("procedureId", id);
+            action.put("ciId", Long.valueOf(String.valueOf(target)));
+            action.put("actionName", definition.get("name"));
+            action.put("actionState", "pending");
+            actions.add(action);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        // A platform procedure, without instance actions.
+      }
+      procedure.put("actions", actions);
+      int running = 1;
+      for (Map<String, Object> other : procedures.values()) {
+        if ("active".equals(other.get("procedureState"))
+            && System.currentTimeMillis() < (Long) other.get("completeAt")) {
+          running++;
+        }
+      }
+      peakProcedures = Math.max(peakProcedures, running);
+      procedures.put(id, procedure);
+      return Reply.ok(procedure);
+    }
+    if (rest.size() == 1 && "log_data".equals(rest.get(0))) {
+      return Reply.ok(this.actionLogs(query));
+    }
+    Map<String, Object> procedure = rest.size() == 1 ? procedures.get(parseId(rest.get(0))) : null;
+    if (procedure == null) {
+      return Reply.notFound();
+    }
+    String state = String.valueOf(procedure.get("procedureState"));
+    if ("PUT".equals(method)) {
+      state = String.valueOf(ci(body).get("procedureState"));
+    } else if ("active".equals(state)
+        && System.currentTimeMillis() >= (Long) procedure.get("completeAt")) {
+      state = "complete";
+      for (Object action : (List<Object>) procedure.get("actions")) {
+        if (this.isFailing((Map<String, Object>) action)) {
+          state = "failed";
+        }
+      }
+    }
+    procedure.put("procedureState", state);
+    for (Object item : (List<Object>) procedure.get("actions")) {
+      Map<String, Object> action = (Map<String, Object>) item;
+      String actionState = "active".equals(state) ? "inprogress" : state;
+      if ("failed".equals(state) && !this.isFailing(action)) {
+        actionState = "complete";
+      }
+      action.put("actionState", actionState);
+    }
+    return Reply.ok(procedure);
+  }
+
+  private boolean isFailing(Map<String, Object> action) {
+    return failingInstance != null && failingInstance.equals(action.get("ciId"));
+  }
+
+  /**
+   * Serves the logs of procedure actions: a line once running, one more for each third of the
+   * procedure time, and a last one once the procedure ended.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Object> actionLogs(String query) {
+    Long procedureId = null;
+    Set<String> actionIds = new HashSet<String>();
+    for (String param : (query == null ? "" : query).split("&")) {
+      String[] pair = param.split("=", 2);
+      if (pair.length == 2 && "procedure_id".equals(pair[0])) {
+        procedureId = parseId(pair[1]);
+      } else if (pair.length == 2 && "action_ids".equals(pair[0])) {
+        actionIds.add(pair[1]);
+      }
+    }
+    List<Object> logs = new ArrayList<Object>();
+    Map<String, Object> procedure = procedures.get(procedureId);
+    if (procedure == null) {
+      return logs;
+    }
+    String state = String.valueOf(procedure.get("procedureState"));
+    long total = Math.max(1, deploymentMillis);
+    long elapsed = total - ((Long) procedure.get("completeAt") - System.currentTimeMillis());
+    int thirds = (int) Math.min(2, Math.max(0, elapsed * 3 / total));
+    for (Object item : (List<Object>) procedure.get("actions")) {
+      Map<String, Object> action = (Map<String, Object>) item;
+      if (!actionIds.contains(String.valueOf(action.get("actionId")))) {
+        continue;
+      }
+      List<Object> lines = new ArrayList<Object>();
+      lines.add(logLine("Running " + action.get("actionName") + " on " + action.get("ciId")));
+      for (int i = 1; i <= thirds || !"active".equals(state) && i <= 2; i++) {
+        lines.add(logLine("Step " + i + " of " + action.get("actionName") + " done"));
+      }
+      if (!"active".equals(state)) {
+        lines.add(logLine(action.get("actionName") + " is " + state));
+      }
+      Map<String, Object> log = new LinkedHashMap<String, Object>();
+      log.put("id", action.get("actionId"));
+      log.put("logData", lines);
+      logs.add(log);
+    }
+    return logs;
+  }
+
+  private static Long parseId(String id) {
+    try {
+      return Long.valueOf(id);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the CI of a request body, e.g. its cms_ci or cms_dj_ci.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> ci(Map<String, Object> body) {
+    for (Object value : body.values()) {
+      if (value instanceof Map) {
+        return (Map<String, Object>) value;
+      }
+    }
+    return body;
+  }
+
+  /**
+   * Whether a read asks for the attribute props, which OneOps leaves out otherwise.
+   */
+  private static boolean isAttrProps(String query) {
+    return query != null && Arrays.asList(query.split("&")).contains("attr_props=owner");
+  }
+
+  private static Map<String, Object> template(String collection) {
+    Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+    if ("variables".equals(collection)) {
+      attributes.put("secure", "false");
+      attributes.put("value", "");
+    }
+    Map<String, Object> template = new LinkedHashMap<String, Object>();
+    template.put("ciClassName", className(collection));
+    template.put("ciAttributes", attributes);
+    template.put("ciAttrProps",
+        Collections.singletonMap("owner", new LinkedHashMap<String, Object>()));
+    return template;
+  }
+
+  private static String className(String collection) {
+    return "mock." + collection;
+  }
+
+  /**
+   * A latency distribution.
+   */
+  @FunctionalInterface
+  public interface Latency {
+
+    long sample(Random random);
+
+    static Latency fixed(long millis) {
+      return random -> millis;
+    }
+
+    static Latency uniform(long minMillis, long maxMillis) {
+      return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * A log-normal latency, the usual shape of service response times.
+     *
+     * @param medianMillis the median
+     * @param sigma the spread; 0.5 puts p99 at about three times the median
+     * @return the latency
+     */
+    static Latency logNormal(double medianMillis, double sigma) {
+      return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+  }
+
+  /**
+   * A CI with its namespaces and member collections.
+   */
+  private static class Ci {
+
+    final long ciId;
+    String ciName;
+    final String ciClassName;
+    String ciState = "default";
+    final Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+    final Map<String, Object> owner = new LinkedHashMap<String, Object>();
+    final Map<String, Object> extras = new LinkedHashMap<String, Object>();
+    final Map<String, Map<String, Ci>> collections = new LinkedHashMap<String, Map<String, Ci>>();
+    final Map<String, Ci> namespaces = new LinkedHashMap<String, Ci>();
+    long lockedUntil;
+    boolean designDirty;
+    long designRelease = 1;
+    Long bom;
+    Long lastRelease;
+
+    Ci(long ciId, String ciName, String ciClassName) {
+      this.ciId = ciId;
+      this.ciName = ciName;
+      this.ciClassName = ciClassName;
+    }
+
+    Ci namespace(String name) {
+      return namespaces.computeIfAbsent(name, key -> new Ci(0, key, "namespace"));
+    }
+
+    Map<String, Ci> members(String collection) {
+      return collections.computeIfAbsent(collection, key -> new LinkedHashMap<String, Ci>());
+    }
+
+    boolean hasCollection(String collection) {
+      return collections.containsKey(collection) || "components".equals(collection)
+          || "variables".equals(collection) || "attachments".equals(collection)
+          || "platforms".equals(collection) || "relays".equals(collection);
+    }
+
+    Ci find(String collection, String nameOrId) {
+      Map<String, Ci> members = this.members(collection);
+      Ci member = members.get(nameOrId);
+      if (member == null) {
+        for (Ci ci : members.values()) {
+          if (String.valueOf(ci.ciId).equals(nameOrId)) {
+            return ci;
+          }
+        }
+      }
+      return member;
+    }
+
+    @SuppressWarnings("unchecked")
+    void update(Map<String, Object> ci) {
+      Object attributes = ci.get("ciAttributes");
+      if (attributes instanceof Map) {
+        this.attributes.putAll((Map<String, Object>) attributes);
+      }
+      Object props = ci.get("ciAttrProps");
+      if (props instanceof Map && ((Map<String, Object>) props).get("owner") instanceof Map) {
+        owner.putAll((Map<String, Object>) ((Map<String, Object>) props).get("owner"));
+      }
+    }
+
+    Map<String, Object> toJson() {
+      return this.toJson(true);
+    }
+
+    Map<String, Object> toJson(boolean isAttrProps) {
+      Map<String, Object> json = new LinkedHashMap<String, Object>();
+      json.put("ciId", ciId);
+      json.put("ciName", ciName);
+      json.put("ciClassName", ciClassName);
+      json.put("nsPath", "/mock");
+      json.put("ciState",
+          System.currentTimeMillis() < lockedUntil && bom != null ? "locked" : ciState);
+      json.put("ciAttributes", attributes);
+      if (isAttrProps) {
+        json.put("ciAttrProps", Collections.singletonMap("owner", owner));
+      }
+      json.putAll(extras);
+      return json;
+    }
+  }
+
+  /**
+   * A response.
+   */
+  private static class Reply {
+
+    final int status;
+    final Object body;
+
+    Reply(int status, Object body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    static Reply ok(Object body) {
+      return new Reply(200, body);
+    }
+
+    static Reply notFound() {
+      return new Reply(404, Collections.singletonMap("errors", "Not found"));
+    }
+  }
+}
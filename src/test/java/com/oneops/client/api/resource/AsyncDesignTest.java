@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+public class AsyncDesignTest {
+
+  private HttpServer server;
+  private OOInstance instance;
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int status = name.startsWith("missing") ? 404 : 200;
+        byte[] body = ("{\"ciName\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+    server.setExecutor(Executors.newFixedThreadPool(4));
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void fansOutPlatformLookups() throws Exception {
+    AsyncDesign design = new AsyncDesign(instance, "a1");
+    List<CompletableFuture<String>> names = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      names.add(design.getPlatform("p" + i).thenApply(json -> json.getString("ciName")));
+    }
+    CompletableFuture.allOf(names.toArray(new CompletableFuture[0])).join();
+    for (int i = 0; i < 10; i++) {
+      assertEquals("p" + i, names.get(i).get());
+    }
+  }
+
+  @Test
+  public void failsWithClientException() throws Exception {
+    AsyncDesign design = new AsyncDesign(instance, "a1");
+    try {
+      design.getPlatform("missing").join();
+      fail("Expected the lookup to fail");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof OneOpsClientAPIException);
+    }
+  }
+}
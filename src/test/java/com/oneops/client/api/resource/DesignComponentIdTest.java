@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.util.MetadataCache;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DesignComponentIdTest {
+
+  private static final String COMPONENTS = "/org/assemblies/a1/design/platforms/p1/components/";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HttpServer server;
+  private OOInstance instance;
+  private File cacheFile;
+  private final AtomicInteger lookups = new AtomicInteger();
+  private volatile int componentId = 7;
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      String body = "{}";
+      int status = 404;
+      if (path.equals(COMPONENTS + "c1")) {
+        lookups.incrementAndGet();
+        body = "{\"ciId\":" + componentId + ",\"ciName\":\"c1\"}";
+        status = 200;
+      } else if (path.equals(COMPONENTS + componentId + "/attachments.json")) {
+        body = "[]";
+        status = 200;
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    });
+    server.start();
+    cacheFile = new File(folder.getRoot(), "org.properties");
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+    instance.setMetadataCache(new MetadataCache(cacheFile));
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void looksUpComponentOnce() throws Exception {
+    new Design(instance, "a1").fetchPlatformComponentAttachments("p1", "c1");
+    instance.setMetadataCache(new MetadataCache(cacheFile));
+    new Design(instance, "a1").fetchPlatformComponentAttachments("p1", "c1");
+    assertEquals(1, lookups.get());
+    assertEquals(1, instance.getMetadataCache().getHits());
+  }
+
+  @Test
+  public void retriesWithRecreatedComponent() throws Exception {
+    Design design = new Design(instance, "a1");
+    design.fetchPlatformComponentAttachments("p1", "c1");
+    componentId = 8;
+    assertEquals(0, design.fetchPlatformComponentAttachments("p1", "c1").size());
+    assertEquals(2, lookups.get());
+    assertEquals("8", instance.getMetadataCache().get("a1/component/p1/c1"));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+  @Test
+  public void growsWhileRequestsSucceed() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(2, 10);
+    for (int round = 0; round < 50; round++) {
+      int limit = limiter.getLimit();
+      for (int i = 0; i < limit; i++) {
+        limiter.acquire();
+      }
+      for (int i = 0; i < limit; i++) {
+        limiter.release(FAST, false);
+      }
+    }
+    assertEquals(10, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void halvesOnceForBurstOfErrors() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(8, 8);
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire();
+    }
+    for (int i = 0; i < 3; i++) {
+      limiter.release(FAST, true);
+    }
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  public void backsOffOnSlowResponses() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(10, 10);
+    limiter.acquire();
+    limiter.release(FAST, false);
+    limiter.acquire();
+    limiter.release(TimeUnit.MILLISECONDS.toNanos(500), false);
+    assertEquals(9, limiter.getLimit());
+  }
+
+  @Test
+  public void waitsForLimit() throws Exception {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1);
+    limiter.acquire();
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      limiter.acquire();
+      acquired.countDown();
+    });
+    waiter.start();
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.release(FAST, false);
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.getThrottled());
+    assertEquals(1, limiter.getInFlight());
+  }
+}
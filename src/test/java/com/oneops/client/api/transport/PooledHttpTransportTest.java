@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.OOInstance;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+public class PooledHttpTransportTest {
+
+  private HttpServer server;
+  private OOInstance instance;
+  private volatile String lastAuthorization;
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+        byte[] body = "{\"ciName\":\"a1\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+    instance.setMaxConnectionsPerRoute(4);
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void reusesConnectionsAcrossRequests() {
+    Transport transport = instance.getTransport();
+    for (int i = 0; i < 5; i++) {
+      assertEquals("a1",
+          transport.newRequest().get("/assemblies/a1").getBody().jsonPath().getString("ciName"));
+    }
+    TransportStats stats = transport.getStats();
+    assertEquals(5, stats.getRequests());
+    assertEquals(4, stats.getReusedConnections());
+    assertEquals(4, stats.getMaxPerRoute());
+    assertEquals(0, stats.getLeased());
+    assertTrue(lastAuthorization.startsWith("Basic "));
+  }
+
+  @Test
+  public void sharesTransportPerInstance() {
+    assertTrue(instance.getTransport() == instance.getTransport());
+  }
+}
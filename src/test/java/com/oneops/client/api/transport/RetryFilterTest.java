@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jayway.restassured.response.Response;
+import com.oneops.client.api.OOInstance;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryFilterTest {
+
+  private HttpServer server;
+  private OOInstance instance;
+  private final Queue<Integer> statuses = new ConcurrentLinkedQueue<Integer>();
+  private final AtomicInteger hits = new AtomicInteger();
+
+  @Before
+  public void beforeTests() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      hits.incrementAndGet();
+      Integer status = statuses.poll();
+      byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname("org");
+    instance.setAuthtoken("token");
+  }
+
+  @After
+  public void afterTests() {
+    instance.getTransport().close();
+    server.stop(0);
+  }
+
+  @Test
+  public void retriesTransientFailures() {
+    instance.setRetryPolicy(new RetryPolicy(3, 1, 5, 0.2, 0, 0));
+    statuses.add(503);
+    statuses.add(500);
+    assertEquals(200, get().getStatusCode());
+    assertEquals(3, hits.get());
+    RetryStats stats = instance.getTransport().getStats().getRetries();
+    assertEquals(1, stats.getRequests());
+    assertEquals(2, stats.getRetries());
+    assertEquals(0, stats.getFailures());
+  }
+
+  @Test
+  public void sendsPostAgainOnlyIfNotProcessed() {
+    instance.setRetryPolicy(new RetryPolicy(3, 1, 5, 0.2, 0, 0));
+    statuses.add(500);
+    assertEquals(500, instance.getTransport().newRequest().post("/assemblies").getStatusCode());
+    assertEquals(1, hits.get());
+
+    statuses.add(429);
+    assertEquals(200, instance.getTransport().newRequest().post("/assemblies").getStatusCode());
+    assertEquals(3, hits.get());
+  }
+
+  @Test
+  public void stopsWithinRetryBudget() {
+    instance.setRetryPolicy(new RetryPolicy(100, 0, 0, 0, 0, 0));
+    for (int i = 0; i < 20; i++) {
+      statuses.add(500);
+    }
+    assertEquals(500, get().getStatusCode());
+    assertEquals(RetryPolicy.MIN_RETRY_BUDGET + 1, hits.get());
+    assertEquals(1, instance.getTransport().getStats().getRetries().getBudgetExhausted());
+  }
+
+  @Test
+  public void opensCircuitUntilProbeSucceeds() throws Exception {
+    instance.setRetryPolicy(new RetryPolicy(1, 0, 0, 0, 2, 200));
+    statuses.add(500);
+    statuses.add(502);
+    assertEquals(500, get().getStatusCode());
+    assertEquals(502, get().getStatusCode());
+
+    Response open = get();
+    assertEquals(503, open.getStatusCode());
+    assertTrue(open.getStatusLine().contains("Circuit open"));
+    assertEquals(2, hits.get());
+    assertEquals("OPEN", instance.getTransport().getStats().getRetries().getCircuit());
+
+    Thread.sleep(250);
+    assertEquals(200, get().getStatusCode());
+    RetryStats stats = instance.getTransport().getStats().getRetries();
+    assertEquals("CLOSED", stats.getCircuit());
+    assertEquals(1, stats.getShortCircuited());
+    assertEquals(1, stats.getCircuitOpened());
+  }
+
+  private Response get() {
+    return instance.getTransport().newRequest().get("/assemblies/a1");
+  }
+}
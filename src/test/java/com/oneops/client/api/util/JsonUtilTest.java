@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.oneops.client.api.resource.model.CiResource;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.Environment;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class JsonUtilTest {
+
+  @Test
+  public void readsListOfCis() throws Exception {
+    List<CiResource> cis = JsonUtil.readList(json("[{\"ciId\":11,\"ciName\":\"compute\","
+        + "\"ciAttributes\":{\"private_ip\":\"10.0.0.1\"},\"unknown\":{\"a\":[1,2]}},"
+        + "{\"ciId\":12,\"ciName\":\"user\",\"ciAttrProps\":{\"owner\":{\"ssh_keys\":\"design\"}}}]"),
+        CiResource.class);
+    assertEquals(2, cis.size());
+    assertEquals(Long.valueOf(11), cis.get(0).getCiId());
+    assertEquals("10.0.0.1", cis.get(0).getAttribute("private_ip"));
+    assertFalse(cis.get(0).hasOwnedAttributes());
+    assertEquals("user", cis.get(1).getCiName());
+    assertTrue(cis.get(1).hasOwnedAttributes());
+  }
+
+  @Test
+  public void readsEmptyOrNonArrayAsEmptyList() throws Exception {
+    assertTrue(JsonUtil.readList(json("[]"), CiResource.class).isEmpty());
+    assertTrue(JsonUtil.readList(json("{\"ciId\":1}"), CiResource.class).isEmpty());
+  }
+
+  @Test
+  public void readsSingleValues() throws Exception {
+    Deployment deployment = JsonUtil.readValue(
+        json("{\"deploymentId\":5,\"releaseId\":4,\"deploymentState\":\"active\"}"),
+        Deployment.class);
+    assertEquals(Long.valueOf(5), deployment.getDeploymentId());
+    assertEquals("active", deployment.getDeploymentState());
+    Environment env = JsonUtil.readValue(
+        json("{\"ciName\":\"dev\",\"clouds\":{\"101\":{\"priority\":\"1\"}}}"), Environment.class);
+    assertEquals("1", env.getClouds().get("101").get("priority"));
+  }
+
+  private InputStream json(String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class MetadataCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void keepsEntriesAcrossRuns() throws Exception {
+    File file = new File(folder.getRoot(), "cache/org.properties");
+    MetadataCache cache = new MetadataCache(file);
+    assertNull(cache.get("cloud/dev"));
+    cache.put("cloud/dev", "42", MetadataCache.CLOUD_TTL);
+    assertEquals("42", cache.get("cloud/dev"));
+
+    MetadataCache next = new MetadataCache(file);
+    assertEquals("42", next.get("cloud/dev"));
+    assertEquals(1, next.getHits());
+    assertEquals(0, next.getMisses());
+  }
+
+  @Test
+  public void expiresEntries() throws Exception {
+    MetadataCache cache = new MetadataCache(new File(folder.getRoot(), "org.properties"));
+    cache.put("cloud/dev", "42", -1);
+    assertNull(cache.get("cloud/dev"));
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void invalidatesByPrefix() throws Exception {
+    File file = new File(folder.getRoot(), "org.properties");
+    MetadataCache cache = new MetadataCache(file);
+    cache.put("a1/component/p1/c1", "1", MetadataCache.DESIGN_TTL);
+    cache.put("a1/component/p2/c1", "2", MetadataCache.DESIGN_TTL);
+    cache.put("a2/component/p1/c1", "3", MetadataCache.DESIGN_TTL);
+    cache.invalidateAll("a1/component/p1/");
+    cache.invalidate("a2/component/p1/c1");
+
+    MetadataCache next = new MetadataCache(file);
+    assertNull(next.get("a1/component/p1/c1"));
+    assertEquals("2", next.get("a1/component/p2/c1"));
+    assertNull(next.get("a2/component/p1/c1"));
+
+    next.clear();
+    assertNull(new MetadataCache(file).get("a1/component/p2/c1"));
+  }
+
+  @Test
+  public void noneCachesNothing() {
+    MetadataCache.NONE.put("cloud/dev", "42", MetadataCache.CLOUD_TTL);
+    assertNull(MetadataCache.NONE.get("cloud/dev"));
+    assertFalse(new File(folder.getRoot(), "cache").exists());
+  }
+}
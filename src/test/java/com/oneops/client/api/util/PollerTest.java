@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PollerTest {
+
+  @Test
+  public void returnsOnFirstProbeWhenAlreadySettled() throws Exception {
+    Poller poller = Poller.builder("settled").firstDelay(0, TimeUnit.MILLISECONDS).build();
+    assertEquals("open", poller.await(() -> "open", state -> !"locked".equals(state)));
+    assertEquals(1, poller.getLastStats().getPolls());
+    assertEquals(PollStats.Outcome.DONE, poller.getLastStats().getOutcome());
+  }
+
+  @Test
+  public void backsOffUntilDone() throws Exception {
+    AtomicInteger probes = new AtomicInteger();
+    Poller poller = Poller.builder("backoff").firstDelay(1, TimeUnit.MILLISECONDS)
+        .initialInterval(2, TimeUnit.MILLISECONDS).maxInterval(8, TimeUnit.MILLISECONDS)
+        .jitter(0.5).build();
+    int value = poller.await(() -> probes.incrementAndGet(), count -> count == 6);
+    assertEquals(6, value);
+    assertEquals(6, poller.getLastStats().getPolls());
+  }
+
+  @Test
+  public void progressRestartsBackoff() throws Exception {
+    AtomicInteger probes = new AtomicInteger();
+    Poller poller = Poller.builder("progress").firstDelay(0, TimeUnit.MILLISECONDS)
+        .initialInterval(10, TimeUnit.MILLISECONDS).maxInterval(1, TimeUnit.HOURS)
+        .multiplier(1000).jitter(0).timeout(5, TimeUnit.SECONDS).build();
+    int value = poller.await(() -> probes.incrementAndGet(), count -> count == 5, count -> true);
+    assertEquals(5, value);
+    assertTrue(poller.getLastStats().getElapsedMillis() < 2000);
+  }
+
+  @Test
+  public void failsAfterDeadline() {
+    Poller poller = Poller.builder("deadline").firstDelay(1, TimeUnit.MILLISECONDS)
+        .initialInterval(5, TimeUnit.MILLISECONDS).timeout(50, TimeUnit.MILLISECONDS).build();
+    try {
+      poller.await(() -> "locked", state -> false);
+      fail("Expected a timeout");
+    } catch (OneOpsClientAPIException e) {
+      assertEquals(PollStats.Outcome.TIMEOUT, poller.getLastStats().getOutcome());
+      assertTrue(poller.getLastStats().getPolls() > 1);
+    }
+  }
+
+  @Test
+  public void stopsWhenCancelled() {
+    Poller poller = Poller.builder("cancel").initialInterval(1, TimeUnit.HOURS).build();
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(poller::cancel, 600, TimeUnit.MILLISECONDS);
+      poller.await(() -> "locked", state -> false);
+      fail("Expected a cancellation");
+    } catch (OneOpsClientAPIException e) {
+      assertEquals(PollStats.Outcome.CANCELLED, poller.getLastStats().getOutcome());
+      assertEquals(1, poller.getLastStats().getPolls());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}